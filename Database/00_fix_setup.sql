@@ -66,5 +66,5 @@ PROMPT ============================================
 PROMPT
 PROMPT Prochaines étapes :
 PROMPT 1. Se connecter : sqlplus healthcare_admin/admin123@localhost:1521/XE
-PROMPT 2. Exécuter les scripts applicatifs : 01_CREATE_TABLES.sql à 07_DATA.sql
+PROMPT 2. Exécuter les scripts applicatifs : 01_CREATE_TABLES.sql à 08_MIGRATION_PAIEMENT.sql
 PROMPT ============================================
\ No newline at end of file
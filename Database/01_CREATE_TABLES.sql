@@ -6,6 +6,10 @@
 -- Nettoyage 
 /*
 DROP TABLE TRAITEMENT CASCADE CONSTRAINTS;
+DROP TABLE COMPTEUR_FACTURE CASCADE CONSTRAINTS;
+DROP TABLE REPRISE_FACTURATION CASCADE CONSTRAINTS;
+DROP TABLE PAIEMENT CASCADE CONSTRAINTS;
+DROP TABLE DOUBLON_PATIENT CASCADE CONSTRAINTS;
 DROP TABLE FACTURE CASCADE CONSTRAINTS;
 DROP TABLE CONSULTATION CASCADE CONSTRAINTS;
 DROP TABLE RENDEZ_VOUS CASCADE CONSTRAINTS;
@@ -23,6 +27,8 @@ DROP SEQUENCE seq_consultation;
 DROP SEQUENCE seq_traitement;
 DROP SEQUENCE seq_medicament;
 DROP SEQUENCE seq_facture;
+DROP SEQUENCE seq_paiement;
+DROP SEQUENCE seq_doublon_patient;
 DROP SEQUENCE seq_utilisateur;
 */
 
@@ -38,6 +44,8 @@ CREATE SEQUENCE seq_consultation START WITH 1 INCREMENT BY 1 NOCACHE;
 CREATE SEQUENCE seq_traitement START WITH 1 INCREMENT BY 1 NOCACHE;
 CREATE SEQUENCE seq_medicament START WITH 1 INCREMENT BY 1 NOCACHE;
 CREATE SEQUENCE seq_facture START WITH 1 INCREMENT BY 1 NOCACHE;
+CREATE SEQUENCE seq_paiement START WITH 1 INCREMENT BY 1 CACHE 100;
+CREATE SEQUENCE seq_doublon_patient START WITH 1 INCREMENT BY 1 CACHE 100;
 CREATE SEQUENCE seq_utilisateur START WITH 1 INCREMENT BY 1 NOCACHE;
 
 PROMPT Sequences creees avec succes
@@ -116,6 +124,8 @@ CREATE TABLE PATIENT (
 );
 
 CREATE INDEX idx_patient_nom ON PATIENT(nom, prenom);
+-- Recherche par prefixe sans casse tant que les index en memoire ne sont pas charges
+CREATE INDEX idx_patient_nom_maj ON PATIENT(UPPER(nom), UPPER(prenom));
 CREATE INDEX idx_patient_cin ON PATIENT(cin);
 CREATE INDEX idx_patient_email ON PATIENT(email);
 
@@ -264,6 +274,101 @@ COMMENT ON COLUMN FACTURE.numero_facture IS 'Format: FAC-YYYY-NNNN';
 
 PROMPT Table FACTURE creee
 
+-- ============================================
+-- TABLE COMPTEUR_FACTURE
+-- Une ligne par annee : prochain numero de facture a attribuer.
+-- Les numeros sont reserves par blocs (FN_RESERVER_NUMEROS_FACTURE),
+-- sans parcourir FACTURE ; un numero reserve non utilise laisse un trou.
+-- ============================================
+
+CREATE TABLE COMPTEUR_FACTURE (
+    annee NUMBER(4) PRIMARY KEY,
+    prochain NUMBER(10) DEFAULT 1 NOT NULL CHECK (prochain >= 1)
+);
+
+COMMENT ON TABLE COMPTEUR_FACTURE IS 'Compteur annuel des numeros de facture';
+
+PROMPT Table COMPTEUR_FACTURE creee
+
+-- ============================================
+-- TABLE REPRISE_FACTURATION
+-- Point de reprise de la facturation en masse : une ligne par lot
+-- (periode traitee), derniere consultation facturee et cumul.
+-- ============================================
+
+CREATE TABLE REPRISE_FACTURATION (
+    cle_lot VARCHAR2(50) PRIMARY KEY,
+    derniere_consultation NUMBER(10) DEFAULT 0 NOT NULL,
+    factures_creees NUMBER(10) DEFAULT 0 NOT NULL,
+    statut VARCHAR2(20) DEFAULT 'EN_COURS' CHECK (statut IN ('EN_COURS', 'TERMINE')),
+    date_maj DATE DEFAULT SYSDATE NOT NULL
+);
+
+COMMENT ON TABLE REPRISE_FACTURATION IS 'Points de reprise de la facturation en masse';
+
+PROMPT Table REPRISE_FACTURATION creee
+
+-- ============================================
+-- TABLE PAIEMENT
+-- Journal des paiements en ajout seul : FACTURE.montant_paye en est le
+-- cumul materialise. cle_idempotence est generee par le poste de caisse :
+-- un paiement rejoue (double clic, nouvelle tentative) n'est compte qu'une fois.
+-- ============================================
+
+CREATE TABLE PAIEMENT (
+    id_paiement NUMBER(12) PRIMARY KEY,
+    cle_idempotence VARCHAR2(64) NOT NULL,
+    id_facture NUMBER(10) NOT NULL,
+    montant NUMBER(10,2) NOT NULL CHECK (montant > 0),
+    mode_paiement VARCHAR2(20) NOT NULL CHECK (mode_paiement IN ('ESPECES', 'CARTE', 'CHEQUE', 'VIREMENT')),
+    date_paiement DATE NOT NULL,
+    date_enregistrement DATE DEFAULT SYSDATE NOT NULL,
+    CONSTRAINT uk_paiement_cle UNIQUE (cle_idempotence),
+    CONSTRAINT fk_paiement_facture FOREIGN KEY (id_facture)
+        REFERENCES FACTURE(id_facture)
+);
+
+CREATE INDEX idx_paiement_facture ON PAIEMENT(id_facture);
+
+COMMENT ON TABLE PAIEMENT IS 'Journal des paiements (ajout seul)';
+COMMENT ON COLUMN PAIEMENT.cle_idempotence IS 'Cle unique generee par le client (UUID)';
+
+-- Reprise des factures deja reglees : 08_MIGRATION_PAIEMENT.sql
+
+PROMPT Table PAIEMENT creee
+
+-- ============================================
+-- TABLE DOUBLON_PATIENT
+-- Doublons probables trouves par la detection en masse, a verifier :
+-- une ligne par patient d'un groupe (id_groupe = plus petit id_patient du groupe),
+-- avec le patient le plus proche et les champs concordants. Les lignes deja
+-- verifiees (CONFIRME, REJETE) sont conservees d'une detection a l'autre.
+-- ============================================
+
+CREATE TABLE DOUBLON_PATIENT (
+    id_doublon NUMBER(12) PRIMARY KEY,
+    id_groupe NUMBER(10) NOT NULL,
+    id_patient NUMBER(10) NOT NULL,
+    id_patient_proche NUMBER(10) NOT NULL,
+    score NUMBER(4,3) NOT NULL CHECK (score BETWEEN 0 AND 1),
+    score_groupe NUMBER(4,3) NOT NULL CHECK (score_groupe BETWEEN 0 AND 1),
+    motifs VARCHAR2(200),
+    statut VARCHAR2(20) DEFAULT 'A_VERIFIER' NOT NULL CHECK (statut IN ('A_VERIFIER', 'CONFIRME', 'REJETE')),
+    date_detection DATE DEFAULT SYSDATE NOT NULL,
+    CONSTRAINT uk_doublon_groupe_patient UNIQUE (id_groupe, id_patient),
+    CONSTRAINT fk_doublon_patient FOREIGN KEY (id_patient)
+        REFERENCES PATIENT(id_patient) ON DELETE CASCADE,
+    CONSTRAINT fk_doublon_proche FOREIGN KEY (id_patient_proche)
+        REFERENCES PATIENT(id_patient) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_doublon_statut ON DOUBLON_PATIENT(statut, score_groupe);
+
+COMMENT ON TABLE DOUBLON_PATIENT IS 'Doublons probables de patients a verifier';
+COMMENT ON COLUMN DOUBLON_PATIENT.motifs IS 'Champs concordants avec le patient le plus proche';
+
+PROMPT Table DOUBLON_PATIENT creee
+
 -- ============================================
 -- TABLE UTILISATEUR
 -- ============================================
@@ -409,6 +409,11 @@ BEGIN
         v_nouveau_statut := 'EN_ATTENTE';
     END IF;
     
+    -- Journaliser le paiement (FACTURE.montant_paye en est le cumul)
+    INSERT INTO PAIEMENT (id_paiement, cle_idempotence, id_facture, montant, mode_paiement, date_paiement)
+    VALUES (seq_paiement.NEXTVAL, 'SP-' || RAWTOHEX(SYS_GUID()), p_id_facture, p_montant_paye,
+            p_mode_paiement, SYSDATE);
+    
     -- Mettre a jour la facture
     UPDATE FACTURE
     SET montant_paye = v_nouveau_montant_paye,
@@ -62,35 +62,71 @@ EXCEPTION
 END FN_VERIFIER_DISPO_MEDECIN;
 /
 
+-- ============================================
+-- FONCTION 3a : FN_RESERVER_NUMEROS_FACTURE
+-- Description : Reserver un bloc de numeros de facture pour une annee
+-- Retourne : le premier numero du bloc [debut, debut + p_taille - 1]
+-- Transaction autonome : le verrou sur la ligne du compteur est libere
+-- immediatement, quelle que soit la duree de la transaction appelante.
+-- ============================================
+
+CREATE OR REPLACE FUNCTION FN_RESERVER_NUMEROS_FACTURE (
+    p_annee IN NUMBER,
+    p_taille IN NUMBER
+) RETURN NUMBER
+AS
+    PRAGMA AUTONOMOUS_TRANSACTION;
+    v_debut NUMBER;
+    v_dernier NUMBER;
+BEGIN
+    UPDATE COMPTEUR_FACTURE
+    SET prochain = prochain + p_taille
+    WHERE annee = p_annee
+    RETURNING prochain - p_taille INTO v_debut;
+
+    IF SQL%ROWCOUNT = 0 THEN
+        -- Premiere reservation de l'annee : reprise apres les numeros existants
+        -- (parcours de l'index unique sur le seul prefixe de l'annee, une fois par an)
+        SELECT NVL(MAX(TO_NUMBER(SUBSTR(numero_facture, 10))), 0) INTO v_dernier
+        FROM FACTURE
+        WHERE numero_facture LIKE 'FAC-' || p_annee || '-%';
+
+        BEGIN
+            INSERT INTO COMPTEUR_FACTURE (annee, prochain)
+            VALUES (p_annee, v_dernier + 1 + p_taille);
+            v_debut := v_dernier + 1;
+        EXCEPTION
+            WHEN DUP_VAL_ON_INDEX THEN
+                -- Ligne creee entre-temps par une autre session
+                UPDATE COMPTEUR_FACTURE
+                SET prochain = prochain + p_taille
+                WHERE annee = p_annee
+                RETURNING prochain - p_taille INTO v_debut;
+        END;
+    END IF;
+
+    COMMIT;
+    RETURN v_debut;
+END FN_RESERVER_NUMEROS_FACTURE;
+/
+
 -- ============================================
 -- FONCTION 3 : FN_GENERER_NUM_FACTURE
 -- Description : Generer un numero de facture unique
--- Format : FAC-YYYY-NNNN
+-- Format : FAC-YYYY-NNNN (compteur annuel, sans parcours de FACTURE)
 -- ============================================
 
 CREATE OR REPLACE FUNCTION FN_GENERER_NUM_FACTURE
 RETURN VARCHAR2
 AS
-    v_annee VARCHAR2(4);
+    v_annee NUMBER;
     v_numero NUMBER;
-    v_num_facture VARCHAR2(20);
 BEGIN
-    -- Recuperer l'annee courante
-    v_annee := TO_CHAR(SYSDATE, 'YYYY');
-    
-    -- Compter le nombre de factures de l'annee
-    SELECT COUNT(*) + 1 INTO v_numero
-    FROM FACTURE
-    WHERE TO_CHAR(date_facture, 'YYYY') = v_annee;
-    
-    -- Generer le numero de facture
-    v_num_facture := 'FAC-' || v_annee || '-' || LPAD(v_numero, 4, '0');
-    
-    RETURN v_num_facture;
-    
-EXCEPTION
-    WHEN OTHERS THEN
-        RETURN 'FAC-' || v_annee || '-' || LPAD(seq_facture.NEXTVAL, 4, '0');
+    v_annee := EXTRACT(YEAR FROM SYSDATE);
+    v_numero := FN_RESERVER_NUMEROS_FACTURE(v_annee, 1);
+
+    -- 4 chiffres minimum, sans tronquer au-dela de 9999
+    RETURN 'FAC-' || v_annee || '-' || LPAD(v_numero, GREATEST(4, LENGTH(v_numero)), '0');
 END FN_GENERER_NUM_FACTURE;
 /
 
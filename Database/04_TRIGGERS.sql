@@ -184,8 +184,9 @@ CREATE TABLE AUDIT_LOG (
 CREATE SEQUENCE seq_audit_log START WITH 1 INCREMENT BY 1;
 
 -- Trigger pour PATIENT
+-- Seules les colonnes journalisees declenchent l'audit en UPDATE
 CREATE OR REPLACE TRIGGER TRG_AUDIT_PATIENT
-AFTER INSERT OR UPDATE OR DELETE ON PATIENT
+AFTER INSERT OR UPDATE OF cin, nom, prenom OR DELETE ON PATIENT
 FOR EACH ROW
 DECLARE
     PRAGMA AUTONOMOUS_TRANSACTION;
@@ -339,6 +340,228 @@ BEGIN
 END;
 /
 
+-- ============================================
+-- TRIGGER 8 : TRG_JOURNAL_MODIFICATIONS
+-- Description : Noter les lignes modifiees pour les sauvegardes incrementales
+-- ============================================
+
+-- Une ligne par INSERT/UPDATE/DELETE, ecrite dans la transaction de la
+-- modification (pas de transaction autonome : une modification annulee
+-- n'est pas notee). ROWDEPENDENCIES donne a chaque ligne le SCN de
+-- validation de sa transaction (ORA_ROWSCN), qui sert de point de reprise.
+-- Les lignes deja sauvegardees sont purgees apres chaque sauvegarde.
+CREATE TABLE JOURNAL_MODIFICATIONS (
+    id_modif NUMBER PRIMARY KEY,
+    nom_table VARCHAR2(30) NOT NULL,
+    id_ligne NUMBER(10) NOT NULL,
+    operation CHAR(1) NOT NULL CHECK (operation IN ('I', 'U', 'D')),
+    date_modif TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL
+) ROWDEPENDENCIES;
+
+CREATE SEQUENCE seq_journal_modif START WITH 1 INCREMENT BY 1 CACHE 100;
+
+COMMENT ON TABLE JOURNAL_MODIFICATIONS IS 'Lignes modifiees depuis la derniere sauvegarde';
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_DEPARTEMENT
+AFTER INSERT OR UPDATE OR DELETE ON DEPARTEMENT
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'DEPARTEMENT', COALESCE(:NEW.id_departement, :OLD.id_departement), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_MEDECIN
+AFTER INSERT OR UPDATE OR DELETE ON MEDECIN
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'MEDECIN', COALESCE(:NEW.id_medecin, :OLD.id_medecin), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_PATIENT
+AFTER INSERT OR UPDATE OR DELETE ON PATIENT
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'PATIENT', COALESCE(:NEW.id_patient, :OLD.id_patient), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_UTILISATEUR
+AFTER INSERT OR UPDATE OR DELETE ON UTILISATEUR
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'UTILISATEUR', COALESCE(:NEW.id_utilisateur, :OLD.id_utilisateur), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_RENDEZ_VOUS
+AFTER INSERT OR UPDATE OR DELETE ON RENDEZ_VOUS
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'RENDEZ_VOUS', COALESCE(:NEW.id_rdv, :OLD.id_rdv), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_MEDICAMENT
+AFTER INSERT OR UPDATE OR DELETE ON MEDICAMENT
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'MEDICAMENT', COALESCE(:NEW.id_medicament, :OLD.id_medicament), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_CONSULTATION
+AFTER INSERT OR UPDATE OR DELETE ON CONSULTATION
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'CONSULTATION', COALESCE(:NEW.id_consultation, :OLD.id_consultation), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_TRAITEMENT
+AFTER INSERT OR UPDATE OR DELETE ON TRAITEMENT
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'TRAITEMENT', COALESCE(:NEW.id_traitement, :OLD.id_traitement), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_FACTURE
+AFTER INSERT OR UPDATE OR DELETE ON FACTURE
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'FACTURE', COALESCE(:NEW.id_facture, :OLD.id_facture), v_operation);
+END;
+/
+
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_PAIEMENT
+AFTER INSERT OR UPDATE OR DELETE ON PAIEMENT
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'PAIEMENT', COALESCE(:NEW.id_paiement, :OLD.id_paiement), v_operation);
+END;
+/
+
+-- La cle de COMPTEUR_FACTURE est l'annee. REPRISE_FACTURATION (cle texte) n'est pas
+-- journalisee : chaque sauvegarde incrementale la recopie en entier.
+CREATE OR REPLACE TRIGGER TRG_JOURNAL_COMPTEUR_FACTURE
+AFTER INSERT OR UPDATE OR DELETE ON COMPTEUR_FACTURE
+FOR EACH ROW
+DECLARE
+    v_operation CHAR(1);
+BEGIN
+    IF INSERTING THEN
+        v_operation := 'I';
+    ELSIF UPDATING THEN
+        v_operation := 'U';
+    ELSE
+        v_operation := 'D';
+    END IF;
+    INSERT INTO JOURNAL_MODIFICATIONS (id_modif, nom_table, id_ligne, operation)
+    VALUES (seq_journal_modif.NEXTVAL, 'COMPTEUR_FACTURE', COALESCE(:NEW.annee, :OLD.annee), v_operation);
+END;
+/
+
 PROMPT ============================================
 PROMPT Triggers crees avec succes !
 PROMPT ============================================
\ No newline at end of file
@@ -35,8 +35,12 @@ GRANT ALL ON CONSULTATION TO ROLE_ADMIN;
 GRANT ALL ON TRAITEMENT TO ROLE_ADMIN;
 GRANT ALL ON MEDICAMENT TO ROLE_ADMIN;
 GRANT ALL ON FACTURE TO ROLE_ADMIN;
+GRANT ALL ON REPRISE_FACTURATION TO ROLE_ADMIN;
+GRANT SELECT, INSERT ON PAIEMENT TO ROLE_ADMIN;
+GRANT ALL ON DOUBLON_PATIENT TO ROLE_ADMIN;
 GRANT ALL ON UTILISATEUR TO ROLE_ADMIN;
 GRANT ALL ON AUDIT_LOG TO ROLE_ADMIN;
+GRANT ALL ON JOURNAL_MODIFICATIONS TO ROLE_ADMIN;
 
 -- Privileges sur les vues
 GRANT SELECT ON V_PLANNING_MEDECIN TO ROLE_ADMIN;
@@ -59,6 +63,8 @@ GRANT SELECT ON seq_consultation TO ROLE_ADMIN;
 GRANT SELECT ON seq_traitement TO ROLE_ADMIN;
 GRANT SELECT ON seq_medicament TO ROLE_ADMIN;
 GRANT SELECT ON seq_facture TO ROLE_ADMIN;
+GRANT SELECT ON seq_paiement TO ROLE_ADMIN;
+GRANT SELECT ON seq_doublon_patient TO ROLE_ADMIN;
 GRANT SELECT ON seq_utilisateur TO ROLE_ADMIN;
 
 -- Privileges sur les procedures et fonctions
@@ -73,6 +79,7 @@ GRANT EXECUTE ON SP_ENREGISTRER_PAIEMENT TO ROLE_ADMIN;
 GRANT EXECUTE ON FN_CALCULER_AGE TO ROLE_ADMIN;
 GRANT EXECUTE ON FN_VERIFIER_DISPO_MEDECIN TO ROLE_ADMIN;
 GRANT EXECUTE ON FN_GENERER_NUM_FACTURE TO ROLE_ADMIN;
+GRANT EXECUTE ON FN_RESERVER_NUMEROS_FACTURE TO ROLE_ADMIN;
 GRANT EXECUTE ON FN_CALCULER_MONTANT_MEDICAMENTS TO ROLE_ADMIN;
 
 PROMPT Privileges ADMIN attribues
@@ -135,6 +142,9 @@ GRANT SELECT, INSERT, UPDATE ON PATIENT TO ROLE_RECEPTIONNISTE;
 -- Gestion complete des factures
 GRANT SELECT, INSERT, UPDATE ON FACTURE TO ROLE_RECEPTIONNISTE;
 
+-- Journal des paiements : ajout seul
+GRANT SELECT, INSERT ON PAIEMENT TO ROLE_RECEPTIONNISTE;
+
 -- Lecture seule sur consultations
 GRANT SELECT ON CONSULTATION TO ROLE_RECEPTIONNISTE;
 
@@ -154,6 +164,7 @@ GRANT EXECUTE ON SP_ENREGISTRER_PAIEMENT TO ROLE_RECEPTIONNISTE;
 GRANT EXECUTE ON FN_CALCULER_AGE TO ROLE_RECEPTIONNISTE;
 GRANT EXECUTE ON FN_VERIFIER_DISPO_MEDECIN TO ROLE_RECEPTIONNISTE;
 GRANT EXECUTE ON FN_GENERER_NUM_FACTURE TO ROLE_RECEPTIONNISTE;
+GRANT EXECUTE ON FN_RESERVER_NUMEROS_FACTURE TO ROLE_RECEPTIONNISTE;
 GRANT EXECUTE ON FN_OBTENIR_NOM_COMPLET_PATIENT TO ROLE_RECEPTIONNISTE;
 GRANT EXECUTE ON FN_OBTENIR_NOM_COMPLET_MEDECIN TO ROLE_RECEPTIONNISTE;
 
@@ -161,6 +172,7 @@ GRANT EXECUTE ON FN_OBTENIR_NOM_COMPLET_MEDECIN TO ROLE_RECEPTIONNISTE;
 GRANT SELECT ON seq_patient TO ROLE_RECEPTIONNISTE;
 GRANT SELECT ON seq_rdv TO ROLE_RECEPTIONNISTE;
 GRANT SELECT ON seq_facture TO ROLE_RECEPTIONNISTE;
+GRANT SELECT ON seq_paiement TO ROLE_RECEPTIONNISTE;
 
 PROMPT Privileges RECEPTIONNISTE attribues
 
@@ -0,0 +1,22 @@
+-- ================================================================
+-- HEALTHCARE SYSTEM
+-- ================================================================
+-- Fichier : 08_MIGRATION_PAIEMENT.sql
+-- Reprise de l'existant dans le journal PAIEMENT : un paiement de solde
+-- par facture deja reglee. A executer apres 07_DATA.sql, et une fois sur
+-- toute base anterieure a la table PAIEMENT. Rejouable : une facture
+-- ayant deja des paiements journalises n'est pas reprise.
+-- ================================================================
+
+SET DEFINE OFF;
+SET SERVEROUTPUT ON;
+
+INSERT INTO PAIEMENT (id_paiement, cle_idempotence, id_facture, montant, mode_paiement, date_paiement)
+SELECT seq_paiement.NEXTVAL, 'REPRISE-' || f.id_facture, f.id_facture, f.montant_paye,
+       NVL(f.mode_paiement, 'ESPECES'), NVL(f.date_paiement, f.date_facture)
+FROM FACTURE f
+WHERE f.montant_paye > 0
+  AND NOT EXISTS (SELECT 1 FROM PAIEMENT p WHERE p.id_facture = f.id_facture);
+
+COMMIT;
+PROMPT Paiements existants repris dans PAIEMENT
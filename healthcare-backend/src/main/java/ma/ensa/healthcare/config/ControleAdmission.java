@@ -0,0 +1,231 @@
+package ma.ensa.healthcare.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ma.ensa.healthcare.exception.SurchargeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Contrôle d'admission devant un pool de connexions.
+ *
+ * Le nombre de connexions simultanées est borné par des jetons (taille du pool).
+ * Quand tous les jetons sont pris, chaque classe de priorité attend dans sa propre
+ * file bornée ; un jeton libéré va toujours à la classe la plus prioritaire.
+ * Une demande est refusée immédiatement si sa file est pleine, ou après son attente
+ * maximale : les exports sont écartés vite, l'interactif garde une latence stable.
+ */
+public class ControleAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(ControleAdmission.class);
+    private static final PrioriteAdmission[] PRIORITES = PrioriteAdmission.values();
+
+    private final String nom;
+    private final ReentrantLock verrou = new ReentrantLock();
+    private final Map<PrioriteAdmission, Condition> conditions = new EnumMap<>(PrioriteAdmission.class);
+    private final int[] fileMax = new int[PRIORITES.length];
+    private final long[] attenteMaxNanos = new long[PRIORITES.length];
+
+    // Protégés par le verrou
+    private int jetonsDisponibles;
+    private final int[] enAttente = new int[PRIORITES.length];
+
+    // Métriques
+    private final LongAdder[] admissions = compteurs();
+    private final LongAdder[] rejets = compteurs();
+    private final LongAdder[] expirations = compteurs();
+    private final LongAdder[] attenteTotaleNanos = compteurs();
+
+    /**
+     * @param nom Nom du pool protégé (logs et messages d'erreur)
+     * @param jetons Nombre de connexions simultanées autorisées
+     */
+    public ControleAdmission(String nom, int jetons) {
+        this.nom = nom;
+        this.jetonsDisponibles = jetons;
+        for (PrioriteAdmission priorite : PRIORITES) {
+            conditions.put(priorite, verrou.newCondition());
+            configurer(priorite, priorite.getFileMaxParDefaut(), priorite.getAttenteMaxMsParDefaut());
+        }
+    }
+
+    /**
+     * Définit la file et l'attente maximales d'une classe de priorité
+     */
+    public void configurer(PrioriteAdmission priorite, int fileMaxClasse, long attenteMaxMs) {
+        verrou.lock();
+        try {
+            fileMax[priorite.ordinal()] = fileMaxClasse;
+            attenteMaxNanos[priorite.ordinal()] = TimeUnit.MILLISECONDS.toNanos(attenteMaxMs);
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Prend un jeton, en attendant si nécessaire selon la priorité.
+     * @throws SurchargeException si la file est pleine ou l'attente maximale dépassée
+     * @throws SQLException si le thread est interrompu pendant l'attente
+     */
+    public void acquerir(PrioriteAdmission priorite) throws SQLException {
+        int p = priorite.ordinal();
+        long debut = System.nanoTime();
+        verrou.lock();
+        try {
+            if (jetonsDisponibles > 0 && aucunPrioritaireEnAttente(p)) {
+                jetonsDisponibles--;
+                admissions[p].increment();
+                return;
+            }
+            if (enAttente[p] >= fileMax[p]) {
+                rejets[p].increment();
+                logger.warn("Admission refusée sur {} : file {} pleine ({} en attente)", nom, priorite, enAttente[p]);
+                throw new SurchargeException("Base de données saturée (" + nom + ") : demande "
+                        + priorite + " refusée, file d'attente pleine. Réessayez plus tard.");
+            }
+
+            enAttente[p]++;
+            try {
+                long restant = attenteMaxNanos[p];
+                while (!(jetonsDisponibles > 0 && aucunPrioritaireEnAttente(p))) {
+                    if (restant <= 0) {
+                        expirations[p].increment();
+                        logger.warn("Admission expirée sur {} : demande {} après {} ms",
+                                    nom, priorite, TimeUnit.NANOSECONDS.toMillis(attenteMaxNanos[p]));
+                        throw new SurchargeException("Base de données saturée (" + nom + ") : demande "
+                                + priorite + " non servie après "
+                                + TimeUnit.NANOSECONDS.toMillis(attenteMaxNanos[p]) + " ms. Réessayez plus tard.");
+                    }
+                    restant = conditions.get(priorite).awaitNanos(restant);
+                }
+                jetonsDisponibles--;
+                admissions[p].increment();
+                attenteTotaleNanos[p].add(System.nanoTime() - debut);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Attente de connexion interrompue (" + nom + ")", e);
+            } finally {
+                enAttente[p]--;
+                // Jeton encore libre (départ sur expiration, plusieurs libérations) : réveiller le suivant
+                if (jetonsDisponibles > 0) {
+                    signalerSuivant();
+                }
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Rend un jeton et réveille la classe la plus prioritaire en attente
+     */
+    public void liberer() {
+        verrou.lock();
+        try {
+            jetonsDisponibles++;
+            signalerSuivant();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Enveloppe une connexion pour rendre le jeton à sa fermeture (une seule fois)
+     */
+    public Connection envelopper(Connection conn) {
+        AtomicBoolean liberee = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && liberee.compareAndSet(false, true)) {
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            liberer();
+                        }
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private boolean aucunPrioritaireEnAttente(int p) {
+        for (int q = 0; q < p; q++) {
+            if (enAttente[q] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void signalerSuivant() {
+        for (PrioriteAdmission priorite : PRIORITES) {
+            if (enAttente[priorite.ordinal()] > 0) {
+                conditions.get(priorite).signal();
+                return;
+            }
+        }
+    }
+
+    private static LongAdder[] compteurs() {
+        LongAdder[] compteurs = new LongAdder[PRIORITES.length];
+        for (int i = 0; i < compteurs.length; i++) {
+            compteurs[i] = new LongAdder();
+        }
+        return compteurs;
+    }
+
+    // === MÉTRIQUES ===
+
+    /** Nombre de demandes actuellement en file pour une classe */
+    public int getProfondeurFile(PrioriteAdmission priorite) {
+        verrou.lock();
+        try {
+            return enAttente[priorite.ordinal()];
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public long getAdmissions(PrioriteAdmission priorite) { return admissions[priorite.ordinal()].sum(); }
+
+    /** Refus immédiats (file pleine) */
+    public long getRejets(PrioriteAdmission priorite) { return rejets[priorite.ordinal()].sum(); }
+
+    /** Refus après attente maximale */
+    public long getExpirations(PrioriteAdmission priorite) { return expirations[priorite.ordinal()].sum(); }
+
+    /** Attente moyenne des demandes admises (ms) */
+    public double getAttenteMoyenneMs(PrioriteAdmission priorite) {
+        long n = admissions[priorite.ordinal()].sum();
+        return n == 0 ? 0 : attenteTotaleNanos[priorite.ordinal()].sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Admission ").append(nom).append(" :");
+        for (PrioriteAdmission priorite : PRIORITES) {
+            sb.append(String.format(" [%s file=%d admis=%d rejets=%d expirés=%d attente moy.=%.2f ms]",
+                    priorite, getProfondeurFile(priorite), getAdmissions(priorite),
+                    getRejets(priorite), getExpirations(priorite), getAttenteMoyenneMs(priorite)));
+        }
+        return sb.toString();
+    }
+}
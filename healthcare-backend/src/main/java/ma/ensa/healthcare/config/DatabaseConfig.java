@@ -16,13 +16,255 @@ public class DatabaseConfig {
     // Constructeur privé
     private DatabaseConfig() {}
 
+    // Pool utilisé par le thread courant (interactif par défaut)
+    private static final ThreadLocal<PoolConnexion> poolCourant =
+            ThreadLocal.withInitial(() -> PoolConnexion.INTERACTIF);
+
+    // Priorité d'admission déclarée sur le thread courant (null = priorité du pool)
+    private static final ThreadLocal<PrioriteAdmission> prioriteCourante = new ThreadLocal<>();
+
+    // Traitement en lecture seule sur le thread courant (éligible à la réplique)
+    private static final ThreadLocal<Boolean> lectureSeuleCourante = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    // Échéance (System.nanoTime) des requêtes du thread courant (null = aucune)
+    private static final ThreadLocal<Long> echeanceCourante = new ThreadLocal<>();
+
     /**
-     * Obtient une connexion active depuis le pool HikariCP.
+     * Obtient une connexion active depuis le pool du thread courant.
      * @return Connection JDBC
      * @throws SQLException si le pool est épuisé ou la base inaccessible
      */
     public static Connection getConnection() throws SQLException {
-        return HikariCPConfig.getDataSource().getConnection();
+        return getConnection(poolCourant.get());
+    }
+
+    /**
+     * Obtient une connexion depuis un pool nommé.
+     * @param pool Le pool à utiliser
+     * @return Connection JDBC
+     * @throws SQLException si le pool est épuisé ou la base inaccessible
+     */
+    public static Connection getConnection(PoolConnexion pool) throws SQLException {
+        Connection conn = avecAdmission(pool, () -> ouvrirConnexion(pool));
+        Long echeance = echeanceCourante.get();
+        return echeance == null ? conn : DelaiRequetes.envelopper(conn, echeance);
+    }
+
+    private static Connection avecAdmission(PoolConnexion pool, OuvertureConnexion ouverture) throws SQLException {
+        ControleAdmission admission = HikariCPConfig.getControleAdmission(pool);
+        if (admission == null) {
+            return ouverture.ouvrir();
+        }
+        // Jeton pris avant le pool, rendu à la fermeture de la connexion
+        admission.acquerir(getPrioriteCourante(pool));
+        try {
+            return admission.envelopper(ouverture.ouvrir());
+        } catch (SQLException | RuntimeException e) {
+            admission.liberer();
+            throw e;
+        }
+    }
+
+    private interface OuvertureConnexion {
+        Connection ouvrir() throws SQLException;
+    }
+
+    private static Connection ouvrirConnexion(PoolConnexion pool) throws SQLException {
+        RoutageLectureEcriture routage = HikariCPConfig.getRoutage();
+        // Connexions déjà préparées par HikariCP à leur création (voir PrechauffageConnexions)
+        return routage == null
+                ? HikariCPConfig.getDataSource(pool).getConnection()
+                : routage.getConnection(HikariCPConfig.getDataSource(pool),
+                        () -> HikariCPConfig.getDataSourceReplique(pool), lectureSeuleCourante.get());
+    }
+
+    /**
+     * Déclare le pool utilisé par le thread courant jusqu'à la fermeture de la portée.
+     * Les DAO appelés dans la portée héritent du pool :
+     * <pre>
+     * try (DatabaseConfig.PorteePool p = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT)) {
+     *     ...
+     * }
+     * </pre>
+     * @param pool Le pool à utiliser
+     * @return La portée à fermer (restaure le pool précédent)
+     */
+    public static PorteePool utiliserPool(PoolConnexion pool) {
+        PorteePool portee = new PorteePool(poolCourant.get());
+        poolCourant.set(pool);
+        return portee;
+    }
+
+    /**
+     * @return Le pool utilisé par le thread courant
+     */
+    public static PoolConnexion getPoolCourant() {
+        return poolCourant.get();
+    }
+
+    /**
+     * Déclare le thread courant en lecture seule jusqu'à la fermeture de la portée.
+     * Si une réplique est configurée, les connexions obtenues dans la portée y sont
+     * envoyées (sauf écriture récente de la session, voir {@link RoutageLectureEcriture}).
+     * @return La portée à fermer (restaure le mode précédent)
+     */
+    public static PorteeLectureSeule lectureSeule() {
+        PorteeLectureSeule portee = new PorteeLectureSeule(lectureSeuleCourante.get());
+        lectureSeuleCourante.set(Boolean.TRUE);
+        return portee;
+    }
+
+    /**
+     * Portée de lecture seule, à fermer dans un try-with-resources.
+     */
+    public static final class PorteeLectureSeule implements AutoCloseable {
+        private final boolean precedent;
+
+        private PorteeLectureSeule(boolean precedent) {
+            this.precedent = precedent;
+        }
+
+        @Override
+        public void close() {
+            lectureSeuleCourante.set(precedent);
+        }
+    }
+
+    /**
+     * Borne les requêtes du thread courant jusqu'à la fermeture de la portée : chacune reçoit
+     * le temps restant avant l'échéance comme délai d'exécution (voir {@link DelaiRequetes}).
+     * @param echeance Échéance, en valeur de System.nanoTime()
+     * @return La portée à fermer (restaure l'échéance précédente)
+     */
+    public static PorteeEcheance avecEcheance(long echeance) {
+        PorteeEcheance portee = new PorteeEcheance(echeanceCourante.get());
+        echeanceCourante.set(echeance);
+        return portee;
+    }
+
+    /**
+     * Portée d'échéance des requêtes, à fermer dans un try-with-resources.
+     */
+    public static final class PorteeEcheance implements AutoCloseable {
+        private final Long precedente;
+
+        private PorteeEcheance(Long precedente) {
+            this.precedente = precedente;
+        }
+
+        @Override
+        public void close() {
+            echeanceCourante.set(precedente);
+        }
+    }
+
+    /**
+     * Choisit maintenant, une fois pour tout un traitement, le nœud de ses lectures :
+     * la réplique si le routage y envoie les lectures (voir {@link RoutageLectureEcriture}),
+     * sinon la primaire. Pour les lectures réparties sur plusieurs connexions qui doivent
+     * voir la même base (export au même SCN).
+     * @param pool Le pool des connexions
+     */
+    public static NoeudLecture choisirNoeudLecture(PoolConnexion pool) {
+        RoutageLectureEcriture routage = HikariCPConfig.getRoutage();
+        return new NoeudLecture(pool, routage != null && routage.lireSurReplique(true));
+    }
+
+    /**
+     * Nœud de lecture fixé sur la primaire
+     * @param pool Le pool des connexions
+     */
+    public static NoeudLecture noeudPrimaire(PoolConnexion pool) {
+        return new NoeudLecture(pool, false);
+    }
+
+    /**
+     * Nœud choisi pour un traitement : toutes ses connexions, ouvertes depuis n'importe
+     * quel thread, vont sur la même base quel que soit le routage entre-temps.
+     */
+    public static final class NoeudLecture {
+        private final PoolConnexion pool;
+        private final boolean replique;
+
+        private NoeudLecture(PoolConnexion pool, boolean replique) {
+            this.pool = pool;
+            this.replique = replique;
+        }
+
+        /**
+         * @return true si les connexions vont sur la réplique
+         */
+        public boolean estReplique() {
+            return replique;
+        }
+
+        /**
+         * Obtient une connexion sur ce nœud (même contrôle d'admission que {@link DatabaseConfig#getConnection})
+         */
+        public Connection getConnection() throws SQLException {
+            return avecAdmission(pool, () -> {
+                if (!replique) {
+                    return HikariCPConfig.getDataSource(pool).getConnection();
+                }
+                Connection conn = HikariCPConfig.getDataSourceReplique(pool).getConnection();
+                conn.setReadOnly(true);
+                return conn;
+            });
+        }
+
+        @Override
+        public String toString() {
+            return replique ? "réplique" : "primaire";
+        }
+    }
+
+    /**
+     * Déclare la priorité d'admission du thread courant jusqu'à la fermeture de la portée
+     * (par défaut : priorité associée au pool utilisé).
+     * @param priorite La priorité à appliquer
+     * @return La portée à fermer (restaure la priorité précédente)
+     */
+    public static PorteePriorite utiliserPriorite(PrioriteAdmission priorite) {
+        PorteePriorite portee = new PorteePriorite(prioriteCourante.get());
+        prioriteCourante.set(priorite);
+        return portee;
+    }
+
+    private static PrioriteAdmission getPrioriteCourante(PoolConnexion pool) {
+        PrioriteAdmission priorite = prioriteCourante.get();
+        return priorite != null ? priorite : pool.getPrioriteParDefaut();
+    }
+
+    /**
+     * Portée de priorité d'admission, à fermer dans un try-with-resources.
+     */
+    public static final class PorteePriorite implements AutoCloseable {
+        private final PrioriteAdmission precedente;
+
+        private PorteePriorite(PrioriteAdmission precedente) {
+            this.precedente = precedente;
+        }
+
+        @Override
+        public void close() {
+            prioriteCourante.set(precedente);
+        }
+    }
+
+    /**
+     * Portée d'utilisation d'un pool, à fermer dans un try-with-resources.
+     */
+    public static final class PorteePool implements AutoCloseable {
+        private final PoolConnexion precedent;
+
+        private PorteePool(PoolConnexion precedent) {
+            this.precedent = precedent;
+        }
+
+        @Override
+        public void close() {
+            poolCourant.set(precedent);
+        }
     }
 
     /**
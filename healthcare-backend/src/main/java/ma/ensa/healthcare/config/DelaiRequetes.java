@@ -0,0 +1,81 @@
+package ma.ensa.healthcare.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Échéance des requêtes d'un traitement (voir {@link DatabaseConfig#avecEcheance}) :
+ * chaque requête créée sur la connexion reçoit le temps restant comme délai d'exécution
+ * (setQueryTimeout), et Oracle l'interrompt lui-même une fois l'échéance passée.
+ * Interrompre le thread appelant ne suffit pas : le driver n'observe pas l'interruption
+ * pendant un appel réseau.
+ */
+final class DelaiRequetes {
+
+    private DelaiRequetes() {}
+
+    /**
+     * @param echeance Échéance (System.nanoTime) des requêtes de la connexion
+     */
+    static Connection envelopper(Connection conn, long echeance) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object resultat;
+                    try {
+                        resultat = method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (resultat instanceof Statement) {
+                        return limiter((Statement) resultat, method.getReturnType(), echeance);
+                    }
+                    return resultat;
+                });
+    }
+
+    private static Object limiter(Statement statement, Class<?> type, long echeance) throws SQLTimeoutException {
+        long restantMs = TimeUnit.NANOSECONDS.toMillis(echeance - System.nanoTime());
+        if (restantMs <= 0) {
+            fermer(statement);
+            throw new SQLTimeoutException("Échéance dépassée avant l'exécution de la requête");
+        }
+        try {
+            // Délai en secondes : arrondi au-dessus (une requête de 800 ms a 1 s)
+            statement.setQueryTimeout((int) Math.max(1, (restantMs + 999) / 1000));
+        } catch (SQLException e) {
+            fermer(statement);
+            throw new SQLTimeoutException("Délai de la requête impossible à fixer", e);
+        }
+        // Délai remis à zéro à la fermeture : le cache implicite du driver réutilise le curseur
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        try {
+                            statement.setQueryTimeout(0);
+                        } catch (SQLException e) {
+                            // Requête déjà fermée : rien à remettre
+                        }
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static void fermer(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Requête abandonnée : l'erreur de fermeture n'apporte rien
+        }
+    }
+}
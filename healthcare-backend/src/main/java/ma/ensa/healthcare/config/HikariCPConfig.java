@@ -2,75 +2,271 @@ package ma.ensa.healthcare.config;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
 
 /**
- * Configuration du pool de connexions HikariCP.
- * Utilise le pattern Singleton pour fournir une source de données unique.
+ * Configuration des pools de connexions HikariCP.
+ * Un pool par type de charge (voir {@link PoolConnexion}), chacun créé à la demande.
  * [cite: 142-143, 286]
  */
 public class HikariCPConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(HikariCPConfig.class);
-    private static HikariDataSource dataSource;
+    // Lus à chaque connexion sans verrou global : la création d'un pool ne bloque pas les autres
+    private static final Map<PoolConnexion, HikariDataSource> dataSources = new ConcurrentHashMap<>();
+    private static final Map<PoolConnexion, StatistiquesPool> statistiques = new ConcurrentHashMap<>();
+    // Pools vers la réplique en lecture (db.replica.url), mêmes tailles que la primaire
+    private static final Map<PoolConnexion, HikariDataSource> repliques = new ConcurrentHashMap<>();
+    // Un verrou par pool, pris seulement pour le créer
+    private static final Map<PoolConnexion, Object> verrousCreation = new EnumMap<>(PoolConnexion.class);
+    static {
+        for (PoolConnexion pool : PoolConnexion.values()) {
+            verrousCreation.put(pool, new Object());
+        }
+    }
+    private static volatile RoutageLectureEcriture routage;
+    // db.replica.url déjà lu (routage reste null sans réplique)
+    private static volatile boolean routageVerifie;
+    // Contrôle d'admission par pool (jetons = taille du pool)
+    private static final Map<PoolConnexion, ControleAdmission> admissions = new ConcurrentHashMap<>();
+    // db.admission.enabled, lu une fois (null tant qu'il n'est pas lu)
+    private static volatile Boolean admissionActive;
     
+    private static CompletableFuture<Void> demarrage;
+
     // Constructeur privé pour empêcher l'instanciation
     private HikariCPConfig() {}
 
     /**
-     * Obtient l'instance unique du DataSource (Singleton).
+     * Démarre le pool interactif en arrière-plan (hors du thread JavaFX) puis le préchauffe :
+     * minimumIdle connexions ouvertes et requêtes fréquentes préparées sur chacune.
+     * Appels suivants : renvoie le même démarrage.
+     */
+    public static synchronized CompletableFuture<Void> demarrerAsync() {
+        if (demarrage == null) {
+            demarrage = CompletableFuture.runAsync(() -> {
+                long debut = System.currentTimeMillis();
+                HikariDataSource dataSource = getDataSource(PoolConnexion.INTERACTIF);
+                try {
+                    PrechauffageConnexions.prechauffer(dataSource, dataSource.getMinimumIdle());
+                } catch (SQLException e) {
+                    logger.warn("Préchauffage du pool incomplet : {}", e.getMessage());
+                }
+                logger.info("Pool interactif prêt et préchauffé en {} ms", System.currentTimeMillis() - debut);
+            }, tache -> {
+                Thread thread = new Thread(tache, "healthcare-db-demarrage");
+                thread.setDaemon(true);
+                thread.start();
+            });
+            demarrage.exceptionally(e -> {
+                logger.error("Échec du démarrage asynchrone du pool", e);
+                return null;
+            });
+        }
+        return demarrage;
+    }
+
+    /**
+     * Obtient le DataSource du pool interactif (pool par défaut).
+     */
+    public static HikariDataSource getDataSource() {
+        return getDataSource(PoolConnexion.INTERACTIF);
+    }
+
+    /**
+     * Obtient le DataSource d'un pool nommé.
      * Crée le pool s'il n'existe pas encore.
      */
-    public static synchronized HikariDataSource getDataSource() {
-        if (dataSource == null) {
-            createDataSource();
+    public static HikariDataSource getDataSource(PoolConnexion pool) {
+        return obtenir(dataSources, pool, false);
+    }
+
+    /**
+     * Pool déjà créé, ou créé sous le verrou de ce seul pool
+     */
+    private static HikariDataSource obtenir(Map<PoolConnexion, HikariDataSource> pools, PoolConnexion pool,
+                                            boolean replique) {
+        HikariDataSource dataSource = pools.get(pool);
+        if (dataSource != null) {
+            return dataSource;
         }
-        return dataSource;
+        synchronized (verrousCreation.get(pool)) {
+            dataSource = pools.get(pool);
+            if (dataSource == null) {
+                dataSource = createDataSource(pool, replique);
+                pools.put(pool, dataSource);
+            }
+            return dataSource;
+        }
+    }
+
+    /**
+     * Contrôle d'admission d'un pool (null si db.admission.enabled=false).
+     * Les jetons sont partagés entre la primaire et la réplique du pool.
+     */
+    public static ControleAdmission getControleAdmission(PoolConnexion pool) {
+        Boolean active = admissionActive;
+        if (active == null) {
+            active = PropertyManager.getInstance().getBooleanProperty("db.admission.enabled", true);
+            admissionActive = active;
+        }
+        if (!active) {
+            return null;
+        }
+        ControleAdmission admission = admissions.get(pool);
+        return admission != null ? admission : admissions.computeIfAbsent(pool, HikariCPConfig::creerControleAdmission);
     }
 
-    private static void createDataSource() {
+    private static ControleAdmission creerControleAdmission(PoolConnexion pool) {
+        PropertyManager props = PropertyManager.getInstance();
+        int jetons = props.getIntProperty("db.hikari." + pool.getCle() + ".maximumPoolSize",
+                                          pool.getMaximumPoolSizeParDefaut());
+        ControleAdmission admission = new ControleAdmission(pool.name(), jetons);
+        for (PrioriteAdmission priorite : PrioriteAdmission.values()) {
+            String prefixe = "db.admission." + priorite.getCle() + ".";
+            admission.configurer(priorite,
+                    props.getIntProperty(prefixe + "fileMax", priorite.getFileMaxParDefaut()),
+                    props.getIntProperty(prefixe + "attenteMaxMs", priorite.getAttenteMaxMsParDefaut()));
+        }
+        return admission;
+    }
+
+    /**
+     * Contrôles d'admission déjà créés (métriques de files et de refus)
+     */
+    public static Map<PoolConnexion, ControleAdmission> getControlesAdmission() {
+        return copie(admissions);
+    }
+
+    /**
+     * Indique si une réplique en lecture est configurée (db.replica.url)
+     */
+    public static boolean isRepliqueConfiguree() {
+        String url = PropertyManager.getInstance().getProperty("db.replica.url");
+        return url != null && !url.isBlank();
+    }
+
+    /**
+     * Obtient le DataSource de la réplique pour un pool nommé.
+     * Crée le pool s'il n'existe pas encore.
+     */
+    public static HikariDataSource getDataSourceReplique(PoolConnexion pool) {
+        return obtenir(repliques, pool, true);
+    }
+
+    /**
+     * Routage lecture/écriture (null si aucune réplique n'est configurée)
+     */
+    public static RoutageLectureEcriture getRoutage() {
+        return routageVerifie ? routage : creerRoutage();
+    }
+
+    private static synchronized RoutageLectureEcriture creerRoutage() {
+        if (!routageVerifie) {
+            if (isRepliqueConfiguree()) {
+                long delaiMax = PropertyManager.getInstance().getIntProperty("db.replica.maxLagMs", 5000);
+                routage = new RoutageLectureEcriture(delaiMax);
+                logger.info("Routage lecture/écriture actif (réplique: {}, délai max: {} ms)",
+                            PropertyManager.getInstance().getProperty("db.replica.url"), delaiMax);
+            }
+            routageVerifie = true;
+        }
+        return routage;
+    }
+
+    /**
+     * Statistiques d'attente par pool (pools déjà démarrés uniquement).
+     */
+    public static Map<PoolConnexion, StatistiquesPool> getStatistiques() {
+        return copie(statistiques);
+    }
+
+    private static <V> Map<PoolConnexion, V> copie(Map<PoolConnexion, V> source) {
+        Map<PoolConnexion, V> copie = new EnumMap<>(PoolConnexion.class);
+        copie.putAll(source);
+        return Collections.unmodifiableMap(copie);
+    }
+
+    private static HikariDataSource createDataSource(PoolConnexion pool, boolean replique) {
         PropertyManager props = PropertyManager.getInstance();
         HikariConfig config = new HikariConfig();
 
         // 1. Configuration de base JDBC [cite: 286]
-        config.setDriverClassName(props.getProperty("db.driver"));
-        config.setJdbcUrl(props.getProperty("db.url"));
-        config.setUsername(props.getProperty("db.username"));
-        config.setPassword(props.getProperty("db.password"));
+        // La réplique reprend les identifiants de la primaire sauf surcharge
+        String url = replique ? props.getProperty("db.replica.url") : props.getProperty("db.url");
+        config.setUsername(replique ? props.getProperty("db.replica.username", props.getProperty("db.username"))
+                                    : props.getProperty("db.username"));
+        config.setPassword(replique ? props.getProperty("db.replica.password", props.getProperty("db.password"))
+                                    : props.getProperty("db.password"));
 
         // 2. Configuration du Pool (Taille et Timeouts) [cite: 151, 286]
-        config.setMinimumIdle(props.getIntProperty("db.hikari.minimumIdle", 5));
-        config.setMaximumPoolSize(props.getIntProperty("db.hikari.maximumPoolSize", 20));
-        config.setConnectionTimeout(props.getIntProperty("db.hikari.connectionTimeout", 30000));
-        config.setIdleTimeout(props.getIntProperty("db.hikari.idleTimeout", 600000));
-        config.setMaxLifetime(props.getIntProperty("db.hikari.maxLifetime", 1800000));
+        // Taille et attente propres au pool ; durées de vie communes sauf surcharge
+        String prefixe = "db.hikari." + pool.getCle() + ".";
+        config.setMinimumIdle(props.getIntProperty(prefixe + "minimumIdle", pool.getMinimumIdleParDefaut()));
+        config.setMaximumPoolSize(props.getIntProperty(prefixe + "maximumPoolSize", pool.getMaximumPoolSizeParDefaut()));
+        config.setConnectionTimeout(props.getIntProperty(prefixe + "connectionTimeout", pool.getConnectionTimeoutParDefaut()));
+        config.setIdleTimeout(props.getIntProperty(prefixe + "idleTimeout",
+                props.getIntProperty("db.hikari.idleTimeout", 600000)));
+        config.setMaxLifetime(props.getIntProperty(prefixe + "maxLifetime",
+                props.getIntProperty("db.hikari.maxLifetime", 1800000)));
 
-        // 3. Nom du pool pour le monitoring
-        config.setPoolName("Healthcare-HikariPool");
+        // 3. Nom du pool et métriques d'attente pour le monitoring
+        config.setPoolName(props.getProperty("db.hikari.poolName", "Healthcare-HikariPool") + "-" + pool.getCle()
+                           + (replique ? "-replica" : ""));
+        if (replique) {
+            config.setReadOnly(true);
+        } else {
+            StatistiquesPool stats = new StatistiquesPool(pool);
+            config.setMetricsTrackerFactory((poolName, poolStats) -> {
+                stats.lierEtatPool(poolStats);
+                return stats;
+            });
+            statistiques.put(pool, stats);
+        }
 
         // 4. Optimisations spécifiques Oracle [cite: 152-156, 290]
+        Properties proprietesDriver = new Properties();
         // Active le cache des requêtes préparées pour la performance
-        config.addDataSourceProperty("cachePrepStmts", "true");
-        config.addDataSourceProperty("prepStmtCacheSize", "250");
-        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        proprietesDriver.setProperty("cachePrepStmts", "true");
+        proprietesDriver.setProperty("prepStmtCacheSize", "250");
+        proprietesDriver.setProperty("prepStmtCacheSqlLimit", "2048");
         // Optimisations réseau et serveur
-        config.addDataSourceProperty("useServerPrepStmts", "true");
-        config.addDataSourceProperty("useLocalSessionState", "true");
-        config.addDataSourceProperty("rewriteBatchedStatements", "true");
-        config.addDataSourceProperty("cacheResultSetMetadata", "true");
-        config.addDataSourceProperty("cacheServerConfiguration", "true");
+        proprietesDriver.setProperty("useServerPrepStmts", "true");
+        proprietesDriver.setProperty("useLocalSessionState", "true");
+        proprietesDriver.setProperty("rewriteBatchedStatements", "true");
+        proprietesDriver.setProperty("cacheResultSetMetadata", "true");
+        proprietesDriver.setProperty("cacheServerConfiguration", "true");
+        // Cache implicite du driver Oracle : une requête préparée par combinaison
+        // de colonnes (UPDATE partiels des DAO) est réutilisée sans nouveau parse
+        proprietesDriver.setProperty("oracle.jdbc.implicitStatementCacheSize", "100");
+
+        // 5. Source physique enveloppée : HikariCP crée ses connexions sur son propre thread,
+        // les requêtes fréquentes y sont préparées avant toute remise à un appelant
+        config.setDataSource(PrechauffageConnexions.avecPreparation(new DriverDataSource(
+                url, props.getProperty("db.driver"), proprietesDriver, config.getUsername(), config.getPassword())));
 
         try {
-            dataSource = new HikariDataSource(config);
-            logger.info("HikariCP Connection Pool démarré avec succès. URL: {}", props.getProperty("db.url"));
+            HikariDataSource dataSource = new HikariDataSource(config);
+            logger.info("HikariCP Connection Pool {} démarré avec succès. URL: {}", config.getPoolName(), url);
+            return dataSource;
         } catch (Exception e) {
-            logger.error("Erreur critique lors de l'initialisation de HikariCP", e);
-            throw new RuntimeException("Impossible d'initialiser le pool de connexions", e);
+            if (!replique) {
+                statistiques.remove(pool);
+            }
+            logger.error("Erreur critique lors de l'initialisation de HikariCP ({})", pool, e);
+            throw new RuntimeException("Impossible d'initialiser le pool de connexions " + pool, e);
         }
     }
 
@@ -88,10 +284,27 @@ public class HikariCPConfig {
         }
     }
 
-    public static void shutdown() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
-            logger.info("Pool de connexions HikariCP fermé");
+    public static synchronized void shutdown() {
+        for (Map.Entry<PoolConnexion, HikariDataSource> entry : dataSources.entrySet()) {
+            if (!entry.getValue().isClosed()) {
+                logger.info("Statistiques {}", statistiques.get(entry.getKey()));
+                if (admissions.containsKey(entry.getKey())) {
+                    logger.info("{}", admissions.get(entry.getKey()));
+                }
+                entry.getValue().close();
+                logger.info("Pool de connexions HikariCP {} fermé", entry.getKey());
+            }
+        }
+        for (HikariDataSource dataSource : repliques.values()) {
+            if (!dataSource.isClosed()) {
+                dataSource.close();
+            }
         }
+        dataSources.clear();
+        statistiques.clear();
+        repliques.clear();
+        admissions.clear();
+        admissionActive = null;
+        demarrage = null;
     }
 }
\ No newline at end of file
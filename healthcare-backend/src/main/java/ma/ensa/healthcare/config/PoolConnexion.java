@@ -0,0 +1,45 @@
+package ma.ensa.healthcare.config;
+
+/**
+ * Pools de connexions nommés, isolés par type de charge.
+ * Chaque pool a sa propre taille et ses propres timeouts (clés db.hikari.&lt;cle&gt;.*),
+ * de sorte qu'un export volumineux ne consomme jamais les connexions de l'accueil.
+ */
+public enum PoolConnexion {
+
+    /** Écrans de l'application (prise de rendez-vous, dossiers patients...) */
+    INTERACTIF("interactive", 4, 12, 10000, PrioriteAdmission.INTERACTIF),
+
+    /** Rapports PDF et exports de la base */
+    RAPPORT("reporting", 0, 4, 60000, PrioriteAdmission.EXPORT),
+
+    /** Traitements de fond (nettoyage, tâches planifiées) */
+    ARRIERE_PLAN("background", 0, 4, 60000, PrioriteAdmission.BATCH);
+
+    private final String cle;
+    private final int minimumIdleParDefaut;
+    private final int maximumPoolSizeParDefaut;
+    private final int connectionTimeoutParDefaut;
+    private final PrioriteAdmission prioriteParDefaut;
+
+    PoolConnexion(String cle, int minimumIdle, int maximumPoolSize, int connectionTimeout,
+                  PrioriteAdmission prioriteParDefaut) {
+        this.cle = cle;
+        this.minimumIdleParDefaut = minimumIdle;
+        this.maximumPoolSizeParDefaut = maximumPoolSize;
+        this.connectionTimeoutParDefaut = connectionTimeout;
+        this.prioriteParDefaut = prioriteParDefaut;
+    }
+
+    /** Suffixe utilisé dans les propriétés et le nom du pool */
+    public String getCle() { return cle; }
+
+    public int getMinimumIdleParDefaut() { return minimumIdleParDefaut; }
+
+    public int getMaximumPoolSizeParDefaut() { return maximumPoolSizeParDefaut; }
+
+    public int getConnectionTimeoutParDefaut() { return connectionTimeoutParDefaut; }
+
+    /** Priorité d'admission des demandes qui n'en déclarent pas */
+    public PrioriteAdmission getPrioriteParDefaut() { return prioriteParDefaut; }
+}
@@ -0,0 +1,112 @@
+package ma.ensa.healthcare.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Préchauffage des connexions : registre des requêtes fréquentes, exécutées une fois
+ * (paramètres NULL, aucune ligne lue) sur chaque nouvelle connexion physique.
+ * Le curseur est alors analysé par Oracle et conservé par le cache implicite du
+ * driver : la première exécution réelle a le coût d'une exécution courante.
+ * La préparation a lieu à la création de la connexion par HikariCP, sur son propre
+ * thread : l'appelant (souvent le thread JavaFX) n'en paie jamais le coût.
+ */
+public final class PrechauffageConnexions {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrechauffageConnexions.class);
+
+    private static final List<RequeteFrequente> requetes = new CopyOnWriteArrayList<>();
+
+    private PrechauffageConnexions() {}
+
+    /**
+     * Ajoute une requête au registre
+     * @param sql Texte SQL exact utilisé par le DAO
+     * @param typesParametres Types JDBC des paramètres (même type que les appels réels)
+     */
+    public static void enregistrer(String sql, int... typesParametres) {
+        requetes.add(new RequeteFrequente(sql, typesParametres.clone()));
+    }
+
+    /**
+     * Enveloppe la source physique d'un pool : chaque connexion qu'elle crée est préparée
+     * avant d'entrer dans le pool
+     * @param source Source du driver, appelée uniquement par HikariCP pour créer ses connexions
+     */
+    static DataSource avecPreparation(DataSource source) {
+        return (DataSource) Proxy.newProxyInstance(PrechauffageConnexions.class.getClassLoader(),
+                new Class<?>[] {DataSource.class}, (proxy, methode, args) -> {
+                    Object resultat;
+                    try {
+                        resultat = methode.invoke(source, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if ("getConnection".equals(methode.getName())) {
+                        preparer((Connection) resultat);
+                    }
+                    return resultat;
+                });
+    }
+
+    private static void preparer(Connection conn) {
+        if (requetes.isEmpty()) {
+            return;
+        }
+        long debut = System.nanoTime();
+        for (RequeteFrequente requete : requetes) {
+            try (PreparedStatement ps = conn.prepareStatement(requete.sql)) {
+                for (int i = 0; i < requete.types.length; i++) {
+                    ps.setNull(i + 1, requete.types[i]);
+                }
+                ps.setMaxRows(1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    // Aucune lecture : seule l'analyse du curseur nous intéresse
+                }
+            } catch (SQLException e) {
+                logger.warn("Préchauffage impossible pour [{}] : {}", requete.sql, e.getMessage());
+            }
+        }
+        logger.debug("{} requêtes préparées sur une nouvelle connexion en {} ms",
+                     requetes.size(), (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    /**
+     * Ouvre simultanément {@code nombre} connexions pour forcer leur création
+     * (et donc leur préparation) avant la première demande de l'interface
+     */
+    static void prechauffer(DataSource dataSource, int nombre) throws SQLException {
+        List<Connection> connexions = new ArrayList<>(nombre);
+        try {
+            for (int i = 0; i < nombre; i++) {
+                connexions.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection conn : connexions) {
+                DatabaseConfig.closeConnection(conn);
+            }
+        }
+    }
+
+    private static final class RequeteFrequente {
+        private final String sql;
+        private final int[] types;
+
+        private RequeteFrequente(String sql, int[] types) {
+            this.sql = sql;
+            this.types = types;
+        }
+    }
+}
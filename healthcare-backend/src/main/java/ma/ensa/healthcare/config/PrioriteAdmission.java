@@ -0,0 +1,34 @@
+package ma.ensa.healthcare.config;
+
+/**
+ * Classes de priorité du contrôle d'admission, de la plus à la moins prioritaire.
+ * Une connexion libérée est toujours attribuée à la classe la plus prioritaire en attente.
+ */
+public enum PrioriteAdmission {
+
+    /** Actions de l'utilisateur à l'écran */
+    INTERACTIF("interactive", 50, 10000),
+
+    /** Traitements par lots (imports, nettoyage, tâches planifiées) */
+    BATCH("batch", 10, 5000),
+
+    /** Exports et rapports volumineux : refusés rapidement en cas de saturation */
+    EXPORT("export", 2, 1000);
+
+    private final String cle;
+    private final int fileMaxParDefaut;
+    private final int attenteMaxMsParDefaut;
+
+    PrioriteAdmission(String cle, int fileMax, int attenteMaxMs) {
+        this.cle = cle;
+        this.fileMaxParDefaut = fileMax;
+        this.attenteMaxMsParDefaut = attenteMaxMs;
+    }
+
+    /** Suffixe utilisé dans les propriétés db.admission.&lt;cle&gt;.* */
+    public String getCle() { return cle; }
+
+    public int getFileMaxParDefaut() { return fileMaxParDefaut; }
+
+    public int getAttenteMaxMsParDefaut() { return attenteMaxMsParDefaut; }
+}
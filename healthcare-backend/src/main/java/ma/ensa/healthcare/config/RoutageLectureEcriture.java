@@ -0,0 +1,171 @@
+package ma.ensa.healthcare.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routage des connexions entre la base primaire et une réplique en lecture.
+ *
+ * Les traitements déclarés en lecture seule sont envoyés vers la réplique, tout le
+ * reste vers la primaire. Garde-fou de fraîcheur : après une écriture de la session,
+ * les lectures restent sur la primaire pendant {@code delaiMaxMs} (lecture de ses
+ * propres écritures malgré le retard de réplication).
+ *
+ * Indépendant de HikariCP : deux bases embarquées quelconques peuvent servir de
+ * primaire et de réplique pour les essais locaux.
+ */
+public class RoutageLectureEcriture {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutageLectureEcriture.class);
+
+    private final long delaiMaxMs;
+
+    // Instant (ms) de la dernière écriture de la session (application mono-utilisateur)
+    private final AtomicLong derniereEcriture = new AtomicLong();
+
+    public RoutageLectureEcriture(long delaiMaxMs) {
+        this.delaiMaxMs = delaiMaxMs;
+    }
+
+    /**
+     * Obtient une connexion vers la primaire ou la réplique.
+     * @param primaire Source de la base primaire
+     * @param replique Source de la réplique (obtenue seulement si elle est utilisée)
+     * @param lectureSeule true si le traitement appelant ne fait que lire
+     */
+    public Connection getConnection(DataSource primaire, Supplier<DataSource> replique,
+                                    boolean lectureSeule) throws SQLException {
+        if (lireSurReplique(lectureSeule)) {
+            Connection conn = replique.get().getConnection();
+            conn.setReadOnly(true);
+            return conn;
+        }
+        if (lectureSeule) {
+            logger.debug("Écriture récente : lecture envoyée vers la primaire");
+        }
+        return suivreEcritures(primaire.getConnection());
+    }
+
+    /**
+     * Nœud qu'utiliserait maintenant une connexion
+     * @param lectureSeule true si le traitement appelant ne fait que lire
+     * @return true pour la réplique, false pour la primaire
+     */
+    public boolean lireSurReplique(boolean lectureSeule) {
+        return lectureSeule && !ecritureRecente();
+    }
+
+    /**
+     * @return true si la session a écrit depuis moins de {@code delaiMaxMs}
+     */
+    public boolean ecritureRecente() {
+        long derniere = derniereEcriture.get();
+        return derniere != 0 && System.currentTimeMillis() - derniere < delaiMaxMs;
+    }
+
+    /**
+     * Enregistre une écriture (appelé à la fermeture d'une connexion ayant écrit)
+     */
+    public void marquerEcriture() {
+        derniereEcriture.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Enveloppe une connexion primaire pour détecter les ordres d'écriture.
+     * L'écriture est datée à la fermeture, c'est-à-dire après le commit.
+     */
+    private Connection suivreEcritures(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new SuiviConnexion(conn));
+    }
+
+    /**
+     * Ordre SQL modifiant des données (tout ce qui n'est pas SELECT / WITH)
+     */
+    static boolean estEcriture(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String debut = sql.stripLeading().toUpperCase(Locale.ROOT);
+        return !(debut.startsWith("SELECT") || debut.startsWith("WITH"));
+    }
+
+    private static Object invoquer(Object cible, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class SuiviConnexion implements InvocationHandler {
+        private final Connection cible;
+        private boolean ecriture;
+
+        SuiviConnexion(Connection cible) {
+            this.cible = cible;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement", "prepareCall" -> {
+                    if (args != null && args[0] instanceof String sql && estEcriture(sql)) {
+                        ecriture = true;
+                    }
+                }
+                case "createStatement" -> {
+                    Statement stmt = (Statement) invoquer(cible, method, args);
+                    return Proxy.newProxyInstance(
+                            Statement.class.getClassLoader(),
+                            new Class<?>[]{Statement.class},
+                            new SuiviStatement(this, stmt));
+                }
+                case "close" -> {
+                    if (ecriture) {
+                        marquerEcriture();
+                    }
+                }
+                default -> { }
+            }
+            return invoquer(cible, method, args);
+        }
+    }
+
+    private static final class SuiviStatement implements InvocationHandler {
+        private final SuiviConnexion connexion;
+        private final Statement cible;
+
+        SuiviStatement(SuiviConnexion connexion, Statement cible) {
+            this.connexion = connexion;
+            this.cible = cible;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nom = method.getName();
+            if (nom.equals("executeUpdate") || nom.equals("executeLargeUpdate") || nom.equals("executeBatch")) {
+                connexion.ecriture = true;
+            } else if ((nom.equals("execute") || nom.equals("addBatch"))
+                    && args != null && args[0] instanceof String sql && estEcriture(sql)) {
+                connexion.ecriture = true;
+            }
+            return invoquer(cible, method, args);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ma.ensa.healthcare.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Statistiques d'attente d'un pool nommé (alimentées par HikariCP).
+ * Permet de vérifier qu'un export n'allonge pas l'attente du pool interactif.
+ */
+public class StatistiquesPool implements IMetricsTracker {
+
+    private final PoolConnexion pool;
+    private volatile PoolStats etatPool;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder attenteTotaleNanos = new LongAdder();
+    private final AtomicLong attenteMaxNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+
+    StatistiquesPool(PoolConnexion pool) {
+        this.pool = pool;
+    }
+
+    void lierEtatPool(PoolStats etatPool) {
+        this.etatPool = etatPool;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquisitions.increment();
+        attenteTotaleNanos.add(elapsedAcquiredNanos);
+        attenteMaxNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public PoolConnexion getPool() { return pool; }
+
+    public long getAcquisitions() { return acquisitions.sum(); }
+
+    public long getTimeouts() { return timeouts.sum(); }
+
+    /** Attente moyenne pour obtenir une connexion (ms) */
+    public double getAttenteMoyenneMs() {
+        long n = acquisitions.sum();
+        return n == 0 ? 0 : attenteTotaleNanos.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /** Attente maximale observée (ms) */
+    public double getAttenteMaxMs() {
+        return attenteMaxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /** Threads actuellement en attente d'une connexion */
+    public int getThreadsEnAttente() {
+        PoolStats etat = etatPool;
+        return etat != null ? etat.getPendingThreads() : 0;
+    }
+
+    public int getConnexionsActives() {
+        PoolStats etat = etatPool;
+        return etat != null ? etat.getActiveConnections() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d acquisitions, attente moy. %.2f ms, max %.2f ms, %d timeouts, %d en attente",
+                pool, getAcquisitions(), getAttenteMoyenneMs(), getAttenteMaxMs(), getTimeouts(), getThreadsEnAttente());
+    }
+}
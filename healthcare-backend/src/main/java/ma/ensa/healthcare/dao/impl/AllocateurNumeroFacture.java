@@ -0,0 +1,86 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PropertyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Year;
+
+/**
+ * Attribution des numéros de facture (FAC-YYYY-NNNN) par blocs pré-réservés.
+ *
+ * Les blocs sont réservés dans COMPTEUR_FACTURE via FN_RESERVER_NUMEROS_FACTURE
+ * (transaction autonome, un seul UPDATE sur la ligne de l'année) : aucun parcours
+ * de FACTURE et aucun doublon possible entre sessions ou instances. Les numéros
+ * d'un bloc non consommés (arrêt de l'application) laissent des trous, acceptés.
+ */
+final class AllocateurNumeroFacture {
+
+    private static final Logger logger = LoggerFactory.getLogger(AllocateurNumeroFacture.class);
+    private static final String SQL_RESERVER = "{? = call FN_RESERVER_NUMEROS_FACTURE(?, ?)}";
+
+    private static final AllocateurNumeroFacture instance = new AllocateurNumeroFacture(
+            PropertyManager.getInstance().getIntProperty("facture.numerotation.bloc", 20));
+
+    private final int tailleBloc;
+
+    // Bloc courant [prochain, fin[ pour l'année anneeBloc (protégé par this)
+    private int anneeBloc;
+    private long prochain;
+    private long fin;
+
+    private AllocateurNumeroFacture(int tailleBloc) {
+        this.tailleBloc = Math.max(1, tailleBloc);
+    }
+
+    static AllocateurNumeroFacture getInstance() {
+        return instance;
+    }
+
+    /**
+     * Attribue le prochain numéro de facture de l'année courante
+     */
+    synchronized String prochainNumero() throws SQLException {
+        int annee = Year.now().getValue();
+        if (annee != anneeBloc || prochain >= fin) {
+            long debut = reserver(annee, tailleBloc);
+            anneeBloc = annee;
+            prochain = debut;
+            fin = debut + tailleBloc;
+        }
+        return formater(annee, prochain++);
+    }
+
+    /**
+     * Réserve un bloc dédié de {@code taille} numéros consécutifs (traitements de masse).
+     * @return Le premier numéro du bloc
+     */
+    long reserverBloc(int annee, int taille) throws SQLException {
+        return reserver(annee, taille);
+    }
+
+    /**
+     * Formate un numéro : 4 chiffres minimum, sans troncature au-delà de 9999
+     */
+    static String formater(int annee, long numero) {
+        return String.format("FAC-%d-%04d", annee, numero);
+    }
+
+    private static long reserver(int annee, int taille) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             CallableStatement cs = conn.prepareCall(SQL_RESERVER)) {
+            cs.registerOutParameter(1, Types.NUMERIC);
+            cs.setInt(2, annee);
+            cs.setInt(3, taille);
+            cs.execute();
+            long debut = cs.getLong(1);
+            logger.debug("Bloc de numéros de facture réservé : {} à {} ({})", debut, debut + taille - 1, annee);
+            return debut;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ma.ensa.healthcare.dao.impl;
 
 import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.interfaces.IConsultationDAO;
+import ma.ensa.healthcare.dto.FiltreConsultations;
 import ma.ensa.healthcare.model.Consultation;
 import ma.ensa.healthcare.model.RendezVous;
 import org.slf4j.Logger;
@@ -9,7 +10,11 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ConsultationDAOImpl implements IConsultationDAO {
     private static final Logger logger = LoggerFactory.getLogger(ConsultationDAOImpl.class);
@@ -202,4 +207,169 @@ public class ConsultationDAOImpl implements IConsultationDAO {
                 .tarifConsultation(rs.getBigDecimal("tarif_consultation"))
                 .build();
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<Consultation> findPage(long apresId, int limite) {
+        String sql = "SELECT * FROM CONSULTATION WHERE id_consultation > ? " +
+                     "ORDER BY id_consultation FETCH FIRST ? ROWS ONLY";
+        List<Consultation> list = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, apresId);
+            pstmt.setInt(2, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToConsultation(rs));
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            logger.error("Erreur findPage", e);
+            throw new RuntimeException("Erreur findPage", e);
+        }
+    }
+
+    @Override
+    public List<Consultation> findPage(FiltreConsultations filtre, long apresId, int limite) {
+        StringBuilder sql = new StringBuilder("SELECT c.* FROM CONSULTATION c " +
+                "JOIN RENDEZ_VOUS r ON c.id_rdv = r.id_rdv WHERE c.id_consultation > ? ");
+        if (filtre.getDate() != null) {
+            sql.append("AND c.date_consultation >= ? AND c.date_consultation < ? ");
+        }
+        if (filtre.getIdMedecin() != null) {
+            sql.append("AND r.id_medecin = ? ");
+        }
+        if (filtre.getTexte() != null) {
+            // Mêmes champs que la recherche de l'écran : diagnostic, "nom prénom" du patient, nom du médecin
+            sql.append("AND (LOWER(c.diagnostic) LIKE ? ESCAPE '\\' OR EXISTS (SELECT 1 FROM PATIENT p " +
+                       "WHERE p.id_patient = r.id_patient AND LOWER(p.nom || ' ' || p.prenom) LIKE ? ESCAPE '\\') " +
+                       "OR EXISTS (SELECT 1 FROM MEDECIN m WHERE m.id_medecin = r.id_medecin " +
+                       "AND LOWER(m.nom) LIKE ? ESCAPE '\\')) ");
+        }
+        sql.append("ORDER BY c.id_consultation FETCH FIRST ? ROWS ONLY");
+        List<Consultation> list = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            pstmt.setLong(i++, apresId);
+            if (filtre.getDate() != null) {
+                pstmt.setDate(i++, Date.valueOf(filtre.getDate()));
+                pstmt.setDate(i++, Date.valueOf(filtre.getDate().plusDays(1)));
+            }
+            if (filtre.getIdMedecin() != null) {
+                pstmt.setLong(i++, filtre.getIdMedecin());
+            }
+            if (filtre.getTexte() != null) {
+                String motif = "%" + filtre.getTexte().toLowerCase()
+                        .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+                pstmt.setString(i++, motif);
+                pstmt.setString(i++, motif);
+                pstmt.setString(i++, motif);
+            }
+            pstmt.setInt(i, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToConsultation(rs));
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            logger.error("Erreur findPage", e);
+            throw new RuntimeException("Erreur findPage", e);
+        }
+    }
+
+    @Override
+    public List<Consultation> findPageAvecMedecins(long apresId, int limite, Map<Long, Long> medecins) {
+        String sql = "SELECT c.*, r.id_medecin FROM CONSULTATION c " +
+                     "JOIN RENDEZ_VOUS r ON c.id_rdv = r.id_rdv " +
+                     "WHERE c.id_consultation > ? " +
+                     "ORDER BY c.id_consultation FETCH FIRST ? ROWS ONLY";
+        List<Consultation> list = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, apresId);
+            pstmt.setInt(2, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Consultation consultation = mapResultSetToConsultation(rs);
+                    medecins.put(consultation.getId(), rs.getLong("id_medecin"));
+                    list.add(consultation);
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            logger.error("Erreur findPageAvecMedecins", e);
+            throw new RuntimeException("Erreur findPageAvecMedecins", e);
+        }
+    }
+
+    // Taille fixe des listes IN (complétées en répétant le dernier ID) : un seul curseur partagé
+    private static final int TAILLE_LOT_IDS = 100;
+    private static final String SQL_FIND_BY_IDS = "SELECT * FROM CONSULTATION WHERE id_consultation IN (" +
+            String.join(", ", Collections.nCopies(TAILLE_LOT_IDS, "?")) + ")";
+
+    @Override
+    public Map<Long, Consultation> findByIds(Collection<Long> ids) {
+        Map<Long, Consultation> consultations = new HashMap<>();
+        if (ids.isEmpty()) {
+            return consultations;
+        }
+        List<Long> liste = new ArrayList<>(ids);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_IDS)) {
+            for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_IDS) {
+                int fin = Math.min(debut + TAILLE_LOT_IDS, liste.size());
+                for (int i = 0; i < TAILLE_LOT_IDS; i++) {
+                    ps.setLong(i + 1, liste.get(Math.min(debut + i, fin - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Consultation consultation = mapResultSetToConsultation(rs);
+                        consultations.put(consultation.getId(), consultation);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur findByIds Consultation: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la récupération des consultations", e);
+        }
+        return consultations;
+    }
+
+    private static final String SQL_FIND_BY_IDS_AVEC_MEDECINS = "SELECT c.*, r.id_medecin FROM CONSULTATION c " +
+            "JOIN RENDEZ_VOUS r ON c.id_rdv = r.id_rdv WHERE c.id_consultation IN (" +
+            String.join(", ", Collections.nCopies(TAILLE_LOT_IDS, "?")) + ")";
+
+    @Override
+    public Map<Long, Consultation> findByIdsAvecMedecins(Collection<Long> ids, Map<Long, Long> medecins) {
+        Map<Long, Consultation> consultations = new HashMap<>();
+        if (ids.isEmpty()) {
+            return consultations;
+        }
+        List<Long> liste = new ArrayList<>(ids);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_IDS_AVEC_MEDECINS)) {
+            for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_IDS) {
+                int fin = Math.min(debut + TAILLE_LOT_IDS, liste.size());
+                for (int i = 0; i < TAILLE_LOT_IDS; i++) {
+                    ps.setLong(i + 1, liste.get(Math.min(debut + i, fin - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Consultation consultation = mapResultSetToConsultation(rs);
+                        medecins.put(consultation.getId(), rs.getLong("id_medecin"));
+                        consultations.put(consultation.getId(), consultation);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur findByIdsAvecMedecins Consultation: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la récupération des consultations", e);
+        }
+        return consultations;
+    }
+}
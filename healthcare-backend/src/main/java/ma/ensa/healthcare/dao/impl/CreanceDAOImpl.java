@@ -0,0 +1,181 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.dao.interfaces.ICreanceDAO;
+import ma.ensa.healthcare.dto.AncienneteCreancesDTO;
+import ma.ensa.healthcare.dto.FactureDTO;
+import ma.ensa.healthcare.model.enums.AxeAnciennete;
+import ma.ensa.healthcare.model.enums.TrancheAnciennete;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation DAO des créances : balance âgée et parcours par tranche.
+ * Les montants sont agrégés par Oracle ; aucune facture n'est chargée pour les calculer.
+ */
+public class CreanceDAOImpl implements ICreanceDAO {
+    private static final Logger logger = LoggerFactory.getLogger(CreanceDAOImpl.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Factures non soldées avec patient, département (via le médecin) et ancienneté en jours
+    private static final String SQL_CREANCES =
+            "SELECT f.id_facture, f.numero_facture, f.date_facture, f.montant_consultation, " +
+            "       f.montant_medicaments, f.montant_total, f.montant_paye, " +
+            "       f.montant_total - f.montant_paye AS reste, f.statut_paiement, " +
+            "       NVL(f.mode_paiement, 'AUCUN') AS mode_paiement, f.date_paiement, " +
+            "       f.id_patient, p.nom || ' ' || p.prenom AS patient, p.cin, " +
+            "       d.id_departement, d.nom_departement, " +
+            "       TRUNC(SYSDATE) - TRUNC(f.date_facture) AS jours " +
+            "FROM FACTURE f " +
+            "JOIN PATIENT p ON p.id_patient = f.id_patient " +
+            "JOIN CONSULTATION c ON c.id_consultation = f.id_consultation " +
+            "JOIN RENDEZ_VOUS r ON r.id_rdv = c.id_rdv " +
+            "JOIN MEDECIN m ON m.id_medecin = r.id_medecin " +
+            "JOIN DEPARTEMENT d ON d.id_departement = m.id_departement " +
+            "WHERE f.statut_paiement IN ('EN_ATTENTE', 'PARTIEL') " +
+            "  AND f.montant_total > f.montant_paye";
+
+    private static final String SQL_ANCIENNETE =
+            "SELECT GROUPING(id_patient) AS g_patient, GROUPING(id_departement) AS g_departement, " +
+            "       GROUPING(mode_paiement) AS g_mode, " +
+            "       id_patient, MAX(patient) AS patient, id_departement, MAX(nom_departement) AS departement, " +
+            "       mode_paiement, COUNT(*) AS nb_factures, SUM(reste) AS total, " +
+            "       SUM(CASE WHEN jours <= 30 THEN reste ELSE 0 END) AS j0_30, " +
+            "       SUM(CASE WHEN jours BETWEEN 31 AND 60 THEN reste ELSE 0 END) AS j31_60, " +
+            "       SUM(CASE WHEN jours BETWEEN 61 AND 90 THEN reste ELSE 0 END) AS j61_90, " +
+            "       SUM(CASE WHEN jours > 90 THEN reste ELSE 0 END) AS j90_plus " +
+            "FROM (" + SQL_CREANCES + ") " +
+            "GROUP BY GROUPING SETS ((id_patient), (id_departement), (mode_paiement), ()) " +
+            "ORDER BY g_patient, g_departement, g_mode, total DESC";
+
+    @Override
+    public List<AncienneteCreancesDTO> calculerAnciennete() {
+        List<AncienneteCreancesDTO> lignes = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_ANCIENNETE);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                AxeAnciennete axe;
+                String cle;
+                String libelle;
+                if (rs.getInt("g_patient") == 0) {
+                    axe = AxeAnciennete.PATIENT;
+                    cle = rs.getString("id_patient");
+                    libelle = rs.getString("patient");
+                } else if (rs.getInt("g_departement") == 0) {
+                    axe = AxeAnciennete.DEPARTEMENT;
+                    cle = rs.getString("id_departement");
+                    libelle = rs.getString("departement");
+                } else if (rs.getInt("g_mode") == 0) {
+                    axe = AxeAnciennete.MODE_PAIEMENT;
+                    cle = rs.getString("mode_paiement");
+                    libelle = cle;
+                } else {
+                    axe = AxeAnciennete.TOTAL;
+                    cle = null;
+                    libelle = "Total";
+                }
+
+                AncienneteCreancesDTO ligne = new AncienneteCreancesDTO(
+                        axe, cle, libelle, rs.getLong("nb_factures"), rs.getBigDecimal("total"));
+                ligne.setMontant(TrancheAnciennete.J0_30, rs.getBigDecimal("j0_30"));
+                ligne.setMontant(TrancheAnciennete.J31_60, rs.getBigDecimal("j31_60"));
+                ligne.setMontant(TrancheAnciennete.J61_90, rs.getBigDecimal("j61_90"));
+                ligne.setMontant(TrancheAnciennete.J90_PLUS, rs.getBigDecimal("j90_plus"));
+                lignes.add(ligne);
+            }
+            return lignes;
+        } catch (SQLException e) {
+            logger.error("Erreur calculerAnciennete", e);
+            throw new RuntimeException("Erreur lors du calcul de la balance âgée", e);
+        }
+    }
+
+    @Override
+    public List<FactureDTO> findCreances(TrancheAnciennete tranche, AxeAnciennete axe, String cle,
+                                         long apresIdFacture, int limite) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM (").append(SQL_CREANCES).append(") WHERE id_facture > ?");
+        if (tranche != null) {
+            sql.append(" AND jours >= ?");
+            if (tranche.getJoursMax() != Integer.MAX_VALUE) {
+                sql.append(" AND jours <= ?");
+            }
+        }
+        String colonne = colonneAxe(axe);
+        if (colonne != null) {
+            sql.append(" AND ").append(colonne).append(" = ?");
+        }
+        sql.append(" ORDER BY id_facture FETCH FIRST ? ROWS ONLY");
+
+        List<FactureDTO> creances = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int i = 1;
+            pstmt.setLong(i++, apresIdFacture);
+            if (tranche != null) {
+                pstmt.setInt(i++, tranche.getJoursMin());
+                if (tranche.getJoursMax() != Integer.MAX_VALUE) {
+                    pstmt.setInt(i++, tranche.getJoursMax());
+                }
+            }
+            if (colonne != null) {
+                pstmt.setString(i++, cle);
+            }
+            pstmt.setInt(i, limite);
+            pstmt.setFetchSize(limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    creances.add(mapResultSetToDTO(rs));
+                }
+            }
+            return creances;
+        } catch (SQLException e) {
+            logger.error("Erreur findCreances", e);
+            throw new RuntimeException("Erreur lors de la récupération des créances", e);
+        }
+    }
+
+    private static String colonneAxe(AxeAnciennete axe) {
+        if (axe == null) {
+            return null;
+        }
+        switch (axe) {
+            case PATIENT: return "id_patient";
+            case DEPARTEMENT: return "id_departement";
+            case MODE_PAIEMENT: return "mode_paiement";
+            default: return null;
+        }
+    }
+
+    private FactureDTO mapResultSetToDTO(ResultSet rs) throws SQLException {
+        FactureDTO dto = new FactureDTO();
+        dto.setId(rs.getLong("id_facture"));
+        dto.setNumeroFacture(rs.getString("numero_facture"));
+        dto.setPatientNom(rs.getString("patient"));
+        dto.setPatientCin(rs.getString("cin"));
+        dto.setDateFacture(rs.getDate("date_facture").toLocalDate().format(DATE_FORMATTER));
+        dto.setMontantConsultation(rs.getBigDecimal("montant_consultation"));
+        dto.setMontantMedicaments(rs.getBigDecimal("montant_medicaments"));
+        dto.setMontantTotal(rs.getBigDecimal("montant_total"));
+        dto.setMontantPaye(rs.getBigDecimal("montant_paye"));
+        dto.setMontantRestant(rs.getBigDecimal("reste"));
+        dto.setStatutPaiement(rs.getString("statut_paiement"));
+        String mode = rs.getString("mode_paiement");
+        if (!"AUCUN".equals(mode)) {
+            dto.setModePaiement(mode);
+        }
+        Date datePaiement = rs.getDate("date_paiement");
+        if (datePaiement != null) {
+            dto.setDatePaiement(datePaiement.toLocalDate().format(DATE_FORMATTER));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,137 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.dao.interfaces.IDoublonPatientDAO;
+import ma.ensa.healthcare.model.DoublonPatient;
+import ma.ensa.healthcare.model.enums.StatutDoublon;
+import ma.ensa.healthcare.transaction.TransactionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation DAO pour la table de revue DOUBLON_PATIENT
+ */
+public class DoublonPatientDAOImpl implements IDoublonPatientDAO {
+    private static final Logger logger = LoggerFactory.getLogger(DoublonPatientDAOImpl.class);
+
+    // Lignes envoyées par executeBatch
+    private static final int TAILLE_LOT = 1000;
+
+    // Patient déjà revu dans le même groupe : la ligne est ignorée au lieu de lever ORA-00001
+    private static final String SQL_INSERER =
+            "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(DOUBLON_PATIENT, uk_doublon_groupe_patient) */ " +
+            "INTO DOUBLON_PATIENT (id_doublon, id_groupe, id_patient, id_patient_proche, score, " +
+            "score_groupe, motifs, statut) VALUES (seq_doublon_patient.NEXTVAL, ?, ?, ?, ?, ?, ?, 'A_VERIFIER')";
+
+    @Override
+    public int remplacerPropositions(List<DoublonPatient> doublons) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            TransactionManager.beginTransaction(conn);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM DOUBLON_PATIENT WHERE statut = 'A_VERIFIER'")) {
+                pstmt.executeUpdate();
+            }
+
+            int inseres = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERER)) {
+                int enAttente = 0;
+                for (DoublonPatient d : doublons) {
+                    pstmt.setLong(1, d.getIdGroupe());
+                    pstmt.setLong(2, d.getIdPatient());
+                    pstmt.setLong(3, d.getIdPatientProche());
+                    pstmt.setDouble(4, d.getScore());
+                    pstmt.setDouble(5, d.getScoreGroupe());
+                    pstmt.setString(6, d.getMotifs());
+                    pstmt.addBatch();
+                    if (++enAttente == TAILLE_LOT) {
+                        inseres += compterInseres(pstmt.executeBatch());
+                        enAttente = 0;
+                    }
+                }
+                if (enAttente > 0) {
+                    inseres += compterInseres(pstmt.executeBatch());
+                }
+            }
+
+            TransactionManager.commit(conn);
+            logger.debug("{} propositions de doublons enregistrées sur {}", inseres, doublons.size());
+            return inseres;
+        } catch (SQLException e) {
+            TransactionManager.rollback(conn);
+            logger.error("Erreur remplacerPropositions", e);
+            throw new RuntimeException("Erreur lors de l'enregistrement des doublons", e);
+        } finally {
+            DatabaseConfig.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public List<DoublonPatient> findByStatut(StatutDoublon statut) {
+        List<DoublonPatient> doublons = new ArrayList<>();
+        String sql = "SELECT * FROM DOUBLON_PATIENT WHERE statut = ? " +
+                     "ORDER BY score_groupe DESC, id_groupe, id_patient";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, statut.name());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    doublons.add(mapResultSetToDoublon(rs));
+                }
+            }
+            return doublons;
+        } catch (SQLException e) {
+            logger.error("Erreur findByStatut", e);
+            throw new RuntimeException("Erreur lors de la récupération des doublons", e);
+        }
+    }
+
+    @Override
+    public int updateStatutGroupe(Long idGroupe, StatutDoublon statut) {
+        // Lignes déjà revues exclues : une nouvelle détection peut ajouter des lignes à vérifier à un groupe revu
+        String sql = "UPDATE DOUBLON_PATIENT SET statut = ? WHERE id_groupe = ? AND statut = 'A_VERIFIER'";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, statut.name());
+            pstmt.setLong(2, idGroupe);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Erreur updateStatutGroupe", e);
+            throw new RuntimeException("Erreur lors de la mise à jour du groupe de doublons", e);
+        }
+    }
+
+    private static int compterInseres(int[] resultats) {
+        int n = 0;
+        for (int r : resultats) {
+            // SUCCESS_NO_INFO (-2) : le pilote ne sait pas, la ligne est comptée
+            if (r > 0 || r == Statement.SUCCESS_NO_INFO) n++;
+        }
+        return n;
+    }
+
+    private DoublonPatient mapResultSetToDoublon(ResultSet rs) throws SQLException {
+        Date dateDetection = rs.getDate("date_detection");
+        return DoublonPatient.builder()
+                .id(rs.getLong("id_doublon"))
+                .idGroupe(rs.getLong("id_groupe"))
+                .idPatient(rs.getLong("id_patient"))
+                .idPatientProche(rs.getLong("id_patient_proche"))
+                .score(rs.getDouble("score"))
+                .scoreGroupe(rs.getDouble("score_groupe"))
+                .motifs(rs.getString("motifs"))
+                .statut(StatutDoublon.valueOf(rs.getString("statut")))
+                .dateDetection(dateDetection != null ? dateDetection.toLocalDate() : null)
+                .build();
+    }
+}
@@ -0,0 +1,211 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.dto.BilanFacturationMasse;
+import ma.ensa.healthcare.transaction.TransactionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Facturation en masse des consultations sans facture d'une période.
+ *
+ * Les consultations sont lues par pages en avançant sur id_consultation (pas d'OFFSET),
+ * avec anti-jointure sur FACTURE et montant des médicaments agrégé en SQL.
+ * Chaque page prend un bloc de numéros, est insérée par lot JDBC puis validée
+ * avec son point de reprise (REPRISE_FACTURATION) : après un arrêt, un nouvel appel
+ * sur la même période repart de la dernière page validée.
+ */
+final class FacturationMasse {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacturationMasse.class);
+
+    static final String SQL_CONSULTATIONS_NON_FACTUREES =
+            "SELECT c.id_consultation, r.id_patient, NVL(c.tarif_consultation, 0) AS tarif, " +
+            "       NVL(SUM(NVL(t.quantite, 1) * NVL(m.prix_unitaire, 0)), 0) AS medicaments " +
+            "FROM CONSULTATION c " +
+            "JOIN RENDEZ_VOUS r ON r.id_rdv = c.id_rdv " +
+            "LEFT JOIN TRAITEMENT t ON t.id_consultation = c.id_consultation " +
+            "LEFT JOIN MEDICAMENT m ON m.id_medicament = t.id_medicament " +
+            "WHERE c.date_consultation >= ? AND c.date_consultation < ? " +
+            "  AND c.id_consultation > ? " +
+            "  AND NOT EXISTS (SELECT 1 FROM FACTURE f WHERE f.id_consultation = c.id_consultation) " +
+            "GROUP BY c.id_consultation, r.id_patient, c.tarif_consultation " +
+            "ORDER BY c.id_consultation " +
+            "FETCH FIRST ? ROWS ONLY";
+
+    // NOT EXISTS : une facture créée entre-temps (trigger, écran) est simplement ignorée
+    private static final String SQL_INSERER_FACTURE =
+            "INSERT INTO FACTURE (id_facture, numero_facture, id_patient, id_consultation, " +
+            "date_facture, montant_consultation, montant_medicaments, montant_total, " +
+            "montant_paye, statut_paiement) " +
+            "SELECT seq_facture.NEXTVAL, ?, ?, ?, SYSDATE, ?, ?, ?, 0, 'EN_ATTENTE' FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM FACTURE WHERE id_consultation = ?)";
+
+    private static final String SQL_LIRE_REPRISE =
+            "SELECT derniere_consultation, factures_creees, statut FROM REPRISE_FACTURATION WHERE cle_lot = ?";
+
+    private static final String SQL_ENREGISTRER_REPRISE =
+            "MERGE INTO REPRISE_FACTURATION r USING (SELECT ? AS cle_lot FROM DUAL) s " +
+            "ON (r.cle_lot = s.cle_lot) " +
+            "WHEN MATCHED THEN UPDATE SET r.derniere_consultation = ?, r.factures_creees = ?, " +
+            "  r.statut = ?, r.date_maj = SYSDATE " +
+            "WHEN NOT MATCHED THEN INSERT (cle_lot, derniere_consultation, factures_creees, statut, date_maj) " +
+            "  VALUES (s.cle_lot, ?, ?, ?, SYSDATE)";
+
+    private final LocalDate dateDebut;
+    private final LocalDate dateFin;
+    private final int taillePage;
+    private final Consumer<BilanFacturationMasse> progression;
+    private final String cleLot;
+
+    FacturationMasse(LocalDate dateDebut, LocalDate dateFin, int taillePage,
+                     Consumer<BilanFacturationMasse> progression) {
+        this.dateDebut = dateDebut;
+        this.dateFin = dateFin;
+        this.taillePage = Math.max(1, taillePage);
+        this.progression = progression;
+        this.cleLot = "FACT-MASSE-" + dateDebut + "-" + dateFin;
+    }
+
+    BilanFacturationMasse executer() throws SQLException {
+        long debut = System.currentTimeMillis();
+        try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN)) {
+            long derniere = 0;
+            int creees = 0;
+            boolean reprise = false;
+
+            try (PreparedStatement ps = conn.prepareStatement(SQL_LIRE_REPRISE)) {
+                ps.setString(1, cleLot);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && "EN_COURS".equals(rs.getString("statut"))) {
+                        derniere = rs.getLong("derniere_consultation");
+                        creees = rs.getInt("factures_creees");
+                        reprise = true;
+                        logger.info("Reprise du lot {} après la consultation ID {} ({} factures déjà créées)",
+                                    cleLot, derniere, creees);
+                    }
+                }
+            }
+
+            int pages = 0;
+            BigDecimal montant = BigDecimal.ZERO;
+            try (PreparedStatement select = conn.prepareStatement(SQL_CONSULTATIONS_NON_FACTUREES);
+                 PreparedStatement insert = conn.prepareStatement(SQL_INSERER_FACTURE);
+                 PreparedStatement pointReprise = conn.prepareStatement(SQL_ENREGISTRER_REPRISE)) {
+
+                select.setFetchSize(taillePage);
+                while (true) {
+                    List<LigneAFacturer> page = lirePage(select, derniere);
+                    if (page.isEmpty()) {
+                        break;
+                    }
+
+                    int annee = Year.now().getValue();
+                    long premierNumero = AllocateurNumeroFacture.getInstance().reserverBloc(annee, page.size());
+
+                    TransactionManager.beginTransaction(conn);
+                    try {
+                        for (int i = 0; i < page.size(); i++) {
+                            LigneAFacturer ligne = page.get(i);
+                            insert.setString(1, AllocateurNumeroFacture.formater(annee, premierNumero + i));
+                            insert.setLong(2, ligne.idPatient);
+                            insert.setLong(3, ligne.idConsultation);
+                            insert.setBigDecimal(4, ligne.tarif);
+                            insert.setBigDecimal(5, ligne.medicaments);
+                            insert.setBigDecimal(6, ligne.tarif.add(ligne.medicaments));
+                            insert.setLong(7, ligne.idConsultation);
+                            insert.addBatch();
+                        }
+                        int[] resultats = insert.executeBatch();
+                        for (int i = 0; i < resultats.length; i++) {
+                            if (resultats[i] > 0) {
+                                creees++;
+                                montant = montant.add(page.get(i).tarif.add(page.get(i).medicaments));
+                            }
+                        }
+
+                        derniere = page.get(page.size() - 1).idConsultation;
+                        enregistrerReprise(pointReprise, derniere, creees, "EN_COURS");
+                        TransactionManager.commit(conn);
+                    } catch (SQLException e) {
+                        TransactionManager.rollback(conn);
+                        throw e;
+                    }
+
+                    pages++;
+                    if (progression != null) {
+                        progression.accept(bilan(pages, creees, montant, derniere, reprise, false, debut));
+                    }
+                }
+
+                enregistrerReprise(pointReprise, derniere, creees, "TERMINE");
+            }
+
+            BilanFacturationMasse bilan = bilan(pages, creees, montant, derniere, reprise, true, debut);
+            if (progression != null) {
+                progression.accept(bilan);
+            }
+            logger.info("{}", bilan);
+            return bilan;
+        }
+    }
+
+    private List<LigneAFacturer> lirePage(PreparedStatement select, long apres) throws SQLException {
+        select.setDate(1, Date.valueOf(dateDebut));
+        select.setDate(2, Date.valueOf(dateFin.plusDays(1)));
+        select.setLong(3, apres);
+        select.setInt(4, taillePage);
+        List<LigneAFacturer> page = new ArrayList<>(taillePage);
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                page.add(new LigneAFacturer(rs.getLong("id_consultation"), rs.getLong("id_patient"),
+                        rs.getBigDecimal("tarif"), rs.getBigDecimal("medicaments")));
+            }
+        }
+        return page;
+    }
+
+    private void enregistrerReprise(PreparedStatement ps, long derniere, int creees, String statut) throws SQLException {
+        ps.setString(1, cleLot);
+        ps.setLong(2, derniere);
+        ps.setInt(3, creees);
+        ps.setString(4, statut);
+        ps.setLong(5, derniere);
+        ps.setInt(6, creees);
+        ps.setString(7, statut);
+        ps.executeUpdate();
+    }
+
+    private BilanFacturationMasse bilan(int pages, int creees, BigDecimal montant, long derniere,
+                                        boolean reprise, boolean termine, long debut) {
+        return new BilanFacturationMasse(dateDebut, dateFin, pages, creees, montant, derniere,
+                reprise, termine, System.currentTimeMillis() - debut);
+    }
+
+    private static final class LigneAFacturer {
+        private final long idConsultation;
+        private final long idPatient;
+        private final BigDecimal tarif;
+        private final BigDecimal medicaments;
+
+        private LigneAFacturer(long idConsultation, long idPatient, BigDecimal tarif, BigDecimal medicaments) {
+            this.idConsultation = idConsultation;
+            this.idPatient = idPatient;
+            this.tarif = tarif;
+            this.medicaments = medicaments;
+        }
+    }
+}
@@ -2,8 +2,13 @@ package ma.ensa.healthcare.dao.impl;
 
 import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.interfaces.IFactureDAO;
+import ma.ensa.healthcare.dao.interfaces.IPaiementDAO;
+import ma.ensa.healthcare.dto.BilanFacturationMasse;
+import ma.ensa.healthcare.dto.FiltreFactures;
+import ma.ensa.healthcare.dto.TotauxFacturesDTO;
 import ma.ensa.healthcare.model.Facture;
 import ma.ensa.healthcare.model.Consultation;
+import ma.ensa.healthcare.model.Paiement;
 import ma.ensa.healthcare.model.Patient;
 import ma.ensa.healthcare.model.enums.StatutPaiement;
 import ma.ensa.healthcare.model.enums.ModePaiement;
@@ -15,6 +20,8 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Implémentation DAO pour l'entité FACTURE
@@ -22,6 +29,11 @@ import java.util.List;
  */
 public class FactureDAOImpl implements IFactureDAO {
     private static final Logger logger = LoggerFactory.getLogger(FactureDAOImpl.class);
+    private final IPaiementDAO paiementDAO = new PaiementDAOImpl();
+
+    // Chiffre d'affaires du tableau de bord (pré-préparée, voir RequetesFrequentes)
+    static final String SQL_REVENUS_PERIODE = "SELECT SUM(montant_paye) FROM FACTURE " +
+                                              "WHERE date_facture BETWEEN ? AND ?";
 
     @Override
     public Facture save(Facture f) {
@@ -182,27 +194,15 @@ public class FactureDAOImpl implements IFactureDAO {
 
     @Override
     public void enregistrerPaiement(Long factureId, BigDecimal montant, ModePaiement modePaiement, LocalDate datePaiement) {
-        String sql = "UPDATE FACTURE SET montant_paye = montant_paye + ?, " +
-                    "statut_paiement = CASE " +
-                    "  WHEN montant_paye + ? >= montant_total THEN 'PAYE' " +
-                    "  ELSE 'PARTIEL' END, " +
-                    "mode_paiement = ?, date_paiement = ? " +
-                    "WHERE id_facture = ?";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setBigDecimal(1, montant);
-            pstmt.setBigDecimal(2, montant);
-            pstmt.setString(3, modePaiement.name());
-            pstmt.setDate(4, Date.valueOf(datePaiement));
-            pstmt.setLong(5, factureId);
-            
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            logger.error("Erreur enregistrerPaiement", e);
-            throw new RuntimeException("Erreur enregistrerPaiement", e);
-        }
+        // Passe par le journal PAIEMENT (montant_paye n'est jamais modifié seul)
+        Paiement paiement = Paiement.builder()
+                .cleIdempotence(UUID.randomUUID().toString())
+                .idFacture(factureId)
+                .montant(montant)
+                .modePaiement(modePaiement)
+                .datePaiement(datePaiement)
+                .build();
+        paiementDAO.enregistrerLot(List.of(paiement));
     }
 
     @Override
@@ -226,24 +226,233 @@ public class FactureDAOImpl implements IFactureDAO {
         }
     }
 
+    /**
+     * Bloc PL/SQL unique : patient résolu par jointure, MERGE sur id_consultation
+     * (la facture a pu être créée par TRG_AUTO_FACTURE), puis relecture en paramètres OUT.
+     * Une facture existante n'est mise à jour que tant qu'aucun paiement n'a été reçu.
+     */
+    private static final String SQL_GENERER_POUR_CONSULTATION =
+            "DECLARE " +
+            "  v_id_consultation NUMBER := ?; " +
+            "  v_medicaments NUMBER := ?; " +
+            "BEGIN " +
+            "  MERGE INTO FACTURE f " +
+            "  USING (SELECT c.id_consultation, r.id_patient, NVL(c.tarif_consultation, 0) AS tarif " +
+            "         FROM CONSULTATION c JOIN RENDEZ_VOUS r ON r.id_rdv = c.id_rdv " +
+            "         WHERE c.id_consultation = v_id_consultation) s " +
+            "  ON (f.id_consultation = s.id_consultation) " +
+            "  WHEN MATCHED THEN UPDATE SET " +
+            "    f.montant_medicaments = NVL(v_medicaments, f.montant_medicaments), " +
+            "    f.montant_total = f.montant_consultation + NVL(v_medicaments, f.montant_medicaments) " +
+            "    WHERE f.statut_paiement = 'EN_ATTENTE' AND f.montant_paye = 0 " +
+            "  WHEN NOT MATCHED THEN INSERT (id_facture, numero_facture, id_patient, id_consultation, " +
+            "    date_facture, montant_consultation, montant_medicaments, montant_total, " +
+            "    montant_paye, statut_paiement) " +
+            "    VALUES (seq_facture.NEXTVAL, ?, s.id_patient, s.id_consultation, SYSDATE, s.tarif, " +
+            "    NVL(v_medicaments, 0), s.tarif + NVL(v_medicaments, 0), 0, 'EN_ATTENTE'); " +
+            "  SELECT id_facture, numero_facture, id_patient, date_facture, montant_consultation, " +
+            "         montant_medicaments, montant_total, montant_paye, statut_paiement, " +
+            "         mode_paiement, date_paiement " +
+            "  INTO ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? " +
+            "  FROM FACTURE WHERE id_consultation = v_id_consultation; " +
+            "EXCEPTION WHEN NO_DATA_FOUND THEN " +
+            "  NULL; " +
+            "END;";
+
     @Override
-    public String genererNumeroFacture() {
-        String sql = "SELECT 'FAC-' || TO_CHAR(SYSDATE, 'YYYY') || '-' || " +
-                    "LPAD(NVL(MAX(TO_NUMBER(SUBSTR(numero_facture, -4))), 0) + 1, 4, '0') " +
-                    "FROM FACTURE " +
-                    "WHERE numero_facture LIKE 'FAC-' || TO_CHAR(SYSDATE, 'YYYY') || '-%'";
-        
+    public Facture genererPourConsultation(Long idConsultation, BigDecimal montantMedicaments) {
         try (Connection conn = DatabaseConfig.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString(1);
+             CallableStatement cs = conn.prepareCall(SQL_GENERER_POUR_CONSULTATION)) {
+
+            cs.setLong(1, idConsultation);
+            cs.setBigDecimal(2, montantMedicaments);
+            // Numéro pris dans le bloc pré-réservé (perdu si la facture existait déjà)
+            cs.setString(3, genererNumeroFacture());
+
+            cs.registerOutParameter(4, Types.NUMERIC);
+            cs.registerOutParameter(5, Types.VARCHAR);
+            cs.registerOutParameter(6, Types.NUMERIC);
+            cs.registerOutParameter(7, Types.DATE);
+            cs.registerOutParameter(8, Types.NUMERIC);
+            cs.registerOutParameter(9, Types.NUMERIC);
+            cs.registerOutParameter(10, Types.NUMERIC);
+            cs.registerOutParameter(11, Types.NUMERIC);
+            cs.registerOutParameter(12, Types.VARCHAR);
+            cs.registerOutParameter(13, Types.VARCHAR);
+            cs.registerOutParameter(14, Types.DATE);
+            cs.execute();
+
+            // Consultation introuvable : le bloc s'est terminé sans renseigner les paramètres OUT
+            long idFacture = cs.getLong(4);
+            if (cs.wasNull()) {
+                logger.warn("Consultation ID {} introuvable, aucune facture générée", idConsultation);
+                return null;
+            }
+
+            Facture.FactureBuilder builder = Facture.builder()
+                    .id(idFacture)
+                    .numeroFacture(cs.getString(5))
+                    .idPatient(cs.getLong(6))
+                    .idConsultation(idConsultation)
+                    .dateFacture(cs.getDate(7).toLocalDate())
+                    .montantConsultation(cs.getBigDecimal(8))
+                    .montantMedicaments(cs.getBigDecimal(9))
+                    .montantTotal(cs.getBigDecimal(10))
+                    .montantPaye(cs.getBigDecimal(11))
+                    .statutPaiement(StatutPaiement.valueOf(cs.getString(12)));
+            String modePaiement = cs.getString(13);
+            if (modePaiement != null) {
+                builder.modePaiement(ModePaiement.valueOf(modePaiement));
+            }
+            Date datePaiement = cs.getDate(14);
+            if (datePaiement != null) {
+                builder.datePaiement(datePaiement.toLocalDate());
+            }
+
+            Facture facture = builder.build();
+            logger.info("Facture {} générée pour la consultation ID {}", facture.getNumeroFacture(), idConsultation);
+            return facture;
+        } catch (SQLException e) {
+            logger.error("Erreur genererPourConsultation: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la génération de la facture", e);
+        }
+    }
+
+    @Override
+    public List<Facture> findPage(FiltreFactures filtre, long apresId, int limite) {
+        List<Object> parametres = new ArrayList<>();
+        String conditions = conditionsFiltre(filtre, parametres);
+        String sql = "SELECT f.* FROM FACTURE f WHERE f.id_facture > ? " +
+                     (conditions.isEmpty() ? "" : "AND " + conditions + " ") +
+                     "ORDER BY f.id_facture FETCH FIRST ? ROWS ONLY";
+        List<Facture> factures = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, apresId);
+            int i = lierParametres(pstmt, 2, parametres);
+            pstmt.setInt(i, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    factures.add(mapResultSetToFacture(rs));
+                }
+            }
+            return factures;
+        } catch (SQLException e) {
+            logger.error("Erreur findPage", e);
+            throw new RuntimeException("Erreur findPage", e);
+        }
+    }
+
+    @Override
+    public List<Facture> findPagePeriode(LocalDate dateDebut, LocalDate dateFin, long apresId, int limite) {
+        String sql = "SELECT * FROM FACTURE WHERE date_facture >= ? AND date_facture < ? AND id_facture > ? " +
+                     "ORDER BY id_facture FETCH FIRST ? ROWS ONLY";
+        List<Facture> factures = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, Date.valueOf(dateDebut));
+            pstmt.setDate(2, Date.valueOf(dateFin.plusDays(1)));
+            pstmt.setLong(3, apresId);
+            pstmt.setInt(4, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    factures.add(mapResultSetToFacture(rs));
+                }
+            }
+            return factures;
+        } catch (SQLException e) {
+            logger.error("Erreur findPagePeriode", e);
+            throw new RuntimeException("Erreur findPagePeriode", e);
+        }
+    }
+
+    @Override
+    public TotauxFacturesDTO getTotaux(FiltreFactures filtre) {
+        List<Object> parametres = new ArrayList<>();
+        String conditions = conditionsFiltre(filtre, parametres);
+        String sql = "SELECT COUNT(*), NVL(SUM(f.montant_total), 0), NVL(SUM(f.montant_paye), 0), " +
+                     "NVL(SUM(f.montant_total - f.montant_paye), 0) FROM FACTURE f" +
+                     (conditions.isEmpty() ? "" : " WHERE " + conditions);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            lierParametres(pstmt, 1, parametres);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return new TotauxFacturesDTO(rs.getLong(1), rs.getBigDecimal(2),
+                                             rs.getBigDecimal(3), rs.getBigDecimal(4));
             }
-            return "FAC-" + java.time.Year.now() + "-0001";
+        } catch (SQLException e) {
+            logger.error("Erreur getTotaux", e);
+            throw new RuntimeException("Erreur getTotaux", e);
+        }
+    }
+
+    /**
+     * Conditions SQL du filtre sur FACTURE f (chaîne vide si aucune) ; ajoute leurs valeurs à parametres
+     */
+    private static String conditionsFiltre(FiltreFactures filtre, List<Object> parametres) {
+        List<String> conditions = new ArrayList<>();
+        if (filtre.getStatut() != null) {
+            conditions.add("f.statut_paiement = ?");
+            parametres.add(filtre.getStatut().name());
+        }
+        if (filtre.getDateDebut() != null) {
+            conditions.add("f.date_facture >= ?");
+            parametres.add(Date.valueOf(filtre.getDateDebut()));
+        }
+        if (filtre.getDateFin() != null) {
+            conditions.add("f.date_facture < ?");
+            parametres.add(Date.valueOf(filtre.getDateFin().plusDays(1)));
+        }
+        if (filtre.getTexte() != null) {
+            // Mêmes champs que la recherche de l'écran : numéro, "nom prénom" ou CIN du patient
+            conditions.add("(LOWER(f.numero_facture) LIKE ? ESCAPE '\\' OR EXISTS (SELECT 1 FROM PATIENT p " +
+                           "WHERE p.id_patient = f.id_patient AND (LOWER(p.nom || ' ' || p.prenom) LIKE ? ESCAPE '\\' " +
+                           "OR LOWER(p.cin) LIKE ? ESCAPE '\\')))");
+            String motif = "%" + filtre.getTexte().toLowerCase()
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            parametres.add(motif);
+            parametres.add(motif);
+            parametres.add(motif);
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    /**
+     * @return Index du paramètre suivant
+     */
+    private static int lierParametres(PreparedStatement pstmt, int index, List<Object> parametres) throws SQLException {
+        for (Object valeur : parametres) {
+            if (valeur instanceof Date date) {
+                pstmt.setDate(index++, date);
+            } else {
+                pstmt.setString(index++, (String) valeur);
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public BilanFacturationMasse genererFacturesEnMasse(LocalDate dateDebut, LocalDate dateFin, int taillePage,
+                                                        Consumer<BilanFacturationMasse> progression) {
+        try {
+            return new FacturationMasse(dateDebut, dateFin, taillePage, progression).executer();
+        } catch (SQLException e) {
+            logger.error("Erreur genererFacturesEnMasse: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la facturation en masse", e);
+        }
+    }
+
+    @Override
+    public String genererNumeroFacture() {
+        // Compteur annuel par blocs : ni parcours de FACTURE, ni doublon concurrent
+        try {
+            return AllocateurNumeroFacture.getInstance().prochainNumero();
         } catch (SQLException e) {
             logger.error("Erreur genererNumeroFacture", e);
-            return "FAC-" + java.time.Year.now() + "-0001";
+            throw new RuntimeException("Erreur lors de la génération du numéro de facture", e);
         }
     }
 
@@ -290,8 +499,7 @@ public class FactureDAOImpl implements IFactureDAO {
 
     @Override
     public BigDecimal getRevenusPeriode(LocalDate dateDebut, LocalDate dateFin) {
-        String sql = "SELECT SUM(montant_paye) FROM FACTURE " +
-                    "WHERE date_facture BETWEEN ? AND ?";
+        String sql = SQL_REVENUS_PERIODE;
         
         try (Connection conn = DatabaseConfig.getConnection();
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -311,6 +519,29 @@ public class FactureDAOImpl implements IFactureDAO {
         }
     }
 
+    @Override
+    public List<Facture> findByPeriode(LocalDate dateDebut, LocalDate dateFin) {
+        List<Facture> factures = new ArrayList<>();
+        String sql = "SELECT * FROM FACTURE WHERE date_facture >= ? AND date_facture < ? ORDER BY id_facture";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDate(1, Date.valueOf(dateDebut));
+            pstmt.setDate(2, Date.valueOf(dateFin.plusDays(1)));
+            pstmt.setFetchSize(500);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    factures.add(mapResultSetToFacture(rs));
+                }
+            }
+            return factures;
+        } catch (SQLException e) {
+            logger.error("Erreur findByPeriode", e);
+            throw new RuntimeException("Erreur lors de la récupération des factures de la période", e);
+        }
+    }
+
     @Override
     public Facture findByNumero(String numeroFacture) {
         String sql = "SELECT * FROM FACTURE WHERE numero_facture = ?";
@@ -331,6 +562,27 @@ public class FactureDAOImpl implements IFactureDAO {
         }
     }
 
+    @Override
+    public List<Facture> findByNumeroPrefixe(String prefixe, int limite) {
+        String sql = "SELECT * FROM FACTURE WHERE numero_facture LIKE ? ESCAPE '\\' " +
+                     "ORDER BY numero_facture FETCH FIRST ? ROWS ONLY";
+        List<Facture> factures = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, prefixe.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+            pstmt.setInt(2, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    factures.add(mapResultSetToFacture(rs));
+                }
+            }
+            return factures;
+        } catch (SQLException e) {
+            logger.error("Erreur findByNumeroPrefixe", e);
+            throw new RuntimeException("Erreur lors de la recherche des factures par numéro", e);
+        }
+    }
+
     @Override
     public List<Facture> findByStatut(StatutPaiement statut) {
         List<Facture> factures = new ArrayList<>();
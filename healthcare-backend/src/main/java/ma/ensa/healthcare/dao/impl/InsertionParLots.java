@@ -0,0 +1,83 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.transaction.TransactionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Insertions en masse (imports) : un lot JDBC par appel, dans une seule transaction.
+ *
+ * Le SQL porte un indice IGNORE_ROW_ON_DUPKEY_INDEX sur la clé métier : une ligne
+ * déjà présente en base (insérée entre-temps par un autre poste) est ignorée au lieu
+ * de faire échouer le lot. Les ID générés ne sont pas relus.
+ */
+class InsertionParLots {
+
+    /**
+     * Liaison des paramètres d'une ligne
+     */
+    interface Liaison<T> {
+        void lier(PreparedStatement ps, T ligne) throws SQLException;
+    }
+
+    private InsertionParLots() {
+    }
+
+    /**
+     * @return Pour chaque ligne : true si elle a été insérée, false si sa clé existait déjà
+     * @throws SQLException si une ligne viole une autre contrainte (lot entier annulé)
+     */
+    static <T> boolean[] inserer(String sql, List<T> lignes, Liaison<T> liaison) throws SQLException {
+        boolean[] inseres = new boolean[lignes.size()];
+        if (lignes.isEmpty()) {
+            return inseres;
+        }
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            TransactionManager.beginTransaction(conn);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (T ligne : lignes) {
+                    liaison.lier(ps, ligne);
+                    ps.addBatch();
+                }
+                int[] resultats = ps.executeBatch();
+                for (int i = 0; i < resultats.length; i++) {
+                    inseres[i] = resultats[i] > 0;
+                }
+            }
+            TransactionManager.commit(conn);
+            return inseres;
+        } catch (SQLException e) {
+            TransactionManager.rollback(conn);
+            throw e;
+        } finally {
+            DatabaseConfig.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Valeurs d'une colonne de clé métier (première colonne du SELECT), pour dédoublonner avant insertion
+     */
+    static Set<String> lireCles(String sql) throws SQLException {
+        Set<String> cles = new HashSet<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(5000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    cles.add(rs.getString(1));
+                }
+            }
+        }
+        return cles;
+    }
+}
@@ -0,0 +1,90 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.interfaces.IJournalModificationsDAO;
+import ma.ensa.healthcare.dto.ModificationsJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Implémentation DAO pour JOURNAL_MODIFICATIONS.
+ *
+ * Le journal est en ROWDEPENDENCIES : ORA_ROWSCN est le SCN de validation de chaque note
+ * (et non celui de son bloc). Il ne contient que les notes depuis la dernière sauvegarde,
+ * et les sauvegardes n'en purgent que celles validées depuis plus de RETENTION_SECONDES :
+ * un lecteur qui repasse plus souvent ne manque aucune note.
+ */
+public class JournalModificationsDAOImpl implements IJournalModificationsDAO {
+    private static final Logger logger = LoggerFactory.getLogger(JournalModificationsDAOImpl.class);
+
+    /**
+     * Durée minimale de conservation d'une note après sa validation (purge des sauvegardes)
+     */
+    public static final int RETENTION_SECONDES =
+        PropertyManager.getInstance().getIntProperty("journal.modifications.retentionSecondes", 900);
+
+    private static final String SQL_SCN = "SELECT TIMESTAMP_TO_SCN(SYSTIMESTAMP) FROM DUAL";
+
+    // SCN courant, et SCN en deçà duquel une purge a pu passer
+    private static final String SQL_SCN_ET_PURGE =
+            "SELECT TIMESTAMP_TO_SCN(SYSTIMESTAMP), " +
+            "TIMESTAMP_TO_SCN(SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND')) FROM DUAL";
+
+    private static final String SQL_MODIFICATIONS =
+            "SELECT id_ligne FROM JOURNAL_MODIFICATIONS " +
+            "WHERE nom_table = ? AND ORA_ROWSCN > ? AND ORA_ROWSCN <= ?";
+
+    @Override
+    public long lireScnCourant() {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_SCN);
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            logger.error("Erreur lireScnCourant", e);
+            throw new RuntimeException("Erreur lors de la lecture du SCN courant", e);
+        }
+    }
+
+    @Override
+    public ModificationsJournal findModifications(String table, long apresScn) {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            long scn;
+            long scnPurge;
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_SCN_ET_PURGE)) {
+                pstmt.setInt(1, RETENTION_SECONDES);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    scn = rs.getLong(1);
+                    scnPurge = rs.getLong(2);
+                }
+            }
+            if (apresScn < scnPurge) {
+                return null;
+            }
+
+            Set<Long> ids = new HashSet<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_MODIFICATIONS)) {
+                pstmt.setString(1, table);
+                pstmt.setLong(2, apresScn);
+                pstmt.setLong(3, scn);
+                pstmt.setFetchSize(1000);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+            }
+            return new ModificationsJournal(scn, ids);
+        } catch (SQLException e) {
+            logger.error("Erreur findModifications {}", table, e);
+            throw new RuntimeException("Erreur lors de la lecture du journal des modifications", e);
+        }
+    }
+}
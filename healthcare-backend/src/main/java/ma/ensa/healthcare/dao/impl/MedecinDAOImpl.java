@@ -4,12 +4,18 @@ import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.interfaces.IMedecinDAO;
 import ma.ensa.healthcare.model.Medecin;
 import ma.ensa.healthcare.model.Departement;
+import ma.ensa.healthcare.model.SuiviModifications;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implémentation DAO pour l'entité MEDECIN
@@ -75,6 +81,38 @@ public class MedecinDAOImpl implements IMedecinDAO {
         return null;
     }
 
+    private static final int TAILLE_LOT_IDS = 100;
+    private static final String SQL_FIND_BY_IDS = "SELECT * FROM MEDECIN WHERE id_medecin IN (" +
+            String.join(", ", Collections.nCopies(TAILLE_LOT_IDS, "?")) + ")";
+
+    @Override
+    public Map<Long, Medecin> findByIds(Collection<Long> ids) {
+        Map<Long, Medecin> medecins = new HashMap<>();
+        if (ids.isEmpty()) {
+            return medecins;
+        }
+        List<Long> liste = new ArrayList<>(ids);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_IDS)) {
+            for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_IDS) {
+                int fin = Math.min(debut + TAILLE_LOT_IDS, liste.size());
+                for (int i = 0; i < TAILLE_LOT_IDS; i++) {
+                    ps.setLong(i + 1, liste.get(Math.min(debut + i, fin - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Medecin objet = mapResultSetToMedecin(rs);
+                        medecins.put(objet.getId(), objet);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur findByIds Medecin: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la récupération des médecins", e);
+        }
+        return medecins;
+    }
+
     @Override
     public List<Medecin> findBySpecialite(String specialite) {
         List<Medecin> medecins = new ArrayList<>();
@@ -114,6 +152,12 @@ public class MedecinDAOImpl implements IMedecinDAO {
 
     @Override
     public void update(Medecin medecin) {
+        // Objet chargé depuis la base : on n'envoie que les colonnes modifiées
+        if (medecin.getSuivi().isActif()) {
+            updatePartiel(medecin);
+            return;
+        }
+
         String sql = "UPDATE MEDECIN SET numero_ordre = ?, nom = ?, prenom = ?, " +
                      "specialite = ?, telephone = ?, email = ?, date_embauche = ?, " +
                      "id_departement = ? WHERE id_medecin = ?";
@@ -144,6 +188,39 @@ public class MedecinDAOImpl implements IMedecinDAO {
         }
     }
 
+    /**
+     * UPDATE limité aux colonnes modifiées depuis la lecture en base
+     */
+    private void updatePartiel(Medecin medecin) {
+        SuiviModifications suivi = medecin.getSuivi();
+        if (!suivi.aDesModifications()) {
+            logger.debug("Médecin ID {} inchangé, aucun UPDATE envoyé", medecin.getId());
+            return;
+        }
+
+        MiseAJourPartielle maj = new MiseAJourPartielle("MEDECIN", "id_medecin");
+        if (suivi.estModifie("numeroOrdre")) maj.set("numero_ordre", medecin.getNumeroOrdre(), Types.VARCHAR);
+        if (suivi.estModifie("nom")) maj.set("nom", medecin.getNom(), Types.VARCHAR);
+        if (suivi.estModifie("prenom")) maj.set("prenom", medecin.getPrenom(), Types.VARCHAR);
+        if (suivi.estModifie("specialite")) maj.set("specialite", medecin.getSpecialite(), Types.VARCHAR);
+        if (suivi.estModifie("telephone")) maj.set("telephone", medecin.getTelephone(), Types.VARCHAR);
+        if (suivi.estModifie("email")) maj.set("email", medecin.getEmail(), Types.VARCHAR);
+        if (suivi.estModifie("dateEmbauche")) maj.set("date_embauche", medecin.getDateEmbauche(), Types.DATE);
+        if (suivi.estModifie("departement")) {
+            Long idDepartement = medecin.getDepartement() != null ? medecin.getDepartement().getId() : null;
+            maj.set("id_departement", idDepartement, Types.NUMERIC);
+        }
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            maj.executer(conn, medecin.getId());
+            logger.info("Médecin mis à jour : ID {} (colonnes: {})", medecin.getId(), maj.getColonnes());
+            suivi.demarrer();
+        } catch (SQLException e) {
+            logger.error("Erreur update Medecin: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la mise à jour du médecin", e);
+        }
+    }
+
     @Override
     public void delete(Long id) {
         String sql = "DELETE FROM MEDECIN WHERE id_medecin = ?";
@@ -177,6 +254,69 @@ public class MedecinDAOImpl implements IMedecinDAO {
             builder.departement(dept);
         }
         
-        return builder.build();
+        Medecin medecin = builder.build();
+        medecin.getSuivi().demarrer();
+        return medecin;
+    }
+
+    @Override
+    public boolean[] saveLot(List<Medecin> medecins) {
+        String sql = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(MEDECIN(numero_ordre)) */ INTO MEDECIN " +
+                     "(id_medecin, numero_ordre, nom, prenom, specialite, telephone, email, " +
+                     "date_embauche, id_departement) " +
+                     "VALUES (seq_medecin.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try {
+            boolean[] inseres = InsertionParLots.inserer(sql, medecins, (ps, m) -> {
+                ps.setString(1, m.getNumeroOrdre());
+                ps.setString(2, m.getNom());
+                ps.setString(3, m.getPrenom());
+                ps.setString(4, m.getSpecialite());
+                ps.setString(5, m.getTelephone());
+                ps.setString(6, m.getEmail());
+                ps.setDate(7, Date.valueOf(m.getDateEmbauche()));
+                ps.setLong(8, m.getDepartement().getId());
+            });
+            logger.debug("Lot de {} médecins inséré", medecins.size());
+            return inseres;
+        } catch (SQLException e) {
+            logger.error("Erreur saveLot Medecin: {}", e.getMessage());
+            throw new RuntimeException("Erreur lors de l'insertion d'un lot de médecins", e);
+        }
+    }
+
+    @Override
+    public Set<String> findAllNumerosOrdre() {
+        try {
+            return InsertionParLots.lireCles("SELECT numero_ordre FROM MEDECIN");
+        } catch (SQLException e) {
+            logger.error("Erreur findAllNumerosOrdre", e);
+            throw new RuntimeException("Erreur lors de la lecture des numéros d'ordre", e);
+        }
+    }
+
+    @Override
+    public List<Medecin> findParPrefixe(String prefixe, int limite) {
+        String sql = "SELECT * FROM MEDECIN WHERE LOWER(nom || ' ' || prenom) LIKE ? ESCAPE '\\' " +
+                     "OR LOWER(prenom || ' ' || nom) LIKE ? ESCAPE '\\' OR LOWER(numero_ordre) LIKE ? ESCAPE '\\' " +
+                     "ORDER BY nom, prenom FETCH FIRST ? ROWS ONLY";
+        String motif = prefixe.trim().replaceAll("\\s+", " ").toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        List<Medecin> medecins = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, motif);
+            pstmt.setString(2, motif);
+            pstmt.setString(3, motif);
+            pstmt.setInt(4, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    medecins.add(mapResultSetToMedecin(rs));
+                }
+            }
+            return medecins;
+        } catch (SQLException e) {
+            logger.error("Erreur findParPrefixe Medecin", e);
+            throw new RuntimeException("Erreur lors de la recherche des médecins", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -9,7 +9,12 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implémentation DAO pour l'entité MEDICAMENT
@@ -68,6 +73,38 @@ public class MedicamentDAOImpl implements IMedicamentDAO {
         return null;
     }
 
+    private static final int TAILLE_LOT_IDS = 100;
+    private static final String SQL_FIND_BY_IDS = "SELECT * FROM MEDICAMENT WHERE id_medicament IN (" +
+            String.join(", ", Collections.nCopies(TAILLE_LOT_IDS, "?")) + ")";
+
+    @Override
+    public Map<Long, Medicament> findByIds(Collection<Long> ids) {
+        Map<Long, Medicament> medicaments = new HashMap<>();
+        if (ids.isEmpty()) {
+            return medicaments;
+        }
+        List<Long> liste = new ArrayList<>(ids);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_IDS)) {
+            for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_IDS) {
+                int fin = Math.min(debut + TAILLE_LOT_IDS, liste.size());
+                for (int i = 0; i < TAILLE_LOT_IDS; i++) {
+                    ps.setLong(i + 1, liste.get(Math.min(debut + i, fin - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Medicament objet = mapResultSetToMedicament(rs);
+                        medicaments.put(objet.getId(), objet);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur findByIds Medicament: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la récupération des médicaments", e);
+        }
+        return medicaments;
+    }
+
     @Override
     public List<Medicament> findAll() {
         List<Medicament> list = new ArrayList<>();
@@ -152,4 +189,61 @@ public class MedicamentDAOImpl implements IMedicamentDAO {
                 .stockAlerte(rs.getInt("stock_alerte"))
                 .build();
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean[] saveLot(List<Medicament> medicaments) {
+        String sql = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(MEDICAMENT(nom_commercial)) */ INTO MEDICAMENT " +
+                     "(id_medicament, nom_commercial, principe_actif, forme, dosage, prix_unitaire, " +
+                     "stock_disponible, stock_alerte) " +
+                     "VALUES (seq_medicament.NEXTVAL, ?, ?, ?, ?, ?, ?, ?)";
+        try {
+            boolean[] inseres = InsertionParLots.inserer(sql, medicaments, (ps, m) -> {
+                ps.setString(1, m.getNomCommercial());
+                ps.setString(2, m.getPrincipeActif());
+                ps.setString(3, m.getForme());
+                ps.setString(4, m.getDosage());
+                ps.setBigDecimal(5, m.getPrixUnitaire());
+                ps.setInt(6, m.getStockDisponible() != null ? m.getStockDisponible() : 0);
+                ps.setInt(7, m.getStockAlerte() != null ? m.getStockAlerte() : 0);
+            });
+            logger.debug("Lot de {} médicaments inséré", medicaments.size());
+            return inseres;
+        } catch (SQLException e) {
+            logger.error("Erreur saveLot Medicament: {}", e.getMessage());
+            throw new RuntimeException("Erreur lors de l'insertion d'un lot de médicaments", e);
+        }
+    }
+
+    @Override
+    public Set<String> findAllNomsCommerciaux() {
+        try {
+            return InsertionParLots.lireCles("SELECT nom_commercial FROM MEDICAMENT");
+        } catch (SQLException e) {
+            logger.error("Erreur findAllNomsCommerciaux", e);
+            throw new RuntimeException("Erreur lors de la lecture des noms commerciaux", e);
+        }
+    }
+
+    @Override
+    public List<Medicament> findParPrefixe(String prefixe, int limite) {
+        String sql = "SELECT * FROM MEDICAMENT WHERE LOWER(nom_commercial) LIKE ? ESCAPE '\\' " +
+                     "ORDER BY nom_commercial FETCH FIRST ? ROWS ONLY";
+        String motif = prefixe.trim().replaceAll("\\s+", " ").toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        List<Medicament> medicaments = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, motif);
+            ps.setInt(2, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    medicaments.add(mapResultSetToMedicament(rs));
+                }
+            }
+            return medicaments;
+        } catch (SQLException e) {
+            logger.error("Erreur findParPrefixe Medicament", e);
+            throw new RuntimeException("Erreur lors de la recherche des médicaments", e);
+        }
+    }
+}
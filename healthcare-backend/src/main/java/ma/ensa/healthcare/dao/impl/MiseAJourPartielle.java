@@ -0,0 +1,103 @@
+package ma.ensa.healthcare.dao.impl;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Construit un UPDATE ne portant que sur les colonnes modifiées.
+ *
+ * Les colonnes doivent être ajoutées dans un ordre canonique (ordre de la table) :
+ * une même combinaison de colonnes produit alors toujours le même texte SQL,
+ * mis en cache ici et réutilisé par le cache de requêtes préparées du driver
+ * (pas de hard parse supplémentaire côté Oracle).
+ */
+class MiseAJourPartielle {
+
+    // Texte SQL par combinaison "TABLE|col1,col2,..." (nombre de combinaisons borné)
+    private static final Map<String, String> SQL_CACHE = new ConcurrentHashMap<>();
+
+    private final String table;
+    private final String colonneId;
+    private final List<String> colonnes = new ArrayList<>();
+    private final List<Object> valeurs = new ArrayList<>();
+    private final List<Integer> types = new ArrayList<>();
+
+    MiseAJourPartielle(String table, String colonneId) {
+        this.table = table;
+        this.colonneId = colonneId;
+    }
+
+    /**
+     * Ajoute une colonne à mettre à jour
+     * @param sqlType type JDBC utilisé si la valeur est null
+     */
+    MiseAJourPartielle set(String colonne, Object valeur, int sqlType) {
+        colonnes.add(colonne);
+        valeurs.add(valeur);
+        types.add(sqlType);
+        return this;
+    }
+
+    boolean isEmpty() {
+        return colonnes.isEmpty();
+    }
+
+    List<String> getColonnes() {
+        return colonnes;
+    }
+
+    String getSql() {
+        String cle = table + "|" + String.join(",", colonnes);
+        return SQL_CACHE.computeIfAbsent(cle, k -> {
+            StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            for (int i = 0; i < colonnes.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(colonnes.get(i)).append(" = ?");
+            }
+            return sql.append(" WHERE ").append(colonneId).append(" = ?").toString();
+        });
+    }
+
+    /**
+     * Exécute l'UPDATE sur la connexion fournie
+     * @return nombre de lignes affectées (0 si aucune colonne à mettre à jour)
+     */
+    int executer(Connection conn, long id) throws SQLException {
+        if (isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(getSql())) {
+            int index = 1;
+            for (int i = 0; i < colonnes.size(); i++) {
+                lier(ps, index++, valeurs.get(i), types.get(i));
+            }
+            ps.setLong(index, id);
+            return ps.executeUpdate();
+        }
+    }
+
+    private static void lier(PreparedStatement ps, int index, Object valeur, int sqlType) throws SQLException {
+        if (valeur == null) {
+            ps.setNull(index, sqlType);
+        } else if (valeur instanceof LocalDate date) {
+            ps.setDate(index, Date.valueOf(date));
+        } else if (valeur instanceof LocalDateTime dateHeure) {
+            ps.setTimestamp(index, Timestamp.valueOf(dateHeure));
+        } else if (valeur instanceof Enum<?> e) {
+            ps.setString(index, e.name());
+        } else {
+            ps.setObject(index, valeur, sqlType);
+        }
+    }
+}
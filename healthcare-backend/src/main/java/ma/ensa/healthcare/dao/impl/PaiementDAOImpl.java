@@ -0,0 +1,211 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.dao.interfaces.IPaiementDAO;
+import ma.ensa.healthcare.dto.EcartPaiementDTO;
+import ma.ensa.healthcare.model.Paiement;
+import ma.ensa.healthcare.model.enums.ModePaiement;
+import ma.ensa.healthcare.transaction.TransactionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Implémentation DAO pour le journal PAIEMENT
+ * FACTURE.montant_paye est le cumul matérialisé des lignes de ce journal.
+ */
+public class PaiementDAOImpl implements IPaiementDAO {
+    private static final Logger logger = LoggerFactory.getLogger(PaiementDAOImpl.class);
+
+    // Clé déjà connue : la ligne est ignorée (0 ligne insérée) au lieu de lever ORA-00001
+    private static final String SQL_INSERER =
+            "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(PAIEMENT, uk_paiement_cle) */ INTO PAIEMENT " +
+            "(id_paiement, cle_idempotence, id_facture, montant, mode_paiement, date_paiement) " +
+            "VALUES (seq_paiement.NEXTVAL, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_MAJ_SOLDE =
+            "UPDATE FACTURE SET montant_paye = montant_paye + ?, " +
+            "statut_paiement = CASE " +
+            "  WHEN montant_paye + ? >= montant_total THEN 'PAYE' " +
+            "  ELSE 'PARTIEL' END, " +
+            "mode_paiement = ?, date_paiement = ? " +
+            "WHERE id_facture = ?";
+
+    private static final String SQL_ECARTS =
+            "SELECT f.id_facture, f.numero_facture, f.montant_paye, NVL(p.total, 0) AS total_journal " +
+            "FROM FACTURE f " +
+            "LEFT JOIN (SELECT id_facture, SUM(montant) AS total FROM PAIEMENT GROUP BY id_facture) p " +
+            "  ON p.id_facture = f.id_facture " +
+            "WHERE f.montant_paye <> NVL(p.total, 0) " +
+            "ORDER BY f.id_facture";
+
+    private static final String SQL_RECALCULER =
+            "MERGE INTO FACTURE f " +
+            "USING (SELECT f2.id_facture, NVL(SUM(p.montant), 0) AS total " +
+            "       FROM FACTURE f2 LEFT JOIN PAIEMENT p ON p.id_facture = f2.id_facture " +
+            "       GROUP BY f2.id_facture) s " +
+            "ON (f.id_facture = s.id_facture) " +
+            "WHEN MATCHED THEN UPDATE SET f.montant_paye = s.total, " +
+            "  f.statut_paiement = CASE WHEN s.total = 0 THEN 'EN_ATTENTE' " +
+            "    WHEN s.total >= f.montant_total THEN 'PAYE' ELSE 'PARTIEL' END " +
+            "  WHERE f.montant_paye <> s.total";
+
+    @Override
+    public boolean[] enregistrerLot(List<Paiement> paiements) {
+        boolean[] enregistres = new boolean[paiements.size()];
+        if (paiements.isEmpty()) {
+            return enregistres;
+        }
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            TransactionManager.beginTransaction(conn);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERER)) {
+                for (Paiement p : paiements) {
+                    pstmt.setString(1, p.getCleIdempotence());
+                    pstmt.setLong(2, p.getIdFacture());
+                    pstmt.setBigDecimal(3, p.getMontant());
+                    pstmt.setString(4, p.getModePaiement().name());
+                    pstmt.setDate(5, Date.valueOf(p.getDatePaiement()));
+                    pstmt.addBatch();
+                }
+                int[] resultats = pstmt.executeBatch();
+                for (int i = 0; i < resultats.length; i++) {
+                    enregistres[i] = resultats[i] > 0;
+                }
+            }
+
+            // Un UPDATE par facture, dans l'ordre des ID (verrous pris toujours dans le même ordre)
+            Map<Long, Paiement> soldes = new TreeMap<>();
+            for (int i = 0; i < paiements.size(); i++) {
+                if (!enregistres[i]) {
+                    continue;
+                }
+                Paiement p = paiements.get(i);
+                Paiement cumul = soldes.get(p.getIdFacture());
+                if (cumul == null) {
+                    soldes.put(p.getIdFacture(), Paiement.builder()
+                            .idFacture(p.getIdFacture())
+                            .montant(p.getMontant())
+                            .modePaiement(p.getModePaiement())
+                            .datePaiement(p.getDatePaiement())
+                            .build());
+                } else {
+                    // Le dernier paiement donne le mode et la date affichés sur la facture
+                    cumul.setMontant(cumul.getMontant().add(p.getMontant()));
+                    cumul.setModePaiement(p.getModePaiement());
+                    cumul.setDatePaiement(p.getDatePaiement());
+                }
+            }
+
+            if (!soldes.isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(SQL_MAJ_SOLDE)) {
+                    for (Paiement cumul : soldes.values()) {
+                        pstmt.setBigDecimal(1, cumul.getMontant());
+                        pstmt.setBigDecimal(2, cumul.getMontant());
+                        pstmt.setString(3, cumul.getModePaiement().name());
+                        pstmt.setDate(4, Date.valueOf(cumul.getDatePaiement()));
+                        pstmt.setLong(5, cumul.getIdFacture());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+
+            TransactionManager.commit(conn);
+            logger.debug("Lot de {} paiements : {} enregistrés, {} factures mises à jour",
+                         paiements.size(), compter(enregistres), soldes.size());
+            return enregistres;
+        } catch (SQLException e) {
+            TransactionManager.rollback(conn);
+            logger.error("Erreur enregistrerLot", e);
+            throw new RuntimeException("Erreur lors de l'enregistrement des paiements", e);
+        } finally {
+            DatabaseConfig.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public List<Paiement> findByFactureId(Long factureId) {
+        List<Paiement> paiements = new ArrayList<>();
+        String sql = "SELECT * FROM PAIEMENT WHERE id_facture = ? ORDER BY id_paiement";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, factureId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    paiements.add(mapResultSetToPaiement(rs));
+                }
+            }
+            return paiements;
+        } catch (SQLException e) {
+            logger.error("Erreur findByFactureId", e);
+            throw new RuntimeException("Erreur lors de la récupération des paiements", e);
+        }
+    }
+
+    @Override
+    public List<EcartPaiementDTO> trouverEcarts() {
+        List<EcartPaiementDTO> ecarts = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_ECARTS);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                ecarts.add(new EcartPaiementDTO(
+                        rs.getLong("id_facture"),
+                        rs.getString("numero_facture"),
+                        rs.getBigDecimal("montant_paye"),
+                        rs.getBigDecimal("total_journal")));
+            }
+            return ecarts;
+        } catch (SQLException e) {
+            logger.error("Erreur trouverEcarts", e);
+            throw new RuntimeException("Erreur lors du rapprochement des paiements", e);
+        }
+    }
+
+    @Override
+    public int recalculerSoldes() {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_RECALCULER)) {
+            int corrigees = pstmt.executeUpdate();
+            logger.info("{} soldes de factures recalculés depuis le journal des paiements", corrigees);
+            return corrigees;
+        } catch (SQLException e) {
+            logger.error("Erreur recalculerSoldes", e);
+            throw new RuntimeException("Erreur lors du recalcul des soldes", e);
+        }
+    }
+
+    private static int compter(boolean[] valeurs) {
+        int n = 0;
+        for (boolean v : valeurs) {
+            if (v) n++;
+        }
+        return n;
+    }
+
+    private Paiement mapResultSetToPaiement(ResultSet rs) throws SQLException {
+        Date datePaiement = rs.getDate("date_paiement");
+        return Paiement.builder()
+                .id(rs.getLong("id_paiement"))
+                .cleIdempotence(rs.getString("cle_idempotence"))
+                .idFacture(rs.getLong("id_facture"))
+                .montant(rs.getBigDecimal("montant"))
+                .modePaiement(ModePaiement.valueOf(rs.getString("mode_paiement")))
+                .datePaiement(datePaiement != null ? datePaiement.toLocalDate() : LocalDate.now())
+                .build();
+    }
+}
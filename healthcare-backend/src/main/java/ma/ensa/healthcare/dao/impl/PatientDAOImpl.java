@@ -2,14 +2,22 @@ package ma.ensa.healthcare.dao.impl;
 
 import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
+import ma.ensa.healthcare.dto.FiltrePatients;
 import ma.ensa.healthcare.model.enums.Sexe;
 import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.SuiviModifications;
+import ma.ensa.healthcare.search.Normalisation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implémentation DAO pour l'entité PATIENT
@@ -18,6 +26,9 @@ import java.util.List;
 public class PatientDAOImpl implements IPatientDAO {
     private static final Logger logger = LoggerFactory.getLogger(PatientDAOImpl.class);
 
+    // Fiche patient (pré-préparée, voir RequetesFrequentes)
+    static final String SQL_FIND_BY_ID = "SELECT * FROM PATIENT WHERE id_patient = ?";
+
     @Override
     public Patient save(Patient patient) {
         // ✅ Colonnes exactes de la table PATIENT
@@ -72,7 +83,7 @@ public class PatientDAOImpl implements IPatientDAO {
 
     @Override
     public Patient findById(Long id) {
-        String sql = "SELECT * FROM PATIENT WHERE id_patient = ?";
+        String sql = SQL_FIND_BY_ID;
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setLong(1, id);
@@ -122,6 +133,70 @@ public class PatientDAOImpl implements IPatientDAO {
         return patients;
     }
 
+    // Taille fixe des listes IN (complétées en répétant le dernier ID) : un seul curseur partagé
+    private static final int TAILLE_LOT_IDS = 100;
+    private static final String SQL_FIND_BY_IDS = "SELECT * FROM PATIENT WHERE id_patient IN (" +
+            String.join(", ", Collections.nCopies(TAILLE_LOT_IDS, "?")) + ")";
+
+    @Override
+    public Map<Long, Patient> findByIds(Collection<Long> ids) {
+        Map<Long, Patient> patients = new HashMap<>();
+        if (ids.isEmpty()) {
+            return patients;
+        }
+        List<Long> liste = new ArrayList<>(ids);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_IDS)) {
+            for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_IDS) {
+                int fin = Math.min(debut + TAILLE_LOT_IDS, liste.size());
+                for (int i = 0; i < TAILLE_LOT_IDS; i++) {
+                    ps.setLong(i + 1, liste.get(Math.min(debut + i, fin - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Patient patient = mapResultSetToPatient(rs);
+                        patients.put(patient.getId(), patient);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur findByIds Patient: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la récupération des patients", e);
+        }
+        return patients;
+    }
+
+    @Override
+    public List<Patient> findParPrefixeNom(String texte, int limite) {
+        // Premier mot : plage de l'index ; le texte entier peut aussi être un nom composé (El Amrani)
+        String sql = "SELECT * FROM PATIENT WHERE UPPER(nom) LIKE ? ESCAPE '\\' " +
+                     "AND (UPPER(nom) LIKE ? ESCAPE '\\' OR UPPER(prenom) LIKE ? ESCAPE '\\') " +
+                     "ORDER BY UPPER(nom), UPPER(prenom) FETCH FIRST ? ROWS ONLY";
+        String saisie = texte.trim().replaceAll("\\s+", " ").toUpperCase();
+        String[] mots = saisie.split(" ", 2);
+        List<Patient> patients = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, motifPrefixe(mots[0]));
+            ps.setString(2, motifPrefixe(saisie));
+            ps.setString(3, mots.length > 1 ? motifPrefixe(mots[1]) : "%");
+            ps.setInt(4, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+            }
+            return patients;
+        } catch (SQLException e) {
+            logger.error("Erreur findParPrefixeNom Patient", e);
+            throw new RuntimeException("Erreur lors de la recherche des patients", e);
+        }
+    }
+
+    private static String motifPrefixe(String prefixe) {
+        return prefixe.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
     @Override
     public List<Patient> findByNom(String nom) {
         List<Patient> patients = new ArrayList<>();
@@ -145,6 +220,12 @@ public class PatientDAOImpl implements IPatientDAO {
 
     @Override
     public void update(Patient patient) {
+        // Objet chargé depuis la base : on n'envoie que les colonnes modifiées
+        if (patient.getSuivi().isActif()) {
+            updatePartiel(patient);
+            return;
+        }
+
         String sql = "UPDATE PATIENT SET cin = ?, nom = ?, prenom = ?, date_naissance = ?, " +
                      "sexe = ?, adresse = ?, ville = ?, code_postal = ?, telephone = ?, " +
                      "email = ?, groupe_sanguin = ?, allergies = ? WHERE id_patient = ?";
@@ -179,6 +260,42 @@ public class PatientDAOImpl implements IPatientDAO {
         }
     }
 
+    /**
+     * UPDATE limité aux colonnes modifiées depuis la lecture en base.
+     * Aucun ordre n'est envoyé (ni trigger déclenché) si rien n'a changé.
+     */
+    private void updatePartiel(Patient patient) {
+        SuiviModifications suivi = patient.getSuivi();
+        if (!suivi.aDesModifications()) {
+            logger.debug("Patient ID {} inchangé, aucun UPDATE envoyé", patient.getId());
+            return;
+        }
+
+        // Ordre canonique des colonnes => texte SQL stable par combinaison
+        MiseAJourPartielle maj = new MiseAJourPartielle("PATIENT", "id_patient");
+        if (suivi.estModifie("cin")) maj.set("cin", patient.getCin(), Types.VARCHAR);
+        if (suivi.estModifie("nom")) maj.set("nom", patient.getNom(), Types.VARCHAR);
+        if (suivi.estModifie("prenom")) maj.set("prenom", patient.getPrenom(), Types.VARCHAR);
+        if (suivi.estModifie("dateNaissance")) maj.set("date_naissance", patient.getDateNaissance(), Types.DATE);
+        if (suivi.estModifie("sexe")) maj.set("sexe", patient.getSexe(), Types.CHAR);
+        if (suivi.estModifie("adresse")) maj.set("adresse", patient.getAdresse(), Types.VARCHAR);
+        if (suivi.estModifie("ville")) maj.set("ville", patient.getVille(), Types.VARCHAR);
+        if (suivi.estModifie("codePostal")) maj.set("code_postal", patient.getCodePostal(), Types.VARCHAR);
+        if (suivi.estModifie("telephone")) maj.set("telephone", patient.getTelephone(), Types.VARCHAR);
+        if (suivi.estModifie("email")) maj.set("email", patient.getEmail(), Types.VARCHAR);
+        if (suivi.estModifie("groupeSanguin")) maj.set("groupe_sanguin", patient.getGroupeSanguin(), Types.VARCHAR);
+        if (suivi.estModifie("allergies")) maj.set("allergies", patient.getAllergies(), Types.VARCHAR);
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            maj.executer(conn, patient.getId());
+            logger.info("Patient mis à jour ID: {} (colonnes: {})", patient.getId(), maj.getColonnes());
+            suivi.demarrer();
+        } catch (SQLException e) {
+            logger.error("Erreur update Patient: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la mise à jour du patient", e);
+        }
+    }
+
     @Override
     public void delete(Long id) {
         String sql = "DELETE FROM PATIENT WHERE id_patient = ?";
@@ -218,6 +335,104 @@ public class PatientDAOImpl implements IPatientDAO {
             builder.dateInscription(dateInscription.toLocalDate());
         }
         
-        return builder.build();
+        Patient patient = builder.build();
+        patient.getSuivi().demarrer();
+        return patient;
+    }
+
+    @Override
+    public boolean[] saveLot(List<Patient> patients) {
+        String sql = "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(PATIENT(cin)) */ INTO PATIENT " +
+                     "(id_patient, cin, nom, prenom, date_naissance, sexe, adresse, ville, code_postal, " +
+                     "telephone, email, groupe_sanguin, allergies, date_inscription) " +
+                     "VALUES (seq_patient.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try {
+            boolean[] inseres = InsertionParLots.inserer(sql, patients, (ps, p) -> {
+                ps.setString(1, p.getCin());
+                ps.setString(2, p.getNom());
+                ps.setString(3, p.getPrenom());
+                ps.setDate(4, Date.valueOf(p.getDateNaissance()));
+                ps.setString(5, p.getSexe().name());
+                ps.setString(6, p.getAdresse());
+                ps.setString(7, p.getVille());
+                ps.setString(8, p.getCodePostal());
+                ps.setString(9, p.getTelephone());
+                ps.setString(10, p.getEmail());
+                ps.setString(11, p.getGroupeSanguin());
+                ps.setString(12, p.getAllergies());
+                ps.setDate(13, Date.valueOf(p.getDateInscription()));
+            });
+            logger.debug("Lot de {} patients inséré", patients.size());
+            return inseres;
+        } catch (SQLException e) {
+            logger.error("Erreur saveLot Patient: {}", e.getMessage());
+            throw new RuntimeException("Erreur lors de l'insertion d'un lot de patients", e);
+        }
+    }
+
+    @Override
+    public Set<String> findAllCins() {
+        try {
+            return InsertionParLots.lireCles("SELECT cin FROM PATIENT");
+        } catch (SQLException e) {
+            logger.error("Erreur findAllCins", e);
+            throw new RuntimeException("Erreur lors de la lecture des CIN", e);
+        }
+    }
+
+    @Override
+    public List<Patient> findPage(long apresId, int limite) {
+        String sql = "SELECT * FROM PATIENT WHERE id_patient > ? ORDER BY id_patient FETCH FIRST ? ROWS ONLY";
+        List<Patient> patients = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, apresId);
+            pstmt.setInt(2, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+            }
+            return patients;
+        } catch (SQLException e) {
+            logger.error("Erreur findPage Patient", e);
+            throw new RuntimeException("Erreur lors de la récupération des patients", e);
+        }
+    }
+
+    // Champs de la recherche, repliés comme Normalisation.replier (minuscules, sans accents)
+    private static final String SQL_TEXTE_REPLIE = "TRANSLATE(LOWER(nom || ' ' || prenom || ' ' || cin || ' ' || " +
+            "telephone || ' ' || email), 'àâäáãåéèêëíìîïóòôöõúùûüçñÿ', 'aaaaaaeeeeiiiiooooouuuucny')";
+
+    @Override
+    public List<Patient> findPage(FiltrePatients filtre, long apresId, int limite) {
+        // Mots repliés : lettres et chiffres seulement, rien à échapper dans le LIKE
+        String[] mots = Normalisation.mots(filtre.getTexte());
+        StringBuilder sql = new StringBuilder("SELECT * FROM PATIENT WHERE id_patient > ? ");
+        for (int i = 0; i < mots.length; i++) {
+            sql.append("AND ").append(SQL_TEXTE_REPLIE).append(" LIKE ? ");
+        }
+        sql.append("ORDER BY id_patient FETCH FIRST ? ROWS ONLY");
+        List<Patient> patients = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            pstmt.setLong(i++, apresId);
+            for (String mot : mots) {
+                pstmt.setString(i++, "%" + mot + "%");
+            }
+            pstmt.setInt(i, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+            }
+            return patients;
+        } catch (SQLException e) {
+            logger.error("Erreur findPage Patient", e);
+            throw new RuntimeException("Erreur lors de la récupération des patients", e);
+        }
     }
-}
\ No newline at end of file
+}
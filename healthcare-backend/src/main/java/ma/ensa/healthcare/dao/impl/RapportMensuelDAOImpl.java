@@ -0,0 +1,139 @@
+package ma.ensa.healthcare.dao.impl;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.dao.interfaces.IRapportMensuelDAO;
+import ma.ensa.healthcare.dto.RapportMensuelDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Implémentation DAO du rapport mensuel.
+ * L'activité (rendez-vous, consultations) suit la date du rendez-vous ; la facturation
+ * suit la date de facture, comme la liste détaillée des factures du rapport.
+ */
+public class RapportMensuelDAOImpl implements IRapportMensuelDAO {
+    private static final Logger logger = LoggerFactory.getLogger(RapportMensuelDAOImpl.class);
+    private static final int TAILLE_LOT_LECTURE = 1000;
+
+    // Un rendez-vous a au plus une consultation : une ligne par rendez-vous, agrégée au fil de la lecture
+    private static final String SQL_ACTIVITE =
+            "SELECT m.specialite, c.id_consultation, c.diagnostic " +
+            "FROM RENDEZ_VOUS r " +
+            "JOIN MEDECIN m ON m.id_medecin = r.id_medecin " +
+            "LEFT JOIN CONSULTATION c ON c.id_rdv = r.id_rdv " +
+            "WHERE r.date_rdv >= ? AND r.date_rdv < ?";
+
+    // Factures du mois (idx_facture_date) et nombre de leurs paiements (idx_paiement_facture)
+    private static final String SQL_FACTURATION =
+            "SELECT COUNT(*) AS nb_factures, NVL(SUM(f.montant_total), 0) AS montant_total, " +
+            "       NVL(SUM(f.montant_paye), 0) AS montant_paye, NVL(SUM(p.nb), 0) AS nb_paiements " +
+            "FROM FACTURE f " +
+            "OUTER APPLY (SELECT COUNT(*) AS nb FROM PAIEMENT pa WHERE pa.id_facture = f.id_facture) p " +
+            "WHERE f.date_facture >= ? AND f.date_facture < ?";
+
+    @Override
+    public RapportMensuelDTO calculer(YearMonth mois, int nombreDiagnostics) {
+        long rendezVous = 0;
+        long consultations = 0;
+        Map<String, Long> specialites = new HashMap<>();
+        Map<String, Long> diagnostics = new HashMap<>();
+
+        // Une seule connexion : activité et facturation lues sur le même nœud
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_ACTIVITE)) {
+                parametresMois(pstmt, mois);
+                pstmt.setFetchSize(TAILLE_LOT_LECTURE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rendezVous++;
+                        specialites.merge(rs.getString("specialite"), 1L, Long::sum);
+
+                        rs.getLong("id_consultation");
+                        if (rs.wasNull()) {
+                            continue;
+                        }
+                        consultations++;
+                        String diagnostic = normaliserDiagnostic(rs.getString("diagnostic"));
+                        if (diagnostic != null) {
+                            diagnostics.merge(diagnostic, 1L, Long::sum);
+                        }
+                    }
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_FACTURATION)) {
+                parametresMois(pstmt, mois);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    BigDecimal chiffreAffaires = montant(rs, "montant_total");
+                    BigDecimal encaisse = montant(rs, "montant_paye");
+                    return new RapportMensuelDTO(mois, rendezVous, consultations, rs.getLong("nb_factures"),
+                            chiffreAffaires, encaisse, chiffreAffaires.subtract(encaisse),
+                            plusFrequents(specialites, Integer.MAX_VALUE), plusFrequents(diagnostics, nombreDiagnostics),
+                            etat(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur calculer rapport mensuel", e);
+            throw new RuntimeException("Erreur lors du calcul du rapport mensuel", e);
+        }
+    }
+
+    @Override
+    public String lireEtatFacturation(YearMonth mois) {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_FACTURATION)) {
+            parametresMois(pstmt, mois);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return etat(rs);
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur lireEtatFacturation", e);
+            throw new RuntimeException("Erreur lors de la lecture de l'état de la facturation", e);
+        }
+    }
+
+    private static void parametresMois(PreparedStatement pstmt, YearMonth mois) throws SQLException {
+        pstmt.setDate(1, Date.valueOf(mois.atDay(1)));
+        pstmt.setDate(2, Date.valueOf(mois.plusMonths(1).atDay(1)));
+    }
+
+    // Paiements en ajout seul : tout paiement ou toute facture ajouté au mois change l'état
+    private static String etat(ResultSet rs) throws SQLException {
+        return rs.getLong("nb_factures") + "/" + rs.getLong("nb_paiements");
+    }
+
+    private static BigDecimal montant(ResultSet rs, String colonne) throws SQLException {
+        BigDecimal montant = rs.getBigDecimal(colonne);
+        return montant != null ? montant : BigDecimal.ZERO;
+    }
+
+    /**
+     * Diagnostic saisi librement : espaces réduits et première lettre en majuscule,
+     * pour regrouper les variantes de casse
+     */
+    private static String normaliserDiagnostic(String diagnostic) {
+        if (diagnostic == null || diagnostic.isBlank()) {
+            return null;
+        }
+        String texte = diagnostic.trim().replaceAll("\\s+", " ").toLowerCase();
+        return Character.toUpperCase(texte.charAt(0)) + texte.substring(1);
+    }
+
+    private static Map<String, Long> plusFrequents(Map<String, Long> compteurs, int limite) {
+        Map<String, Long> resultat = new LinkedHashMap<>();
+        compteurs.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limite)
+                .forEachOrdered(e -> resultat.put(e.getKey(), e.getValue()));
+        return resultat;
+    }
+}
@@ -2,16 +2,23 @@ package ma.ensa.healthcare.dao.impl;
 
 import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.interfaces.IRendezVousDAO;
+import ma.ensa.healthcare.dto.FiltreRendezVous;
 import ma.ensa.healthcare.model.Medecin;
 import ma.ensa.healthcare.model.Patient;
 import ma.ensa.healthcare.model.RendezVous;
+import ma.ensa.healthcare.model.SuiviModifications;
 import ma.ensa.healthcare.model.enums.StatutRendezVous;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implémentation DAO pour l'entité RENDEZ_VOUS
@@ -20,6 +27,16 @@ import java.util.List;
 public class RendezVousDAOImpl implements IRendezVousDAO {
     private static final Logger logger = LoggerFactory.getLogger(RendezVousDAOImpl.class);
 
+    // Rendez-vous d'une journée (pré-préparée, voir RequetesFrequentes)
+    static final String SQL_FIND_BY_DATE = "SELECT r.*, " +
+                     "p.nom as patient_nom, p.prenom as patient_prenom, " +
+                     "m.nom as medecin_nom, m.prenom as medecin_prenom, m.specialite " +
+                     "FROM RENDEZ_VOUS r " +
+                     "JOIN PATIENT p ON r.id_patient = p.id_patient " +
+                     "JOIN MEDECIN m ON r.id_medecin = m.id_medecin " +
+                     "WHERE r.date_rdv = ? " +
+                     "ORDER BY r.heure_debut";
+
     @Override
     public RendezVous save(RendezVous rdv) {
         // ✅ Colonnes exactes de la table RENDEZ_VOUS
@@ -118,8 +135,31 @@ public class RendezVousDAOImpl implements IRendezVousDAO {
         return list;
     }
 
+    @Override
+    public List<RendezVous> findByDate(LocalDate date) {
+        List<RendezVous> list = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_DATE)) {
+            ps.setDate(1, Date.valueOf(date));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToRendezVous(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur findByDate RendezVous: {}", e.getMessage(), e);
+        }
+        return list;
+    }
+
     @Override
     public void update(RendezVous rdv) {
+        // Objet chargé depuis la base : on n'envoie que les colonnes modifiées
+        if (rdv.getSuivi().isActif()) {
+            updatePartiel(rdv);
+            return;
+        }
+
         String sql = "UPDATE RENDEZ_VOUS SET date_rdv = ?, heure_debut = ?, heure_fin = ?, " +
                      "motif = ?, statut = ?, salle = ? WHERE id_rdv = ?";
         try (Connection conn = DatabaseConfig.getConnection();
@@ -140,6 +180,50 @@ public class RendezVousDAOImpl implements IRendezVousDAO {
         }
     }
 
+    @Override
+    public void updateStatut(Long id, StatutRendezVous statut) {
+        String sql = "UPDATE RENDEZ_VOUS SET statut = ? WHERE id_rdv = ?";
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, statut.name());
+            ps.setLong(2, id);
+            ps.executeUpdate();
+            logger.info("Statut rendez-vous ID {} -> {}", id, statut);
+        } catch (SQLException e) {
+            logger.error("Erreur updateStatut RendezVous: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la mise à jour du statut du rendez-vous", e);
+        }
+    }
+
+    /**
+     * UPDATE limité aux colonnes modifiées depuis la lecture en base
+     */
+    private void updatePartiel(RendezVous rdv) {
+        SuiviModifications suivi = rdv.getSuivi();
+        if (!suivi.aDesModifications()) {
+            logger.debug("Rendez-vous ID {} inchangé, aucun UPDATE envoyé", rdv.getId());
+            return;
+        }
+
+        // Mêmes colonnes que l'UPDATE complet : le patient et le médecin d'un rendez-vous ne changent pas
+        MiseAJourPartielle maj = new MiseAJourPartielle("RENDEZ_VOUS", "id_rdv");
+        if (suivi.estModifie("dateRdv")) maj.set("date_rdv", rdv.getDateRdv(), Types.DATE);
+        if (suivi.estModifie("heureDebut")) maj.set("heure_debut", rdv.getHeureDebut(), Types.TIMESTAMP);
+        if (suivi.estModifie("heureFin")) maj.set("heure_fin", rdv.getHeureFin(), Types.TIMESTAMP);
+        if (suivi.estModifie("motif")) maj.set("motif", rdv.getMotif(), Types.VARCHAR);
+        if (suivi.estModifie("statut")) maj.set("statut", rdv.getStatut(), Types.VARCHAR);
+        if (suivi.estModifie("salle")) maj.set("salle", rdv.getSalle(), Types.VARCHAR);
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            maj.executer(conn, rdv.getId());
+            logger.info("Rendez-vous mis à jour ID: {} (colonnes: {})", rdv.getId(), maj.getColonnes());
+            suivi.demarrer();
+        } catch (SQLException e) {
+            logger.error("Erreur update RendezVous: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la mise à jour du rendez-vous", e);
+        }
+    }
+
     @Override
     public void delete(Long id) {
         String sql = "DELETE FROM RENDEZ_VOUS WHERE id_rdv = ?";
@@ -186,6 +270,130 @@ public class RendezVousDAOImpl implements IRendezVousDAO {
             builder.dateCreation(dateCreation.toLocalDate());
         }
         
-        return builder.build();
+        RendezVous rdv = builder.build();
+        rdv.getSuivi().demarrer();
+        return rdv;
+    }
+
+    private static final String SQL_SELECT_AVEC_NOMS = "SELECT r.*, " +
+            "p.nom as patient_nom, p.prenom as patient_prenom, " +
+            "m.nom as medecin_nom, m.prenom as medecin_prenom, m.specialite " +
+            "FROM RENDEZ_VOUS r " +
+            "JOIN PATIENT p ON r.id_patient = p.id_patient " +
+            "JOIN MEDECIN m ON r.id_medecin = m.id_medecin ";
+
+    // Taille fixe des listes IN (complétées en répétant le dernier ID) : un seul curseur partagé
+    private static final int TAILLE_LOT_IDS = 100;
+    private static final String SQL_FIND_BY_IDS = SQL_SELECT_AVEC_NOMS + "WHERE r.id_rdv IN (" +
+            String.join(", ", Collections.nCopies(TAILLE_LOT_IDS, "?")) + ")";
+
+    @Override
+    public Map<Long, RendezVous> findByIds(Collection<Long> ids) {
+        Map<Long, RendezVous> rdvs = new HashMap<>();
+        if (ids.isEmpty()) {
+            return rdvs;
+        }
+        List<Long> liste = new ArrayList<>(ids);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_IDS)) {
+            for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_IDS) {
+                int fin = Math.min(debut + TAILLE_LOT_IDS, liste.size());
+                for (int i = 0; i < TAILLE_LOT_IDS; i++) {
+                    ps.setLong(i + 1, liste.get(Math.min(debut + i, fin - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        RendezVous rdv = mapResultSetToRendezVous(rs);
+                        rdvs.put(rdv.getId(), rdv);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Erreur findByIds RendezVous: {}", e.getMessage(), e);
+            throw new RuntimeException("Erreur lors de la récupération des rendez-vous", e);
+        }
+        return rdvs;
+    }
+
+    @Override
+    public List<RendezVous> findPage(long apresId, int limite) {
+        String sql = SQL_SELECT_AVEC_NOMS + "WHERE r.id_rdv > ? ORDER BY r.id_rdv FETCH FIRST ? ROWS ONLY";
+        List<RendezVous> list = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, apresId);
+            pstmt.setInt(2, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToRendezVous(rs));
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            logger.error("Erreur findPage RendezVous", e);
+            throw new RuntimeException("Erreur lors de la récupération des rendez-vous", e);
+        }
+    }
+
+    @Override
+    public List<RendezVous> findPage(FiltreRendezVous filtre, long apresId, int limite) {
+        String sql = SQL_SELECT_AVEC_NOMS + "WHERE r.id_rdv > ? " +
+                     (filtre.getDate() != null ? "AND r.date_rdv >= ? AND r.date_rdv < ? " : "") +
+                     (filtre.getStatut() != null ? "AND r.statut = ? " : "") +
+                     "ORDER BY r.id_rdv FETCH FIRST ? ROWS ONLY";
+        List<RendezVous> list = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            pstmt.setLong(i++, apresId);
+            if (filtre.getDate() != null) {
+                pstmt.setDate(i++, Date.valueOf(filtre.getDate()));
+                pstmt.setDate(i++, Date.valueOf(filtre.getDate().plusDays(1)));
+            }
+            if (filtre.getStatut() != null) {
+                pstmt.setString(i++, filtre.getStatut().name());
+            }
+            pstmt.setInt(i, limite);
+            pstmt.setFetchSize(limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToRendezVous(rs));
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            logger.error("Erreur findPage RendezVous", e);
+            throw new RuntimeException("Erreur lors de la récupération des rendez-vous", e);
+        }
+    }
+
+    @Override
+    public List<RendezVous> findAVenirByPatientIds(Collection<Long> idsPatients, int limite) {
+        List<RendezVous> list = new ArrayList<>();
+        if (idsPatients.isEmpty()) {
+            return list;
+        }
+        // Une liste IN de TAILLE_LOT_IDS au plus : la recherche ne passe que quelques patients
+        List<Long> ids = new ArrayList<>(idsPatients).subList(0, Math.min(idsPatients.size(), TAILLE_LOT_IDS));
+        String sql = SQL_SELECT_AVEC_NOMS + "WHERE r.id_patient IN (" +
+                String.join(", ", Collections.nCopies(ids.size(), "?")) + ") " +
+                "AND r.date_rdv >= TRUNC(SYSDATE) ORDER BY r.date_rdv, r.heure_debut FETCH FIRST ? ROWS ONLY";
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setLong(i + 1, ids.get(i));
+            }
+            pstmt.setInt(ids.size() + 1, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSetToRendezVous(rs));
+                }
+            }
+            return list;
+        } catch (SQLException e) {
+            logger.error("Erreur findAVenirByPatientIds RendezVous", e);
+            throw new RuntimeException("Erreur lors de la récupération des rendez-vous", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package ma.ensa.healthcare.dao.impl;
+
+import java.sql.Types;
+
+import ma.ensa.healthcare.config.PrechauffageConnexions;
+
+/**
+ * Requêtes du premier écran (connexion, tableau de bord, fiche patient),
+ * pré-préparées sur chaque nouvelle connexion du pool.
+ */
+public final class RequetesFrequentes {
+
+    private static boolean enregistrees;
+
+    private RequetesFrequentes() {}
+
+    /**
+     * Inscrit les requêtes dans le registre de préchauffage (une seule fois)
+     */
+    public static synchronized void enregistrer() {
+        if (enregistrees) {
+            return;
+        }
+        PrechauffageConnexions.enregistrer(UtilisateurDAOImpl.SQL_FIND_BY_USERNAME, Types.VARCHAR);
+        PrechauffageConnexions.enregistrer(PatientDAOImpl.SQL_FIND_BY_ID, Types.NUMERIC);
+        PrechauffageConnexions.enregistrer(RendezVousDAOImpl.SQL_FIND_BY_DATE, Types.DATE);
+        PrechauffageConnexions.enregistrer(FactureDAOImpl.SQL_REVENUS_PERIODE, Types.DATE, Types.DATE);
+        enregistrees = true;
+    }
+}
@@ -20,6 +20,9 @@ import java.util.List;
 public class UtilisateurDAOImpl implements IUtilisateurDAO {
     private static final Logger logger = LoggerFactory.getLogger(UtilisateurDAOImpl.class);
 
+    // Requête de connexion (pré-préparée, voir RequetesFrequentes)
+    static final String SQL_FIND_BY_USERNAME = "SELECT * FROM UTILISATEUR WHERE username = ?";
+
     @Override
     public Utilisateur save(Utilisateur u) {
         // ✅ Vérifier si l'utilisateur existe déjà par son username
@@ -87,7 +90,7 @@ public class UtilisateurDAOImpl implements IUtilisateurDAO {
 
     @Override
     public Utilisateur findByUsername(String username) {
-        String sql = "SELECT * FROM UTILISATEUR WHERE username = ?";
+        String sql = SQL_FIND_BY_USERNAME;
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
@@ -1,7 +1,10 @@
 package ma.ensa.healthcare.dao.interfaces;
 
+import ma.ensa.healthcare.dto.FiltreConsultations;
 import ma.ensa.healthcare.model.Consultation;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface IConsultationDAO {
     Consultation save(Consultation consultation);
@@ -12,4 +15,35 @@ public interface IConsultationDAO {
     void update(Consultation consultation);
     void delete(Long id);
     Consultation findByRendezVousId(Long rdvId);
+
+    /**
+     * Page de consultations par ID croissant (pagination par clé, sans OFFSET)
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<Consultation> findPage(long apresId, int limite);
+
+    /**
+     * Page de consultations par ID croissant, restreinte aux critères de l'écran
+     * @param filtre Critères de sélection (FiltreConsultations.TOUTES : toutes)
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<Consultation> findPage(FiltreConsultations filtre, long apresId, int limite);
+
+    /**
+     * Comme findPage, en relevant le médecin de chaque consultation (celui de son rendez-vous)
+     * @param medecins Reçoit l'ID du médecin de chaque consultation lue, par ID de consultation
+     */
+    List<Consultation> findPageAvecMedecins(long apresId, int limite, Map<Long, Long> medecins);
+
+    /**
+     * Charge plusieurs consultations en quelques requêtes (listes IN par lots)
+     * @return Consultations trouvées, indexées par ID
+     */
+    Map<Long, Consultation> findByIds(Collection<Long> ids);
+
+    /**
+     * Comme findByIds, en relevant le médecin de chaque consultation (celui de son rendez-vous)
+     * @param medecins Reçoit l'ID du médecin de chaque consultation lue, par ID de consultation
+     */
+    Map<Long, Consultation> findByIdsAvecMedecins(Collection<Long> ids, Map<Long, Long> medecins);
 }
\ No newline at end of file
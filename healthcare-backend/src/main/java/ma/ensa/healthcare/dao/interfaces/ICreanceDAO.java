@@ -0,0 +1,28 @@
+package ma.ensa.healthcare.dao.interfaces;
+
+import ma.ensa.healthcare.dto.AncienneteCreancesDTO;
+import ma.ensa.healthcare.dto.FactureDTO;
+import ma.ensa.healthcare.model.enums.AxeAnciennete;
+import ma.ensa.healthcare.model.enums.TrancheAnciennete;
+import java.util.List;
+
+/**
+ * Interface DAO pour les créances (factures non soldées)
+ */
+public interface ICreanceDAO {
+    /**
+     * Balance âgée par patient, département, mode de paiement et total,
+     * calculée en une seule requête groupée
+     */
+    List<AncienneteCreancesDTO> calculerAnciennete();
+
+    /**
+     * Page de créances, par ID de facture croissant
+     * @param tranche Tranche d'ancienneté (null : toutes)
+     * @param axe Axe de filtrage (null ou TOTAL : aucun filtre)
+     * @param cle Valeur de l'axe (id patient, id département, mode de paiement)
+     * @param apresIdFacture Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<FactureDTO> findCreances(TrancheAnciennete tranche, AxeAnciennete axe, String cle,
+                                  long apresIdFacture, int limite);
+}
@@ -0,0 +1,30 @@
+package ma.ensa.healthcare.dao.interfaces;
+
+import ma.ensa.healthcare.model.DoublonPatient;
+import ma.ensa.healthcare.model.enums.StatutDoublon;
+import java.util.List;
+
+/**
+ * Interface DAO pour la table de revue DOUBLON_PATIENT
+ */
+public interface IDoublonPatientDAO {
+    /**
+     * Remplace les propositions encore à vérifier par celles d'une nouvelle détection,
+     * dans une seule transaction ; les lignes déjà confirmées ou rejetées sont conservées
+     * (une proposition identique à l'une d'elles est ignorée)
+     * @return Nombre de lignes insérées
+     */
+    int remplacerPropositions(List<DoublonPatient> doublons);
+
+    /**
+     * Lignes d'un statut, par groupe (score de groupe décroissant) puis par patient
+     */
+    List<DoublonPatient> findByStatut(StatutDoublon statut);
+
+    /**
+     * Change le statut des lignes encore à vérifier d'un groupe (les lignes déjà confirmées
+     * ou rejetées lors d'une revue précédente gardent le leur)
+     * @return Nombre de lignes modifiées
+     */
+    int updateStatutGroupe(Long idGroupe, StatutDoublon statut);
+}
@@ -1,7 +1,11 @@
 package ma.ensa.healthcare.dao.interfaces;
 
+import ma.ensa.healthcare.dto.BilanFacturationMasse;
+import ma.ensa.healthcare.dto.FiltreFactures;
+import ma.ensa.healthcare.dto.TotauxFacturesDTO;
 import ma.ensa.healthcare.model.Facture;
 import java.util.List;
+import java.util.function.Consumer;
 
 import ma.ensa.healthcare.model.enums.ModePaiement;
 import ma.ensa.healthcare.model.enums.StatutPaiement;
@@ -45,10 +49,52 @@ public interface IFactureDAO {
     void enregistrerPaiement(Long factureId, BigDecimal montant, ModePaiement modePaiement, LocalDate datePaiement);
     List<Facture> findByPatientId(Long patientId);
     Facture findByNumero(String numeroFacture);
+
+    /**
+     * Factures dont le numéro commence par le préfixe, par numéro croissant (index unique du numéro)
+     */
+    List<Facture> findByNumeroPrefixe(String prefixe, int limite);
     List<Facture> findFacturesImpayees();
     List<Facture> findByStatut(StatutPaiement statut);
     Facture findByConsultationId(Long consultationId);
     BigDecimal getTotalImpaye();
     BigDecimal getRevenusPeriode(LocalDate dateDebut, LocalDate dateFin);
     String genererNumeroFacture();
+
+    /**
+     * Crée (ou met à jour si encore impayée) la facture d'une consultation en un seul aller-retour
+     * @return La facture, ou null si la consultation (ou son rendez-vous) n'existe pas
+     */
+    Facture genererPourConsultation(Long idConsultation, BigDecimal montantMedicaments);
+
+    /**
+     * Factures émises entre deux dates (incluses), par ID croissant
+     */
+    List<Facture> findByPeriode(LocalDate dateDebut, LocalDate dateFin);
+
+    /**
+     * Page de factures d'une période (dates incluses) par ID croissant
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<Facture> findPagePeriode(LocalDate dateDebut, LocalDate dateFin, long apresId, int limite);
+
+    /**
+     * Page de factures par ID croissant (pagination par clé, sans OFFSET)
+     * @param filtre Critères de sélection (FiltreFactures.TOUTES : toutes)
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<Facture> findPage(FiltreFactures filtre, long apresId, int limite);
+
+    /**
+     * Nombre et montants cumulés des factures retenues par le filtre
+     */
+    TotauxFacturesDTO getTotaux(FiltreFactures filtre);
+
+    /**
+     * Facture toutes les consultations sans facture de la période, par pages,
+     * en reprenant un lot interrompu sur la même période
+     * @param progression Appelé après chaque page validée puis à la fin (peut être null)
+     */
+    BilanFacturationMasse genererFacturesEnMasse(LocalDate dateDebut, LocalDate dateFin, int taillePage,
+                                                 Consumer<BilanFacturationMasse> progression);
 }
\ No newline at end of file
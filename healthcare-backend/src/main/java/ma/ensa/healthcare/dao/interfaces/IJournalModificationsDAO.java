@@ -0,0 +1,22 @@
+package ma.ensa.healthcare.dao.interfaces;
+
+import ma.ensa.healthcare.dto.ModificationsJournal;
+
+/**
+ * Interface DAO pour JOURNAL_MODIFICATIONS (notes des triggers TRG_JOURNAL_*), relu par les
+ * index en mémoire pour suivre les modifications des autres postes.
+ * À appeler hors portée lectureSeule : le journal est lu et purgé sur la primaire.
+ */
+public interface IJournalModificationsDAO {
+    /**
+     * SCN courant : point de départ du suivi d'une table dont le chargement commence
+     */
+    long lireScnCourant();
+
+    /**
+     * Lignes d'une table notées dans une transaction validée après un SCN ; le SCN atteint
+     * et les notes sont lus sur la même connexion
+     * @return null si des notes postérieures à apresScn ont pu être purgées (table à relire en entier)
+     */
+    ModificationsJournal findModifications(String table, long apresScn);
+}
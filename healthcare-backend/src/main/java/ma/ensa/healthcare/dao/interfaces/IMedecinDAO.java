@@ -1,13 +1,39 @@
 package ma.ensa.healthcare.dao.interfaces;
 
 import ma.ensa.healthcare.model.Medecin;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface IMedecinDAO {
     Medecin save(Medecin medecin);
     Medecin findById(Long id);
+
+    /**
+     * Charge plusieurs medecins en quelques requêtes (listes IN par lots)
+     * @return Medecins trouvés, indexés par ID
+     */
+    Map<Long, Medecin> findByIds(Collection<Long> ids);
     List<Medecin> findBySpecialite(String specialite);
     List<Medecin> findAll();
     void update(Medecin medecin);
     void delete(Long id);
+
+    /**
+     * Insère des médecins en un lot JDBC (import en masse), dans une seule transaction
+     * @return Pour chaque médecin : true s'il a été inséré, false si son numéro d'ordre existait déjà
+     */
+    boolean[] saveLot(List<Medecin> medecins);
+
+    /**
+     * Numéros d'ordre de tous les médecins enregistrés
+     */
+    Set<String> findAllNumerosOrdre();
+
+    /**
+     * Médecins dont "nom prénom", "prénom nom" ou le numéro d'ordre commence par le texte (sans casse)
+     * @return Au plus limite médecins, par nom et prénom
+     */
+    List<Medecin> findParPrefixe(String prefixe, int limite);
 }
\ No newline at end of file
@@ -1,13 +1,39 @@
 package ma.ensa.healthcare.dao.interfaces;
 
 import ma.ensa.healthcare.model.Medicament;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface IMedicamentDAO {
     Medicament save(Medicament medicament);
     Medicament findById(Long id);
+
+    /**
+     * Charge plusieurs medicaments en quelques requêtes (listes IN par lots)
+     * @return Medicaments trouvés, indexés par ID
+     */
+    Map<Long, Medicament> findByIds(Collection<Long> ids);
     List<Medicament> findAll();
     void update(Medicament medicament);
     void delete(Long id);
     List<Medicament> findByNom(String nom);
+
+    /**
+     * Insère des médicaments en un lot JDBC (import en masse), dans une seule transaction
+     * @return Pour chaque médicament : true s'il a été inséré, false si son nom commercial existait déjà
+     */
+    boolean[] saveLot(List<Medicament> medicaments);
+
+    /**
+     * Noms commerciaux de tous les médicaments enregistrés
+     */
+    Set<String> findAllNomsCommerciaux();
+
+    /**
+     * Médicaments dont le nom commercial commence par le texte (sans casse)
+     * @return Au plus limite médicaments, par nom commercial
+     */
+    List<Medicament> findParPrefixe(String prefixe, int limite);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package ma.ensa.healthcare.dao.interfaces;
+
+import ma.ensa.healthcare.dto.EcartPaiementDTO;
+import ma.ensa.healthcare.model.Paiement;
+import java.util.List;
+
+/**
+ * Interface DAO pour le journal PAIEMENT
+ */
+public interface IPaiementDAO {
+    /**
+     * Ajoute des paiements au journal et met à jour les soldes des factures,
+     * le tout dans une seule transaction
+     * @return Pour chaque paiement : true s'il a été enregistré, false si sa clé
+     *         d'idempotence était déjà connue (paiement rejoué, ignoré)
+     */
+    boolean[] enregistrerLot(List<Paiement> paiements);
+
+    /**
+     * Paiements d'une facture, du plus ancien au plus récent
+     */
+    List<Paiement> findByFactureId(Long factureId);
+
+    /**
+     * Factures dont montant_paye diffère du cumul du journal
+     */
+    List<EcartPaiementDTO> trouverEcarts();
+
+    /**
+     * Recalcule montant_paye et statut_paiement depuis le journal pour les factures en écart
+     * @return Nombre de factures corrigées
+     */
+    int recalculerSoldes();
+}
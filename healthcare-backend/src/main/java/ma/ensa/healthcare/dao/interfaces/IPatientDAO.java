@@ -1,7 +1,11 @@
 package ma.ensa.healthcare.dao.interfaces;
 
+import ma.ensa.healthcare.dto.FiltrePatients;
 import ma.ensa.healthcare.model.Patient;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface IPatientDAO {
     Patient save(Patient patient);
@@ -11,4 +15,40 @@ public interface IPatientDAO {
     void update(Patient patient);
     void delete(Long id);
     List<Patient> findByNom(String nom);
+
+    /**
+     * Patients dont le nom commence par le texte, ou par son premier mot avec un prénom commençant
+     * par la suite (sans casse) : parcours borné de l'index idx_patient_nom_maj
+     */
+    List<Patient> findParPrefixeNom(String texte, int limite);
+
+    /**
+     * Charge plusieurs patients en quelques requêtes (listes IN par lots)
+     * @return Patients trouvés, indexés par ID
+     */
+    Map<Long, Patient> findByIds(Collection<Long> ids);
+
+    /**
+     * Insère des patients en un lot JDBC (import en masse), dans une seule transaction
+     * @return Pour chaque patient : true s'il a été inséré, false si son CIN existait déjà
+     */
+    boolean[] saveLot(List<Patient> patients);
+
+    /**
+     * CIN de tous les patients enregistrés
+     */
+    Set<String> findAllCins();
+
+    /**
+     * Page de patients par ID croissant (pagination par clé, sans OFFSET)
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<Patient> findPage(long apresId, int limite);
+
+    /**
+     * Page de patients par ID croissant, restreinte aux critères de l'écran
+     * @param filtre Critères de sélection (FiltrePatients.TOUS : tous)
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<Patient> findPage(FiltrePatients filtre, long apresId, int limite);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package ma.ensa.healthcare.dao.interfaces;
+
+import ma.ensa.healthcare.dto.RapportMensuelDTO;
+import java.time.YearMonth;
+
+/**
+ * Interface DAO du rapport mensuel
+ */
+public interface IRapportMensuelDAO {
+    /**
+     * Calcule les données du rapport : activité en un seul parcours des rendez-vous du mois
+     * (avec leur consultation), facturation sur les factures datées du mois
+     * @param nombreDiagnostics Nombre de diagnostics les plus fréquents à retenir
+     */
+    RapportMensuelDTO calculer(YearMonth mois, int nombreDiagnostics);
+
+    /**
+     * État de la facturation du mois (nombre de factures et de paiements), comparé à celui
+     * du rapport enregistré pour détecter un paiement arrivé après sa génération
+     */
+    String lireEtatFacturation(YearMonth mois);
+}
@@ -1,12 +1,43 @@
 package ma.ensa.healthcare.dao.interfaces;
 
+import ma.ensa.healthcare.dto.FiltreRendezVous;
 import ma.ensa.healthcare.model.RendezVous;
+import ma.ensa.healthcare.model.enums.StatutRendezVous;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface IRendezVousDAO {
     RendezVous save(RendezVous rendezVous);
     RendezVous findById(Long id);
     List<RendezVous> findAll();
+    List<RendezVous> findByDate(LocalDate date);
     void update(RendezVous rendezVous);
+    void updateStatut(Long id, StatutRendezVous statut);
     void delete(Long id);
+
+    /**
+     * Charge plusieurs rendez-vous (avec leur médecin) en quelques requêtes
+     * @return Rendez-vous trouvés, indexés par ID
+     */
+    Map<Long, RendezVous> findByIds(Collection<Long> ids);
+
+    /**
+     * Page de rendez-vous par ID croissant (pagination par clé, sans OFFSET)
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<RendezVous> findPage(long apresId, int limite);
+
+    /**
+     * Page de rendez-vous par ID croissant, restreinte aux critères de l'écran
+     * @param filtre Critères de sélection (FiltreRendezVous.TOUS : tous)
+     * @param apresId Dernier ID de la page précédente (0 pour la première page)
+     */
+    List<RendezVous> findPage(FiltreRendezVous filtre, long apresId, int limite);
+
+    /**
+     * Prochains rendez-vous (à partir d'aujourd'hui) de quelques patients, par date et heure
+     */
+    List<RendezVous> findAVenirByPatientIds(Collection<Long> idsPatients, int limite);
 }
\ No newline at end of file
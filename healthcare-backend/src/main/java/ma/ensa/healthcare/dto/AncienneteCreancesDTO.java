@@ -0,0 +1,51 @@
+package ma.ensa.healthcare.dto;
+
+import ma.ensa.healthcare.model.enums.AxeAnciennete;
+import ma.ensa.healthcare.model.enums.TrancheAnciennete;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Ligne de la balance âgée : reste à payer par tranche pour une valeur d'un axe
+ * (un patient, un département, un mode de paiement ou le total général)
+ */
+public class AncienneteCreancesDTO {
+    private final AxeAnciennete axe;
+    private final String cle;              // id_patient, id_departement, mode de paiement (null pour TOTAL)
+    private final String libelle;
+    private final long nombreFactures;
+    private final Map<TrancheAnciennete, BigDecimal> montants = new EnumMap<>(TrancheAnciennete.class);
+    private final BigDecimal total;
+
+    public AncienneteCreancesDTO(AxeAnciennete axe, String cle, String libelle,
+                                 long nombreFactures, BigDecimal total) {
+        this.axe = axe;
+        this.cle = cle;
+        this.libelle = libelle;
+        this.nombreFactures = nombreFactures;
+        this.total = total;
+        for (TrancheAnciennete tranche : TrancheAnciennete.values()) {
+            montants.put(tranche, BigDecimal.ZERO);
+        }
+    }
+
+    public void setMontant(TrancheAnciennete tranche, BigDecimal montant) {
+        montants.put(tranche, montant != null ? montant : BigDecimal.ZERO);
+    }
+
+    // Getters
+    public AxeAnciennete getAxe() { return axe; }
+    public String getCle() { return cle; }
+    public String getLibelle() { return libelle; }
+    public long getNombreFactures() { return nombreFactures; }
+    public BigDecimal getMontant(TrancheAnciennete tranche) { return montants.get(tranche); }
+    public Map<TrancheAnciennete, BigDecimal> getMontants() { return montants; }
+    public BigDecimal getTotal() { return total; }
+
+    @Override
+    public String toString() {
+        return axe + " " + (libelle != null ? libelle : "") + " : " + montants + " total=" + total;
+    }
+}
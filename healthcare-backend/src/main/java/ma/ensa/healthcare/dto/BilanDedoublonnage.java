@@ -0,0 +1,48 @@
+package ma.ensa.healthcare.dto;
+
+/**
+ * Bilan d'une détection de doublons de patients en masse
+ */
+public class BilanDedoublonnage {
+    private final int patients;
+    private final int blocs;
+    private final long pairesComparees;
+    private final int liens;
+    private final int groupes;
+    private final int patientsEnDoublon;
+    private final long dureeMs;
+
+    public BilanDedoublonnage(int patients, int blocs, long pairesComparees, int liens,
+                              int groupes, int patientsEnDoublon, long dureeMs) {
+        this.patients = patients;
+        this.blocs = blocs;
+        this.pairesComparees = pairesComparees;
+        this.liens = liens;
+        this.groupes = groupes;
+        this.patientsEnDoublon = patientsEnDoublon;
+        this.dureeMs = dureeMs;
+    }
+
+    // Getters
+    public int getPatients() { return patients; }
+
+    /** Blocs d'au moins deux patients (même préfixe de CIN, même date ou même clé phonétique) */
+    public int getBlocs() { return blocs; }
+
+    /** Paires de patients réellement comparées (au lieu de n² / 2) */
+    public long getPairesComparees() { return pairesComparees; }
+
+    /** Paires au-dessus du seuil */
+    public int getLiens() { return liens; }
+
+    public int getGroupes() { return groupes; }
+    public int getPatientsEnDoublon() { return patientsEnDoublon; }
+    public long getDureeMs() { return dureeMs; }
+
+    @Override
+    public String toString() {
+        return String.format("Dédoublonnage : %d patients, %d blocs, %d paires comparées, %d liens, "
+                        + "%d groupes (%d patients) (%d ms)",
+                patients, blocs, pairesComparees, liens, groupes, patientsEnDoublon, dureeMs);
+    }
+}
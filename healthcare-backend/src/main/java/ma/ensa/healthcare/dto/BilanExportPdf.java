@@ -0,0 +1,42 @@
+package ma.ensa.healthcare.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bilan d'un export de factures PDF en lot (archive ZIP)
+ */
+public class BilanExportPdf {
+    private final String cheminArchive;
+    private final int documentsGeneres;
+    private final List<String> erreurs;
+    private final long dureeMs;
+
+    public BilanExportPdf(String cheminArchive, int documentsGeneres, List<String> erreurs, long dureeMs) {
+        this.cheminArchive = cheminArchive;
+        this.documentsGeneres = documentsGeneres;
+        this.erreurs = Collections.unmodifiableList(new ArrayList<>(erreurs));
+        this.dureeMs = dureeMs;
+    }
+
+    // Getters
+    public String getCheminArchive() { return cheminArchive; }
+    public int getDocumentsGeneres() { return documentsGeneres; }
+
+    /** Une ligne par facture non générée : numéro et cause */
+    public List<String> getErreurs() { return erreurs; }
+
+    public long getDureeMs() { return dureeMs; }
+
+    /** Débit de génération en documents par seconde */
+    public double getDocumentsParSeconde() {
+        return dureeMs > 0 ? documentsGeneres * 1000.0 / dureeMs : documentsGeneres;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Export %s : %d PDF, %d erreurs (%d ms, %.1f PDF/s)",
+                cheminArchive, documentsGeneres, erreurs.size(), dureeMs, getDocumentsParSeconde());
+    }
+}
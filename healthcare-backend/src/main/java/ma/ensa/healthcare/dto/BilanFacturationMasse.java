@@ -0,0 +1,60 @@
+package ma.ensa.healthcare.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Avancement (puis bilan final) d'une facturation en masse
+ */
+public class BilanFacturationMasse {
+    private final LocalDate dateDebut;
+    private final LocalDate dateFin;
+    private final int pagesTraitees;
+    private final int facturesCreees;
+    private final BigDecimal montantFacture;
+    private final long derniereConsultation;
+    private final boolean reprise;
+    private final boolean termine;
+    private final long dureeMs;
+
+    public BilanFacturationMasse(LocalDate dateDebut, LocalDate dateFin, int pagesTraitees,
+                                 int facturesCreees, BigDecimal montantFacture, long derniereConsultation,
+                                 boolean reprise, boolean termine, long dureeMs) {
+        this.dateDebut = dateDebut;
+        this.dateFin = dateFin;
+        this.pagesTraitees = pagesTraitees;
+        this.facturesCreees = facturesCreees;
+        this.montantFacture = montantFacture;
+        this.derniereConsultation = derniereConsultation;
+        this.reprise = reprise;
+        this.termine = termine;
+        this.dureeMs = dureeMs;
+    }
+
+    // Getters
+    public LocalDate getDateDebut() { return dateDebut; }
+    public LocalDate getDateFin() { return dateFin; }
+    public int getPagesTraitees() { return pagesTraitees; }
+
+    /** Factures créées depuis le début du lot (y compris avant une reprise) */
+    public int getFacturesCreees() { return facturesCreees; }
+
+    /** Montant total facturé pendant cette exécution */
+    public BigDecimal getMontantFacture() { return montantFacture; }
+
+    /** Identifiant de la dernière consultation validée (point de reprise) */
+    public long getDerniereConsultation() { return derniereConsultation; }
+
+    /** Vrai si l'exécution a repris un lot interrompu */
+    public boolean isReprise() { return reprise; }
+
+    public boolean isTermine() { return termine; }
+    public long getDureeMs() { return dureeMs; }
+
+    @Override
+    public String toString() {
+        return String.format("Facturation %s → %s : %d factures, %d pages, %s MAD, dernière consultation %d%s (%d ms)",
+                dateDebut, dateFin, facturesCreees, pagesTraitees, montantFacture, derniereConsultation,
+                termine ? ", terminé" : "", dureeMs);
+    }
+}
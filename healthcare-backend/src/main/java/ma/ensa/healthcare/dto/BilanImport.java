@@ -0,0 +1,52 @@
+package ma.ensa.healthcare.dto;
+
+/**
+ * Bilan d'un import CSV en masse (patients, médecins ou médicaments)
+ */
+public class BilanImport {
+    private final String nature;
+    private final long lignesLues;
+    private final long importees;
+    private final long doublons;
+    private final long rejetees;
+    private final String cheminErreurs;
+    private final long dureeMs;
+
+    public BilanImport(String nature, long lignesLues, long importees, long doublons, long rejetees,
+                       String cheminErreurs, long dureeMs) {
+        this.nature = nature;
+        this.lignesLues = lignesLues;
+        this.importees = importees;
+        this.doublons = doublons;
+        this.rejetees = rejetees;
+        this.cheminErreurs = cheminErreurs;
+        this.dureeMs = dureeMs;
+    }
+
+    // Getters
+    public String getNature() { return nature; }
+    public long getLignesLues() { return lignesLues; }
+    public long getImportees() { return importees; }
+
+    /** Lignes écartées car leur clé (CIN, numéro d'ordre, nom commercial) existait déjà */
+    public long getDoublons() { return doublons; }
+
+    /** Lignes invalides ou refusées par la base */
+    public long getRejetees() { return rejetees; }
+
+    /** Fichier des lignes écartées (doublons et rejets), null si aucune */
+    public String getCheminErreurs() { return cheminErreurs; }
+
+    public long getDureeMs() { return dureeMs; }
+
+    /** Débit en lignes lues par seconde */
+    public double getLignesParSeconde() {
+        return dureeMs > 0 ? lignesLues * 1000.0 / dureeMs : lignesLues;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Import %s : %d lignes, %d importées, %d doublons, %d rejetées (%d ms, %.0f lignes/s)",
+                nature, lignesLues, importees, doublons, rejetees, dureeMs, getLignesParSeconde());
+    }
+}
@@ -0,0 +1,37 @@
+package ma.ensa.healthcare.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Facture dont le montant payé ne correspond pas au cumul du journal PAIEMENT
+ */
+public class EcartPaiementDTO {
+    private final Long idFacture;
+    private final String numeroFacture;
+    private final BigDecimal montantPayeFacture;
+    private final BigDecimal totalJournal;
+
+    public EcartPaiementDTO(Long idFacture, String numeroFacture,
+                            BigDecimal montantPayeFacture, BigDecimal totalJournal) {
+        this.idFacture = idFacture;
+        this.numeroFacture = numeroFacture;
+        this.montantPayeFacture = montantPayeFacture;
+        this.totalJournal = totalJournal;
+    }
+
+    // Getters
+    public Long getIdFacture() { return idFacture; }
+    public String getNumeroFacture() { return numeroFacture; }
+    public BigDecimal getMontantPayeFacture() { return montantPayeFacture; }
+    public BigDecimal getTotalJournal() { return totalJournal; }
+
+    public BigDecimal getEcart() {
+        return montantPayeFacture.subtract(totalJournal);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s : facture %s MAD, journal %s MAD (écart %s)",
+                numeroFacture, montantPayeFacture, totalJournal, getEcart());
+    }
+}
@@ -0,0 +1,32 @@
+package ma.ensa.healthcare.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Critères de sélection des consultations (écran Consultations et son export) ; critère null : ignoré
+ */
+public class FiltreConsultations {
+    public static final FiltreConsultations TOUTES = new FiltreConsultations(null, null, null);
+
+    // Contenu dans le diagnostic, le "nom prénom" du patient ou le nom du médecin (sans casse)
+    private final String texte;
+    private final LocalDate date;
+    // Médecin du rendez-vous de la consultation
+    private final Long idMedecin;
+
+    public FiltreConsultations(String texte, LocalDate date, Long idMedecin) {
+        this.texte = texte == null || texte.isBlank() ? null : texte.trim();
+        this.date = date;
+        this.idMedecin = idMedecin;
+    }
+
+    // Getters
+    public String getTexte() { return texte; }
+    public LocalDate getDate() { return date; }
+    public Long getIdMedecin() { return idMedecin; }
+
+    @Override
+    public String toString() {
+        return "FiltreConsultations{texte='" + texte + "', date=" + date + ", idMedecin=" + idMedecin + "}";
+    }
+}
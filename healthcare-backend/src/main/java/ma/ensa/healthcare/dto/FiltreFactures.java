@@ -0,0 +1,40 @@
+package ma.ensa.healthcare.dto;
+
+import ma.ensa.healthcare.model.enums.StatutPaiement;
+
+import java.time.LocalDate;
+
+/**
+ * Critères de sélection des factures (écran Factures et ses exports) ; critère null : ignoré
+ */
+public class FiltreFactures {
+    public static final FiltreFactures TOUTES = new FiltreFactures(null, null, null, null);
+
+    private final StatutPaiement statut;
+    // Contenu dans le numéro, le "nom prénom" ou le CIN du patient (sans casse)
+    private final String texte;
+    private final LocalDate dateDebut;
+    private final LocalDate dateFin;
+
+    public FiltreFactures(StatutPaiement statut, String texte, LocalDate dateDebut, LocalDate dateFin) {
+        this.statut = statut;
+        this.texte = texte == null || texte.isBlank() ? null : texte.trim();
+        this.dateDebut = dateDebut;
+        this.dateFin = dateFin;
+    }
+
+    public static FiltreFactures parStatut(StatutPaiement statut) {
+        return statut == null ? TOUTES : new FiltreFactures(statut, null, null, null);
+    }
+
+    // Getters
+    public StatutPaiement getStatut() { return statut; }
+    public String getTexte() { return texte; }
+    public LocalDate getDateDebut() { return dateDebut; }
+    public LocalDate getDateFin() { return dateFin; }
+
+    @Override
+    public String toString() {
+        return "FiltreFactures{statut=" + statut + ", texte='" + texte + "', du " + dateDebut + " au " + dateFin + "}";
+    }
+}
@@ -0,0 +1,23 @@
+package ma.ensa.healthcare.dto;
+
+/**
+ * Critère de sélection des patients (recherche de l'écran Patients et son export) ; critère null : ignoré
+ */
+public class FiltrePatients {
+    public static final FiltrePatients TOUS = new FiltrePatients(null);
+
+    // Chaque mot, sans accents ni casse, contenu dans le nom, prénom, CIN, téléphone ou email
+    private final String texte;
+
+    public FiltrePatients(String texte) {
+        this.texte = texte == null || texte.isBlank() ? null : texte.trim();
+    }
+
+    // Getters
+    public String getTexte() { return texte; }
+
+    @Override
+    public String toString() {
+        return "FiltrePatients{texte='" + texte + "'}";
+    }
+}
@@ -0,0 +1,29 @@
+package ma.ensa.healthcare.dto;
+
+import ma.ensa.healthcare.model.enums.StatutRendezVous;
+
+import java.time.LocalDate;
+
+/**
+ * Critères de sélection des rendez-vous (écran Rendez-vous et son export) ; critère null : ignoré
+ */
+public class FiltreRendezVous {
+    public static final FiltreRendezVous TOUS = new FiltreRendezVous(null, null);
+
+    private final LocalDate date;
+    private final StatutRendezVous statut;
+
+    public FiltreRendezVous(LocalDate date, StatutRendezVous statut) {
+        this.date = date;
+        this.statut = statut;
+    }
+
+    // Getters
+    public LocalDate getDate() { return date; }
+    public StatutRendezVous getStatut() { return statut; }
+
+    @Override
+    public String toString() {
+        return "FiltreRendezVous{date=" + date + ", statut=" + statut + "}";
+    }
+}
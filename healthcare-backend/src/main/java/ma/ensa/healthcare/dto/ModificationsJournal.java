@@ -0,0 +1,22 @@
+package ma.ensa.healthcare.dto;
+
+import java.util.Set;
+
+/**
+ * Lignes d'une table notées dans JOURNAL_MODIFICATIONS entre deux SCN
+ */
+public class ModificationsJournal {
+    // SCN atteint : point de départ de la lecture suivante
+    private final long scn;
+    // Lignes insérées, modifiées ou supprimées (à relire : absente de la table = supprimée)
+    private final Set<Long> idsLignes;
+
+    public ModificationsJournal(long scn, Set<Long> idsLignes) {
+        this.scn = scn;
+        this.idsLignes = idsLignes;
+    }
+
+    // Getters
+    public long getScn() { return scn; }
+    public Set<Long> getIdsLignes() { return idsLignes; }
+}
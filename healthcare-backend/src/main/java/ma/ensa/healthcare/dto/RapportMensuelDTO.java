@@ -0,0 +1,64 @@
+package ma.ensa.healthcare.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Données du rapport mensuel : activité des rendez-vous du mois et factures datées du mois
+ */
+public class RapportMensuelDTO {
+    private final YearMonth mois;
+    private final long nombreRendezVous;
+    private final long nombreConsultations;
+    private final long nombreFactures;
+    private final BigDecimal chiffreAffaires;
+    private final BigDecimal montantEncaisse;
+    private final BigDecimal totalImpaye;
+    private final Map<String, Long> rendezVousParSpecialite;
+    private final Map<String, Long> diagnosticsFrequents;
+    private final String etatFacturation;
+
+    public RapportMensuelDTO(YearMonth mois, long nombreRendezVous, long nombreConsultations, long nombreFactures,
+                             BigDecimal chiffreAffaires, BigDecimal montantEncaisse, BigDecimal totalImpaye,
+                             Map<String, Long> rendezVousParSpecialite, Map<String, Long> diagnosticsFrequents,
+                             String etatFacturation) {
+        this.mois = mois;
+        this.nombreRendezVous = nombreRendezVous;
+        this.nombreConsultations = nombreConsultations;
+        this.nombreFactures = nombreFactures;
+        this.chiffreAffaires = chiffreAffaires;
+        this.montantEncaisse = montantEncaisse;
+        this.totalImpaye = totalImpaye;
+        this.rendezVousParSpecialite = rendezVousParSpecialite;
+        this.diagnosticsFrequents = diagnosticsFrequents;
+        this.etatFacturation = etatFacturation;
+    }
+
+    // Getters
+    public YearMonth getMois() { return mois; }
+    public long getNombreRendezVous() { return nombreRendezVous; }
+    public long getNombreConsultations() { return nombreConsultations; }
+    public long getNombreFactures() { return nombreFactures; }
+
+    /** Montant total des factures du mois */
+    public BigDecimal getChiffreAffaires() { return chiffreAffaires; }
+
+    public BigDecimal getMontantEncaisse() { return montantEncaisse; }
+    public BigDecimal getTotalImpaye() { return totalImpaye; }
+
+    /** Nombre de rendez-vous par spécialité, du plus grand au plus petit */
+    public Map<String, Long> getRendezVousParSpecialite() { return rendezVousParSpecialite; }
+
+    /** Diagnostics les plus fréquents avec leur nombre, du plus fréquent au moins fréquent */
+    public Map<String, Long> getDiagnosticsFrequents() { return diagnosticsFrequents; }
+
+    /** État de la facturation lu avec les données (voir IRapportMensuelDAO.lireEtatFacturation) */
+    public String getEtatFacturation() { return etatFacturation; }
+
+    @Override
+    public String toString() {
+        return String.format("Rapport %s : %d RDV, %d consultations, %d factures, CA %s MAD, impayé %s MAD",
+                mois, nombreRendezVous, nombreConsultations, nombreFactures, chiffreAffaires, totalImpaye);
+    }
+}
@@ -0,0 +1,42 @@
+package ma.ensa.healthcare.dto;
+
+import ma.ensa.healthcare.model.enums.TypeEntite;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Résultat d'une recherche globale : liste classée toutes entités confondues et facettes par type
+ */
+public class RechercheGlobale {
+    private final List<ResultatRecherche> resultats;
+    private final Map<TypeEntite, Integer> facettes;
+    private final Set<TypeEntite> sourcesIncompletes;
+    private final long dureeMs;
+
+    public RechercheGlobale(List<ResultatRecherche> resultats, Map<TypeEntite, Integer> facettes,
+                            Set<TypeEntite> sourcesIncompletes, long dureeMs) {
+        this.resultats = resultats;
+        this.facettes = facettes;
+        this.sourcesIncompletes = sourcesIncompletes;
+        this.dureeMs = dureeMs;
+    }
+
+    // Getters
+    public List<ResultatRecherche> getResultats() { return resultats; }
+
+    /** Nombre d'éléments trouvés par type, avant la coupe à la limite (types sans résultat absents) */
+    public Map<TypeEntite, Integer> getFacettes() { return facettes; }
+
+    /** Types dont la recherche a dépassé le délai ou échoué : leurs résultats manquent */
+    public Set<TypeEntite> getSourcesIncompletes() { return sourcesIncompletes; }
+
+    public long getDureeMs() { return dureeMs; }
+
+    @Override
+    public String toString() {
+        return String.format("Recherche globale : %d résultats, facettes %s, incomplètes %s (%d ms)",
+                resultats.size(), facettes, sourcesIncompletes, dureeMs);
+    }
+}
@@ -0,0 +1,38 @@
+package ma.ensa.healthcare.dto;
+
+import ma.ensa.healthcare.model.enums.TypeEntite;
+
+/**
+ * Élément trouvé par la recherche globale : de quoi l'afficher et ouvrir sa fiche
+ */
+public class ResultatRecherche {
+    private final TypeEntite type;
+    private final Long id;
+    private final String libelle;
+    private final String detail;
+    private final double score;
+
+    public ResultatRecherche(TypeEntite type, Long id, String libelle, String detail, double score) {
+        this.type = type;
+        this.id = id;
+        this.libelle = libelle;
+        this.detail = detail;
+        this.score = score;
+    }
+
+    // Getters
+    public TypeEntite getType() { return type; }
+    public Long getId() { return id; }
+    public String getLibelle() { return libelle; }
+
+    /** Précision affichée sous le libellé (CIN, spécialité, montant, horaire...) */
+    public String getDetail() { return detail; }
+
+    /** Pertinence entre 0 et 1, comparable d'un type à l'autre */
+    public double getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return String.format("%s #%d : %s (%s) [%.3f]", type, id, libelle, detail, score);
+    }
+}
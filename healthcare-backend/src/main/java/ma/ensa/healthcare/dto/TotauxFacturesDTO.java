@@ -0,0 +1,27 @@
+package ma.ensa.healthcare.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Totaux d'un ensemble de factures, calculés par la base
+ */
+public class TotauxFacturesDTO {
+    private final long nombreFactures;
+    private final BigDecimal totalFacture;
+    private final BigDecimal totalPaye;
+    private final BigDecimal totalImpaye;
+
+    public TotauxFacturesDTO(long nombreFactures, BigDecimal totalFacture,
+                             BigDecimal totalPaye, BigDecimal totalImpaye) {
+        this.nombreFactures = nombreFactures;
+        this.totalFacture = totalFacture;
+        this.totalPaye = totalPaye;
+        this.totalImpaye = totalImpaye;
+    }
+
+    // Getters
+    public long getNombreFactures() { return nombreFactures; }
+    public BigDecimal getTotalFacture() { return totalFacture; }
+    public BigDecimal getTotalPaye() { return totalPaye; }
+    public BigDecimal getTotalImpaye() { return totalImpaye; }
+}
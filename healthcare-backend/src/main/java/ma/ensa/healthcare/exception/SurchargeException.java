@@ -0,0 +1,12 @@
+package ma.ensa.healthcare.exception;
+
+/**
+ * Exception levée quand une demande de connexion est refusée par le contrôle
+ * d'admission (file d'attente pleine ou attente maximale dépassée)
+ */
+public class SurchargeException extends HealthcareException {
+
+    public SurchargeException(String message) {
+        super(message);
+    }
+}
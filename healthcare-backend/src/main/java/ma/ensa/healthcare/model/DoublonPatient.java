@@ -0,0 +1,96 @@
+package ma.ensa.healthcare.model;
+
+import ma.ensa.healthcare.model.enums.StatutDoublon;
+import java.time.LocalDate;
+
+/**
+ * Modèle DoublonPatient - Correspond à la table DOUBLON_PATIENT
+ * (un patient d'un groupe de doublons probables, avec le patient dont il est le plus proche)
+ */
+public class DoublonPatient {
+    private Long id;                        // id_doublon
+    private Long idGroupe;                  // id_groupe (plus petit id_patient du groupe)
+    private Long idPatient;                 // id_patient (FK)
+    private Long idPatientProche;           // id_patient_proche (FK)
+    private double score;                   // score (similarité avec le patient le plus proche)
+    private double scoreGroupe;             // score_groupe (moyenne des liens du groupe)
+    private String motifs;                  // motifs (champs concordants)
+    private StatutDoublon statut;           // statut
+    private LocalDate dateDetection;        // date_detection
+
+    // --- Constructeurs ---
+    public DoublonPatient() {}
+
+    public DoublonPatient(Long id, Long idGroupe, Long idPatient, Long idPatientProche, double score,
+                          double scoreGroupe, String motifs, StatutDoublon statut, LocalDate dateDetection) {
+        this.id = id;
+        this.idGroupe = idGroupe;
+        this.idPatient = idPatient;
+        this.idPatientProche = idPatientProche;
+        this.score = score;
+        this.scoreGroupe = scoreGroupe;
+        this.motifs = motifs;
+        this.statut = statut;
+        this.dateDetection = dateDetection;
+    }
+
+    // --- Pattern Builder ---
+    public static DoublonPatientBuilder builder() {
+        return new DoublonPatientBuilder();
+    }
+
+    public static class DoublonPatientBuilder {
+        private Long id;
+        private Long idGroupe;
+        private Long idPatient;
+        private Long idPatientProche;
+        private double score;
+        private double scoreGroupe;
+        private String motifs;
+        private StatutDoublon statut = StatutDoublon.A_VERIFIER;
+        private LocalDate dateDetection;
+
+        public DoublonPatientBuilder id(Long id) { this.id = id; return this; }
+        public DoublonPatientBuilder idGroupe(Long idGroupe) { this.idGroupe = idGroupe; return this; }
+        public DoublonPatientBuilder idPatient(Long idPatient) { this.idPatient = idPatient; return this; }
+        public DoublonPatientBuilder idPatientProche(Long idPatientProche) { this.idPatientProche = idPatientProche; return this; }
+        public DoublonPatientBuilder score(double score) { this.score = score; return this; }
+        public DoublonPatientBuilder scoreGroupe(double scoreGroupe) { this.scoreGroupe = scoreGroupe; return this; }
+        public DoublonPatientBuilder motifs(String motifs) { this.motifs = motifs; return this; }
+        public DoublonPatientBuilder statut(StatutDoublon statut) { this.statut = statut; return this; }
+        public DoublonPatientBuilder dateDetection(LocalDate dateDetection) { this.dateDetection = dateDetection; return this; }
+
+        public DoublonPatient build() {
+            return new DoublonPatient(id, idGroupe, idPatient, idPatientProche, score, scoreGroupe,
+                    motifs, statut, dateDetection);
+        }
+    }
+
+    // --- Getters et Setters ---
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getIdGroupe() { return idGroupe; }
+    public void setIdGroupe(Long idGroupe) { this.idGroupe = idGroupe; }
+
+    public Long getIdPatient() { return idPatient; }
+    public void setIdPatient(Long idPatient) { this.idPatient = idPatient; }
+
+    public Long getIdPatientProche() { return idPatientProche; }
+    public void setIdPatientProche(Long idPatientProche) { this.idPatientProche = idPatientProche; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+
+    public double getScoreGroupe() { return scoreGroupe; }
+    public void setScoreGroupe(double scoreGroupe) { this.scoreGroupe = scoreGroupe; }
+
+    public String getMotifs() { return motifs; }
+    public void setMotifs(String motifs) { this.motifs = motifs; }
+
+    public StatutDoublon getStatut() { return statut; }
+    public void setStatut(StatutDoublon statut) { this.statut = statut; }
+
+    public LocalDate getDateDetection() { return dateDetection; }
+    public void setDateDetection(LocalDate dateDetection) { this.dateDetection = dateDetection; }
+}
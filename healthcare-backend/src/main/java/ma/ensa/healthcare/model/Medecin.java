@@ -16,6 +16,9 @@ public class Medecin {
     private LocalDate dateEmbauche;     // date_embauche (NOT NULL)
     private Departement departement;    // id_departement (FK NOT NULL)
 
+    // Suivi des colonnes modifiées depuis la lecture en base (UPDATE partiel)
+    private final SuiviModifications suivi = new SuiviModifications();
+
     // --- Constructeurs ---
     public Medecin() {}
 
@@ -68,26 +71,46 @@ public class Medecin {
     public void setId(Long id) { this.id = id; }
 
     public String getNumeroOrdre() { return numeroOrdre; }
-    public void setNumeroOrdre(String numeroOrdre) { this.numeroOrdre = numeroOrdre; }
+    public void setNumeroOrdre(String numeroOrdre) { suivi.marquer("numeroOrdre", this.numeroOrdre, numeroOrdre); this.numeroOrdre = numeroOrdre; }
 
     public String getNom() { return nom; }
-    public void setNom(String nom) { this.nom = nom; }
+    public void setNom(String nom) { suivi.marquer("nom", this.nom, nom); this.nom = nom; }
 
     public String getPrenom() { return prenom; }
-    public void setPrenom(String prenom) { this.prenom = prenom; }
+    public void setPrenom(String prenom) { suivi.marquer("prenom", this.prenom, prenom); this.prenom = prenom; }
 
     public String getSpecialite() { return specialite; }
-    public void setSpecialite(String specialite) { this.specialite = specialite; }
+    public void setSpecialite(String specialite) { suivi.marquer("specialite", this.specialite, specialite); this.specialite = specialite; }
 
     public String getTelephone() { return telephone; }
-    public void setTelephone(String telephone) { this.telephone = telephone; }
+    public void setTelephone(String telephone) { suivi.marquer("telephone", this.telephone, telephone); this.telephone = telephone; }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { suivi.marquer("email", this.email, email); this.email = email; }
 
     public LocalDate getDateEmbauche() { return dateEmbauche; }
-    public void setDateEmbauche(LocalDate dateEmbauche) { this.dateEmbauche = dateEmbauche; }
+    public void setDateEmbauche(LocalDate dateEmbauche) { suivi.marquer("dateEmbauche", this.dateEmbauche, dateEmbauche); this.dateEmbauche = dateEmbauche; }
 
     public Departement getDepartement() { return departement; }
-    public void setDepartement(Departement departement) { this.departement = departement; }
+    public void setDepartement(Departement departement) { suivi.marquer("departement", idDepartement(this.departement), idDepartement(departement)); this.departement = departement; }
+
+    // --- Suivi des modifications ---
+    private static Long idDepartement(Departement d) { return d != null ? d.getId() : null; }
+
+    public SuiviModifications getSuivi() { return suivi; }
+
+    /**
+     * Recopie les valeurs métier d'un autre objet via les setters,
+     * de sorte que seules les différences soient marquées comme modifiées
+     */
+    public void copierDepuis(Medecin autre) {
+        setNumeroOrdre(autre.getNumeroOrdre());
+        setNom(autre.getNom());
+        setPrenom(autre.getPrenom());
+        setSpecialite(autre.getSpecialite());
+        setTelephone(autre.getTelephone());
+        setEmail(autre.getEmail());
+        setDateEmbauche(autre.getDateEmbauche());
+        setDepartement(autre.getDepartement());
+    }
 }
\ No newline at end of file
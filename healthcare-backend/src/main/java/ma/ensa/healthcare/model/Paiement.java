@@ -0,0 +1,74 @@
+package ma.ensa.healthcare.model;
+
+import ma.ensa.healthcare.model.enums.ModePaiement;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Modèle Paiement - Correspond à la table PAIEMENT (journal en ajout seul)
+ */
+public class Paiement {
+    private Long id;                        // id_paiement
+    private String cleIdempotence;          // cle_idempotence (UNIQUE NOT NULL)
+    private Long idFacture;                 // id_facture (FK NOT NULL)
+    private BigDecimal montant;             // montant (> 0)
+    private ModePaiement modePaiement;      // mode_paiement
+    private LocalDate datePaiement;         // date_paiement
+
+    // --- Constructeurs ---
+    public Paiement() {}
+
+    public Paiement(Long id, String cleIdempotence, Long idFacture, BigDecimal montant,
+                    ModePaiement modePaiement, LocalDate datePaiement) {
+        this.id = id;
+        this.cleIdempotence = cleIdempotence;
+        this.idFacture = idFacture;
+        this.montant = montant;
+        this.modePaiement = modePaiement;
+        this.datePaiement = datePaiement;
+    }
+
+    // --- Pattern Builder ---
+    public static PaiementBuilder builder() {
+        return new PaiementBuilder();
+    }
+
+    public static class PaiementBuilder {
+        private Long id;
+        private String cleIdempotence;
+        private Long idFacture;
+        private BigDecimal montant;
+        private ModePaiement modePaiement;
+        private LocalDate datePaiement;
+
+        public PaiementBuilder id(Long id) { this.id = id; return this; }
+        public PaiementBuilder cleIdempotence(String cleIdempotence) { this.cleIdempotence = cleIdempotence; return this; }
+        public PaiementBuilder idFacture(Long idFacture) { this.idFacture = idFacture; return this; }
+        public PaiementBuilder montant(BigDecimal montant) { this.montant = montant; return this; }
+        public PaiementBuilder modePaiement(ModePaiement modePaiement) { this.modePaiement = modePaiement; return this; }
+        public PaiementBuilder datePaiement(LocalDate datePaiement) { this.datePaiement = datePaiement; return this; }
+
+        public Paiement build() {
+            return new Paiement(id, cleIdempotence, idFacture, montant, modePaiement, datePaiement);
+        }
+    }
+
+    // --- Getters et Setters ---
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCleIdempotence() { return cleIdempotence; }
+    public void setCleIdempotence(String cleIdempotence) { this.cleIdempotence = cleIdempotence; }
+
+    public Long getIdFacture() { return idFacture; }
+    public void setIdFacture(Long idFacture) { this.idFacture = idFacture; }
+
+    public BigDecimal getMontant() { return montant; }
+    public void setMontant(BigDecimal montant) { this.montant = montant; }
+
+    public ModePaiement getModePaiement() { return modePaiement; }
+    public void setModePaiement(ModePaiement modePaiement) { this.modePaiement = modePaiement; }
+
+    public LocalDate getDatePaiement() { return datePaiement; }
+    public void setDatePaiement(LocalDate datePaiement) { this.datePaiement = datePaiement; }
+}
@@ -22,6 +22,9 @@ public class Patient {
     private String allergies;           // allergies
     private LocalDate dateInscription;  // date_inscription
 
+    // Suivi des colonnes modifiées depuis la lecture en base (UPDATE partiel)
+    private final SuiviModifications suivi = new SuiviModifications();
+
     // --- Constructeur vide ---
     public Patient() {}
 
@@ -92,41 +95,63 @@ public class Patient {
     public void setId(Long id) { this.id = id; }
 
     public String getCin() { return cin; }
-    public void setCin(String cin) { this.cin = cin; }
+    public void setCin(String cin) { suivi.marquer("cin", this.cin, cin); this.cin = cin; }
 
     public String getNom() { return nom; }
-    public void setNom(String nom) { this.nom = nom; }
+    public void setNom(String nom) { suivi.marquer("nom", this.nom, nom); this.nom = nom; }
 
     public String getPrenom() { return prenom; }
-    public void setPrenom(String prenom) { this.prenom = prenom; }
+    public void setPrenom(String prenom) { suivi.marquer("prenom", this.prenom, prenom); this.prenom = prenom; }
 
     public LocalDate getDateNaissance() { return dateNaissance; }
-    public void setDateNaissance(LocalDate dateNaissance) { this.dateNaissance = dateNaissance; }
+    public void setDateNaissance(LocalDate dateNaissance) { suivi.marquer("dateNaissance", this.dateNaissance, dateNaissance); this.dateNaissance = dateNaissance; }
 
     public Sexe getSexe() { return sexe; }
-    public void setSexe(Sexe sexe) { this.sexe = sexe; }
+    public void setSexe(Sexe sexe) { suivi.marquer("sexe", this.sexe, sexe); this.sexe = sexe; }
 
     public String getAdresse() { return adresse; }
-    public void setAdresse(String adresse) { this.adresse = adresse; }
+    public void setAdresse(String adresse) { suivi.marquer("adresse", this.adresse, adresse); this.adresse = adresse; }
 
     public String getVille() { return ville; }
-    public void setVille(String ville) { this.ville = ville; }
+    public void setVille(String ville) { suivi.marquer("ville", this.ville, ville); this.ville = ville; }
 
     public String getCodePostal() { return codePostal; }
-    public void setCodePostal(String codePostal) { this.codePostal = codePostal; }
+    public void setCodePostal(String codePostal) { suivi.marquer("codePostal", this.codePostal, codePostal); this.codePostal = codePostal; }
 
     public String getTelephone() { return telephone; }
-    public void setTelephone(String telephone) { this.telephone = telephone; }
+    public void setTelephone(String telephone) { suivi.marquer("telephone", this.telephone, telephone); this.telephone = telephone; }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { suivi.marquer("email", this.email, email); this.email = email; }
 
     public String getGroupeSanguin() { return groupeSanguin; }
-    public void setGroupeSanguin(String groupeSanguin) { this.groupeSanguin = groupeSanguin; }
+    public void setGroupeSanguin(String groupeSanguin) { suivi.marquer("groupeSanguin", this.groupeSanguin, groupeSanguin); this.groupeSanguin = groupeSanguin; }
 
     public String getAllergies() { return allergies; }
-    public void setAllergies(String allergies) { this.allergies = allergies; }
+    public void setAllergies(String allergies) { suivi.marquer("allergies", this.allergies, allergies); this.allergies = allergies; }
 
     public LocalDate getDateInscription() { return dateInscription; }
-    public void setDateInscription(LocalDate dateInscription) { this.dateInscription = dateInscription; }
+    public void setDateInscription(LocalDate dateInscription) { suivi.marquer("dateInscription", this.dateInscription, dateInscription); this.dateInscription = dateInscription; }
+
+    // --- Suivi des modifications ---
+    public SuiviModifications getSuivi() { return suivi; }
+
+    /**
+     * Recopie les valeurs métier d'un autre objet via les setters,
+     * de sorte que seules les différences soient marquées comme modifiées
+     */
+    public void copierDepuis(Patient autre) {
+        setCin(autre.getCin());
+        setNom(autre.getNom());
+        setPrenom(autre.getPrenom());
+        setDateNaissance(autre.getDateNaissance());
+        setSexe(autre.getSexe());
+        setAdresse(autre.getAdresse());
+        setVille(autre.getVille());
+        setCodePostal(autre.getCodePostal());
+        setTelephone(autre.getTelephone());
+        setEmail(autre.getEmail());
+        setGroupeSanguin(autre.getGroupeSanguin());
+        setAllergies(autre.getAllergies());
+    }
 }
\ No newline at end of file
@@ -19,6 +19,9 @@ public class RendezVous {
     private String salle;                   // salle
     private LocalDate dateCreation;         // date_creation (DEFAULT SYSDATE)
 
+    // Suivi des colonnes modifiées depuis la lecture en base (UPDATE partiel)
+    private final SuiviModifications suivi = new SuiviModifications();
+
     // --- Constructeurs ---
     public RendezVous() {}
 
@@ -76,29 +79,49 @@ public class RendezVous {
     public void setId(Long id) { this.id = id; }
 
     public Long getIdPatient() { return idPatient; }
-    public void setIdPatient(Long idPatient) { this.idPatient = idPatient; }
+    public void setIdPatient(Long idPatient) { suivi.marquer("idPatient", this.idPatient, idPatient); this.idPatient = idPatient; }
 
     public Medecin getMedecin() { return medecin; }
-    public void setMedecin(Medecin medecin) { this.medecin = medecin; }
+    public void setMedecin(Medecin medecin) { suivi.marquer("medecin", idMedecin(this.medecin), idMedecin(medecin)); this.medecin = medecin; }
 
     public LocalDate getDateRdv() { return dateRdv; }
-    public void setDateRdv(LocalDate dateRdv) { this.dateRdv = dateRdv; }
+    public void setDateRdv(LocalDate dateRdv) { suivi.marquer("dateRdv", this.dateRdv, dateRdv); this.dateRdv = dateRdv; }
 
     public LocalDateTime getHeureDebut() { return heureDebut; }
-    public void setHeureDebut(LocalDateTime heureDebut) { this.heureDebut = heureDebut; }
+    public void setHeureDebut(LocalDateTime heureDebut) { suivi.marquer("heureDebut", this.heureDebut, heureDebut); this.heureDebut = heureDebut; }
 
     public LocalDateTime getHeureFin() { return heureFin; }
-    public void setHeureFin(LocalDateTime heureFin) { this.heureFin = heureFin; }
+    public void setHeureFin(LocalDateTime heureFin) { suivi.marquer("heureFin", this.heureFin, heureFin); this.heureFin = heureFin; }
 
     public String getMotif() { return motif; }
-    public void setMotif(String motif) { this.motif = motif; }
+    public void setMotif(String motif) { suivi.marquer("motif", this.motif, motif); this.motif = motif; }
 
     public StatutRendezVous getStatut() { return statut; }
-    public void setStatut(StatutRendezVous statut) { this.statut = statut; }
+    public void setStatut(StatutRendezVous statut) { suivi.marquer("statut", this.statut, statut); this.statut = statut; }
 
     public String getSalle() { return salle; }
-    public void setSalle(String salle) { this.salle = salle; }
+    public void setSalle(String salle) { suivi.marquer("salle", this.salle, salle); this.salle = salle; }
 
     public LocalDate getDateCreation() { return dateCreation; }
-    public void setDateCreation(LocalDate dateCreation) { this.dateCreation = dateCreation; }
+    public void setDateCreation(LocalDate dateCreation) { suivi.marquer("dateCreation", this.dateCreation, dateCreation); this.dateCreation = dateCreation; }
+
+    // --- Suivi des modifications ---
+    private static Long idMedecin(Medecin m) { return m != null ? m.getId() : null; }
+
+    public SuiviModifications getSuivi() { return suivi; }
+
+    /**
+     * Recopie les valeurs métier d'un autre objet via les setters,
+     * de sorte que seules les différences soient marquées comme modifiées
+     */
+    public void copierDepuis(RendezVous autre) {
+        setIdPatient(autre.getIdPatient());
+        setMedecin(autre.getMedecin());
+        setDateRdv(autre.getDateRdv());
+        setHeureDebut(autre.getHeureDebut());
+        setHeureFin(autre.getHeureFin());
+        setMotif(autre.getMotif());
+        setStatut(autre.getStatut());
+        setSalle(autre.getSalle());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package ma.ensa.healthcare.model;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Suivi des champs modifiés d'une entité chargée depuis la base.
+ * Permet aux DAO de n'envoyer que les colonnes réellement modifiées (UPDATE partiel).
+ *
+ * Le suivi n'est actif que sur les objets issus d'une lecture en base (mappers DAO) :
+ * un objet construit par le builder ou le constructeur vide n'est pas suivi et
+ * sera mis à jour intégralement.
+ */
+public class SuiviModifications {
+    private final Set<String> champsModifies = new LinkedHashSet<>();
+    private boolean actif;
+
+    /**
+     * Active le suivi et repart d'un état "propre" (aucun champ modifié)
+     */
+    public void demarrer() {
+        champsModifies.clear();
+        actif = true;
+    }
+
+    /**
+     * Enregistre la modification d'un champ si la valeur change réellement
+     */
+    public void marquer(String champ, Object ancienneValeur, Object nouvelleValeur) {
+        if (actif && !Objects.equals(ancienneValeur, nouvelleValeur)) {
+            champsModifies.add(champ);
+        }
+    }
+
+    public boolean isActif() { return actif; }
+
+    public boolean estModifie(String champ) { return champsModifies.contains(champ); }
+
+    public boolean aDesModifications() { return !champsModifies.isEmpty(); }
+
+    public Set<String> getChampsModifies() { return Collections.unmodifiableSet(champsModifies); }
+}
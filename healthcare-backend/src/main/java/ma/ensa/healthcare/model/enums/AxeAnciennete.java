@@ -0,0 +1,11 @@
+package ma.ensa.healthcare.model.enums;
+
+/**
+ * Axes de regroupement de la balance âgée
+ */
+public enum AxeAnciennete {
+    PATIENT,
+    DEPARTEMENT,
+    MODE_PAIEMENT,
+    TOTAL
+}
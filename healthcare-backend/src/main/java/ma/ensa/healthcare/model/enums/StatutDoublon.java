@@ -0,0 +1,7 @@
+package ma.ensa.healthcare.model.enums;
+
+public enum StatutDoublon {
+    A_VERIFIER,
+    CONFIRME,
+    REJETE
+}
@@ -0,0 +1,28 @@
+package ma.ensa.healthcare.model.enums;
+
+/**
+ * Tranches d'ancienneté des créances (jours écoulés depuis la date de facture)
+ */
+public enum TrancheAnciennete {
+    J0_30("0-30 jours", 0, 30),
+    J31_60("31-60 jours", 31, 60),
+    J61_90("61-90 jours", 61, 90),
+    J90_PLUS("Plus de 90 jours", 91, Integer.MAX_VALUE);
+
+    private final String libelle;
+    private final int joursMin;
+    private final int joursMax;
+
+    TrancheAnciennete(String libelle, int joursMin, int joursMax) {
+        this.libelle = libelle;
+        this.joursMin = joursMin;
+        this.joursMax = joursMax;
+    }
+
+    public String getLibelle() { return libelle; }
+
+    public int getJoursMin() { return joursMin; }
+
+    /** Integer.MAX_VALUE pour la dernière tranche (ouverte) */
+    public int getJoursMax() { return joursMax; }
+}
@@ -0,0 +1,9 @@
+package ma.ensa.healthcare.model.enums;
+
+public enum TypeEntite {
+    PATIENT,
+    MEDECIN,
+    FACTURE,
+    RENDEZ_VOUS,
+    MEDICAMENT
+}
@@ -0,0 +1,109 @@
+package ma.ensa.healthcare.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Découpage des textes médicaux français en termes d'index.
+ *
+ * Le texte est replié (voir Normalisation : "Dyslipidémie" et "dyslipidemie" sont le même mot),
+ * les élisions tombent avec l'apostrophe ("l'hypertension" donne "l" puis "hypertension"),
+ * les mots vides sont ignorés puis chaque mot est réduit à sa racine par une racinisation légère :
+ * pluriel, féminin et quelques suffixes ("diabète", "diabétique" -> "diabet" ;
+ * "rénal", "rénale", "rénaux" -> "renal"). Les mots vides gardent leur position,
+ * pour que les expressions entre guillemets se comparent aux positions d'origine.
+ */
+public class AnalyseurFrancais {
+
+    private static final Set<String> MOTS_VIDES = Set.of(
+            "le", "la", "les", "de", "des", "du", "un", "une", "et", "ou", "au", "aux", "en", "dans",
+            "par", "pour", "sur", "avec", "ce", "cet", "cette", "ces", "se", "sa", "son", "ses",
+            "leur", "leurs", "est", "sont", "etait", "ete", "qui", "que", "qu", "ne", "il", "elle",
+            "ils", "elles", "on", "je", "nous", "vous", "lui", "mais", "donc", "car", "ni", "comme",
+            "tres", "entre", "chez", "vers", "depuis", "lors", "apres", "avant");
+
+    // Du plus long au plus court ; la racine garde au moins LONGUEUR_RACINE lettres
+    private static final String[] SUFFIXES = {
+            "issements", "issement", "ements", "ement", "ations", "ation", "atrices", "atrice",
+            "ateurs", "ateur", "iques", "ique", "ismes", "isme", "istes", "iste", "euses", "euse",
+            "eux", "ives", "ive", "ifs", "if"};
+    private static final int LONGUEUR_RACINE = 4;
+
+    /**
+     * Terme d'index et sa position dans le texte (mots vides compris)
+     */
+    public static final class Terme {
+        private final String texte;
+        private final int position;
+
+        Terme(String texte, int position) {
+            this.texte = texte;
+            this.position = position;
+        }
+
+        public String getTexte() { return texte; }
+        public int getPosition() { return position; }
+    }
+
+    /**
+     * @return Les termes du texte dans l'ordre, sans les mots vides
+     */
+    public static List<Terme> termes(String texte) {
+        String[] mots = Normalisation.mots(texte);
+        List<Terme> termes = new ArrayList<>(mots.length);
+        for (int position = 0; position < mots.length; position++) {
+            String mot = mots[position];
+            if (!motVide(mot)) {
+                termes.add(new Terme(racine(mot), position));
+            }
+        }
+        return termes;
+    }
+
+    /**
+     * Mot d'une lettre (élision : l', d', j'...) ou de la liste des mots vides
+     */
+    public static boolean motVide(String mot) {
+        return (mot.length() == 1 && !Character.isDigit(mot.charAt(0))) || MOTS_VIDES.contains(mot);
+    }
+
+    /**
+     * @param mot Mot déjà replié
+     */
+    public static String racine(String mot) {
+        if (mot.length() <= 3) {
+            return mot;
+        }
+        for (int i = 0; i < mot.length(); i++) {
+            if (Character.isDigit(mot.charAt(i))) {
+                // Dosages, codes : gardés tels quels
+                return mot;
+            }
+        }
+
+        String r = mot;
+        // Pluriel
+        if (r.endsWith("aux") && r.length() > 5) {
+            r = r.substring(0, r.length() - 3) + "al";
+        } else if ((r.endsWith("s") || r.endsWith("x")) && r.length() > 4) {
+            r = r.substring(0, r.length() - 1);
+        }
+
+        for (String suffixe : SUFFIXES) {
+            if (r.endsWith(suffixe) && r.length() - suffixe.length() >= LONGUEUR_RACINE) {
+                return r.substring(0, r.length() - suffixe.length());
+            }
+        }
+        // Féminin et e muet
+        if (r.endsWith("e") && r.length() > LONGUEUR_RACINE) {
+            r = r.substring(0, r.length() - 1);
+        }
+        // Consonne doublée en fin de racine ("nouvelle" -> "nouvel")
+        int n = r.length();
+        if (n > LONGUEUR_RACINE && r.charAt(n - 1) == r.charAt(n - 2) && "lnt".indexOf(r.charAt(n - 1)) >= 0) {
+            r = r.substring(0, n - 1);
+        }
+        return r;
+    }
+}
@@ -0,0 +1,103 @@
+package ma.ensa.healthcare.search;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Arbre BK (Burkhard-Keller) de mots, pour trouver ceux à une distance d'édition bornée.
+ *
+ * Chaque enfant est rangé sous sa distance au parent ; d'après l'inégalité triangulaire,
+ * un mot à distance au plus k de la recherche ne peut se trouver que sous les enfants
+ * dont la distance est comprise entre d - k et d + k : le reste de l'arbre n'est pas visité.
+ * Non synchronisé (voir IndexNomsApproches).
+ */
+public class ArbreBK {
+
+    /**
+     * Reçoit chaque mot trouvé
+     */
+    @FunctionalInterface
+    public interface Visiteur {
+        void trouve(int id, int distance);
+    }
+
+    private Noeud racine;
+    private int taille;
+
+    public void ajouter(String mot, int id) {
+        taille++;
+        if (racine == null) {
+            racine = new Noeud(mot, id);
+            return;
+        }
+        Noeud noeud = racine;
+        while (true) {
+            int distance = Levenshtein.distance(mot, noeud.mot);
+            Noeud enfant = noeud.enfant(distance);
+            if (enfant == null) {
+                noeud.ajouterEnfant(distance, new Noeud(mot, id));
+                return;
+            }
+            noeud = enfant;
+        }
+    }
+
+    /**
+     * Visite les mots à distance au plus max du mot cherché
+     */
+    public void rechercher(String mot, int max, Visiteur visiteur) {
+        if (racine == null) {
+            return;
+        }
+        Deque<Noeud> aVisiter = new ArrayDeque<>();
+        aVisiter.push(racine);
+        while (!aVisiter.isEmpty()) {
+            Noeud noeud = aVisiter.pop();
+            // Au-delà de max + la plus grande distance d'un enfant, ni le nœud ni ses enfants ne conviennent
+            int borne = max + Math.max(0, noeud.enfants.length - 1);
+            int distance = Levenshtein.distance(mot, noeud.mot, borne);
+            if (distance > borne) {
+                continue;
+            }
+            if (distance <= max) {
+                visiteur.trouve(noeud.id, distance);
+            }
+            int jusqua = Math.min(distance + max, noeud.enfants.length - 1);
+            for (int d = Math.max(1, distance - max); d <= jusqua; d++) {
+                if (noeud.enfants[d] != null) {
+                    aVisiter.push(noeud.enfants[d]);
+                }
+            }
+        }
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    private static final class Noeud {
+        private static final Noeud[] AUCUN = new Noeud[0];
+
+        final String mot;
+        final int id;
+        // Enfant rangé sous sa distance au nœud (indice 0 jamais utilisé : les mots sont distincts)
+        Noeud[] enfants = AUCUN;
+
+        Noeud(String mot, int id) {
+            this.mot = mot;
+            this.id = id;
+        }
+
+        Noeud enfant(int distance) {
+            return distance < enfants.length ? enfants[distance] : null;
+        }
+
+        void ajouterEnfant(int distance, Noeud enfant) {
+            if (distance >= enfants.length) {
+                enfants = Arrays.copyOf(enfants, distance + 1);
+            }
+            enfants[distance] = enfant;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ma.ensa.healthcare.search;
+
+/**
+ * Clé phonétique d'un mot, adaptée aux noms translittérés de l'arabe
+ * (Mohamed / Mohammed / Muhammad, Youssef / Youcef / Yusuf, Aicha / Aïcha / Aisha).
+ *
+ * Les graphies d'un même son sont ramenées à une seule lettre (ch, sh -> x ; kh, q, c dur -> k ;
+ * dj -> j ; z -> s ; ph -> f...), toute voyelle initiale devient 'a', les voyelles suivantes
+ * sont supprimées et les consonnes doublées fusionnées : les trois Mohamed donnent "mhmd".
+ * La clé sert à regrouper les graphies voisines, le classement se fait ensuite à la distance d'édition.
+ */
+public class CodePhonetique {
+
+    /**
+     * @param mot Mot déjà replié (voir Normalisation)
+     * @return La clé, vide si le mot est vide
+     */
+    public static String cle(String mot) {
+        if (mot == null || mot.isEmpty()) {
+            return "";
+        }
+        StringBuilder sons = new StringBuilder(mot.length());
+        int i = 0;
+        // "Oualid" / "Walid", "Ouazzani" / "Wazzani"
+        if (mot.startsWith("ou") && mot.length() > 2 && voyelle(mot.charAt(2))) {
+            sons.append('w');
+            i = 2;
+        }
+        while (i < mot.length()) {
+            char c = mot.charAt(i);
+            char suivant = i + 1 < mot.length() ? mot.charAt(i + 1) : ' ';
+            if (mot.startsWith("tch", i) || mot.startsWith("sch", i)) {
+                sons.append('x');
+                i += 3;
+                continue;
+            }
+            if (suivant == 'h' && "cskgptd".indexOf(c) >= 0) {
+                sons.append(switch (c) {
+                    case 'c', 's' -> 'x';
+                    case 'p' -> 'f';
+                    default -> c;
+                });
+                i += 2;
+                continue;
+            }
+            if ((c == 'd' && suivant == 'j') || (c == 'c' && suivant == 'k') || (c == 'q' && suivant == 'u')) {
+                sons.append(c == 'd' ? 'j' : 'k');
+                i += 2;
+                continue;
+            }
+            sons.append(switch (c) {
+                case 'q', 'k' -> 'k';
+                case 'c' -> suivant == 'e' || suivant == 'i' || suivant == 'y' ? 's' : 'k';
+                case 'z' -> 's';
+                case 'y' -> 'i';
+                default -> c;
+            });
+            i++;
+        }
+        // "Fatimah" / "Fatima"
+        int fin = sons.length();
+        if (fin > 1 && sons.charAt(fin - 1) == 'h') {
+            sons.setLength(fin - 1);
+        }
+
+        StringBuilder cle = new StringBuilder(sons.length());
+        cle.append(voyelle(sons.charAt(0)) ? 'a' : sons.charAt(0));
+        for (int j = 1; j < sons.length(); j++) {
+            char c = sons.charAt(j);
+            if (!voyelle(c) && c != cle.charAt(cle.length() - 1)) {
+                cle.append(c);
+            }
+        }
+        return cle.toString();
+    }
+
+    private static boolean voyelle(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -0,0 +1,477 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.DoublonPatient;
+import ma.ensa.healthcare.model.Patient;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Détection en masse des patients enregistrés plusieurs fois, sans comparer toutes les paires.
+ *
+ * Chaque patient est rangé dans trois blocs : préfixe du CIN, date de naissance, et clés phonétiques
+ * du nom et du prénom. Seules les paires d'un même bloc sont comparées ; un bloc trop grand
+ * (date très fréquente, nom très courant) est trié sur un autre critère et parcouru par fenêtre
+ * glissante. Les blocs sont comparés en parallèle, les paires au-dessus du seuil sont réunies
+ * en groupes (union-find) : deux liens A-B et B-C donnent le groupe A, B, C.
+ *
+ * Usage : ajouter les patients page par page, puis appeler detecter() une seule fois.
+ */
+public class DetectionDoublons {
+
+    // Poids des champs ; un champ absent d'un des deux patients ne compte pas
+    private static final double POIDS_NOM = 0.30;
+    private static final double POIDS_PRENOM = 0.25;
+    private static final double POIDS_DATE = 0.25;
+    private static final double POIDS_CIN = 0.10;
+    private static final double POIDS_TELEPHONE = 0.05;
+    private static final double POIDS_EMAIL = 0.05;
+
+    // Similarité de deux noms de même clé phonétique, quelle que soit leur distance d'édition
+    private static final double SIMILARITE_PHONETIQUE = 0.85;
+    // Prénoms trop différents : deux personnes distinctes (jumeaux, frères et sœurs)
+    private static final double PRENOM_MINIMUM = 0.5;
+    // Seuil de similarité d'un champ pour le citer dans les motifs
+    private static final double MOTIF_MINIMUM = 0.8;
+    // Voisins comparés à chaque patient dans un bloc trop grand
+    private static final int FENETRE = 20;
+    private static final int LONGUEUR_PREFIXE_CIN = 5;
+    private static final int[] PUISSANCES_DIX = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+
+    private static final int NOM = 1, PRENOM = 2, DATE = 4, CIN = 8, TELEPHONE = 16, EMAIL = 32;
+
+    // Type de bloc (deux bits de poids fort de la clé)
+    private static final long BLOC_CIN = 1L << 62, BLOC_DATE = 2L << 62, BLOC_NOMS = 3L << 62;
+    private static final long MASQUE_TYPE = 3L << 62;
+
+    /**
+     * Résultat d'une détection : une ligne par patient en doublon, et les compteurs
+     */
+    public static final class Resultat {
+        private final List<DoublonPatient> doublons;
+        private final int blocs;
+        private final long pairesComparees;
+        private final int liens;
+        private final int groupes;
+
+        Resultat(List<DoublonPatient> doublons, int blocs, long pairesComparees, int liens, int groupes) {
+            this.doublons = doublons;
+            this.blocs = blocs;
+            this.pairesComparees = pairesComparees;
+            this.liens = liens;
+            this.groupes = groupes;
+        }
+
+        /** Lignes à vérifier, par groupe (score de groupe décroissant) */
+        public List<DoublonPatient> getDoublons() { return doublons; }
+        public int getBlocs() { return blocs; }
+        public long getPairesComparees() { return pairesComparees; }
+        public int getLiens() { return liens; }
+        public int getGroupes() { return groupes; }
+    }
+
+    /**
+     * Champs d'un patient déjà normalisés pour la comparaison
+     */
+    private static final class Fiche {
+        final long id;
+        final String nom;           // replié, sans espaces ("El Amrani" -> "elamrani")
+        final String prenom;
+        final String cleNom;
+        final String clePrenom;
+        final String cin;           // majuscules sans espaces, null si absent
+        final int date;             // aaaammjj, 0 si absente
+        final int telephone;        // neuf derniers chiffres, -1 si absent
+        final String email;         // minuscules, null si absent
+
+        Fiche(Patient patient, Map<String, String> chaines) {
+            this.id = patient.getId();
+            this.nom = partagee(chaines, Normalisation.replier(patient.getNom()).replace(" ", ""));
+            this.prenom = partagee(chaines, Normalisation.replier(patient.getPrenom()).replace(" ", ""));
+            this.cleNom = partagee(chaines, CodePhonetique.cle(nom));
+            this.clePrenom = partagee(chaines, CodePhonetique.cle(prenom));
+            String c = patient.getCin() == null ? "" : patient.getCin().replace(" ", "").toUpperCase();
+            this.cin = c.isEmpty() ? null : c;
+            LocalDate naissance = patient.getDateNaissance();
+            this.date = naissance == null ? 0
+                    : naissance.getYear() * 10000 + naissance.getMonthValue() * 100 + naissance.getDayOfMonth();
+            this.telephone = neufDerniersChiffres(patient.getTelephone());
+            String e = patient.getEmail() == null ? "" : patient.getEmail().trim().toLowerCase();
+            this.email = e.isEmpty() ? null : e;
+        }
+    }
+
+    /**
+     * Paire de fiches au-dessus du seuil (a < b)
+     */
+    private static final class Lien {
+        final int a;
+        final int b;
+        final double score;
+        final int motifs;
+
+        Lien(int a, int b, double score, int motifs) {
+            this.a = a;
+            this.b = b;
+            this.score = score;
+            this.motifs = motifs;
+        }
+    }
+
+    /**
+     * Patient rangé dans un bloc
+     */
+    private static final class EntreeBloc {
+        final long cle;
+        final int fiche;
+
+        EntreeBloc(long cle, int fiche) {
+            this.cle = cle;
+            this.fiche = fiche;
+        }
+    }
+
+    private final double seuil;
+    private final int tailleBlocMax;
+    private final List<Fiche> fiches = new ArrayList<>();
+    // Noms et clés très répétés : une seule instance de chaque chaîne
+    private final Map<String, String> chaines = new ConcurrentHashMap<>();
+    private final LongAdder pairesComparees = new LongAdder();
+
+    /**
+     * @param seuil Score (0 à 1) à partir duquel deux patients sont proposés comme doublons
+     * @param tailleBlocMax Taille au-delà de laquelle un bloc est parcouru par fenêtre glissante
+     */
+    public DetectionDoublons(double seuil, int tailleBlocMax) {
+        this.seuil = seuil;
+        this.tailleBlocMax = tailleBlocMax;
+    }
+
+    /**
+     * Ajoute une page de patients (normalisés en parallèle)
+     */
+    public void ajouter(List<Patient> page) {
+        fiches.addAll(page.parallelStream().map(patient -> new Fiche(patient, chaines)).toList());
+    }
+
+    public int taille() {
+        return fiches.size();
+    }
+
+    public Resultat detecter() {
+        List<EntreeBloc> entrees = new ArrayList<>(fiches.size() * 3);
+        for (int i = 0; i < fiches.size(); i++) {
+            Fiche f = fiches.get(i);
+            if (f.cin != null && f.cin.length() >= LONGUEUR_PREFIXE_CIN) {
+                entrees.add(new EntreeBloc(BLOC_CIN | empreinte(f.cin.substring(0, LONGUEUR_PREFIXE_CIN)), i));
+            }
+            if (f.date != 0) {
+                entrees.add(new EntreeBloc(BLOC_DATE | f.date, i));
+            }
+            if (!f.cleNom.isEmpty() && !f.clePrenom.isEmpty()) {
+                entrees.add(new EntreeBloc(BLOC_NOMS | empreinte(f.cleNom + "|" + f.clePrenom), i));
+            }
+        }
+        EntreeBloc[] triees = entrees.toArray(new EntreeBloc[0]);
+        entrees = null;
+        Arrays.parallelSort(triees, Comparator.comparingLong((EntreeBloc e) -> e.cle).thenComparingInt(e -> e.fiche));
+
+        // Blocs d'au moins deux patients : plages [debut, fin) de même clé
+        List<int[]> blocs = new ArrayList<>();
+        int debut = 0;
+        for (int i = 1; i <= triees.length; i++) {
+            if (i == triees.length || triees[i].cle != triees[debut].cle) {
+                if (i - debut >= 2) {
+                    blocs.add(new int[]{debut, i});
+                }
+                debut = i;
+            }
+        }
+
+        List<Lien> liens = IntStream.range(0, blocs.size()).parallel()
+                .mapToObj(b -> comparerBloc(triees, blocs.get(b)[0], blocs.get(b)[1]))
+                .filter(trouves -> !trouves.isEmpty())
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingInt((Lien l) -> l.a).thenComparingInt(l -> l.b))
+                .toList();
+        liens = sansRepetitions(liens);
+        return grouper(liens, blocs.size());
+    }
+
+    // Comparaison
+
+    private List<Lien> comparerBloc(EntreeBloc[] triees, int debut, int fin) {
+        int[] membres = new int[fin - debut];
+        for (int i = debut; i < fin; i++) {
+            membres[i - debut] = triees[i].fiche;
+        }
+        int fenetre = membres.length;
+        if (membres.length > tailleBlocMax) {
+            // Les doublons se retrouvent voisins une fois le bloc trié sur un autre critère
+            membres = trierPourFenetre(membres, triees[debut].cle & MASQUE_TYPE);
+            fenetre = FENETRE;
+        }
+        List<Lien> liens = new ArrayList<>();
+        long comparees = 0;
+        for (int i = 0; i < membres.length; i++) {
+            int jusqua = Math.min(membres.length, i + 1 + fenetre);
+            for (int j = i + 1; j < jusqua; j++) {
+                comparees++;
+                Lien lien = comparer(Math.min(membres[i], membres[j]), Math.max(membres[i], membres[j]));
+                if (lien != null) {
+                    liens.add(lien);
+                }
+            }
+        }
+        pairesComparees.add(comparees);
+        return liens;
+    }
+
+    private int[] trierPourFenetre(int[] membres, long type) {
+        Comparator<Integer> ordre;
+        if (type == BLOC_CIN) {
+            ordre = Comparator.comparing(i -> fiches.get(i).cin);
+        } else if (type == BLOC_DATE) {
+            ordre = Comparator.comparing((Integer i) -> fiches.get(i).cleNom).thenComparing(i -> fiches.get(i).clePrenom);
+        } else {
+            ordre = Comparator.comparingInt(i -> fiches.get(i).date);
+        }
+        return Arrays.stream(membres).boxed().sorted(ordre).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Score pondéré des champs présents chez les deux patients
+     * @return Le lien, ou null sous le seuil
+     */
+    private Lien comparer(int ia, int ib) {
+        Fiche a = fiches.get(ia);
+        Fiche b = fiches.get(ib);
+        double somme = 0;
+        double poids = 0;
+        int motifs = 0;
+
+        // Champs peu coûteux d'abord
+        if (a.date != 0 && b.date != 0) {
+            double s = similariteDate(a.date, b.date);
+            somme += POIDS_DATE * s;
+            poids += POIDS_DATE;
+            motifs |= s >= MOTIF_MINIMUM ? DATE : 0;
+        }
+        if (a.telephone >= 0 && b.telephone >= 0) {
+            boolean egal = a.telephone == b.telephone;
+            somme += egal ? POIDS_TELEPHONE : 0;
+            poids += POIDS_TELEPHONE;
+            motifs |= egal ? TELEPHONE : 0;
+        }
+        if (a.email != null && b.email != null) {
+            boolean egal = a.email.equals(b.email);
+            somme += egal ? POIDS_EMAIL : 0;
+            poids += POIDS_EMAIL;
+            motifs |= egal ? EMAIL : 0;
+        }
+        if (a.cin != null && b.cin != null) {
+            double s = a.cin.equals(b.cin) ? 1 : Levenshtein.distance(a.cin, b.cin, 1) <= 1 ? 0.8 : 0;
+            somme += POIDS_CIN * s;
+            poids += POIDS_CIN;
+            motifs |= s >= MOTIF_MINIMUM ? CIN : 0;
+        }
+        // Même avec des noms identiques, la paire ne peut plus atteindre le seuil
+        double poidsNoms = POIDS_NOM + POIDS_PRENOM;
+        if ((somme + poidsNoms) / (poids + poidsNoms) < seuil) {
+            return null;
+        }
+
+        double nom;
+        double prenom;
+        if (a.nom.equals(b.prenom) && a.prenom.equals(b.nom) && !a.nom.equals(a.prenom)) {
+            // Nom et prénom inversés à la saisie
+            nom = 0.9;
+            prenom = 0.9;
+        } else {
+            prenom = similariteNom(a.prenom, a.clePrenom, b.prenom, b.clePrenom);
+            if (prenom < PRENOM_MINIMUM) {
+                return null;
+            }
+            nom = similariteNom(a.nom, a.cleNom, b.nom, b.cleNom);
+        }
+        somme += POIDS_NOM * nom + POIDS_PRENOM * prenom;
+        poids += poidsNoms;
+        motifs |= (nom >= MOTIF_MINIMUM ? NOM : 0) | (prenom >= MOTIF_MINIMUM ? PRENOM : 0);
+
+        double score = somme / poids;
+        return score >= seuil ? new Lien(ia, ib, score, motifs) : null;
+    }
+
+    private static double similariteNom(String a, String cleA, String b, String cleB) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        int longueur = Math.max(a.length(), b.length());
+        // Au-delà de la moitié des lettres, la distance ne compte plus
+        int distance = Levenshtein.distance(a, b, longueur / 2);
+        double edition = distance > longueur / 2 ? 0 : 1 - (double) distance / longueur;
+        return cleA.equals(cleB) ? Math.max(edition, SIMILARITE_PHONETIQUE) : edition;
+    }
+
+    /**
+     * 1 si identiques, 0.8 si jour et mois inversés, 0.4 si même mois de la même année
+     */
+    private static double similariteDate(int a, int b) {
+        if (a == b) {
+            return 1;
+        }
+        int annee = a / 10000;
+        if (annee != b / 10000) {
+            return 0;
+        }
+        int moisA = a / 100 % 100, jourA = a % 100;
+        int moisB = b / 100 % 100, jourB = b % 100;
+        if (moisA == jourB && jourA == moisB) {
+            return 0.8;
+        }
+        return moisA == moisB ? 0.4 : 0;
+    }
+
+    // Groupes
+
+    /**
+     * Une même paire peut avoir été comparée dans plusieurs blocs (liens triés par paire)
+     */
+    private static List<Lien> sansRepetitions(List<Lien> liens) {
+        List<Lien> uniques = new ArrayList<>(liens.size());
+        for (Lien lien : liens) {
+            Lien precedent = uniques.isEmpty() ? null : uniques.get(uniques.size() - 1);
+            if (precedent == null || precedent.a != lien.a || precedent.b != lien.b) {
+                uniques.add(lien);
+            }
+        }
+        return uniques;
+    }
+
+    private Resultat grouper(List<Lien> liens, int nbBlocs) {
+        int n = fiches.size();
+        int[] parents = new int[n];
+        for (int i = 0; i < n; i++) {
+            parents[i] = i;
+        }
+        for (Lien lien : liens) {
+            int ra = racine(parents, lien.a);
+            int rb = racine(parents, lien.b);
+            if (ra != rb) {
+                parents[Math.max(ra, rb)] = Math.min(ra, rb);
+            }
+        }
+
+        // Par patient : le lien le plus fort ; par groupe : la somme et le nombre des liens
+        Lien[] meilleurs = new Lien[n];
+        Map<Integer, double[]> totaux = new HashMap<>();
+        for (Lien lien : liens) {
+            for (int f : new int[]{lien.a, lien.b}) {
+                if (meilleurs[f] == null || lien.score > meilleurs[f].score) {
+                    meilleurs[f] = lien;
+                }
+            }
+            double[] total = totaux.computeIfAbsent(racine(parents, lien.a), r -> new double[2]);
+            total[0] += lien.score;
+            total[1]++;
+        }
+
+        List<DoublonPatient> doublons = new ArrayList<>();
+        for (int f = 0; f < n; f++) {
+            Lien lien = meilleurs[f];
+            if (lien == null) {
+                continue;
+            }
+            double[] total = totaux.get(racine(parents, f));
+            Fiche proche = fiches.get(lien.a == f ? lien.b : lien.a);
+            doublons.add(DoublonPatient.builder()
+                    .idGroupe(plusPetitId(parents, f))
+                    .idPatient(fiches.get(f).id)
+                    .idPatientProche(proche.id)
+                    .score(arrondir(lien.score))
+                    .scoreGroupe(arrondir(total[0] / total[1]))
+                    .motifs(motifs(lien.motifs))
+                    .build());
+        }
+        doublons.sort(Comparator.comparingDouble(DoublonPatient::getScoreGroupe).reversed()
+                .thenComparing(DoublonPatient::getIdGroupe)
+                .thenComparing(DoublonPatient::getIdPatient));
+        return new Resultat(doublons, nbBlocs, pairesComparees.sum(), liens.size(), totaux.size());
+    }
+
+    private static int racine(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    /**
+     * Identifiant du groupe : le plus petit ID patient (la racine est la plus petite fiche,
+     * et les fiches sont ajoutées par ID croissant)
+     */
+    private long plusPetitId(int[] parents, int f) {
+        return fiches.get(racine(parents, f)).id;
+    }
+
+    private static double arrondir(double score) {
+        return Math.round(score * 1000) / 1000.0;
+    }
+
+    private static String motifs(int motifs) {
+        List<String> champs = new ArrayList<>(6);
+        if ((motifs & NOM) != 0) champs.add("NOM");
+        if ((motifs & PRENOM) != 0) champs.add("PRENOM");
+        if ((motifs & DATE) != 0) champs.add("DATE_NAISSANCE");
+        if ((motifs & CIN) != 0) champs.add("CIN");
+        if ((motifs & TELEPHONE) != 0) champs.add("TELEPHONE");
+        if ((motifs & EMAIL) != 0) champs.add("EMAIL");
+        return String.join(",", champs);
+    }
+
+    // Normalisation
+
+    private static String partagee(Map<String, String> chaines, String valeur) {
+        String existante = chaines.putIfAbsent(valeur, valeur);
+        return existante != null ? existante : valeur;
+    }
+
+    private static int neufDerniersChiffres(String telephone) {
+        if (telephone == null) {
+            return -1;
+        }
+        int valeur = 0;
+        int chiffres = 0;
+        for (int i = telephone.length() - 1; i >= 0 && chiffres < 9; i--) {
+            char c = telephone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                valeur += (c - '0') * PUISSANCES_DIX[chiffres++];
+            }
+        }
+        return chiffres == 9 ? valeur : -1;
+    }
+
+    /**
+     * Empreinte 62 bits d'une clé de bloc (FNV-1a) ; une collision ne fait que réunir deux blocs
+     */
+    private static long empreinte(String cle) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < cle.length(); i++) {
+            h ^= cle.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h & ~MASQUE_TYPE;
+    }
+}
@@ -0,0 +1,338 @@
+package ma.ensa.healthcare.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Complétion par préfixe (saisie semi-automatique) sur des clés repliées : "ala" propose
+ * "alaoui mohamed", "alami salma"... avec l'identifiant de chaque entrée.
+ *
+ * Les clés sont rangées triées dans un tableau compact (octets ASCII bout à bout, débuts, IDs) :
+ * un préfixe est trouvé par recherche dichotomique, puis les complétions sont lues dans l'ordre.
+ * Les écritures vont dans un petit ensemble trié à part, lu en même temps que le tableau ;
+ * les entrées du tableau devenues obsolètes sont masquées. Quand cet ensemble grossit,
+ * les deux sont fusionnés en un nouveau tableau.
+ */
+public class IndexCompletion {
+
+    // Écritures accumulées avant fusion : au moins ce nombre, ou une fraction du tableau
+    private static final int ECRITURES_MIN = 1024;
+    private static final int FRACTION_ECRITURES = 8;
+
+    /**
+     * Clé et identifiant, ordonnés par clé puis par identifiant
+     */
+    private static final class Entree {
+        final byte[] cle;
+        final long id;
+
+        Entree(byte[] cle, long id) {
+            this.cle = cle;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Entree> ORDRE =
+            (a, b) -> {
+                int c = Arrays.compareUnsigned(a.cle, b.cle);
+                return c != 0 ? c : Long.compare(a.id, b.id);
+            };
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    // Tableau trié : clé i = octets[debuts[i], debuts[i + 1])
+    private byte[] octets = new byte[0];
+    private int[] debuts = {0};
+    private long[] ids = new long[0];
+
+    // Écritures depuis la dernière fusion
+    private final TreeSet<Entree> ajouts = new TreeSet<>(ORDRE);
+    private final Map<Long, List<Entree>> ajoutsParId = new HashMap<>();
+    // IDs dont les entrées du tableau sont obsolètes (modifiés ou supprimés)
+    private final Set<Long> masques = new HashSet<>();
+
+    // Chargement initial : entrées lues en base, triées une seule fois à la fin
+    private boolean enChargement;
+    private final List<Entree> charges = new ArrayList<>();
+    // IDs écrits pendant le chargement : leur version lue en base est ignorée
+    private final Set<Long> modifies = new HashSet<>();
+
+    public IndexCompletion(boolean enChargement) {
+        this.enChargement = enChargement;
+    }
+
+    /**
+     * Remplace les clés d'une entrée (création ou modification)
+     * @param valeurs Textes complétables de l'entrée (repliés ici ; null et vides ignorés)
+     */
+    public void indexer(long id, String... valeurs) {
+        List<byte[]> cles = cles(valeurs);
+        verrou.writeLock().lock();
+        try {
+            oublier(id);
+            List<Entree> entrees = new ArrayList<>(cles.size());
+            for (byte[] cle : cles) {
+                Entree entree = new Entree(cle, id);
+                ajouts.add(entree);
+                entrees.add(entree);
+            }
+            ajoutsParId.put(id, entrees);
+            fusionnerSiNecessaire();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entrée lue pendant le chargement initial, ignorée si elle a été écrite entre-temps
+     * @return false si l'entrée a été ignorée
+     */
+    public boolean indexerSiAbsent(long id, String... valeurs) {
+        List<byte[]> cles = cles(valeurs);
+        verrou.writeLock().lock();
+        try {
+            if (!enChargement || modifies.contains(id)) {
+                return false;
+            }
+            for (byte[] cle : cles) {
+                charges.add(new Entree(cle, id));
+            }
+            return true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(long id) {
+        verrou.writeLock().lock();
+        try {
+            oublier(id);
+            fusionnerSiNecessaire();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fin du chargement initial : les entrées lues forment le tableau trié
+     */
+    public void terminerChargement() {
+        verrou.writeLock().lock();
+        try {
+            // Écrites pendant le chargement après avoir été lues : la version lue est dépassée
+            Entree[] triees = charges.stream().filter(e -> !modifies.contains(e.id)).toArray(Entree[]::new);
+            charges.clear();
+            Arrays.parallelSort(triees, ORDRE);
+            fusionner(triees);
+            enChargement = false;
+            modifies.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entrées dont une clé commence par le texte, dans l'ordre des clés
+     * (la clé égale au texte d'abord) ; une entrée n'apparaît qu'une fois
+     * @return Les IDs des limite premières entrées
+     */
+    public List<Long> completer(String texte, int limite) {
+        byte[] prefixe = octets(Normalisation.replier(texte));
+        if (prefixe.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        verrou.readLock().lock();
+        try {
+            Set<Long> trouves = new LinkedHashSet<>();
+            int i = premier(prefixe);
+            Iterator<Entree> suite = ajouts.tailSet(new Entree(prefixe, Long.MIN_VALUE)).iterator();
+            Entree ajout = suivant(suite, prefixe);
+            while (trouves.size() < limite) {
+                boolean dansTableau = i < ids.length && commencePar(i, prefixe);
+                if (!dansTableau && ajout == null) {
+                    break;
+                }
+                if (dansTableau && (ajout == null || comparer(i, ajout.cle) <= 0)) {
+                    if (!masques.contains(ids[i])) {
+                        trouves.add(ids[i]);
+                    }
+                    i++;
+                } else {
+                    trouves.add(ajout.id);
+                    ajout = suivant(suite, prefixe);
+                }
+            }
+            return new ArrayList<>(trouves);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre de clés (une entrée en a généralement plusieurs)
+     */
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return ids.length + ajouts.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Lecture (verrou en lecture déjà pris)
+
+    /**
+     * Première clé du tableau supérieure ou égale au préfixe
+     */
+    private int premier(byte[] prefixe) {
+        int bas = 0;
+        int haut = ids.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (comparer(milieu, prefixe) < 0) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    private int comparer(int i, byte[] cle) {
+        return Arrays.compareUnsigned(octets, debuts[i], debuts[i + 1], cle, 0, cle.length);
+    }
+
+    private boolean commencePar(int i, byte[] prefixe) {
+        int debut = debuts[i];
+        return debuts[i + 1] - debut >= prefixe.length
+                && Arrays.equals(octets, debut, debut + prefixe.length, prefixe, 0, prefixe.length);
+    }
+
+    private static Entree suivant(Iterator<Entree> suite, byte[] prefixe) {
+        if (!suite.hasNext()) {
+            return null;
+        }
+        Entree entree = suite.next();
+        return entree.cle.length >= prefixe.length
+                && Arrays.equals(entree.cle, 0, prefixe.length, prefixe, 0, prefixe.length) ? entree : null;
+    }
+
+    // Écriture (verrou en écriture déjà pris)
+
+    private void oublier(long id) {
+        if (enChargement) {
+            modifies.add(id);
+        }
+        masques.add(id);
+        List<Entree> anciennes = ajoutsParId.remove(id);
+        if (anciennes != null) {
+            anciennes.forEach(ajouts::remove);
+        }
+    }
+
+    private void fusionnerSiNecessaire() {
+        int seuil = Math.max(ECRITURES_MIN, ids.length / FRACTION_ECRITURES);
+        if (!enChargement && (ajouts.size() > seuil || masques.size() > seuil)) {
+            fusionner(new Entree[0]);
+        }
+    }
+
+    /**
+     * Nouveau tableau : entrées non masquées du tableau actuel, écritures et entrées supplémentaires
+     * (triées), fusionnées en un seul passage
+     */
+    private void fusionner(Entree[] supplementaires) {
+        Entree[] ecrites = ajouts.toArray(new Entree[0]);
+        Entree[] nouvelles = supplementaires.length == 0 ? ecrites : fusionnerTriees(supplementaires, ecrites);
+
+        int total = ids.length + nouvelles.length;
+        byte[] nouveauxOctets = new byte[octets.length + longueurTotale(nouvelles)];
+        int[] nouveauxDebuts = new int[total + 1];
+        long[] nouveauxIds = new long[total];
+        int n = 0;
+        int position = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids.length || j < nouvelles.length) {
+            if (i < ids.length && masques.contains(ids[i])) {
+                i++;
+                continue;
+            }
+            boolean prendreTableau = j == nouvelles.length
+                    || (i < ids.length && comparerEntree(i, nouvelles[j]) <= 0);
+            if (prendreTableau) {
+                int longueur = debuts[i + 1] - debuts[i];
+                System.arraycopy(octets, debuts[i], nouveauxOctets, position, longueur);
+                position += longueur;
+                nouveauxIds[n] = ids[i++];
+            } else {
+                Entree entree = nouvelles[j++];
+                System.arraycopy(entree.cle, 0, nouveauxOctets, position, entree.cle.length);
+                position += entree.cle.length;
+                nouveauxIds[n] = entree.id;
+            }
+            nouveauxDebuts[++n] = position;
+        }
+
+        octets = Arrays.copyOf(nouveauxOctets, position);
+        debuts = Arrays.copyOf(nouveauxDebuts, n + 1);
+        ids = Arrays.copyOf(nouveauxIds, n);
+        ajouts.clear();
+        ajoutsParId.clear();
+        masques.clear();
+    }
+
+    private int comparerEntree(int i, Entree entree) {
+        int c = comparer(i, entree.cle);
+        return c != 0 ? c : Long.compare(ids[i], entree.id);
+    }
+
+    private static Entree[] fusionnerTriees(Entree[] a, Entree[] b) {
+        Entree[] resultat = new Entree[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < resultat.length; k++) {
+            resultat[k] = j == b.length || (i < a.length && ORDRE.compare(a[i], b[j]) <= 0) ? a[i++] : b[j++];
+        }
+        return resultat;
+    }
+
+    private static int longueurTotale(Entree[] entrees) {
+        int total = 0;
+        for (Entree entree : entrees) {
+            total += entree.cle.length;
+        }
+        return total;
+    }
+
+    private static List<byte[]> cles(String[] valeurs) {
+        List<byte[]> cles = new ArrayList<>(valeurs.length);
+        Set<String> vues = new HashSet<>();
+        for (String valeur : valeurs) {
+            String cle = Normalisation.replier(valeur);
+            if (!cle.isEmpty() && vues.add(cle)) {
+                cles.add(octets(cle));
+            }
+        }
+        return cles;
+    }
+
+    /**
+     * Une clé repliée ne contient que a-z, 0-9 et des espaces : un octet par caractère
+     */
+    private static byte[] octets(String cle) {
+        return cle.getBytes(StandardCharsets.US_ASCII);
+    }
+}
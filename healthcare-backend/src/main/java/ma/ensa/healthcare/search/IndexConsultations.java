@@ -0,0 +1,842 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.Consultation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire des notes de consultation (symptômes, diagnostic, observations,
+ * prescription, examens demandés).
+ *
+ * Chaque consultation indexée est un document numéroté 0, 1, 2... Ses champs passent par
+ * AnalyseurFrancais ; pour chaque terme, la liste des documents qui le contiennent avec,
+ * pour chacun, la fréquence du terme (pondérée par le champ) et ses positions.
+ * Ces listes sont compressées : écarts entre documents et entre positions sur un nombre variable
+ * d'octets (7 bits utiles par octet), soit un à deux octets par occurrence. Tous les 128 documents,
+ * un point de saut (document, décalage) permet à une intersection de passer un bloc sans le lire.
+ *
+ * Dans une requête, tous les termes sont exigés ; une expression entre guillemets doit se trouver
+ * telle quelle dans un même champ, un terme ou une expression précédé de '-' exclut les consultations
+ * qui le contiennent, et OU sépare des alternatives (leurs scores s'additionnent).
+ * Le score est BM25 ; la date et le médecin filtrent les documents pendant le parcours.
+ *
+ * Une modification remplace le document (l'ancien est marqué supprimé) ;
+ * l'index est recompacté quand plus d'un quart des documents sont supprimés.
+ */
+public class IndexConsultations {
+
+    /**
+     * Champs indexés et poids d'une occurrence dans la fréquence d'un terme
+     */
+    public enum Champ {
+        SYMPTOMES(2), DIAGNOSTIC(3), OBSERVATIONS(1), PRESCRIPTION(1), EXAMENS_DEMANDES(1);
+
+        private final int poids;
+
+        Champ(int poids) {
+            this.poids = poids;
+        }
+
+        public int getPoids() { return poids; }
+    }
+
+    private static final Champ[] CHAMPS = Champ.values();
+    // Position d'un mot : champ * ECART_CHAMPS + position dans le champ (une expression ne déborde pas d'un champ)
+    private static final int ECART_CHAMPS = 1 << 16;
+    // Documents entre deux points de saut
+    private static final int BLOC = 128;
+    private static final int FIN = Integer.MAX_VALUE;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int COMPACTAGE_MINIMUM = 10_000;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private long[] consultations = new long[1024];
+    // Date (jour depuis l'époque, Integer.MIN_VALUE si inconnue), médecin (0 si inconnu), longueur pondérée
+    private int[] jours = new int[1024];
+    private long[] medecins = new long[1024];
+    private int[] longueurs = new int[1024];
+    private int nbDocs;
+    private BitSet supprimes = new BitSet();
+    private int nbSupprimes;
+    private long longueurTotale;
+    private final Map<Long, Integer> docs = new HashMap<>();
+
+    // Consultations supprimées pendant le chargement initial : une page lue avant la suppression ne doit pas les réindexer
+    private boolean enChargement;
+    private final Set<Long> retires = new HashSet<>();
+
+    /**
+     * @param enChargement true si l'index va être rempli par indexerSiAbsent pendant que
+     *                     les créations, modifications et suppressions continuent
+     */
+    public IndexConsultations(boolean enChargement) {
+        this.enChargement = enChargement;
+    }
+
+    /**
+     * Ajoute ou remplace une consultation
+     * @param idMedecin Médecin du rendez-vous (null si inconnu)
+     */
+    public void indexer(Consultation consultation, Long idMedecin) {
+        Document document = document(consultation, idMedecin);
+        verrou.writeLock().lock();
+        try {
+            retires.remove(consultation.getId());
+            ajouter(document);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute une consultation lue pendant le chargement, sauf si elle a été indexée ou supprimée entre-temps
+     */
+    public void indexerSiAbsent(Consultation consultation, Long idMedecin) {
+        Document document = document(consultation, idMedecin);
+        verrou.writeLock().lock();
+        try {
+            if (!docs.containsKey(consultation.getId()) && !retires.contains(consultation.getId())) {
+                ajouter(document);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(Long idConsultation) {
+        verrou.writeLock().lock();
+        try {
+            if (enChargement) {
+                retires.add(idConsultation);
+            }
+            Integer doc = docs.remove(idConsultation);
+            if (doc != null) {
+                marquerSupprime(doc);
+                compacterSiNecessaire();
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fin du chargement initial : les listes sont ramenées à leur taille exacte
+     */
+    public void terminerChargement() {
+        verrou.writeLock().lock();
+        try {
+            enChargement = false;
+            retires.clear();
+            postings.values().forEach(Postings::ajuster);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Volume des listes compressées, en octets
+     */
+    public long volume() {
+        verrou.readLock().lock();
+        try {
+            long total = 0;
+            for (Postings liste : postings.values()) {
+                total += liste.longueur;
+            }
+            return total;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param debut Première date retenue (null : pas de limite)
+     * @param fin Dernière date retenue (null : pas de limite)
+     * @param idMedecin Médecin des consultations retenues (null : tous)
+     * @return Les IDs des consultations trouvées, du meilleur score au moins bon
+     *         (à score égal, la plus récemment indexée d'abord)
+     */
+    public List<Long> rechercher(String requete, LocalDate debut, LocalDate fin, Long idMedecin, int limite) {
+        List<Conjonction> alternatives = analyser(requete);
+        if (alternatives.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        Filtre filtre = new Filtre(
+                debut == null ? Integer.MIN_VALUE : (int) debut.toEpochDay(),
+                fin == null ? Integer.MAX_VALUE : (int) fin.toEpochDay(),
+                idMedecin == null ? 0 : idMedecin);
+
+        verrou.readLock().lock();
+        try {
+            int vivants = nbDocs - nbSupprimes;
+            if (vivants == 0) {
+                return List.of();
+            }
+            double longueurMoyenne = Math.max(1.0, (double) longueurTotale / vivants);
+
+            PriorityQueue<Trouve> meilleurs = new PriorityQueue<>(Math.min(limite, 1024) + 1, Trouve::comparer);
+            if (alternatives.size() == 1) {
+                evaluer(alternatives.get(0), filtre, vivants, longueurMoyenne,
+                        (doc, score) -> garder(meilleurs, doc, score, limite));
+            } else {
+                Map<Integer, Double> scores = new HashMap<>();
+                for (Conjonction conjonction : alternatives) {
+                    evaluer(conjonction, filtre, vivants, longueurMoyenne, (doc, score) -> scores.merge(doc, score, Double::sum));
+                }
+                scores.forEach((doc, score) -> garder(meilleurs, doc, score, limite));
+            }
+
+            Long[] resultat = new Long[meilleurs.size()];
+            for (int i = resultat.length - 1; i >= 0; i--) {
+                resultat[i] = consultations[meilleurs.poll().doc];
+            }
+            return Arrays.asList(resultat);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Recherche (verrou en lecture déjà pris)
+
+    /**
+     * Documents de la conjonction, par numéro croissant : intersection des listes de tous
+     * ses termes, conduite par la plus courte (les autres avancent par points de saut).
+     * Un document commun est ensuite filtré, vérifié (expressions, exclusions) puis noté.
+     */
+    private void evaluer(Conjonction conjonction, Filtre filtre, int vivants, double longueurMoyenne, Collecte collecte) {
+        Map<String, Curseur> parTerme = new HashMap<>();
+        for (Clause clause : conjonction.exigees) {
+            if (!ouvrir(clause, parTerme, vivants)) {
+                // Un terme exigé absent de l'index : rien à trouver
+                return;
+            }
+        }
+        List<Clause> exclues = new ArrayList<>();
+        for (Clause clause : conjonction.exclues) {
+            if (ouvrir(clause, parTerme, vivants)) {
+                exclues.add(clause);
+            }
+        }
+        Set<Curseur> exiges = new LinkedHashSet<>();
+        for (Clause clause : conjonction.exigees) {
+            exiges.addAll(Arrays.asList(clause.curseurs));
+        }
+        Curseur[] tries = exiges.toArray(new Curseur[0]);
+        Arrays.sort(tries, (a, b) -> Integer.compare(a.liste.nbDocs, b.liste.nbDocs));
+
+        Curseur conducteur = tries[0];
+        int doc = conducteur.suivant();
+        while (doc != FIN) {
+            int suivant = doc;
+            for (int i = 1; i < tries.length && suivant == doc; i++) {
+                suivant = tries[i].avancer(doc);
+            }
+            if (suivant == FIN) {
+                return;
+            }
+            if (suivant != doc) {
+                // Saut direct au premier document de la conductrice qui peut encore convenir
+                doc = conducteur.avancer(suivant);
+                continue;
+            }
+            if (!supprimes.get(doc) && filtre.retient(jours[doc], medecins[doc])) {
+                double score = noter(conjonction.exigees, doc, longueurMoyenne);
+                if (score > 0 && !exclu(exclues, doc)) {
+                    collecte.ajouter(doc, score);
+                }
+            }
+            doc = conducteur.suivant();
+        }
+    }
+
+    /**
+     * Curseurs des termes de la clause (partagés entre clauses) et IDF de chacun
+     * @return false si un terme n'est pas dans l'index
+     */
+    private boolean ouvrir(Clause clause, Map<String, Curseur> parTerme, int vivants) {
+        clause.curseurs = new Curseur[clause.termes.length];
+        clause.idf = 0;
+        for (int i = 0; i < clause.termes.length; i++) {
+            Postings liste = postings.get(clause.termes[i]);
+            if (liste == null) {
+                return false;
+            }
+            clause.curseurs[i] = parTerme.computeIfAbsent(clause.termes[i], t -> new Curseur(liste));
+            int df = Math.min(liste.nbDocs, vivants);
+            clause.idf += Math.log(1 + (vivants - df + 0.5) / (df + 0.5));
+        }
+        return true;
+    }
+
+    /**
+     * Somme BM25 des clauses ; 0 si une expression n'est pas dans le document
+     */
+    private double noter(List<Clause> clauses, int doc, double longueurMoyenne) {
+        double normalisation = K1 * (1 - B + B * longueurs[doc] / longueurMoyenne);
+        double score = 0;
+        for (Clause clause : clauses) {
+            int frequence = frequence(clause);
+            if (frequence == 0) {
+                return 0;
+            }
+            score += clause.idf * frequence * (K1 + 1) / (frequence + normalisation);
+        }
+        return score;
+    }
+
+    private static boolean exclu(List<Clause> exclues, int doc) {
+        for (Clause clause : exclues) {
+            boolean present = true;
+            for (Curseur curseur : clause.curseurs) {
+                present &= curseur.avancer(doc) == doc;
+            }
+            if (present && frequence(clause) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fréquence pondérée de la clause dans le document courant de ses curseurs :
+     * celle du terme, ou le nombre d'occurrences de l'expression (chacune au poids de son champ)
+     */
+    private static int frequence(Clause clause) {
+        if (clause.termes.length == 1) {
+            return clause.curseurs[0].frequence;
+        }
+        Curseur premier = clause.curseurs[0];
+        int[] positions = premier.positions();
+        int frequence = 0;
+        for (int p = 0; p < premier.nbPositions; p++) {
+            int position = positions[p];
+            boolean trouvee = true;
+            for (int i = 1; i < clause.termes.length && trouvee; i++) {
+                Curseur curseur = clause.curseurs[i];
+                trouvee = Arrays.binarySearch(curseur.positions(), 0, curseur.nbPositions,
+                        position + clause.ecarts[i]) >= 0;
+            }
+            if (trouvee) {
+                frequence += CHAMPS[position / ECART_CHAMPS].poids;
+            }
+        }
+        return frequence;
+    }
+
+    private static void garder(PriorityQueue<Trouve> meilleurs, int doc, double score, int limite) {
+        if (meilleurs.size() < limite) {
+            meilleurs.add(new Trouve(doc, score));
+        } else if (Trouve.comparer(meilleurs.peek(), doc, score) < 0) {
+            meilleurs.poll();
+            meilleurs.add(new Trouve(doc, score));
+        }
+    }
+
+    // Requête
+
+    /**
+     * Alternatives de la requête ; une alternative sans terme exigé est ignorée
+     */
+    private static List<Conjonction> analyser(String requete) {
+        List<Conjonction> alternatives = new ArrayList<>();
+        if (requete == null) {
+            return alternatives;
+        }
+        Conjonction courante = new Conjonction();
+        int i = 0;
+        int n = requete.length();
+        while (i < n) {
+            if (Character.isWhitespace(requete.charAt(i))) {
+                i++;
+                continue;
+            }
+            boolean exclue = requete.charAt(i) == '-';
+            if (exclue) {
+                i++;
+            }
+            String texte;
+            if (i < n && requete.charAt(i) == '"') {
+                int fin = requete.indexOf('"', i + 1);
+                if (fin < 0) {
+                    fin = n;
+                }
+                texte = requete.substring(i + 1, fin);
+                i = fin + 1;
+            } else {
+                int fin = i;
+                while (fin < n && !Character.isWhitespace(requete.charAt(fin))) {
+                    fin++;
+                }
+                texte = requete.substring(i, fin);
+                i = fin;
+                if (!exclue && (texte.equals("OU") || texte.equals("OR"))) {
+                    if (!courante.exigees.isEmpty()) {
+                        alternatives.add(courante);
+                    }
+                    courante = new Conjonction();
+                    continue;
+                }
+            }
+            // Un mot composé ("anti-inflammatoire") est cherché comme une expression
+            Clause clause = clause(texte);
+            if (clause != null) {
+                if (exclue) {
+                    courante.exclues.add(clause);
+                } else {
+                    courante.exigees.add(clause);
+                }
+            }
+        }
+        if (!courante.exigees.isEmpty()) {
+            alternatives.add(courante);
+        }
+        return alternatives;
+    }
+
+    private static Clause clause(String texte) {
+        List<AnalyseurFrancais.Terme> termes = AnalyseurFrancais.termes(texte);
+        if (termes.isEmpty()) {
+            return null;
+        }
+        String[] textes = new String[termes.size()];
+        int[] ecarts = new int[termes.size()];
+        for (int i = 0; i < textes.length; i++) {
+            textes[i] = termes.get(i).getTexte();
+            ecarts[i] = termes.get(i).getPosition() - termes.get(0).getPosition();
+        }
+        return new Clause(textes, ecarts);
+    }
+
+    // Écriture (verrou en écriture déjà pris)
+
+    private void ajouter(Document document) {
+        Integer ancien = docs.get(document.idConsultation);
+        if (ancien != null) {
+            marquerSupprime(ancien);
+        }
+        docs.put(document.idConsultation, nouveauDoc(document));
+        if (ancien != null) {
+            compacterSiNecessaire();
+        }
+    }
+
+    /**
+     * Le document est toujours le plus grand : ajouté en fin de liste, sans tri
+     */
+    private int nouveauDoc(Document document) {
+        int doc = reserver(document.idConsultation, document.jour, document.medecin, document.longueur);
+        for (int i = 0; i < document.termes.length; i++) {
+            postings.computeIfAbsent(document.termes[i], t -> new Postings())
+                    .ajouter(doc, document.frequences[i], document.positions[i], document.positions[i].length);
+        }
+        return doc;
+    }
+
+    private int reserver(long idConsultation, int jour, long medecin, int longueur) {
+        if (nbDocs == consultations.length) {
+            consultations = Arrays.copyOf(consultations, nbDocs * 2);
+            jours = Arrays.copyOf(jours, nbDocs * 2);
+            medecins = Arrays.copyOf(medecins, nbDocs * 2);
+            longueurs = Arrays.copyOf(longueurs, nbDocs * 2);
+        }
+        int doc = nbDocs++;
+        consultations[doc] = idConsultation;
+        jours[doc] = jour;
+        medecins[doc] = medecin;
+        longueurs[doc] = longueur;
+        longueurTotale += longueur;
+        return doc;
+    }
+
+    private void marquerSupprime(int doc) {
+        supprimes.set(doc);
+        nbSupprimes++;
+        longueurTotale -= longueurs[doc];
+    }
+
+    /**
+     * Renumérote les documents restants et réécrit chaque liste sans les documents supprimés
+     */
+    private void compacterSiNecessaire() {
+        if (nbSupprimes < COMPACTAGE_MINIMUM || nbSupprimes * 4 < nbDocs) {
+            return;
+        }
+        long[] anciennesConsultations = consultations;
+        int[] anciensJours = jours;
+        long[] anciensMedecins = medecins;
+        int[] anciennesLongueurs = longueurs;
+        int anciensDocs = nbDocs;
+        BitSet anciensSupprimes = supprimes;
+
+        int taille = Math.max(1024, anciensDocs - nbSupprimes);
+        consultations = new long[taille];
+        jours = new int[taille];
+        medecins = new long[taille];
+        longueurs = new int[taille];
+        nbDocs = 0;
+        supprimes = new BitSet();
+        nbSupprimes = 0;
+        longueurTotale = 0;
+        docs.clear();
+        int[] nouveaux = new int[anciensDocs];
+        for (int doc = 0; doc < anciensDocs; doc++) {
+            if (anciensSupprimes.get(doc)) {
+                nouveaux[doc] = -1;
+            } else {
+                nouveaux[doc] = reserver(anciennesConsultations[doc], anciensJours[doc],
+                        anciensMedecins[doc], anciennesLongueurs[doc]);
+                docs.put(anciennesConsultations[doc], nouveaux[doc]);
+            }
+        }
+
+        Iterator<Map.Entry<String, Postings>> entrees = postings.entrySet().iterator();
+        while (entrees.hasNext()) {
+            Map.Entry<String, Postings> entree = entrees.next();
+            Postings compactee = entree.getValue().renumeroter(nouveaux);
+            if (compactee.nbDocs == 0) {
+                entrees.remove();
+            } else {
+                entree.setValue(compactee);
+            }
+        }
+    }
+
+    // Analyse des notes
+
+    /**
+     * Termes d'une consultation, avec leur fréquence pondérée et leurs positions (croissantes)
+     */
+    private static Document document(Consultation consultation, Long idMedecin) {
+        Map<String, Occurrences> parTerme = new LinkedHashMap<>();
+        int longueur = 0;
+        for (Champ champ : CHAMPS) {
+            for (AnalyseurFrancais.Terme terme : AnalyseurFrancais.termes(texte(consultation, champ))) {
+                int position = champ.ordinal() * ECART_CHAMPS + Math.min(terme.getPosition(), ECART_CHAMPS - 1);
+                parTerme.computeIfAbsent(terme.getTexte(), t -> new Occurrences()).ajouter(position, champ.poids);
+                longueur += champ.poids;
+            }
+        }
+
+        Document document = new Document(consultation.getId(), parTerme.size(), longueur,
+                consultation.getDateConsultation() == null ? Integer.MIN_VALUE
+                        : (int) consultation.getDateConsultation().toEpochDay(),
+                idMedecin == null ? 0 : idMedecin);
+        int i = 0;
+        for (Map.Entry<String, Occurrences> entree : parTerme.entrySet()) {
+            Occurrences occurrences = entree.getValue();
+            document.termes[i] = entree.getKey();
+            document.frequences[i] = occurrences.frequence;
+            document.positions[i] = Arrays.copyOf(occurrences.positions, occurrences.nb);
+            i++;
+        }
+        return document;
+    }
+
+    private static String texte(Consultation consultation, Champ champ) {
+        switch (champ) {
+            case SYMPTOMES: return consultation.getSymptomes();
+            case DIAGNOSTIC: return consultation.getDiagnostic();
+            case OBSERVATIONS: return consultation.getObservations();
+            case PRESCRIPTION: return consultation.getPrescription();
+            default: return consultation.getExamenesDemandes();
+        }
+    }
+
+    private static final class Occurrences {
+        int frequence;
+        int[] positions = new int[2];
+        int nb;
+
+        void ajouter(int position, int poids) {
+            if (nb == positions.length) {
+                positions = Arrays.copyOf(positions, nb * 2);
+            }
+            positions[nb++] = position;
+            frequence += poids;
+        }
+    }
+
+    private static final class Document {
+        final long idConsultation;
+        final String[] termes;
+        final int[] frequences;
+        final int[][] positions;
+        final int longueur;
+        final int jour;
+        final long medecin;
+
+        Document(long idConsultation, int nbTermes, int longueur, int jour, long medecin) {
+            this.idConsultation = idConsultation;
+            this.termes = new String[nbTermes];
+            this.frequences = new int[nbTermes];
+            this.positions = new int[nbTermes][];
+            this.longueur = longueur;
+            this.jour = jour;
+            this.medecin = medecin;
+        }
+    }
+
+    // Listes compressées
+
+    /**
+     * Liste d'un terme, document par document : écart avec le document précédent, fréquence,
+     * nombre de positions puis écarts entre positions, chaque nombre sur 1 à 5 octets
+     * (7 bits par octet, bit de poids fort à 1 si la suite continue)
+     */
+    private static final class Postings {
+        private byte[] octets = new byte[16];
+        private int longueur;
+        private int nbDocs;
+        private int dernierDoc = -1;
+        // Point de saut k : dernier document du bloc k et décalage du début du bloc k + 1
+        private int[] sautsDocs = new int[0];
+        private int[] sautsDecalages = new int[0];
+        private int nbSauts;
+
+        void ajouter(int doc, int frequence, int[] positions, int nbPositions) {
+            if (nbDocs > 0 && nbDocs % BLOC == 0) {
+                if (nbSauts == sautsDocs.length) {
+                    sautsDocs = Arrays.copyOf(sautsDocs, Math.max(4, nbSauts * 2));
+                    sautsDecalages = Arrays.copyOf(sautsDecalages, sautsDocs.length);
+                }
+                sautsDocs[nbSauts] = dernierDoc;
+                sautsDecalages[nbSauts++] = longueur;
+            }
+            ecrire(doc - dernierDoc);
+            ecrire(frequence);
+            ecrire(nbPositions);
+            int precedente = 0;
+            for (int i = 0; i < nbPositions; i++) {
+                ecrire(positions[i] - precedente);
+                precedente = positions[i];
+            }
+            dernierDoc = doc;
+            nbDocs++;
+        }
+
+        /**
+         * Copie sans les documents supprimés (numéro -1), les autres renumérotés
+         */
+        Postings renumeroter(int[] nouveaux) {
+            Postings copie = new Postings();
+            Curseur curseur = new Curseur(this);
+            for (int doc = curseur.suivant(); doc != FIN; doc = curseur.suivant()) {
+                if (nouveaux[doc] >= 0) {
+                    copie.ajouter(nouveaux[doc], curseur.frequence, curseur.positions(), curseur.nbPositions);
+                }
+            }
+            copie.ajuster();
+            return copie;
+        }
+
+        void ajuster() {
+            octets = Arrays.copyOf(octets, longueur);
+            sautsDocs = Arrays.copyOf(sautsDocs, nbSauts);
+            sautsDecalages = Arrays.copyOf(sautsDecalages, nbSauts);
+        }
+
+        private void ecrire(int valeur) {
+            if (longueur + 5 > octets.length) {
+                octets = Arrays.copyOf(octets, Math.max(longueur + 5, octets.length + (octets.length >> 1)));
+            }
+            while ((valeur & ~0x7F) != 0) {
+                octets[longueur++] = (byte) ((valeur & 0x7F) | 0x80);
+                valeur >>>= 7;
+            }
+            octets[longueur++] = (byte) valeur;
+        }
+    }
+
+    /**
+     * Lecture d'une liste dans l'ordre des documents ; les positions ne sont décodées que sur demande
+     */
+    private static final class Curseur {
+        final Postings liste;
+        private int decalage;
+        private int lus;
+        int doc = -1;
+        int frequence;
+        int nbPositions;
+        private int debutPositions;
+        private boolean positionsPassees = true;
+        private int[] positions = new int[8];
+        private int docPositions = -1;
+
+        Curseur(Postings liste) {
+            this.liste = liste;
+        }
+
+        int suivant() {
+            if (doc == FIN) {
+                return FIN;
+            }
+            if (!positionsPassees) {
+                for (int i = 0; i < nbPositions; i++) {
+                    while (liste.octets[decalage++] < 0) {
+                        // Octets de continuation
+                    }
+                }
+            }
+            if (lus == liste.nbDocs) {
+                return doc = FIN;
+            }
+            doc += lire();
+            frequence = lire();
+            nbPositions = lire();
+            debutPositions = decalage;
+            positionsPassees = false;
+            lus++;
+            return doc;
+        }
+
+        /**
+         * Premier document >= cible, en passant les blocs entiers dont le dernier document est avant la cible
+         */
+        int avancer(int cible) {
+            if (doc >= cible) {
+                return doc;
+            }
+            int bas = Math.max(0, lus / BLOC - 1);
+            int haut = liste.nbSauts;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (liste.sautsDocs[milieu] < cible) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            // bas - 1 : dernier point de saut avant la cible
+            if (bas > 0 && bas * BLOC > lus) {
+                decalage = liste.sautsDecalages[bas - 1];
+                doc = liste.sautsDocs[bas - 1];
+                lus = bas * BLOC;
+                positionsPassees = true;
+            }
+            while (doc < cible) {
+                suivant();
+            }
+            return doc;
+        }
+
+        int[] positions() {
+            if (docPositions != doc) {
+                if (positions.length < nbPositions) {
+                    positions = new int[Math.max(nbPositions, positions.length * 2)];
+                }
+                decalage = debutPositions;
+                int position = 0;
+                for (int i = 0; i < nbPositions; i++) {
+                    position += lire();
+                    positions[i] = position;
+                }
+                positionsPassees = true;
+                docPositions = doc;
+            }
+            return positions;
+        }
+
+        private int lire() {
+            byte[] octets = liste.octets;
+            int valeur = 0;
+            int decale = 0;
+            byte octet;
+            do {
+                octet = octets[decalage++];
+                valeur |= (octet & 0x7F) << decale;
+                decale += 7;
+            } while (octet < 0);
+            return valeur;
+        }
+    }
+
+    // Requête analysée
+
+    private static final class Conjonction {
+        final List<Clause> exigees = new ArrayList<>();
+        final List<Clause> exclues = new ArrayList<>();
+    }
+
+    /**
+     * Un terme, ou une expression : ses termes et leur écart de position avec le premier
+     */
+    private static final class Clause {
+        final String[] termes;
+        final int[] ecarts;
+        // Ouverture sur l'index
+        Curseur[] curseurs;
+        double idf;
+
+        Clause(String[] termes, int[] ecarts) {
+            this.termes = termes;
+            this.ecarts = ecarts;
+        }
+    }
+
+    private static final class Filtre {
+        final int jourMin;
+        final int jourMax;
+        final long medecin;
+
+        Filtre(int jourMin, int jourMax, long medecin) {
+            this.jourMin = jourMin;
+            this.jourMax = jourMax;
+            this.medecin = medecin;
+        }
+
+        boolean retient(int jour, long medecinDoc) {
+            return jour >= jourMin && jour <= jourMax && (medecin == 0 || medecin == medecinDoc);
+        }
+    }
+
+    private interface Collecte {
+        void ajouter(int doc, double score);
+    }
+
+    /**
+     * Document retenu ; le tas garde le moins bon en tête
+     */
+    private static final class Trouve {
+        final int doc;
+        final double score;
+
+        Trouve(int doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+
+        static int comparer(Trouve a, Trouve b) {
+            return comparer(a, b.doc, b.score);
+        }
+
+        static int comparer(Trouve a, int doc, double score) {
+            int c = Double.compare(a.score, score);
+            return c != 0 ? c : Integer.compare(a.doc, doc);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.Patient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Recherche approchée des patients par nom et prénom, tolérante aux graphies
+ * (Mohamed / Mohammed / Muhammad, El Amrani / Elamrani) et aux fautes de frappe.
+ *
+ * Les mots des noms et prénoms (et chaque nom composé accolé : "el amrani" donne aussi "elamrani")
+ * forment un dictionnaire de termes, bien plus petit que le nombre de patients.
+ * Un mot recherché n'est comparé qu'aux termes du même bloc (même clé phonétique)
+ * et à ceux trouvés par l'arbre BK à distance d'édition bornée ; chaque terme retenu
+ * renvoie ensuite à la liste de ses patients.
+ */
+public class IndexNomsApproches {
+
+    // Similarité d'un terme de même clé phonétique, diminuée selon la distance d'édition
+    private static final double SIMILARITE_PHONETIQUE = 0.9;
+    private static final double SIMILARITE_PHONETIQUE_MIN = 0.75;
+
+    /**
+     * Patient trouvé et sa similarité (moyenne des mots recherchés, 1 = noms identiques)
+     */
+    public static final class Correspondance {
+        private final long idPatient;
+        private final double score;
+
+        Correspondance(long idPatient, double score) {
+            this.idPatient = idPatient;
+            this.score = score;
+        }
+
+        public long getIdPatient() { return idPatient; }
+        public double getScore() { return score; }
+    }
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> idsTermes = new HashMap<>();
+    private final List<String> termes = new ArrayList<>();
+    private final Map<String, List<Integer>> termesParCle = new HashMap<>();
+    private final ArbreBK arbre = new ArbreBK();
+    // Patients de chaque terme (non triés, retrait par échange avec le dernier)
+    private long[][] patientsTerme = new long[1024][];
+    private int[] nbPatientsTerme = new int[1024];
+    private final Map<Long, int[]> termesPatient = new HashMap<>();
+
+    // Même rôle que dans IndexPatients pendant le chargement initial
+    private boolean enChargement;
+    private final Set<Long> retires = new HashSet<>();
+
+    public IndexNomsApproches(boolean enChargement) {
+        this.enChargement = enChargement;
+    }
+
+    public void indexer(Patient patient) {
+        Set<String> mots = mots(patient);
+        verrou.writeLock().lock();
+        try {
+            retires.remove(patient.getId());
+            ajouter(patient.getId(), mots);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void indexerSiAbsent(Patient patient) {
+        Set<String> mots = mots(patient);
+        verrou.writeLock().lock();
+        try {
+            if (!termesPatient.containsKey(patient.getId()) && !retires.contains(patient.getId())) {
+                ajouter(patient.getId(), mots);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(Long idPatient) {
+        verrou.writeLock().lock();
+        try {
+            if (enChargement) {
+                retires.add(idPatient);
+            }
+            retirerTermes(idPatient);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void terminerChargement() {
+        verrou.writeLock().lock();
+        try {
+            enChargement = false;
+            retires.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tous les mots recherchés doivent correspondre à un terme du patient.
+     * Plusieurs mots sont aussi cherchés accolés ("el amrani" trouve "Elamrani").
+     *
+     * @param scoreMinimum Similarité moyenne en dessous de laquelle un patient est écarté
+     * @return Les patients les plus proches d'abord
+     */
+    public List<Correspondance> rechercher(String texte, int limite, double scoreMinimum) {
+        List<String> mots = new ArrayList<>();
+        for (String mot : Normalisation.mots(texte)) {
+            if (mot.length() >= 2) {
+                mots.add(mot);
+            }
+        }
+        if (mots.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        verrou.readLock().lock();
+        try {
+            Map<Long, Double> meilleurs = new HashMap<>();
+            garderMeilleurs(meilleurs, rechercherMots(mots, limite, scoreMinimum));
+            if (mots.size() > 1) {
+                garderMeilleurs(meilleurs, rechercherMots(List.of(String.join("", mots)), limite, scoreMinimum));
+            }
+            List<Correspondance> resultat = new ArrayList<>(meilleurs.size());
+            meilleurs.forEach((id, score) -> resultat.add(new Correspondance(id, score)));
+            resultat.sort((a, b) -> Double.compare(b.score, a.score));
+            return resultat.size() > limite ? resultat.subList(0, limite) : resultat;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Recherche (verrou en lecture déjà pris)
+
+    private List<Correspondance> rechercherMots(List<String> mots, int limite, double scoreMinimum) {
+        List<Map<Integer, Double>> similarites = new ArrayList<>(mots.size());
+        double[] meilleuresSimilarites = new double[mots.size()];
+        int pivot = 0;
+        long plusPetitVolume = Long.MAX_VALUE;
+        for (int i = 0; i < mots.size(); i++) {
+            Map<Integer, Double> proches = termesProches(mots.get(i));
+            if (proches.isEmpty()) {
+                return List.of();
+            }
+            similarites.add(proches);
+            long volume = 0;
+            for (Map.Entry<Integer, Double> terme : proches.entrySet()) {
+                volume += nbPatientsTerme[terme.getKey()];
+                meilleuresSimilarites[i] = Math.max(meilleuresSimilarites[i], terme.getValue());
+            }
+            if (volume < plusPetitVolume) {
+                plusPetitVolume = volume;
+                pivot = i;
+            }
+        }
+
+        // Termes du mot le plus sélectif, du plus proche au moins proche
+        List<Map.Entry<Integer, Double>> termesPivot = new ArrayList<>(similarites.get(pivot).entrySet());
+        termesPivot.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+
+        int nbMots = mots.size();
+        double autresMots = 0;
+        for (int i = 0; i < nbMots; i++) {
+            autresMots += i != pivot ? meilleuresSimilarites[i] : 0;
+        }
+        PriorityQueue<Correspondance> meilleurs = new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score));
+        Set<Long> vus = new HashSet<>();
+        for (Map.Entry<Integer, Double> terme : termesPivot) {
+            // Meilleur score encore possible : au-dessous du classement, plus aucun patient ne peut y entrer
+            double plafond = (terme.getValue() + autresMots) / nbMots;
+            if (plafond < scoreMinimum || (meilleurs.size() >= limite && plafond <= meilleurs.peek().score)) {
+                break;
+            }
+            long[] patients = patientsTerme[terme.getKey()];
+            for (int p = 0; p < nbPatientsTerme[terme.getKey()]; p++) {
+                if (meilleurs.size() >= limite && plafond <= meilleurs.peek().score) {
+                    break;
+                }
+                long idPatient = patients[p];
+                if (!vus.add(idPatient)) {
+                    continue;
+                }
+                double somme = terme.getValue();
+                int[] termesDuPatient = termesPatient.get(idPatient);
+                for (int i = 0; i < nbMots && somme > 0; i++) {
+                    if (i != pivot) {
+                        double meilleure = 0;
+                        for (int t : termesDuPatient) {
+                            meilleure = Math.max(meilleure, similarites.get(i).getOrDefault(t, 0.0));
+                        }
+                        somme = meilleure > 0 ? somme + meilleure : 0;
+                    }
+                }
+                double score = somme / nbMots;
+                if (somme > 0 && score >= scoreMinimum) {
+                    meilleurs.add(new Correspondance(idPatient, score));
+                    if (meilleurs.size() > limite) {
+                        meilleurs.poll();
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(meilleurs);
+    }
+
+    /**
+     * Termes proches d'un mot et leur similarité : le terme lui-même, ceux de même clé phonétique,
+     * et ceux à distance d'édition bornée (1 à partir de 4 lettres, 2 à partir de 8)
+     */
+    private Map<Integer, Double> termesProches(String mot) {
+        Map<Integer, Double> proches = new HashMap<>();
+        Integer exact = idsTermes.get(mot);
+        if (exact != null) {
+            proches.put(exact, 1.0);
+        }
+        for (int terme : termesParCle.getOrDefault(CodePhonetique.cle(mot), List.of())) {
+            int distance = Levenshtein.distance(mot, termes.get(terme));
+            double similarite = Math.max(SIMILARITE_PHONETIQUE_MIN, SIMILARITE_PHONETIQUE - 0.02 * distance);
+            proches.merge(terme, distance == 0 ? 1.0 : similarite, Math::max);
+        }
+        int distanceMax = mot.length() >= 8 ? 2 : mot.length() >= 4 ? 1 : 0;
+        if (distanceMax > 0) {
+            arbre.rechercher(mot, distanceMax, (terme, distance) ->
+                    proches.merge(terme, 1.0 - (double) distance / (mot.length() + 1), Math::max));
+        }
+        // Termes qui n'ont plus de patients (tous modifiés ou supprimés)
+        proches.keySet().removeIf(terme -> nbPatientsTerme[terme] == 0);
+        return proches;
+    }
+
+    private static void garderMeilleurs(Map<Long, Double> meilleurs, List<Correspondance> trouves) {
+        for (Correspondance c : trouves) {
+            meilleurs.merge(c.idPatient, c.score, Math::max);
+        }
+    }
+
+    // Écriture (verrou en écriture déjà pris)
+
+    private void ajouter(Long idPatient, Set<String> mots) {
+        retirerTermes(idPatient);
+        int[] ids = new int[mots.size()];
+        int n = 0;
+        for (String mot : mots) {
+            int terme = terme(mot);
+            if (nbPatientsTerme[terme] == patientsTerme[terme].length) {
+                patientsTerme[terme] = Arrays.copyOf(patientsTerme[terme], nbPatientsTerme[terme] * 2);
+            }
+            patientsTerme[terme][nbPatientsTerme[terme]++] = idPatient;
+            ids[n++] = terme;
+        }
+        termesPatient.put(idPatient, ids);
+    }
+
+    private void retirerTermes(Long idPatient) {
+        int[] anciens = termesPatient.remove(idPatient);
+        if (anciens == null) {
+            return;
+        }
+        for (int terme : anciens) {
+            long[] patients = patientsTerme[terme];
+            int taille = nbPatientsTerme[terme];
+            for (int p = 0; p < taille; p++) {
+                if (patients[p] == idPatient) {
+                    patients[p] = patients[taille - 1];
+                    nbPatientsTerme[terme] = taille - 1;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Identifiant du terme, créé au premier usage (les termes ne sont jamais retirés du dictionnaire)
+     */
+    private int terme(String mot) {
+        Integer id = idsTermes.get(mot);
+        if (id != null) {
+            return id;
+        }
+        int nouveau = termes.size();
+        termes.add(mot);
+        idsTermes.put(mot, nouveau);
+        termesParCle.computeIfAbsent(CodePhonetique.cle(mot), cle -> new ArrayList<>(2)).add(nouveau);
+        arbre.ajouter(mot, nouveau);
+        if (nouveau == patientsTerme.length) {
+            patientsTerme = Arrays.copyOf(patientsTerme, nouveau * 2);
+            nbPatientsTerme = Arrays.copyOf(nbPatientsTerme, nouveau * 2);
+        }
+        patientsTerme[nouveau] = new long[2];
+        return nouveau;
+    }
+
+    /**
+     * Mots du nom et du prénom, plus chacun des deux accolé s'il est composé
+     */
+    private static Set<String> mots(Patient patient) {
+        Set<String> mots = new LinkedHashSet<>();
+        for (String champ : new String[]{patient.getNom(), patient.getPrenom()}) {
+            String[] motsChamp = Normalisation.mots(champ);
+            mots.addAll(Arrays.asList(motsChamp));
+            if (motsChamp.length > 1) {
+                mots.add(String.join("", motsChamp));
+            }
+        }
+        return mots;
+    }
+}
@@ -0,0 +1,539 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.Patient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire des patients (nom, prénom, CIN, téléphone, email).
+ *
+ * Chaque patient indexé est un document numéroté 0, 1, 2... Ses champs sont repliés
+ * (voir Normalisation) puis découpés en trigrammes, un mot étant entouré d'espaces
+ * pour que " du" ne se trouve qu'en début de mot. Pour chaque couple (champ, trigramme),
+ * une liste triée des documents qui le contiennent.
+ *
+ * Un mot recherché de 3 lettres ou plus est l'intersection des listes de ses trigrammes,
+ * vérifiée ensuite sur le texte (les trigrammes peuvent se trouver dans le désordre) ;
+ * un mot de 2 lettres cherche les mots qui commencent par lui.
+ * Tous les mots recherchés doivent être trouvés ; le score additionne le poids
+ * du meilleur champ de chaque mot, plus un bonus quand un mot du champ commence par lui.
+ * Les combinaisons (champ, début de mot ou non) sont parcourues par score décroissant
+ * et la recherche s'arrête à la limite : une saisie courante ne lit que quelques dizaines
+ * de documents, même quand des centaines de milliers contiennent le mot.
+ *
+ * Une modification remplace le document (l'ancien est marqué supprimé) ;
+ * l'index est recompacté quand plus d'un quart des documents sont supprimés.
+ */
+public class IndexPatients {
+
+    /**
+     * Champs indexés et leur poids dans le score
+     */
+    public enum Champ {
+        NOM(8), PRENOM(6), CIN(10), TELEPHONE(4), EMAIL(3);
+
+        private final int poids;
+
+        Champ(int poids) {
+            this.poids = poids;
+        }
+
+        public int getPoids() { return poids; }
+    }
+
+    private static final Champ[] CHAMPS = Champ.values();
+    // Espace, a-z, 0-9
+    private static final int ALPHABET = 37;
+    private static final int NB_TRIGRAMMES = ALPHABET * ALPHABET * ALPHABET;
+    private static final int BONUS_DEBUT_MOT = 4;
+    private static final byte SEPARATEUR = '|';
+    private static final int COMPACTAGE_MINIMUM = 10_000;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    private Postings[] postings = new Postings[CHAMPS.length * NB_TRIGRAMMES];
+    private long[] patients = new long[1024];
+    private byte[][] textes = new byte[1024][];
+    private int nbDocs;
+    private BitSet supprimes = new BitSet();
+    private int nbSupprimes;
+    private final Map<Long, Integer> docs = new HashMap<>();
+
+    // Patients supprimés pendant le chargement initial : une page lue avant la suppression ne doit pas les réindexer
+    private boolean enChargement;
+    private final Set<Long> retires = new HashSet<>();
+
+    /**
+     * @param enChargement true si l'index va être rempli par indexerSiAbsent pendant que
+     *                     les créations, modifications et suppressions continuent
+     */
+    public IndexPatients(boolean enChargement) {
+        this.enChargement = enChargement;
+    }
+
+    /**
+     * Ajoute ou remplace un patient
+     */
+    public void indexer(Patient patient) {
+        byte[] texte = texte(patient);
+        verrou.writeLock().lock();
+        try {
+            retires.remove(patient.getId());
+            ajouter(patient.getId(), texte);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute un patient lu pendant le chargement, sauf s'il a été indexé ou supprimé entre-temps
+     */
+    public void indexerSiAbsent(Patient patient) {
+        byte[] texte = texte(patient);
+        verrou.writeLock().lock();
+        try {
+            if (!docs.containsKey(patient.getId()) && !retires.contains(patient.getId())) {
+                ajouter(patient.getId(), texte);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public void retirer(Long idPatient) {
+        verrou.writeLock().lock();
+        try {
+            if (enChargement) {
+                retires.add(idPatient);
+            }
+            Integer doc = docs.remove(idPatient);
+            if (doc != null) {
+                marquerSupprime(doc);
+                compacterSiNecessaire();
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fin du chargement initial
+     */
+    public void terminerChargement() {
+        verrou.writeLock().lock();
+        try {
+            enChargement = false;
+            retires.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Les IDs des patients trouvés, du meilleur score au moins bon
+     */
+    public List<Long> rechercher(String requete, int limite) {
+        List<String> mots = new ArrayList<>();
+        for (String mot : Normalisation.mots(requete)) {
+            // Un mot d'une lettre ne discrimine rien
+            if (mot.length() >= 2) {
+                mots.add(mot);
+            }
+        }
+        if (mots.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        verrou.readLock().lock();
+        try {
+            List<List<Niveau>> niveaux = new ArrayList<>(mots.size());
+            byte[][] motsOctets = new byte[mots.size()][];
+            for (int i = 0; i < mots.size(); i++) {
+                List<Niveau> niveauxMot = niveaux(mots.get(i));
+                if (niveauxMot.isEmpty()) {
+                    return List.of();
+                }
+                niveaux.add(niveauxMot);
+                motsOctets[i] = mots.get(i).getBytes(StandardCharsets.US_ASCII);
+            }
+
+            // Combinaisons (un niveau par mot) de la meilleure à la moins bonne :
+            // on s'arrête dès que la limite est atteinte, sans parcourir tous les documents trouvés
+            List<Long> resultat = new ArrayList<>(Math.min(limite, 256));
+            PriorityQueue<Combinaison> file = new PriorityQueue<>();
+            file.add(Combinaison.premiere(niveaux));
+            while (!file.isEmpty() && resultat.size() < limite) {
+                Combinaison combinaison = file.poll();
+                parcourir(combinaison, niveaux, motsOctets, resultat, limite);
+                combinaison.suivantes(niveaux, file);
+            }
+            return resultat;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // Recherche
+
+    /**
+     * Niveaux où le mot peut se trouver, du plus fort score au plus faible
+     */
+    private List<Niveau> niveaux(String mot) {
+        List<Niveau> resultat = new ArrayList<>();
+        for (Champ champ : CHAMPS) {
+            int base = champ.ordinal() * NB_TRIGRAMMES;
+            Postings debut = postings[base + trigramme(' ', mot.charAt(0), mot.charAt(1))];
+            Postings[] interieurs = new Postings[Math.max(0, mot.length() - 2)];
+            boolean present = true;
+            for (int i = 0; i < interieurs.length && present; i++) {
+                interieurs[i] = postings[base + trigramme(mot.charAt(i), mot.charAt(i + 1), mot.charAt(i + 2))];
+                present = interieurs[i] != null;
+            }
+            if (!present) {
+                continue;
+            }
+            if (debut != null) {
+                Postings[] listes = Arrays.copyOf(interieurs, interieurs.length + 1);
+                listes[interieurs.length] = debut;
+                resultat.add(new Niveau(champ, true, champ.poids + BONUS_DEBUT_MOT, listes));
+            }
+            // Un mot de 2 lettres n'est cherché qu'en début de mot
+            if (interieurs.length > 0) {
+                resultat.add(new Niveau(champ, false, champ.poids, interieurs));
+            }
+        }
+        // Tri stable : à score égal, l'ordre de Champ
+        resultat.sort((a, b) -> Integer.compare(b.score, a.score));
+        return resultat;
+    }
+
+    /**
+     * Documents de la combinaison, par numéro croissant : intersection de toutes les listes,
+     * conduite par la plus courte. Un document n'est retenu que si, pour chaque mot,
+     * le premier niveau vérifié sur son texte est celui de la combinaison
+     * (sinon il appartient à une autre combinaison, ou les trigrammes étaient dans le désordre).
+     */
+    private void parcourir(Combinaison combinaison, List<List<Niveau>> niveaux, byte[][] mots,
+                           List<Long> resultat, int limite) {
+        List<Postings> toutes = new ArrayList<>();
+        for (int i = 0; i < mots.length; i++) {
+            toutes.addAll(Arrays.asList(niveaux.get(i).get(combinaison.rangs[i]).listes));
+        }
+        Postings[] listes = toutes.toArray(new Postings[0]);
+        Arrays.sort(listes, (a, b) -> Integer.compare(a.taille, b.taille));
+
+        int[] positions = new int[listes.length];
+        Postings conductrice = listes[0];
+        int p = 0;
+        while (p < conductrice.taille) {
+            int doc = conductrice.docs[p];
+            int suivant = doc;
+            for (int l = 1; l < listes.length && suivant == doc; l++) {
+                positions[l] = avancer(listes[l], positions[l], doc);
+                if (positions[l] == listes[l].taille) {
+                    return;
+                }
+                suivant = listes[l].docs[positions[l]];
+            }
+            if (suivant != doc) {
+                // Saut direct au premier document de la conductrice qui peut encore convenir
+                p = avancer(conductrice, p + 1, suivant);
+                continue;
+            }
+            if (!supprimes.get(doc) && retenu(textes[doc], mots, niveaux, combinaison)) {
+                resultat.add(patients[doc]);
+                if (resultat.size() >= limite) {
+                    return;
+                }
+            }
+            p++;
+        }
+    }
+
+    private static boolean retenu(byte[] texte, byte[][] mots, List<List<Niveau>> niveaux, Combinaison combinaison) {
+        for (int i = 0; i < mots.length; i++) {
+            if (premierNiveau(texte, mots[i], niveaux.get(i)) != combinaison.rangs[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int premierNiveau(byte[] texte, byte[] mot, List<Niveau> niveaux) {
+        for (int rang = 0; rang < niveaux.size(); rang++) {
+            Niveau niveau = niveaux.get(rang);
+            if (contient(texte, niveau.champ.ordinal(), mot, niveau.debutMot)) {
+                return rang;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Le mot se trouve-t-il dans ce champ du texte (en début de mot si demandé) ?
+     */
+    private static boolean contient(byte[] texte, int champ, byte[] mot, boolean debutMot) {
+        int debut = 0;
+        for (int c = 0; c < champ; c++) {
+            while (texte[debut] != SEPARATEUR) {
+                debut++;
+            }
+            debut++;
+        }
+        int fin = debut;
+        while (fin < texte.length && texte[fin] != SEPARATEUR) {
+            fin++;
+        }
+        for (int i = debut; i + mot.length <= fin; i++) {
+            if (debutMot && i > debut && texte[i - 1] != ' ') {
+                continue;
+            }
+            int j = 0;
+            while (j < mot.length && texte[i + j] == mot[j]) {
+                j++;
+            }
+            if (j == mot.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Premier rang à partir de depuis dont le document est >= doc (recherche exponentielle)
+     */
+    private static int avancer(Postings liste, int depuis, int doc) {
+        int[] docs = liste.docs;
+        int pas = 1;
+        int haut = depuis;
+        while (haut < liste.taille && docs[haut] < doc) {
+            depuis = haut + 1;
+            haut += pas;
+            pas <<= 1;
+        }
+        int pos = Arrays.binarySearch(docs, depuis, Math.min(haut + 1, liste.taille), doc);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    // Écriture (verrou en écriture déjà pris)
+
+    private void ajouter(Long idPatient, byte[] texte) {
+        Integer ancien = docs.get(idPatient);
+        if (ancien != null) {
+            marquerSupprime(ancien);
+        }
+        int doc = nouveauDoc(idPatient, texte);
+        docs.put(idPatient, doc);
+        if (ancien != null) {
+            compacterSiNecessaire();
+        }
+    }
+
+    private int nouveauDoc(long idPatient, byte[] texte) {
+        if (nbDocs == patients.length) {
+            patients = Arrays.copyOf(patients, nbDocs * 2);
+            textes = Arrays.copyOf(textes, nbDocs * 2);
+        }
+        int doc = nbDocs++;
+        patients[doc] = idPatient;
+        textes[doc] = texte;
+
+        int champ = 0;
+        int debut = 0;
+        for (int i = 0; i <= texte.length; i++) {
+            if (i == texte.length || texte[i] == SEPARATEUR) {
+                indexerChamp(doc, champ++, texte, debut, i);
+                debut = i + 1;
+            }
+        }
+        return doc;
+    }
+
+    /**
+     * Trigrammes du champ entouré d'espaces ; le document est toujours le plus grand,
+     * les listes restent triées sans tri
+     */
+    private void indexerChamp(int doc, int champ, byte[] texte, int debut, int fin) {
+        if (fin == debut) {
+            return;
+        }
+        int base = champ * NB_TRIGRAMMES;
+        int c1 = 0;
+        int c2 = code(texte[debut]);
+        for (int i = debut + 1; i <= fin; i++) {
+            int c3 = i < fin ? code(texte[i]) : 0;
+            int cle = base + (c1 * ALPHABET + c2) * ALPHABET + c3;
+            Postings liste = postings[cle];
+            if (liste == null) {
+                liste = new Postings();
+                postings[cle] = liste;
+            }
+            liste.ajouter(doc);
+            c1 = c2;
+            c2 = c3;
+        }
+    }
+
+    private void marquerSupprime(int doc) {
+        supprimes.set(doc);
+        textes[doc] = null;
+        nbSupprimes++;
+    }
+
+    /**
+     * Reconstruit les listes sans les documents supprimés
+     */
+    private void compacterSiNecessaire() {
+        if (nbSupprimes < COMPACTAGE_MINIMUM || nbSupprimes * 4 < nbDocs) {
+            return;
+        }
+        long[] anciensPatients = patients;
+        byte[][] anciensTextes = textes;
+        int anciensDocs = nbDocs;
+        BitSet anciensSupprimes = supprimes;
+
+        postings = new Postings[CHAMPS.length * NB_TRIGRAMMES];
+        patients = new long[Math.max(1024, anciensDocs - nbSupprimes)];
+        textes = new byte[patients.length][];
+        nbDocs = 0;
+        supprimes = new BitSet();
+        nbSupprimes = 0;
+        docs.clear();
+        for (int doc = 0; doc < anciensDocs; doc++) {
+            if (!anciensSupprimes.get(doc)) {
+                docs.put(anciensPatients[doc], nouveauDoc(anciensPatients[doc], anciensTextes[doc]));
+            }
+        }
+    }
+
+    // Textes et trigrammes
+
+    /**
+     * Champs repliés, séparés par '|' dans l'ordre de Champ.
+     * Un téléphone en +212 est aussi indexé sous sa forme nationale (0...).
+     */
+    static byte[] texte(Patient patient) {
+        String telephone = Normalisation.replier(patient.getTelephone()).replace(" ", "");
+        if (telephone.startsWith("212") && telephone.length() > 3) {
+            telephone = telephone + " 0" + telephone.substring(3);
+        }
+        String texte = Normalisation.replier(patient.getNom()) + (char) SEPARATEUR
+                + Normalisation.replier(patient.getPrenom()) + (char) SEPARATEUR
+                + Normalisation.replier(patient.getCin()).replace(" ", "") + (char) SEPARATEUR
+                + telephone + (char) SEPARATEUR
+                + Normalisation.replier(patient.getEmail());
+        return texte.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int trigramme(char a, char b, char c) {
+        return (code(a) * ALPHABET + code(b)) * ALPHABET + code(c);
+    }
+
+    private static int code(int c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return 0;
+    }
+
+    /**
+     * Liste triée de documents, agrandie au besoin
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int taille;
+
+        void ajouter(int doc) {
+            // Un trigramme répété dans le même champ n'est noté qu'une fois
+            if (taille > 0 && docs[taille - 1] == doc) {
+                return;
+            }
+            if (taille == docs.length) {
+                docs = Arrays.copyOf(docs, taille + (taille >> 1) + 1);
+            }
+            docs[taille++] = doc;
+        }
+    }
+
+    /**
+     * Façon dont un mot peut se trouver dans un document : champ, en début de mot ou non,
+     * et les listes à intersecter
+     */
+    private static final class Niveau {
+        final Champ champ;
+        final boolean debutMot;
+        final int score;
+        final Postings[] listes;
+
+        Niveau(Champ champ, boolean debutMot, int score, Postings[] listes) {
+            this.champ = champ;
+            this.debutMot = debutMot;
+            this.score = score;
+            this.listes = listes;
+        }
+    }
+
+    /**
+     * Un niveau (son rang) par mot recherché. Les suivantes sont produites en avançant
+     * le rang d'un seul mot, à partir du dernier avancé : chaque combinaison n'est produite
+     * qu'une fois et la file les rend par score décroissant.
+     */
+    private static final class Combinaison implements Comparable<Combinaison> {
+        final int[] rangs;
+        final int dernier;
+        final int score;
+
+        private Combinaison(int[] rangs, int dernier, int score) {
+            this.rangs = rangs;
+            this.dernier = dernier;
+            this.score = score;
+        }
+
+        static Combinaison premiere(List<List<Niveau>> niveaux) {
+            int score = 0;
+            for (List<Niveau> niveauxMot : niveaux) {
+                score += niveauxMot.get(0).score;
+            }
+            return new Combinaison(new int[niveaux.size()], 0, score);
+        }
+
+        void suivantes(List<List<Niveau>> niveaux, PriorityQueue<Combinaison> file) {
+            for (int i = dernier; i < rangs.length; i++) {
+                List<Niveau> niveauxMot = niveaux.get(i);
+                if (rangs[i] + 1 < niveauxMot.size()) {
+                    int[] suivants = rangs.clone();
+                    suivants[i]++;
+                    file.add(new Combinaison(suivants, i,
+                            score - niveauxMot.get(rangs[i]).score + niveauxMot.get(suivants[i]).score));
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Combinaison autre) {
+            return Integer.compare(autre.score, score);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ma.ensa.healthcare.search;
+
+/**
+ * Distance d'édition (insertions, suppressions, substitutions) entre deux mots
+ */
+public class Levenshtein {
+
+    public static int distance(String a, String b) {
+        return distance(a, b, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Calcul borné : s'arrête dès que la distance dépasse max
+     * @return La distance, ou max + 1 si elle dépasse max
+     */
+    public static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] precedente = new int[b.length() + 1];
+        int[] courante = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            precedente[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            courante[0] = i;
+            int minimumLigne = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cout = c == b.charAt(j - 1) ? 0 : 1;
+                courante[j] = Math.min(Math.min(courante[j - 1] + 1, precedente[j] + 1), precedente[j - 1] + cout);
+                minimumLigne = Math.min(minimumLigne, courante[j]);
+            }
+            // Toutes les cases de la ligne dépassent : la distance finale aussi
+            if (minimumLigne > max) {
+                return max + 1;
+            }
+            int[] echange = precedente;
+            precedente = courante;
+            courante = echange;
+        }
+        return Math.min(precedente[b.length()], max + 1);
+    }
+}
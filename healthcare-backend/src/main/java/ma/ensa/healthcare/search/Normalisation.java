@@ -0,0 +1,57 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.util.StringUtils;
+
+/**
+ * Repliement des textes pour la recherche : sans accents, en minuscules,
+ * seuls les lettres a-z et chiffres sont gardés, tout le reste devient un espace simple.
+ * "Élodie  EL-AMRANI" et "elodie el amrani" donnent le même texte.
+ */
+public class Normalisation {
+
+    /**
+     * @return Le texte replié (chaîne vide si null)
+     */
+    public static String replier(String texte) {
+        if (texte == null || texte.isEmpty()) {
+            return "";
+        }
+        String source = texte;
+        for (int i = 0; i < texte.length(); i++) {
+            if (texte.charAt(i) >= 0x80) {
+                // Décomposition Unicode seulement si nécessaire (coûteuse, et rare sur les CIN, téléphones, emails)
+                source = StringUtils.removeAccents(texte);
+                break;
+            }
+        }
+
+        StringBuilder resultat = new StringBuilder(source.length());
+        boolean espace = true;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                resultat.append(c);
+                espace = false;
+            } else if (!espace) {
+                resultat.append(' ');
+                espace = true;
+            }
+        }
+        int fin = resultat.length();
+        if (fin > 0 && resultat.charAt(fin - 1) == ' ') {
+            resultat.setLength(fin - 1);
+        }
+        return resultat.toString();
+    }
+
+    /**
+     * Mots du texte replié
+     */
+    public static String[] mots(String texte) {
+        String replie = replier(texte);
+        return replie.isEmpty() ? new String[0] : replie.split(" ");
+    }
+}
@@ -1,6 +1,7 @@
 package ma.ensa.healthcare.service;
 
 import ma.ensa.healthcare.service.*;
+import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.impl.*;
 import ma.ensa.healthcare.dao.interfaces.*;
 import ma.ensa.healthcare.dto.StatisticsDTO;
@@ -38,6 +39,13 @@ public class AnalyticsService {
      * Récupère les statistiques globales du système
      */
     public StatisticsDTO getGlobalStats() {
+        // Tableau de bord : lectures éligibles à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return calculerStatsGlobales();
+        }
+    }
+
+    private StatisticsDTO calculerStatsGlobales() {
         logger.info("Calcul des statistiques globales...");
         
         StatisticsDTO stats = new StatisticsDTO();
@@ -94,10 +102,7 @@ public class AnalyticsService {
      * Compte les rendez-vous du jour
      */
     private long compterRendezVousAujourdhui() {
-        LocalDate aujourdhui = LocalDate.now();
-        return rendezVousDAO.findAll().stream()
-            .filter(rdv -> rdv.getDateRdv().equals(aujourdhui))
-            .count();
+        return rendezVousDAO.findByDate(LocalDate.now()).size();
     }
 
     /**
@@ -164,6 +169,13 @@ public class AnalyticsService {
      * Statistiques pour une période donnée
      */
     public StatisticsDTO getStatsPeriode(LocalDate dateDebut, LocalDate dateFin) {
+        // Tableau de bord : lectures éligibles à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return calculerStatsPeriode(dateDebut, dateFin);
+        }
+    }
+
+    private StatisticsDTO calculerStatsPeriode(LocalDate dateDebut, LocalDate dateFin) {
         if (dateDebut == null || dateFin == null) {
             throw new IllegalArgumentException("Dates de début et fin requises");
         }
@@ -192,6 +204,13 @@ public class AnalyticsService {
      * Statistiques par médecin
      */
     public Map<String, Object> getStatsMedecin(Long medecinId) {
+        // Tableau de bord : lectures éligibles à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return calculerStatsMedecin(medecinId);
+        }
+    }
+
+    private Map<String, Object> calculerStatsMedecin(Long medecinId) {
         if (medecinId == null) {
             throw new IllegalArgumentException("ID médecin requis");
         }
@@ -216,6 +235,13 @@ public class AnalyticsService {
      * Statistiques par patient
      */
     public Map<String, Object> getStatsPatient(Long patientId) {
+        // Tableau de bord : lectures éligibles à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return calculerStatsPatient(patientId);
+        }
+    }
+
+    private Map<String, Object> calculerStatsPatient(Long patientId) {
         if (patientId == null) {
             throw new IllegalArgumentException("ID patient requis");
         }
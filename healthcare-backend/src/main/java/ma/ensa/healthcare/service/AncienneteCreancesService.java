@@ -0,0 +1,85 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.dao.impl.CreanceDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.ICreanceDAO;
+import ma.ensa.healthcare.dto.AncienneteCreancesDTO;
+import ma.ensa.healthcare.dto.FactureDTO;
+import ma.ensa.healthcare.model.enums.AxeAnciennete;
+import ma.ensa.healthcare.model.enums.TrancheAnciennete;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Service de balance âgée des créances (0-30, 31-60, 61-90, plus de 90 jours)
+ */
+public class AncienneteCreancesService {
+    private static final Logger logger = LoggerFactory.getLogger(AncienneteCreancesService.class);
+    private static final int TAILLE_PAGE = 500;
+
+    private final ICreanceDAO creanceDAO;
+
+    public AncienneteCreancesService() {
+        this.creanceDAO = new CreanceDAOImpl();
+    }
+
+    /**
+     * Balance âgée complète : une ligne par patient, par département, par mode de paiement,
+     * plus une ligne TOTAL
+     */
+    public List<AncienneteCreancesDTO> getBalanceAgee() {
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return creanceDAO.calculerAnciennete();
+        }
+    }
+
+    /**
+     * Lignes de la balance âgée pour un seul axe
+     */
+    public List<AncienneteCreancesDTO> getBalanceAgee(AxeAnciennete axe) {
+        return getBalanceAgee().stream()
+                .filter(ligne -> ligne.getAxe() == axe)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Page de créances d'une tranche (drill-down), par ID de facture croissant
+     * @param apresIdFacture ID de la dernière facture de la page précédente (0 au départ)
+     */
+    public List<FactureDTO> getCreances(TrancheAnciennete tranche, AxeAnciennete axe, String cle,
+                                        long apresIdFacture, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Taille de page invalide");
+        }
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return creanceDAO.findCreances(tranche, axe, cle, apresIdFacture, limite);
+        }
+    }
+
+    /**
+     * Parcourt toutes les créances d'une tranche page par page, sans les garder en mémoire
+     * @return Nombre de créances parcourues
+     */
+    public long parcourirCreances(TrancheAnciennete tranche, AxeAnciennete axe, String cle,
+                                  Consumer<FactureDTO> consommateur) {
+        long apres = 0;
+        long total = 0;
+        while (true) {
+            List<FactureDTO> page = getCreances(tranche, axe, cle, apres, TAILLE_PAGE);
+            for (FactureDTO creance : page) {
+                consommateur.accept(creance);
+            }
+            total += page.size();
+            if (page.size() < TAILLE_PAGE) {
+                break;
+            }
+            apres = page.get(page.size() - 1).getId();
+        }
+        logger.debug("{} créances parcourues (tranche {}, {} {})", total, tranche, axe, cle);
+        return total;
+    }
+}
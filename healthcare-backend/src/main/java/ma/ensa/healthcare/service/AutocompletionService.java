@@ -0,0 +1,420 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.JournalModificationsDAOImpl;
+import ma.ensa.healthcare.dao.impl.MedecinDAOImpl;
+import ma.ensa.healthcare.dao.impl.MedicamentDAOImpl;
+import ma.ensa.healthcare.dao.impl.PatientDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IJournalModificationsDAO;
+import ma.ensa.healthcare.dao.interfaces.IMedecinDAO;
+import ma.ensa.healthcare.dao.interfaces.IMedicamentDAO;
+import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
+import ma.ensa.healthcare.dto.ModificationsJournal;
+import ma.ensa.healthcare.model.Medecin;
+import ma.ensa.healthcare.model.Medicament;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.search.IndexCompletion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Saisie semi-automatique des listes de choix : patients (nom, prénom, CIN),
+ * médecins (nom, prénom, numéro d'ordre) et médicaments (nom commercial).
+ *
+ * Chaque liste a son index de complétion, partagé par toute l'application et chargé une fois
+ * en arrière-plan ; les services des trois entités le tiennent à jour à chaque écriture.
+ * Les changements des autres postes sont relus périodiquement, comme pour la recherche de
+ * patients : lignes notées dans JOURNAL_MODIFICATIONS depuis le SCN du dernier passage,
+ * relues sur la primaire (ou retirées si elles ont été supprimées) ; index reconstruit si
+ * les notes ont été purgées entre-temps.
+ * Les médecins et médicaments (tables courtes) sont gardés entiers en mémoire,
+ * les patients sont relus par ID. Tant qu'un index n'est pas chargé,
+ * les propositions de sa liste sont cherchées en base.
+ */
+public class AutocompletionService {
+    private static final Logger logger = LoggerFactory.getLogger(AutocompletionService.class);
+
+    private static final int TAILLE_PAGE = 5000;
+    private static final int RAFRAICHISSEMENT_SECONDES =
+        PropertyManager.getInstance().getIntProperty("autocompletion.rafraichissementSecondes", 30);
+
+    private static final IJournalModificationsDAO JOURNAL = new JournalModificationsDAOImpl();
+    private static ScheduledExecutorService rafraichissement;
+
+    /**
+     * Index d'une entité, et ses objets si elle est gardée en mémoire
+     */
+    private static final class Etat<T> {
+        final IndexCompletion index = new IndexCompletion(true);
+        final Map<Long, T> objets = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Liste complétable : index utilisé, index en cours de chargement, et lecture de la table
+     */
+    private static final class Source<T> {
+        private final String nom;
+        // Table notée dans JOURNAL_MODIFICATIONS
+        private final String table;
+        private final Function<T, Long> identifiant;
+        private final Function<T, String[]> cles;
+        private final boolean garderObjets;
+        // Lit toute la table et passe chaque page au consommateur
+        private final Consumer<Consumer<List<T>>> lecture;
+        // Relit les lignes modifiées (absentes du résultat si supprimées)
+        private final Function<Collection<Long>, Map<Long, T>> relecture;
+
+        private final Object verrou = new Object();
+        private volatile Etat<T> courant;
+        private volatile Etat<T> enChargement;
+        // SCN des lignes déjà lues dans courant
+        private volatile long scn;
+
+        Source(String nom, String table, Function<T, Long> identifiant, Function<T, String[]> cles,
+               boolean garderObjets, Consumer<Consumer<List<T>>> lecture,
+               Function<Collection<Long>, Map<Long, T>> relecture) {
+            this.nom = nom;
+            this.table = table;
+            this.identifiant = identifiant;
+            this.cles = cles;
+            this.garderObjets = garderObjets;
+            this.lecture = lecture;
+            this.relecture = relecture;
+        }
+
+        /**
+         * @return Index prêt, ou null (le chargement est alors lancé)
+         */
+        Etat<T> pret() {
+            Etat<T> etat = courant;
+            if (etat == null) {
+                charger();
+            }
+            return etat;
+        }
+
+        void charger() {
+            synchronized (verrou) {
+                if (courant == null && enChargement == null) {
+                    demarrerChargement();
+                }
+            }
+        }
+
+        void reconstruire() {
+            synchronized (verrou) {
+                if (enChargement == null) {
+                    demarrerChargement();
+                }
+            }
+        }
+
+        void enregistre(T objet) {
+            Long id = identifiant.apply(objet);
+            // enChargement d'abord : il passe à null après l'affectation de courant
+            Etat<T> nouveau = enChargement;
+            Etat<T> actuel = courant;
+            if (actuel != null) {
+                indexer(actuel, id, objet);
+            }
+            if (nouveau != null && nouveau != actuel) {
+                indexer(nouveau, id, objet);
+            }
+        }
+
+        void supprime(Long id) {
+            // enChargement d'abord : il passe à null après l'affectation de courant
+            Etat<T> nouveau = enChargement;
+            Etat<T> actuel = courant;
+            if (actuel != null) {
+                actuel.index.retirer(id);
+                actuel.objets.remove(id);
+            }
+            if (nouveau != null && nouveau != actuel) {
+                nouveau.index.retirer(id);
+                nouveau.objets.remove(id);
+            }
+        }
+
+        /**
+         * Relit les lignes créées, modifiées ou supprimées depuis le dernier passage (par ce poste ou un autre)
+         */
+        void rafraichir() {
+            Etat<T> actuel = courant;
+            if (actuel == null || enChargement != null) {
+                // Un chargement en cours relit toute la table
+                return;
+            }
+            try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+                ModificationsJournal modifications = JOURNAL.findModifications(table, scn);
+                if (modifications == null) {
+                    logger.warn("Notes du journal purgées depuis le dernier passage : index de complétion des {} reconstruit", nom);
+                    reconstruire();
+                    return;
+                }
+                Set<Long> ids = modifications.getIdsLignes();
+                Map<Long, T> objets = relecture.apply(ids);
+                for (Long id : ids) {
+                    T objet = objets.get(id);
+                    if (objet != null) {
+                        enregistre(objet);
+                    } else {
+                        supprime(id);
+                    }
+                }
+                synchronized (verrou) {
+                    if (courant == actuel) {
+                        scn = modifications.getScn();
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    logger.debug("Index de complétion des {} rafraîchi : {} lignes relues (SCN {})",
+                            nom, ids.size(), modifications.getScn());
+                }
+            } catch (RuntimeException e) {
+                // Une exception arrêterait la planification : nouvel essai au passage suivant
+                logger.warn("Erreur lors du rafraîchissement de l'index de complétion des {}", nom, e);
+            }
+        }
+
+        private void indexer(Etat<T> etat, Long id, T objet) {
+            if (garderObjets) {
+                etat.objets.put(id, objet);
+            }
+            etat.index.indexer(id, cles.apply(objet));
+        }
+
+        private void demarrerChargement() {
+            Etat<T> nouveau = new Etat<>();
+            enChargement = nouveau;
+            Thread thread = new Thread(() -> remplir(nouveau), "healthcare-autocompletion-" + nom);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void remplir(Etat<T> nouveau) {
+            long debut = System.currentTimeMillis();
+            // Sur la primaire : une réplique en retard donnerait un état antérieur au SCN retenu
+            try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+                // Lu avant la table : les lignes validées pendant le chargement seront relues au rafraîchissement
+                long scnLecture = JOURNAL.lireScnCourant();
+                this.lecture.accept(page -> {
+                    for (T objet : page) {
+                        Long id = identifiant.apply(objet);
+                        if (nouveau.index.indexerSiAbsent(id, cles.apply(objet)) && garderObjets) {
+                            nouveau.objets.putIfAbsent(id, objet);
+                        }
+                    }
+                });
+                nouveau.index.terminerChargement();
+                synchronized (verrou) {
+                    courant = nouveau;
+                    enChargement = null;
+                    scn = scnLecture;
+                }
+                planifierRafraichissement();
+                logger.info("Index de complétion des {} chargé : {} clés en {} ms",
+                        nom, nouveau.index.taille(), System.currentTimeMillis() - debut);
+            } catch (RuntimeException e) {
+                logger.error("Erreur lors du chargement de l'index de complétion des {}", nom, e);
+                synchronized (verrou) {
+                    enChargement = null;
+                }
+            }
+        }
+    }
+
+    private static final Source<Patient> PATIENTS = new Source<>("patients", "PATIENT", Patient::getId,
+            p -> new String[]{p.getNom() + " " + p.getPrenom(), p.getPrenom() + " " + p.getNom(), p.getCin()},
+            false, AutocompletionService::lirePatients, ids -> new PatientDAOImpl().findByIds(ids));
+
+    private static final Source<Medecin> MEDECINS = new Source<>("medecins", "MEDECIN", Medecin::getId,
+            m -> new String[]{m.getNom() + " " + m.getPrenom(), m.getPrenom() + " " + m.getNom(), m.getNumeroOrdre()},
+            true, pages -> pages.accept(new MedecinDAOImpl().findAll()), ids -> new MedecinDAOImpl().findByIds(ids));
+
+    private static final Source<Medicament> MEDICAMENTS = new Source<>("medicaments", "MEDICAMENT", Medicament::getId,
+            m -> new String[]{m.getNomCommercial()},
+            true, pages -> pages.accept(new MedicamentDAOImpl().findAll()), ids -> new MedicamentDAOImpl().findByIds(ids));
+
+    private final IPatientDAO patientDAO;
+    private final IMedecinDAO medecinDAO;
+    private final IMedicamentDAO medicamentDAO;
+
+    public AutocompletionService() {
+        this.patientDAO = new PatientDAOImpl();
+        this.medecinDAO = new MedecinDAOImpl();
+        this.medicamentDAO = new MedicamentDAOImpl();
+    }
+
+    /**
+     * Lance le chargement des trois index (à l'ouverture d'un formulaire)
+     */
+    public void charger() {
+        PATIENTS.charger();
+        MEDECINS.charger();
+        MEDICAMENTS.charger();
+    }
+
+    /**
+     * Patients dont le nom, le prénom (dans un sens ou dans l'autre) ou le CIN commence par le texte
+     * @return Au plus limite patients, par ordre alphabétique de la clé trouvée
+     */
+    public List<Patient> completerPatients(String texte, int limite) {
+        if (texte == null || texte.isBlank()) {
+            return List.of();
+        }
+        Etat<Patient> etat = PATIENTS.pret();
+        if (etat == null) {
+            // Index pas encore prêt : recherche des patients (index plein texte ou base)
+            return new RecherchePatientsService().rechercher(texte, limite);
+        }
+        List<Long> ids = etat.index.completer(texte, limite);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Patient> patients = patientDAO.findByIds(ids);
+        List<Patient> resultat = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Patient patient = patients.get(id);
+            if (patient != null) {
+                resultat.add(patient);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Médecins dont le nom, le prénom ou le numéro d'ordre commence par le texte
+     */
+    public List<Medecin> completerMedecins(String texte, int limite) {
+        if (texte == null || texte.isBlank()) {
+            return List.of();
+        }
+        if (MEDECINS.pret() == null) {
+            // Index pas encore prêt : même recherche par préfixe en base (sans repliement des accents)
+            try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+                return medecinDAO.findParPrefixe(texte, limite);
+            }
+        }
+        return completerEnMemoire(MEDECINS, texte, limite);
+    }
+
+    /**
+     * Médicaments dont le nom commercial commence par le texte
+     */
+    public List<Medicament> completerMedicaments(String texte, int limite) {
+        if (texte == null || texte.isBlank()) {
+            return List.of();
+        }
+        if (MEDICAMENTS.pret() == null) {
+            // Index pas encore prêt : même recherche par préfixe en base (sans repliement des accents)
+            try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+                return medicamentDAO.findParPrefixe(texte, limite);
+            }
+        }
+        return completerEnMemoire(MEDICAMENTS, texte, limite);
+    }
+
+    public void patientEnregistre(Patient patient) {
+        PATIENTS.enregistre(patient);
+    }
+
+    public void patientSupprime(Long id) {
+        PATIENTS.supprime(id);
+    }
+
+    public void medecinEnregistre(Medecin medecin) {
+        MEDECINS.enregistre(medecin);
+    }
+
+    public void medecinSupprime(Long id) {
+        MEDECINS.supprime(id);
+    }
+
+    public void medicamentEnregistre(Medicament medicament) {
+        MEDICAMENTS.enregistre(medicament);
+    }
+
+    public void medicamentSupprime(Long id) {
+        MEDICAMENTS.supprime(id);
+    }
+
+    /**
+     * Recharge les index depuis la base (après un import en masse, qui ne passe pas par les services)
+     */
+    public void reconstruirePatients() {
+        PATIENTS.reconstruire();
+    }
+
+    public void reconstruireMedecins() {
+        MEDECINS.reconstruire();
+    }
+
+    public void reconstruireMedicaments() {
+        MEDICAMENTS.reconstruire();
+    }
+
+    private static <T> List<T> completerEnMemoire(Source<T> source, String texte, int limite) {
+        if (texte == null || texte.isBlank()) {
+            return List.of();
+        }
+        Etat<T> etat = source.pret();
+        if (etat == null) {
+            return List.of();
+        }
+        List<T> resultat = new ArrayList<>();
+        for (Long id : etat.index.completer(texte, limite)) {
+            T objet = etat.objets.get(id);
+            if (objet != null) {
+                resultat.add(objet);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Un seul thread pour les trois listes, démarré au premier index chargé
+     */
+    private static synchronized void planifierRafraichissement() {
+        if (rafraichissement != null) {
+            return;
+        }
+        rafraichissement = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "healthcare-autocompletion-maj");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rafraichissement.scheduleWithFixedDelay(() -> {
+            PATIENTS.rafraichir();
+            MEDECINS.rafraichir();
+            MEDICAMENTS.rafraichir();
+        }, RAFRAICHISSEMENT_SECONDES, RAFRAICHISSEMENT_SECONDES, TimeUnit.SECONDS);
+    }
+
+    private static void lirePatients(Consumer<List<Patient>> pages) {
+        IPatientDAO dao = new PatientDAOImpl();
+        long apresId = 0;
+        while (true) {
+            List<Patient> page = dao.findPage(apresId, TAILLE_PAGE);
+            pages.accept(page);
+            if (page.size() < TAILLE_PAGE) {
+                break;
+            }
+            apresId = page.get(page.size() - 1).getId();
+        }
+    }
+}
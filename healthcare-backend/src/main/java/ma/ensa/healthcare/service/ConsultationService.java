@@ -4,6 +4,7 @@ import ma.ensa.healthcare.service.*;
 import ma.ensa.healthcare.dao.impl.ConsultationDAOImpl;
 import ma.ensa.healthcare.dao.interfaces.IConsultationDAO;
 import ma.ensa.healthcare.model.Consultation;
+import ma.ensa.healthcare.model.RendezVous;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,9 +19,11 @@ public class ConsultationService {
     private static final Logger logger = LoggerFactory.getLogger(ConsultationService.class);
     private final IConsultationDAO consultationDAO;
     private final RendezVousService rendezVousService = new RendezVousService();
+    private final RechercheConsultationsService recherche;
 
     public ConsultationService() {
         this.consultationDAO = new ConsultationDAOImpl();
+        this.recherche = new RechercheConsultationsService();
     }
 
     /**
@@ -37,6 +40,7 @@ public class ConsultationService {
         
         // Sauvegarder
         Consultation saved = consultationDAO.save(c);
+        indexerNotes(saved);
         logger.info("Consultation enregistrée avec succès : ID {}", saved.getId());
         
         return saved;
@@ -104,6 +108,11 @@ public class ConsultationService {
         
         validerConsultation(c);
         consultationDAO.update(c);
+        // Relue : la date n'est pas modifiable et peut manquer dans l'objet reçu
+        Consultation modifiee = consultationDAO.findById(c.getId());
+        if (modifiee != null) {
+            indexerNotes(modifiee);
+        }
         logger.info("Consultation modifiée : ID {}", c.getId());
     }
 
@@ -116,9 +125,41 @@ public class ConsultationService {
         }
         
         consultationDAO.delete(id);
+        recherche.consultationSupprimee(id);
         logger.info("Consultation supprimée : ID {}", id);
     }
 
+    /**
+     * Recherche plein texte dans les notes (symptômes, diagnostic, observations, prescription,
+     * examens demandés), sans accents ni casse et au singulier comme au pluriel.
+     * Exemple : hypertension dyslipidémie -tabac, ou "insuffisance rénale" OU néphropathie
+     * @param debut Première date de consultation retenue (null : pas de limite)
+     * @param fin Dernière date de consultation retenue (null : pas de limite)
+     * @param idMedecin Médecin des consultations retenues (null : tous)
+     * @return Les consultations trouvées, les plus pertinentes d'abord
+     * @throws IllegalStateException Si l'index des notes est encore en chargement (voir rechercheNotesPrete)
+     */
+    public List<Consultation> rechercherNotes(String requete, LocalDate debut, LocalDate fin, Long idMedecin, int limite) {
+        if (debut != null && fin != null && debut.isAfter(fin)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        return recherche.rechercher(requete, debut, fin, idMedecin, limite);
+    }
+
+    /**
+     * Charge l'index des notes en arrière-plan (à l'ouverture de l'écran des consultations)
+     */
+    public void preparerRechercheNotes() {
+        recherche.charger();
+    }
+
+    /**
+     * L'index des notes est-il chargé ? (sinon rechercherNotes lève une IllegalStateException)
+     */
+    public boolean rechercheNotesPrete() {
+        return recherche.estPret();
+    }
+
     /**
      * Récupère les consultations d'un patient
      */
@@ -138,4 +179,13 @@ public class ConsultationService {
         }
         return consultationDAO.findByMedecinId(medecinId);
     }
+
+    /**
+     * Met à jour l'index des notes (le médecin est celui du rendez-vous)
+     */
+    private void indexerNotes(Consultation c) {
+        RendezVous rdv = rendezVousService.getRendezVousById(c.getIdRendezVous());
+        Long idMedecin = rdv != null && rdv.getMedecin() != null ? rdv.getMedecin().getId() : null;
+        recherche.consultationEnregistree(c, idMedecin);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.HikariCPConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.DoublonPatientDAOImpl;
+import ma.ensa.healthcare.dao.impl.PatientDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IDoublonPatientDAO;
+import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
+import ma.ensa.healthcare.dto.BilanDedoublonnage;
+import ma.ensa.healthcare.model.DoublonPatient;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.enums.StatutDoublon;
+import ma.ensa.healthcare.search.DetectionDoublons;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Détection en masse des doublons de patients et revue des groupes proposés.
+ *
+ * La détection lit toute la table PATIENT (pool arrière-plan, lecture seule), compare les patients
+ * par blocs (voir DetectionDoublons) et remplace les propositions encore à vérifier de DOUBLON_PATIENT.
+ * Les groupes déjà confirmés ou rejetés sont conservés d'une détection à l'autre ; une revue
+ * ne change que les lignes encore à vérifier du groupe.
+ * Lancement et revue en ligne de commande : voir {@link #main(String[])}.
+ */
+public class DedoublonnageService {
+    private static final Logger logger = LoggerFactory.getLogger(DedoublonnageService.class);
+
+    private static final int TAILLE_PAGE = 5000;
+
+    private final IPatientDAO patientDAO;
+    private final IDoublonPatientDAO doublonDAO;
+
+    public DedoublonnageService() {
+        this.patientDAO = new PatientDAOImpl();
+        this.doublonDAO = new DoublonPatientDAOImpl();
+    }
+
+    /**
+     * Compare tous les patients et enregistre les groupes de doublons probables à vérifier
+     * @return Le bilan de la détection
+     */
+    public BilanDedoublonnage detecterDoublons() {
+        long debut = System.currentTimeMillis();
+        PropertyManager props = PropertyManager.getInstance();
+        double seuil = Double.parseDouble(props.getProperty("dedoublonnage.seuil", "0.80"));
+        int tailleBlocMax = props.getIntProperty("dedoublonnage.tailleBlocMax", 200);
+        DetectionDoublons detection = new DetectionDoublons(seuil, tailleBlocMax);
+
+        DetectionDoublons.Resultat resultat;
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+            try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+                long apresId = 0;
+                while (true) {
+                    List<Patient> page = patientDAO.findPage(apresId, TAILLE_PAGE);
+                    detection.ajouter(page);
+                    if (page.size() < TAILLE_PAGE) {
+                        break;
+                    }
+                    apresId = page.get(page.size() - 1).getId();
+                }
+            }
+            logger.info("{} patients lus pour le dédoublonnage en {} ms",
+                    detection.taille(), System.currentTimeMillis() - debut);
+
+            resultat = detection.detecter();
+            doublonDAO.remplacerPropositions(resultat.getDoublons());
+        }
+
+        BilanDedoublonnage bilan = new BilanDedoublonnage(detection.taille(), resultat.getBlocs(),
+                resultat.getPairesComparees(), resultat.getLiens(), resultat.getGroupes(),
+                resultat.getDoublons().size(), System.currentTimeMillis() - debut);
+        logger.info("{}", bilan);
+        return bilan;
+    }
+
+    /**
+     * Groupes restant à vérifier, du plus probable au moins probable
+     * @return Les lignes de chaque groupe, par identifiant de groupe
+     */
+    public Map<Long, List<DoublonPatient>> getGroupesAVerifier() {
+        return doublonDAO.findByStatut(StatutDoublon.A_VERIFIER).stream()
+                .collect(Collectors.groupingBy(DoublonPatient::getIdGroupe, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Le groupe désigne bien une seule personne (la fusion des dossiers reste manuelle)
+     */
+    public void confirmerGroupe(Long idGroupe) {
+        changerStatut(idGroupe, StatutDoublon.CONFIRME);
+    }
+
+    /**
+     * Le groupe réunit des personnes distinctes : il ne sera plus proposé
+     */
+    public void rejeterGroupe(Long idGroupe) {
+        changerStatut(idGroupe, StatutDoublon.REJETE);
+    }
+
+    private void changerStatut(Long idGroupe, StatutDoublon statut) {
+        if (idGroupe == null) {
+            throw new IllegalArgumentException("Groupe de doublons invalide");
+        }
+        if (doublonDAO.updateStatutGroupe(idGroupe, statut) == 0) {
+            throw new IllegalArgumentException("Aucune ligne à vérifier dans le groupe de doublons " + idGroupe);
+        }
+        logger.info("Groupe de doublons {} : {}", idGroupe, statut);
+    }
+
+    /**
+     * Outil en ligne de commande : detecter | lister | confirmer idGroupe | rejeter idGroupe
+     */
+    public static void main(String[] args) {
+        String commande = args.length > 0 ? args[0] : "";
+        Long idGroupe = args.length > 1 ? Long.valueOf(args[1]) : null;
+        try {
+            DedoublonnageService service = new DedoublonnageService();
+            switch (idGroupe == null && commande.matches("confirmer|rejeter") ? "" : commande) {
+                case "detecter" -> System.out.println(service.detecterDoublons());
+                case "lister" -> {
+                    for (Map.Entry<Long, List<DoublonPatient>> groupe : service.getGroupesAVerifier().entrySet()) {
+                        System.out.println("Groupe " + groupe.getKey());
+                        for (DoublonPatient d : groupe.getValue()) {
+                            System.out.println("  patient " + d.getIdPatient() + " ~ " + d.getIdPatientProche()
+                                    + String.format(" (%.2f) ", d.getScore()) + d.getMotifs());
+                        }
+                    }
+                }
+                case "confirmer" -> service.confirmerGroupe(idGroupe);
+                case "rejeter" -> service.rejeterGroupe(idGroupe);
+                default -> {
+                    System.err.println("Usage : DedoublonnageService detecter|lister|confirmer idGroupe|rejeter idGroupe");
+                    System.exit(2);
+                }
+            }
+        } finally {
+            HikariCPConfig.shutdown();
+        }
+    }
+}
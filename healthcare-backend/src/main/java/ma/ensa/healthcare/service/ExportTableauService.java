@@ -0,0 +1,177 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.dao.impl.ConsultationDAOImpl;
+import ma.ensa.healthcare.dao.impl.FactureDAOImpl;
+import ma.ensa.healthcare.dao.impl.PatientDAOImpl;
+import ma.ensa.healthcare.dao.impl.RendezVousDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IConsultationDAO;
+import ma.ensa.healthcare.dao.interfaces.IFactureDAO;
+import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
+import ma.ensa.healthcare.dao.interfaces.IRendezVousDAO;
+import ma.ensa.healthcare.dto.FiltreConsultations;
+import ma.ensa.healthcare.dto.FiltreFactures;
+import ma.ensa.healthcare.dto.FiltrePatients;
+import ma.ensa.healthcare.dto.FiltreRendezVous;
+import ma.ensa.healthcare.model.Consultation;
+import ma.ensa.healthcare.model.Facture;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.RendezVous;
+import ma.ensa.healthcare.util.ColonneTableau;
+import ma.ensa.healthcare.util.ColonnesTableaux;
+import ma.ensa.healthcare.util.EcrivainTableau;
+import ma.ensa.healthcare.util.ReferencesTableau;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Export CSV/XLSX des listes (patients, rendez-vous, consultations, factures).
+ *
+ * La table est relue page par page (pagination par ID) et chaque page est écrite
+ * puis oubliée avant de lire la suivante : la mémoire ne dépend pas du nombre de lignes.
+ * Les patients et rendez-vous liés sont chargés en bloc pour chaque page.
+ * Les colonnes sont celles des écrans (voir ColonnesTableaux), les lignes celles que
+ * sélectionnent leurs critères (FiltrePatients, FiltreRendezVous, FiltreConsultations, FiltreFactures).
+ */
+public class ExportTableauService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportTableauService.class);
+
+    private static final int TAILLE_PAGE = 2000;
+
+    /**
+     * Lecture d'une page par ID croissant
+     */
+    private interface Pages<T> {
+        List<T> lire(long apresId, int limite);
+    }
+
+    private final IPatientDAO patientDAO;
+    private final IRendezVousDAO rdvDAO;
+    private final IConsultationDAO consultationDAO;
+    private final IFactureDAO factureDAO;
+
+    public ExportTableauService() {
+        this.patientDAO = new PatientDAOImpl();
+        this.rdvDAO = new RendezVousDAOImpl();
+        this.consultationDAO = new ConsultationDAOImpl();
+        this.factureDAO = new FactureDAOImpl();
+    }
+
+    /**
+     * @param filtre Recherche de l'écran Patients (FiltrePatients.TOUS : tous)
+     * @return Le nombre de lignes exportées
+     */
+    public long exporterPatients(FiltrePatients filtre, Path fichier, EcrivainTableau.Format format) {
+        return exporter("patients", fichier, format, ColonnesTableaux.PATIENTS,
+                (apresId, limite) -> patientDAO.findPage(filtre, apresId, limite), Patient::getId,
+                page -> ReferencesTableau.AUCUNE);
+    }
+
+    /**
+     * @param filtre Critères de l'écran Rendez-vous (FiltreRendezVous.TOUS : tous)
+     */
+    public long exporterRendezVous(FiltreRendezVous filtre, Path fichier, EcrivainTableau.Format format) {
+        return exporter("rendez-vous", fichier, format, ColonnesTableaux.RENDEZ_VOUS,
+                (apresId, limite) -> rdvDAO.findPage(filtre, apresId, limite), RendezVous::getId,
+                this::referencesRendezVous);
+    }
+
+    /**
+     * @param filtre Critères de l'écran Consultations (FiltreConsultations.TOUTES : toutes)
+     */
+    public long exporterConsultations(FiltreConsultations filtre, Path fichier, EcrivainTableau.Format format) {
+        return exporter("consultations", fichier, format, ColonnesTableaux.CONSULTATIONS,
+                (apresId, limite) -> consultationDAO.findPage(filtre, apresId, limite), Consultation::getId,
+                this::referencesConsultations);
+    }
+
+    /**
+     * @param filtre Critères de l'écran Factures (FiltreFactures.TOUTES : toutes)
+     */
+    public long exporterFactures(FiltreFactures filtre, Path fichier, EcrivainTableau.Format format) {
+        return exporter("factures", fichier, format, ColonnesTableaux.FACTURES,
+                (apresId, limite) -> factureDAO.findPage(filtre, apresId, limite), Facture::getId,
+                this::referencesFactures);
+    }
+
+    // Objets liés d'une liste, chargés en bloc (pages de l'export, ou liste affichée par un écran)
+
+    public ReferencesTableau referencesRendezVous(List<RendezVous> rdvs) {
+        return ReferencesTableau.de(patientsDe(rdvs, RendezVous::getIdPatient), Map.of());
+    }
+
+    public ReferencesTableau referencesConsultations(List<Consultation> consultations) {
+        Set<Long> idsRdv = new HashSet<>();
+        for (Consultation c : consultations) {
+            idsRdv.add(c.getIdRendezVous());
+        }
+        Map<Long, RendezVous> rdvs = rdvDAO.findByIds(idsRdv);
+        return ReferencesTableau.de(patientsDe(List.copyOf(rdvs.values()), RendezVous::getIdPatient), rdvs);
+    }
+
+    public ReferencesTableau referencesFactures(List<Facture> factures) {
+        return ReferencesTableau.de(patientsDe(factures, Facture::getIdPatient), Map.of());
+    }
+
+    private <T> long exporter(String nature, Path fichier, EcrivainTableau.Format format,
+                              List<ColonneTableau<T>> colonnes, Pages<T> pages, ToLongFunction<T> id,
+                              Function<List<T>, ReferencesTableau> references) {
+        long debut = System.currentTimeMillis();
+        long ecrites = 0;
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule();
+             EcrivainTableau ecrivain = EcrivainTableau.ouvrir(fichier, format)) {
+            ecrivain.entete(colonnes);
+            long apresId = 0;
+            while (true) {
+                List<T> page = pages.lire(apresId, TAILLE_PAGE);
+                if (page.isEmpty()) {
+                    break;
+                }
+                ReferencesTableau refs = references.apply(page);
+                for (T ligne : page) {
+                    ecrivain.ligne(ligne, colonnes, refs);
+                }
+                ecrites += page.size();
+                apresId = id.applyAsLong(page.get(page.size() - 1));
+                if (page.size() < TAILLE_PAGE) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Erreur lors de l'export des {} vers {}", nature, fichier, e);
+            supprimer(fichier);
+            throw new RuntimeException("Impossible d'exporter les " + nature + " : " + e.getMessage(), e);
+        }
+        logger.info("Export {} des {} : {} lignes en {} ms -> {}",
+                format, nature, ecrites, System.currentTimeMillis() - debut, fichier);
+        return ecrites;
+    }
+
+    private <T> Map<Long, Patient> patientsDe(List<T> page, Function<T, Long> idPatient) {
+        Set<Long> ids = new HashSet<>();
+        for (T ligne : page) {
+            ids.add(idPatient.apply(ligne));
+        }
+        return patientDAO.findByIds(ids);
+    }
+
+    private static void supprimer(Path fichier) {
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            logger.warn("Impossible de supprimer l'export incomplet {}", fichier, e);
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package ma.ensa.healthcare.service;
 
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PropertyManager;
 import ma.ensa.healthcare.dao.impl.FactureDAOImpl;
+import ma.ensa.healthcare.dao.impl.PaiementDAOImpl;
 import ma.ensa.healthcare.dao.interfaces.IFactureDAO;
-import ma.ensa.healthcare.model.Consultation;
+import ma.ensa.healthcare.dao.interfaces.IPaiementDAO;
+import ma.ensa.healthcare.dto.BilanFacturationMasse;
+import ma.ensa.healthcare.dto.EcartPaiementDTO;
+import ma.ensa.healthcare.dto.FiltreFactures;
+import ma.ensa.healthcare.dto.TotauxFacturesDTO;
 import ma.ensa.healthcare.model.Facture;
+import ma.ensa.healthcare.model.Paiement;
 import ma.ensa.healthcare.model.Patient;
-import ma.ensa.healthcare.model.RendezVous;
 import ma.ensa.healthcare.service.*;
 import ma.ensa.healthcare.model.enums.ModePaiement;
 import ma.ensa.healthcare.model.enums.StatutPaiement;
@@ -15,73 +22,97 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Service métier pour la gestion des factures et paiements
  */
 public class FacturationService {
     private static final Logger logger = LoggerFactory.getLogger(FacturationService.class);
+    public static final int TAILLE_PAGE_RECHERCHE = 200;
     private final IFactureDAO factureDAO;
-    private final RendezVousService rendezVousService = new RendezVousService();
+    private final IPaiementDAO paiementDAO;
 
     public FacturationService() {
         this.factureDAO = new FactureDAOImpl();
+        this.paiementDAO = new PaiementDAOImpl();
     }
 
     /**
-     * Génère une facture pour une consultation
+     * Génère (ou complète si encore impayée) la facture d'une consultation.
+     * Patient, tarif, numéro et upsert sont traités en un seul aller-retour base.
      * 
-     * @param consultation La consultation
+     * @param idConsultation L'identifiant de la consultation
      * @param montantMedicaments Le montant total des médicaments prescrits
-     * @return La facture créée
+     * @return La facture créée ou mise à jour
      */
     public Facture genererFacture(Long idConsultation, BigDecimal montantMedicaments) {
-        // Validation
-        ConsultationService consultationService = new ConsultationService();
-        Consultation consultation = consultationService.getConsultationById(idConsultation);
-        if (consultation == null || consultation.getId() == null) {
+        if (idConsultation == null) {
             throw new IllegalArgumentException("Consultation invalide");
         }
-        
-        if (consultation.getIdRendezVous() == 0) {
-            throw new IllegalArgumentException("Patient introuvable dans la consultation");
+
+        Facture facture = factureDAO.genererPourConsultation(idConsultation, montantMedicaments);
+        if (facture == null) {
+            throw new IllegalArgumentException("Consultation invalide");
         }
-        
-        // Récupérer le patient
-        RendezVous rdvAssocie = rendezVousService.getRendezVousById(consultation.getIdRendezVous());
-        Long idPatient = rdvAssocie.getIdPatient();
-        // Montants
-        BigDecimal montantConsultation = consultation.getTarifConsultation() != null 
-            ? consultation.getTarifConsultation() 
-            : BigDecimal.ZERO;
-            
-        BigDecimal montantMed = montantMedicaments != null 
-            ? montantMedicaments 
-            : BigDecimal.ZERO;
-            
-        BigDecimal montantTotal = montantConsultation.add(montantMed);
-        
-        // Générer le numéro de facture
-        String numeroFacture = genererNumeroFacture();
-        
-        // Créer la facture
-        Facture facture = Facture.builder()
-                .numeroFacture(numeroFacture)
-                .idPatient(idPatient)
-                .idConsultation(consultation.getId())
-                .dateFacture(LocalDate.now())
-                .montantConsultation(montantConsultation)
-                .montantMedicaments(montantMed)
-                .montantTotal(montantTotal)
-                .montantPaye(BigDecimal.ZERO)
-                .statutPaiement(StatutPaiement.EN_ATTENTE)
-                .build();
-        
-        Facture saved = factureDAO.save(facture);
+
         logger.info("Facture générée : {} - Montant total : {} MAD", 
-                   saved.getNumeroFacture(), saved.getMontantTotal());
-        
-        return saved;
+                   facture.getNumeroFacture(), facture.getMontantTotal());
+        return facture;
+    }
+
+    /**
+     * Page de factures par ID croissant, pour les parcours complets (exports)
+     * @param filtre Critères de sélection (FiltreFactures.TOUTES : toutes)
+     * @param apresId Dernier ID de la page précédente (0 au départ)
+     */
+    public List<Facture> getPageFactures(FiltreFactures filtre, long apresId, int limite) {
+        return factureDAO.findPage(filtre, apresId, limite);
+    }
+
+    /**
+     * Nombre et montants cumulés des factures retenues par le filtre
+     */
+    public TotauxFacturesDTO getTotauxFactures(FiltreFactures filtre) {
+        // Écran de liste : éligible à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return factureDAO.getTotaux(filtre);
+        }
+    }
+
+    /**
+     * Page de factures retenues par le filtre, par ID croissant ; le filtrage est fait par la base
+     * @param apresId Dernier ID de la page affichée (0 pour la première)
+     * @return Au plus TAILLE_PAGE_RECHERCHE factures ; une page plus courte est la dernière
+     */
+    public List<Facture> rechercherFactures(FiltreFactures filtre, long apresId) {
+        // Écran de liste : éligible à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return factureDAO.findPage(filtre, apresId, TAILLE_PAGE_RECHERCHE);
+        }
+    }
+
+    /**
+     * Facture en masse les consultations non facturées d'une période (bornes incluses).
+     * Relancer sur la même période reprend un traitement interrompu.
+     */
+    public BilanFacturationMasse genererFacturesEnMasse(LocalDate dateDebut, LocalDate dateFin) {
+        return genererFacturesEnMasse(dateDebut, dateFin, null);
+    }
+
+    /**
+     * @param progression Notifié après chaque page validée puis à la fin (peut être null)
+     */
+    public BilanFacturationMasse genererFacturesEnMasse(LocalDate dateDebut, LocalDate dateFin,
+                                                        Consumer<BilanFacturationMasse> progression) {
+        if (dateDebut == null || dateFin == null || dateFin.isBefore(dateDebut)) {
+            throw new IllegalArgumentException("Période de facturation invalide");
+        }
+        int taillePage = PropertyManager.getInstance().getIntProperty("facture.masse.page", 500);
+        return factureDAO.genererFacturesEnMasse(dateDebut, dateFin, taillePage, progression);
     }
 
     /**
@@ -99,11 +130,31 @@ public class FacturationService {
     }
 
     /**
-     * Enregistre un paiement (complet ou partiel)
+     * Enregistre un paiement (complet ou partiel) et attend sa validation en base
      */
     public void encaisserPaiement(Long factureId, BigDecimal montant, 
                                    ModePaiement modePaiement, LocalDate datePaiement) {
+        try {
+            encaisserPaiementAsync(UUID.randomUUID().toString(), factureId, montant, modePaiement, datePaiement).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Dépose un paiement dans le journal sans attendre l'écriture.
+     * Une nouvelle tentative avec la même clé (double clic, erreur réseau) est sans effet.
+     * 
+     * @param cleIdempotence Clé unique générée par le poste de caisse (UUID)
+     * @return true une fois enregistré, false si la clé était déjà enregistrée
+     */
+    public CompletableFuture<Boolean> encaisserPaiementAsync(String cleIdempotence, Long factureId, BigDecimal montant,
+                                                             ModePaiement modePaiement, LocalDate datePaiement) {
         // Validation
+        if (cleIdempotence == null || cleIdempotence.isBlank()) {
+            throw new IllegalArgumentException("Clé d'idempotence requise");
+        }
+
         if (factureId == null) {
             throw new IllegalArgumentException("ID facture requis");
         }
@@ -120,11 +171,52 @@ public class FacturationService {
             datePaiement = LocalDate.now();
         }
         
-        // Enregistrer via le DAO
-        factureDAO.enregistrerPaiement(factureId, montant, modePaiement, datePaiement);
-        
-        logger.info("Paiement enregistré pour facture {} : {} MAD via {}", 
-                   factureId, montant, modePaiement);
+        Paiement paiement = Paiement.builder()
+                .cleIdempotence(cleIdempotence)
+                .idFacture(factureId)
+                .montant(montant)
+                .modePaiement(modePaiement)
+                .datePaiement(datePaiement)
+                .build();
+
+        return JournalPaiements.getInstance().soumettre(paiement).thenApply(enregistre -> {
+            if (enregistre) {
+                logger.info("Paiement enregistré pour facture {} : {} MAD via {}", 
+                           factureId, montant, modePaiement);
+            } else {
+                logger.info("Paiement {} déjà enregistré pour facture {}, ignoré", cleIdempotence, factureId);
+            }
+            return enregistre;
+        });
+    }
+
+    /**
+     * Factures dont le montant payé ne correspond pas au journal des paiements
+     */
+    public List<EcartPaiementDTO> verifierSoldesPaiements() {
+        List<EcartPaiementDTO> ecarts = paiementDAO.trouverEcarts();
+        if (!ecarts.isEmpty()) {
+            logger.warn("{} factures en écart avec le journal des paiements", ecarts.size());
+        }
+        return ecarts;
+    }
+
+    /**
+     * Réaligne les soldes des factures sur le journal des paiements
+     * @return Nombre de factures corrigées
+     */
+    public int corrigerSoldesPaiements() {
+        return paiementDAO.recalculerSoldes();
+    }
+
+    /**
+     * Historique des paiements d'une facture
+     */
+    public List<Paiement> getPaiementsFacture(Long factureId) {
+        if (factureId == null) {
+            throw new IllegalArgumentException("ID facture requis");
+        }
+        return paiementDAO.findByFactureId(factureId);
     }
 
     /**
@@ -141,7 +233,10 @@ public class FacturationService {
      * Récupère toutes les factures
      */
     public List<Facture> getToutesLesFactures() {
-        return factureDAO.findAll();
+        // Écran de liste : éligible à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return factureDAO.findAll();
+        }
     }
 
     /**
@@ -171,6 +266,26 @@ public class FacturationService {
         return factureDAO.findFacturesImpayees();
     }
 
+    /**
+     * Récupère les factures émises sur une période (dates incluses)
+     */
+    public List<Facture> getFacturesPeriode(LocalDate dateDebut, LocalDate dateFin) {
+        if (dateDebut == null || dateFin == null || dateFin.isBefore(dateDebut)) {
+            throw new IllegalArgumentException("Période invalide");
+        }
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return factureDAO.findByPeriode(dateDebut, dateFin);
+        }
+    }
+
+    /**
+     * Page de factures d'une période par ID croissant (remplissage des rapports)
+     * @param apresId Dernier ID de la page précédente (0 au départ)
+     */
+    public List<Facture> getPageFacturesPeriode(LocalDate dateDebut, LocalDate dateFin, long apresId, int limite) {
+        return factureDAO.findPagePeriode(dateDebut, dateFin, apresId, limite);
+    }
+
     /**
      * Récupère les factures par statut
      */
@@ -0,0 +1,463 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.HikariCPConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.DepartementDAOImpl;
+import ma.ensa.healthcare.dao.impl.MedecinDAOImpl;
+import ma.ensa.healthcare.dao.impl.MedicamentDAOImpl;
+import ma.ensa.healthcare.dao.impl.PatientDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IDepartementDAO;
+import ma.ensa.healthcare.dao.interfaces.IMedecinDAO;
+import ma.ensa.healthcare.dao.interfaces.IMedicamentDAO;
+import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
+import ma.ensa.healthcare.dto.BilanImport;
+import ma.ensa.healthcare.model.Departement;
+import ma.ensa.healthcare.model.Medecin;
+import ma.ensa.healthcare.model.Medicament;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.enums.Sexe;
+import ma.ensa.healthcare.util.LecteurCsv;
+import ma.ensa.healthcare.validation.MedecinValidator;
+import ma.ensa.healthcare.validation.PatientValidator;
+import ma.ensa.healthcare.validation.ValidationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Import CSV en masse des patients, médecins et médicaments (reprise de données d'une clinique).
+ *
+ * Le fichier est projeté en mémoire et découpé en morceaux analysés et validés en parallèle
+ * (mêmes règles que la saisie : PatientValidator, MedecinValidator, ValidationUtils).
+ * Les morceaux sont ensuite parcourus dans l'ordre du fichier pour écarter les doublons
+ * (clé déjà en base ou déjà vue plus haut dans le fichier), et les lignes retenues partent
+ * par lots JDBC sur plusieurs connexions du pool arrière-plan.
+ * Un lot refusé par la base est rejoué ligne par ligne pour n'écarter que les lignes fautives.
+ * Au plus deux morceaux par thread d'analyse et deux lots par thread d'écriture sont en
+ * attente à la fois : la mémoire ne dépend pas de la taille du fichier.
+ * Les lignes écartées sont écrites dans &lt;fichier&gt;.erreurs.csv avec leur motif.
+ * Lancement en ligne de commande : voir {@link #main(String[])}.
+ */
+public class ImportCsvService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportCsvService.class);
+    private static final AtomicInteger numeroThread = new AtomicInteger();
+
+    private static final Set<String> FORMES = Set.of("COMPRIME", "SIROP", "INJECTION", "GELULE", "POMMADE");
+
+    private final IPatientDAO patientDAO;
+    private final IMedecinDAO medecinDAO;
+    private final IMedicamentDAO medicamentDAO;
+    private final IDepartementDAO departementDAO;
+
+    public ImportCsvService() {
+        this.patientDAO = new PatientDAOImpl();
+        this.medecinDAO = new MedecinDAOImpl();
+        this.medicamentDAO = new MedicamentDAOImpl();
+        this.departementDAO = new DepartementDAOImpl();
+    }
+
+    /**
+     * Importe des patients. Colonnes obligatoires : cin, nom, prenom, date_naissance, sexe ;
+     * facultatives : adresse, ville, code_postal, telephone, email, groupe_sanguin, allergies.
+     * Les doublons sont détectés sur le CIN.
+     */
+    public BilanImport importerPatients(String cheminCsv) {
+        Set<String> cins = avecPoolImport(patientDAO::findAllCins);
+        LocalDate aujourdhui = LocalDate.now();
+        BilanImport bilan = importer(Paths.get(cheminCsv), "patients",
+                new String[]{"cin", "nom", "prenom", "date_naissance", "sexe"},
+                ligne -> lirePatient(ligne, aujourdhui), Patient::getCin, cins, patientDAO::saveLot);
+        if (bilan.getImportees() > 0) {
+            // Les lots insérés ne passent pas par PatientService : les index de recherche sont rechargés
+            new RecherchePatientsService().reconstruire();
+            new AutocompletionService().reconstruirePatients();
+        }
+        return bilan;
+    }
+
+    /**
+     * Importe des médecins. Colonnes obligatoires : numero_ordre, nom, prenom, specialite,
+     * date_embauche, id_departement ; facultatives : telephone, email.
+     * Les doublons sont détectés sur le numéro d'ordre.
+     */
+    public BilanImport importerMedecins(String cheminCsv) {
+        Set<String> numeros = avecPoolImport(medecinDAO::findAllNumerosOrdre);
+        Set<Long> departements = new HashSet<>();
+        for (Departement d : avecPoolImport(departementDAO::findAll)) {
+            departements.add(d.getId());
+        }
+        BilanImport bilan = importer(Paths.get(cheminCsv), "médecins",
+                new String[]{"numero_ordre", "nom", "prenom", "specialite", "date_embauche", "id_departement"},
+                ligne -> lireMedecin(ligne, departements), Medecin::getNumeroOrdre, numeros, medecinDAO::saveLot);
+        if (bilan.getImportees() > 0) {
+            new AutocompletionService().reconstruireMedecins();
+        }
+        return bilan;
+    }
+
+    /**
+     * Importe des médicaments. Colonnes obligatoires : nom_commercial, principe_actif ;
+     * facultatives : forme, dosage, prix_unitaire, stock_disponible, stock_alerte.
+     * Les doublons sont détectés sur le nom commercial.
+     */
+    public BilanImport importerMedicaments(String cheminCsv) {
+        Set<String> noms = avecPoolImport(medicamentDAO::findAllNomsCommerciaux);
+        BilanImport bilan = importer(Paths.get(cheminCsv), "médicaments",
+                new String[]{"nom_commercial", "principe_actif"},
+                this::lireMedicament, Medicament::getNomCommercial, noms, medicamentDAO::saveLot);
+        if (bilan.getImportees() > 0) {
+            new AutocompletionService().reconstruireMedicaments();
+        }
+        return bilan;
+    }
+
+    private Patient lirePatient(LecteurCsv.Ligne ligne, LocalDate aujourdhui) {
+        String cin = ligne.get("cin");
+        String sexe = ligne.get("sexe");
+        String groupe = ligne.get("groupe_sanguin");
+        Patient patient = Patient.builder()
+                .cin(cin != null ? cin.toUpperCase() : null)
+                .nom(ligne.get("nom"))
+                .prenom(ligne.get("prenom"))
+                .dateNaissance(ligne.getDate("date_naissance"))
+                .sexe(lireSexe(sexe))
+                .adresse(ligne.get("adresse"))
+                .ville(ligne.get("ville"))
+                .codePostal(ligne.get("code_postal"))
+                .telephone(ligne.get("telephone"))
+                .email(ligne.get("email"))
+                .groupeSanguin(groupe != null ? groupe.toUpperCase() : null)
+                .allergies(ligne.get("allergies"))
+                .dateInscription(aujourdhui)
+                .build();
+        PatientValidator.validate(patient);
+        return patient;
+    }
+
+    private static Sexe lireSexe(String valeur) {
+        if (valeur == null) {
+            return null;
+        }
+        switch (valeur.toUpperCase()) {
+            case "M": return Sexe.M;
+            case "F": return Sexe.F;
+            default: throw new IllegalArgumentException("Sexe invalide : " + valeur + " (M ou F)");
+        }
+    }
+
+    private Medecin lireMedecin(LecteurCsv.Ligne ligne, Set<Long> departements) {
+        Long idDepartement = ligne.getLong("id_departement");
+        Departement departement = null;
+        if (idDepartement != null) {
+            departement = new Departement();
+            departement.setId(idDepartement);
+        }
+        Medecin medecin = Medecin.builder()
+                .numeroOrdre(ligne.get("numero_ordre"))
+                .nom(ligne.get("nom"))
+                .prenom(ligne.get("prenom"))
+                .specialite(ligne.get("specialite"))
+                .telephone(ligne.get("telephone"))
+                .email(ligne.get("email"))
+                .dateEmbauche(ligne.getDate("date_embauche"))
+                .departement(departement)
+                .build();
+        MedecinValidator.validate(medecin);
+        if (!departements.contains(idDepartement)) {
+            throw new IllegalArgumentException("Département inconnu : " + idDepartement);
+        }
+        return medecin;
+    }
+
+    private Medicament lireMedicament(LecteurCsv.Ligne ligne) {
+        String forme = ligne.get("forme");
+        Medicament medicament = Medicament.builder()
+                .nomCommercial(ligne.get("nom_commercial"))
+                .principeActif(ligne.get("principe_actif"))
+                .forme(forme != null ? forme.toUpperCase() : null)
+                .dosage(ligne.get("dosage"))
+                .prixUnitaire(ligne.getDecimal("prix_unitaire"))
+                .stockDisponible(ligne.getEntier("stock_disponible"))
+                .stockAlerte(ligne.getEntier("stock_alerte"))
+                .build();
+        // Mêmes règles que MedicamentService.createMedicament, plus les contraintes CHECK de la table
+        if (!ValidationUtils.isNotEmpty(medicament.getNomCommercial())) {
+            throw new IllegalArgumentException("Le nom commercial est obligatoire");
+        }
+        if (!ValidationUtils.isNotEmpty(medicament.getPrincipeActif())) {
+            throw new IllegalArgumentException("Le principe actif est obligatoire");
+        }
+        if (medicament.getForme() != null && !FORMES.contains(medicament.getForme())) {
+            throw new IllegalArgumentException("Forme invalide : " + forme + " (" + String.join(", ", FORMES) + ")");
+        }
+        if (medicament.getPrixUnitaire() != null && !ValidationUtils.isPositiveOrZero(medicament.getPrixUnitaire())) {
+            throw new IllegalArgumentException("Le prix unitaire doit être positif");
+        }
+        if ((medicament.getStockDisponible() != null && medicament.getStockDisponible() < 0)
+                || (medicament.getStockAlerte() != null && medicament.getStockAlerte() < 0)) {
+            throw new IllegalArgumentException("Les stocks doivent être positifs");
+        }
+        return medicament;
+    }
+
+    /**
+     * Pipeline commun : analyse parallèle, dédoublonnage dans l'ordre du fichier, écriture par lots
+     */
+    private <T> BilanImport importer(Path csv, String nature, String[] colonnes,
+                                     Function<LecteurCsv.Ligne, T> conversion, Function<T, String> cle,
+                                     Set<String> clesConnues, Function<List<T>, boolean[]> insertion) {
+        long debut = System.currentTimeMillis();
+        PropertyManager props = PropertyManager.getInstance();
+        int tailleLot = Math.max(1, props.getIntProperty("import.csv.tailleLot", 500));
+        int maxPool = props.getIntProperty("db.hikari." + PoolConnexion.ARRIERE_PLAN.getCle() + ".maximumPoolSize",
+                                           PoolConnexion.ARRIERE_PLAN.getMaximumPoolSizeParDefaut());
+        int nbEcrivains = Math.max(1, Math.min(props.getIntProperty("import.threads", 4), maxPool));
+        int nbAnalyseurs = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+        LecteurCsv lecteur;
+        try {
+            lecteur = LecteurCsv.ouvrir(csv, props.getIntProperty("import.csv.lignesParMorceau", 5000));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de lire " + csv, e);
+        }
+        lecteur.verifierColonnes(colonnes);
+
+        ExecutorService analyse = creerExecuteur(nbAnalyseurs, "healthcare-import-analyse-");
+        ExecutorService ecriture = creerExecuteur(nbEcrivains, "healthcare-import-ecriture-");
+        Queue<Rejet> rejets = new ConcurrentLinkedQueue<>();
+        AtomicLong importees = new AtomicLong();
+        AtomicLong doublons = new AtomicLong();
+        long lues = 0;
+        try {
+            int fenetreAnalyse = nbAnalyseurs * 2;
+            int fenetreEcriture = nbEcrivains * 2;
+            Iterator<LecteurCsv.Morceau> aAnalyser = lecteur.getMorceaux().iterator();
+            Deque<Future<List<Resultat<T>>>> morceaux = new ArrayDeque<>(fenetreAnalyse);
+            Deque<Future<?>> ecritures = new ArrayDeque<>(fenetreEcriture);
+            List<Resultat<T>> lot = new ArrayList<>(tailleLot);
+            while (aAnalyser.hasNext() || !morceaux.isEmpty()) {
+                while (aAnalyser.hasNext() && morceaux.size() < fenetreAnalyse) {
+                    LecteurCsv.Morceau morceau = aAnalyser.next();
+                    morceaux.add(analyse.submit(() -> analyser(lecteur, morceau, colonnes.length, conversion)));
+                }
+
+                // Morceaux repris dans l'ordre du fichier : le premier doublon rencontré est gardé
+                for (Resultat<T> resultat : morceaux.poll().get()) {
+                    lues++;
+                    if (resultat.objet == null) {
+                        rejets.add(new Rejet(resultat.ligne, resultat.motif));
+                    } else if (!clesConnues.add(cle.apply(resultat.objet))) {
+                        doublons.incrementAndGet();
+                        rejets.add(new Rejet(resultat.ligne, "Doublon : " + cle.apply(resultat.objet)));
+                    } else {
+                        lot.add(resultat);
+                        if (lot.size() == tailleLot) {
+                            List<Resultat<T>> plein = lot;
+                            if (ecritures.size() == fenetreEcriture) {
+                                ecritures.poll().get();
+                            }
+                            ecritures.add(ecriture.submit(() -> ecrire(plein, insertion, importees, doublons, rejets)));
+                            lot = new ArrayList<>(tailleLot);
+                        }
+                    }
+                }
+            }
+            if (!lot.isEmpty()) {
+                List<Resultat<T>> dernier = lot;
+                ecritures.add(ecriture.submit(() -> ecrire(dernier, insertion, importees, doublons, rejets)));
+            }
+            for (Future<?> e : ecritures) {
+                e.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erreur lors de l'import des " + nature, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import des " + nature + " interrompu", e);
+        } finally {
+            analyse.shutdownNow();
+            ecriture.shutdownNow();
+        }
+
+        String cheminErreurs = rejets.isEmpty() ? null : ecrireErreurs(csv, lecteur, rejets);
+        long doublonsTotal = doublons.get();
+        BilanImport bilan = new BilanImport(nature, lues, importees.get(), doublonsTotal,
+                rejets.size() - doublonsTotal, cheminErreurs, System.currentTimeMillis() - debut);
+        logger.info("{}", bilan);
+        return bilan;
+    }
+
+    /**
+     * Analyse et valide les lignes d'un morceau (thread d'analyse)
+     */
+    private static <T> List<Resultat<T>> analyser(LecteurCsv lecteur, LecteurCsv.Morceau morceau, int nbColonnes,
+                                                  Function<LecteurCsv.Ligne, T> conversion) {
+        List<LecteurCsv.Ligne> lignes = lecteur.lire(morceau);
+        List<Resultat<T>> resultats = new ArrayList<>(lignes.size());
+        int attendues = lecteur.getEntete().size();
+        for (LecteurCsv.Ligne ligne : lignes) {
+            if (ligne.getNombreChamps() != attendues) {
+                resultats.add(new Resultat<>(ligne, null, "Nombre de colonnes incorrect : "
+                        + ligne.getNombreChamps() + " au lieu de " + attendues));
+                continue;
+            }
+            try {
+                resultats.add(new Resultat<>(ligne, conversion.apply(ligne), null));
+            } catch (RuntimeException e) {
+                resultats.add(new Resultat<>(ligne, null, e.getMessage()));
+            }
+        }
+        return resultats;
+    }
+
+    /**
+     * Insère un lot sur une connexion du pool arrière-plan (thread d'écriture).
+     * Si la base refuse le lot, chaque ligne est rejouée seule.
+     */
+    private static <T> void ecrire(List<Resultat<T>> lot, Function<List<T>, boolean[]> insertion,
+                                   AtomicLong importees, AtomicLong doublons, Queue<Rejet> rejets) {
+        List<T> objets = new ArrayList<>(lot.size());
+        for (Resultat<T> resultat : lot) {
+            objets.add(resultat.objet);
+        }
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+            boolean[] inseres = insertion.apply(objets);
+            for (int i = 0; i < inseres.length; i++) {
+                if (inseres[i]) {
+                    importees.incrementAndGet();
+                } else {
+                    // Clé enregistrée par un autre poste depuis le début de l'import
+                    doublons.incrementAndGet();
+                    rejets.add(new Rejet(lot.get(i).ligne, "Doublon : déjà présent en base"));
+                }
+            }
+        } catch (RuntimeException e) {
+            if (lot.size() == 1) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                rejets.add(new Rejet(lot.get(0).ligne, "Refusé par la base : " + cause.getMessage()));
+                return;
+            }
+            logger.warn("Lot de {} lignes refusé, nouvelle tentative ligne par ligne : {}", lot.size(), e.getMessage());
+            for (Resultat<T> resultat : lot) {
+                ecrire(List.of(resultat), insertion, importees, doublons, rejets);
+            }
+        }
+    }
+
+    /**
+     * Écrit les lignes écartées, dans l'ordre du fichier : numéro de ligne, motif, ligne d'origine
+     */
+    private static String ecrireErreurs(Path csv, LecteurCsv lecteur, Queue<Rejet> rejets) {
+        List<Rejet> tries = new ArrayList<>(rejets);
+        tries.sort(Comparator.comparingLong(r -> r.ligne.getNumero()));
+        Path fichier = csv.resolveSibling(csv.getFileName() + ".erreurs.csv");
+        String sep = String.valueOf(lecteur.getSeparateur());
+        try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            writer.write("ligne" + sep + "motif" + sep + String.join(sep, lecteur.getEntete()));
+            writer.newLine();
+            for (Rejet rejet : tries) {
+                writer.write(rejet.ligne.getNumero() + sep + guillemets(rejet.motif) + sep + rejet.ligne.getBrut());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            logger.error("Impossible d'écrire le fichier d'erreurs {}", fichier, e);
+            return null;
+        }
+        return fichier.toString();
+    }
+
+    /**
+     * Outil en ligne de commande : patients|medecins|medicaments fichier.csv
+     */
+    public static void main(String[] args) {
+        String nature = args.length > 0 ? args[0] : "";
+        String chemin = args.length > 1 ? args[1] : null;
+        try {
+            ImportCsvService service = new ImportCsvService();
+            BilanImport bilan;
+            switch (chemin == null ? "" : nature) {
+                case "patients" -> bilan = service.importerPatients(chemin);
+                case "medecins" -> bilan = service.importerMedecins(chemin);
+                case "medicaments" -> bilan = service.importerMedicaments(chemin);
+                default -> {
+                    System.err.println("Usage : ImportCsvService patients|medecins|medicaments fichier.csv");
+                    System.exit(2);
+                    return;
+                }
+            }
+            System.out.println(bilan);
+            if (bilan.getCheminErreurs() != null) {
+                System.out.println("Lignes écartées : " + bilan.getCheminErreurs());
+            }
+        } finally {
+            HikariCPConfig.shutdown();
+        }
+    }
+
+    private static String guillemets(String texte) {
+        return "\"" + (texte == null ? "" : texte.replace("\"", "\"\"")) + "\"";
+    }
+
+    private static <R> R avecPoolImport(java.util.function.Supplier<R> lecture) {
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+            return lecture.get();
+        }
+    }
+
+    private static ExecutorService creerExecuteur(int nbThreads, String prefixe) {
+        return Executors.newFixedThreadPool(nbThreads, tache -> {
+            Thread thread = new Thread(tache, prefixe + numeroThread.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Resultat<T> {
+        private final LecteurCsv.Ligne ligne;
+        private final T objet;
+        private final String motif;
+
+        private Resultat(LecteurCsv.Ligne ligne, T objet, String motif) {
+            this.ligne = ligne;
+            this.objet = objet;
+            this.motif = motif;
+        }
+    }
+
+    private static final class Rejet {
+        private final LecteurCsv.Ligne ligne;
+        private final String motif;
+
+        private Rejet(LecteurCsv.Ligne ligne, String motif) {
+            this.ligne = ligne;
+            this.motif = motif;
+        }
+    }
+}
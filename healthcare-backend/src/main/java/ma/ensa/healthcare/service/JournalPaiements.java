@@ -0,0 +1,146 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.PaiementDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IPaiementDAO;
+import ma.ensa.healthcare.exception.SurchargeException;
+import ma.ensa.healthcare.model.Paiement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écrivain unique du journal des paiements.
+ *
+ * Les postes de caisse déposent leurs paiements dans une file et reçoivent aussitôt
+ * un CompletableFuture. Un thread dédié vide la file par lots : tous les paiements
+ * arrivés pendant l'écriture précédente partent dans la transaction suivante
+ * (journal + soldes), sans délai ajouté quand la charge est faible.
+ * Grâce aux clés d'idempotence, un paiement soumis deux fois n'est compté qu'une fois.
+ */
+public final class JournalPaiements {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalPaiements.class);
+
+    private static JournalPaiements instance;
+
+    private final IPaiementDAO paiementDAO;
+    private final BlockingQueue<Demande> file;
+    private final int lotMax;
+    private final Thread ecrivain;
+    private volatile boolean arrete;
+
+    private JournalPaiements(IPaiementDAO paiementDAO, int capacite, int lotMax) {
+        this.paiementDAO = paiementDAO;
+        this.file = new LinkedBlockingQueue<>(capacite);
+        this.lotMax = Math.max(1, lotMax);
+        this.ecrivain = new Thread(this::boucle, "healthcare-paiements");
+        this.ecrivain.setDaemon(true);
+        this.ecrivain.start();
+    }
+
+    public static synchronized JournalPaiements getInstance() {
+        if (instance == null) {
+            PropertyManager props = PropertyManager.getInstance();
+            instance = new JournalPaiements(new PaiementDAOImpl(),
+                    props.getIntProperty("paiement.file.capacite", 1000),
+                    props.getIntProperty("paiement.lot.max", 100));
+        }
+        return instance;
+    }
+
+    /**
+     * Dépose un paiement dans la file d'écriture
+     * @return Complété à true une fois le paiement validé en base, à false si sa clé
+     *         avait déjà été enregistrée ; en erreur si la transaction a échoué
+     * @throws SurchargeException si la file est pleine
+     */
+    public CompletableFuture<Boolean> soumettre(Paiement paiement) {
+        if (arrete) {
+            throw new IllegalStateException("Journal des paiements arrêté");
+        }
+        Demande demande = new Demande(paiement);
+        if (!file.offer(demande)) {
+            throw new SurchargeException("Trop de paiements en attente d'écriture. Réessayez plus tard.");
+        }
+        return demande.resultat;
+    }
+
+    /**
+     * Refuse les nouveaux paiements, écrit ceux déjà en file puis arrête le thread
+     */
+    public static synchronized void arreter() {
+        if (instance == null) {
+            return;
+        }
+        instance.arrete = true;
+        try {
+            instance.ecrivain.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance = null;
+    }
+
+    private void boucle() {
+        List<Demande> lot = new ArrayList<>(lotMax);
+        while (true) {
+            Demande premiere;
+            try {
+                premiere = file.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (premiere == null) {
+                if (arrete) {
+                    break;
+                }
+                continue;
+            }
+            lot.add(premiere);
+            file.drainTo(lot, lotMax - 1);
+            ecrire(lot);
+            lot.clear();
+        }
+        logger.info("Journal des paiements arrêté");
+    }
+
+    private void ecrire(List<Demande> lot) {
+        List<Paiement> paiements = new ArrayList<>(lot.size());
+        for (Demande demande : lot) {
+            paiements.add(demande.paiement);
+        }
+        try {
+            boolean[] enregistres = paiementDAO.enregistrerLot(paiements);
+            for (int i = 0; i < lot.size(); i++) {
+                lot.get(i).resultat.complete(enregistres[i]);
+            }
+        } catch (RuntimeException e) {
+            if (lot.size() == 1) {
+                lot.get(0).resultat.completeExceptionally(e);
+                return;
+            }
+            // Lot annulé : rejouer un par un pour isoler le paiement fautif
+            logger.warn("Lot de {} paiements annulé, nouvelle tentative unitaire : {}", lot.size(), e.getMessage());
+            for (Demande demande : lot) {
+                ecrire(List.of(demande));
+            }
+        }
+    }
+
+    private static final class Demande {
+        private final Paiement paiement;
+        private final CompletableFuture<Boolean> resultat = new CompletableFuture<>();
+
+        private Demande(Paiement paiement) {
+            this.paiement = paiement;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ma.ensa.healthcare.service;
 
+import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.impl.MedecinDAOImpl;
 import ma.ensa.healthcare.dao.interfaces.IMedecinDAO;
 import ma.ensa.healthcare.exception.MedecinException;
@@ -15,9 +16,11 @@ import java.util.List;
 public class MedecinService {
     private static final Logger logger = LoggerFactory.getLogger(MedecinService.class);
     private final IMedecinDAO medecinDAO;
+    private final AutocompletionService autocompletion;
 
     public MedecinService() {
         this.medecinDAO = new MedecinDAOImpl();
+        this.autocompletion = new AutocompletionService();
     }
 
     /**
@@ -28,6 +31,7 @@ public class MedecinService {
         
         try {
             Medecin saved = medecinDAO.save(medecin);
+            autocompletion.medecinEnregistre(saved);
             logger.info("Médecin créé avec succès : {} {} (ID: {})", 
                        saved.getNom(), saved.getPrenom(), saved.getId());
             return saved;
@@ -56,7 +60,10 @@ public class MedecinService {
      * Récupère tous les médecins
      */
     public List<Medecin> getAllMedecins() {
-        return medecinDAO.findAll();
+        // Écran de liste : éligible à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return medecinDAO.findAll();
+        }
     }
 
     /**
@@ -80,7 +87,9 @@ public class MedecinService {
         validateMedecin(medecin);
         
         try {
-            medecinDAO.update(medecin);
+            Medecin aEcrire = versionSuivie(medecin);
+            medecinDAO.update(aEcrire);
+            autocompletion.medecinEnregistre(aEcrire);
             logger.info("Médecin mis à jour : {} {} (ID: {})", 
                        medecin.getNom(), medecin.getPrenom(), medecin.getId());
         } catch (Exception e) {
@@ -89,6 +98,22 @@ public class MedecinService {
         }
     }
 
+    /**
+     * Objet construit hors DAO (formulaire) : reporte ses valeurs sur la version en base
+     * afin que seul le différentiel soit écrit (UPDATE partiel)
+     */
+    private Medecin versionSuivie(Medecin medecin) {
+        if (medecin.getSuivi().isActif()) {
+            return medecin;
+        }
+        Medecin actuel = medecinDAO.findById(medecin.getId());
+        if (actuel == null) {
+            return medecin;
+        }
+        actuel.copierDepuis(medecin);
+        return actuel;
+    }
+
     /**
      * Supprime un médecin
      */
@@ -99,6 +124,7 @@ public class MedecinService {
         
         try {
             medecinDAO.delete(id);
+            autocompletion.medecinSupprime(id);
             logger.info("Médecin supprimé : ID {}", id);
         } catch (Exception e) {
             logger.error("Erreur lors de la suppression du médecin", e);
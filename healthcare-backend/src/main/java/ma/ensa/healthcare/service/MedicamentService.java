@@ -17,9 +17,11 @@ public class MedicamentService {
     
     private static final Logger logger = LoggerFactory.getLogger(MedicamentService.class);
     private final IMedicamentDAO medicamentDAO;
+    private final AutocompletionService autocompletion;
 
     public MedicamentService() {
         this.medicamentDAO = new MedicamentDAOImpl();
+        this.autocompletion = new AutocompletionService();
     }
 
     /**
@@ -110,6 +112,7 @@ public class MedicamentService {
             }
             
             Medicament saved = medicamentDAO.save(medicament);
+            autocompletion.medicamentEnregistre(saved);
             logger.info("Médicament créé avec succès : {}", saved.getNomCommercial());
             return saved;
             
@@ -129,6 +132,7 @@ public class MedicamentService {
             }
             
             medicamentDAO.update(medicament);
+            autocompletion.medicamentEnregistre(medicament);
             logger.info("Médicament mis à jour : {}", medicament.getId());
             
         } catch (Exception e) {
@@ -143,6 +147,7 @@ public class MedicamentService {
     public void deleteMedicament(Long id) {
         try {
             medicamentDAO.delete(id);
+            autocompletion.medicamentSupprime(id);
             logger.info("Médicament supprimé : {}", id);
             
         } catch (Exception e) {
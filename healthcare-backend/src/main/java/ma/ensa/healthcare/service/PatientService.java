@@ -1,5 +1,6 @@
 package ma.ensa.healthcare.service;
 
+import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.impl.PatientDAOImpl;
 import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
 import ma.ensa.healthcare.exception.PatientException;
@@ -9,7 +10,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service métier pour la gestion des patients
@@ -17,9 +20,13 @@ import java.util.List;
 public class PatientService {
     private static final Logger logger = LoggerFactory.getLogger(PatientService.class);
     private final IPatientDAO patientDAO;
+    private final RecherchePatientsService recherche;
+    private final AutocompletionService autocompletion;
 
     public PatientService() {
         this.patientDAO = new PatientDAOImpl();
+        this.recherche = new RecherchePatientsService();
+        this.autocompletion = new AutocompletionService();
     }
 
     /**
@@ -43,6 +50,8 @@ public class PatientService {
         // 4. Sauvegarder
         try {
             Patient saved = patientDAO.save(patient);
+            recherche.patientEnregistre(saved);
+            autocompletion.patientEnregistre(saved);
             logger.info("Patient créé avec succès : {} {} (CIN: {})", 
                        saved.getNom(), saved.getPrenom(), saved.getCin());
             return saved;
@@ -56,9 +65,22 @@ public class PatientService {
      * Récupère tous les patients
      */
     public List<Patient> getAllPatients() {
-        return patientDAO.findAll();
+        // Écran de liste : éligible à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return patientDAO.findAll();
+        }
     }
     
+    /**
+     * Récupère plusieurs patients d'un coup, indexés par ID (les ID inconnus sont absents)
+     */
+    public Map<Long, Patient> getPatientsByIds(Collection<Long> ids) {
+        if (ids == null) {
+            throw new PatientException("La liste d'ID ne peut pas être null");
+        }
+        return patientDAO.findByIds(ids);
+    }
+
     /**
      * Récupère un patient par ID
      */
@@ -94,6 +116,39 @@ public class PatientService {
         return patientDAO.findByNom(nom);
     }
 
+    /**
+     * Recherche plein texte (nom, prénom, CIN, téléphone, email), sans accents ni casse,
+     * résultats classés par pertinence
+     */
+    public List<Patient> rechercherPatients(String texte, int limite) {
+        return recherche.rechercher(texte, limite);
+    }
+
+    /**
+     * Recherche par nom et prénom approchants (autres graphies, fautes de frappe)
+     */
+    public List<Patient> rechercherPatientsApproche(String texte, int limite) {
+        return recherche.rechercherApproche(texte, limite);
+    }
+
+    /**
+     * Patients déjà enregistrés qui sont probablement la même personne
+     * (nom approchant et même date de naissance, téléphone ou email), à signaler avant une création
+     */
+    public List<Patient> rechercherDoublonsPossibles(Patient patient) {
+        if (patient == null) {
+            throw new PatientException("Le patient ne peut pas être null");
+        }
+        return recherche.doublonsPossibles(patient);
+    }
+
+    /**
+     * Charge l'index de recherche en arrière-plan (à l'ouverture de l'écran des patients)
+     */
+    public void preparerRecherche() {
+        recherche.charger();
+    }
+
     /**
      * Met à jour un patient existant
      */
@@ -105,7 +160,10 @@ public class PatientService {
         validatePatient(patient);
         
         try {
-            patientDAO.update(patient);
+            Patient aEcrire = versionSuivie(patient);
+            patientDAO.update(aEcrire);
+            recherche.patientEnregistre(aEcrire);
+            autocompletion.patientEnregistre(aEcrire);
             logger.info("Patient mis à jour : {} {} (ID: {})", 
                        patient.getNom(), patient.getPrenom(), patient.getId());
         } catch (Exception e) {
@@ -114,6 +172,22 @@ public class PatientService {
         }
     }
 
+    /**
+     * Objet construit hors DAO (formulaire) : reporte ses valeurs sur la version en base
+     * afin que seul le différentiel soit écrit (UPDATE partiel)
+     */
+    private Patient versionSuivie(Patient patient) {
+        if (patient.getSuivi().isActif()) {
+            return patient;
+        }
+        Patient actuel = patientDAO.findById(patient.getId());
+        if (actuel == null) {
+            return patient;
+        }
+        actuel.copierDepuis(patient);
+        return actuel;
+    }
+
     /**
      * Supprime un patient
      */
@@ -124,6 +198,8 @@ public class PatientService {
         
         try {
             patientDAO.delete(id);
+            recherche.patientSupprime(id);
+            autocompletion.patientSupprime(id);
             logger.info("Patient supprimé : ID {}", id);
         } catch (Exception e) {
             logger.error("Erreur lors de la suppression du patient", e);
@@ -0,0 +1,76 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.PropertyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Génération nocturne des rapports mensuels.
+ *
+ * Au démarrage puis chaque jour à l'heure configurée (rapport.mensuel.heure, 2 h par défaut),
+ * les rapports des mois clos récents (rapport.mensuel.rattrapage, 12 mois par défaut) sont
+ * générés s'ils manquent, et régénérés si une facture ou un paiement du mois est arrivé
+ * depuis leur génération.
+ */
+public final class PlanificateurRapports {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanificateurRapports.class);
+
+    private static ScheduledExecutorService executeur;
+
+    private PlanificateurRapports() {
+    }
+
+    public static synchronized void demarrer() {
+        if (executeur != null) {
+            return;
+        }
+        int heure = PropertyManager.getInstance().getIntProperty("rapport.mensuel.heure", 2);
+        executeur = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "healthcare-rapports");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime prochaine = LocalDate.now().atTime(heure, 0);
+        if (!prochaine.isAfter(maintenant)) {
+            prochaine = prochaine.plusDays(1);
+        }
+        long delai = Duration.between(maintenant, prochaine).toMillis();
+        // Rattrapage immédiat : mois clos pendant que l'application était fermée
+        executeur.execute(PlanificateurRapports::genererMoisManquants);
+        executeur.scheduleAtFixedRate(PlanificateurRapports::genererMoisManquants,
+                delai, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+        logger.info("Rapports mensuels planifiés chaque jour à {} h (prochaine vérification : {})", heure, prochaine);
+    }
+
+    public static synchronized void arreter() {
+        if (executeur != null) {
+            executeur.shutdownNow();
+            executeur = null;
+        }
+    }
+
+    private static void genererMoisManquants() {
+        int rattrapage = PropertyManager.getInstance().getIntProperty("rapport.mensuel.rattrapage", 12);
+        RapportMensuelService service = new RapportMensuelService();
+        for (int i = 1; i <= rattrapage; i++) {
+            YearMonth mois = YearMonth.now().minusMonths(i);
+            try {
+                service.genererSiNecessaire(mois);
+            } catch (RuntimeException e) {
+                // Une exception arrêterait la planification : nouvelle tentative la nuit suivante
+                logger.error("Échec de la génération du rapport mensuel {}", mois, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.RapportMensuelDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IRapportMensuelDAO;
+import ma.ensa.healthcare.dto.RapportMensuelDTO;
+import ma.ensa.healthcare.util.RapportJasperService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.YearMonth;
+import java.util.HexFormat;
+
+/**
+ * Service du rapport mensuel.
+ *
+ * Le rapport d'un mois est calculé et mis en page une fois (par le planificateur,
+ * la nuit), puis enregistré avec son empreinte SHA-256 dans un fichier .sha256 voisin
+ * et l'état de la facturation lu avec ses données dans un fichier .etat voisin.
+ * Ouvrir un rapport existant coûte une lecture de fichier et une requête sur les
+ * factures du mois : un paiement reçu depuis sur une facture du mois le rend périmé.
+ */
+public class RapportMensuelService {
+    private static final Logger logger = LoggerFactory.getLogger(RapportMensuelService.class);
+    private static final int NOMBRE_DIAGNOSTICS = 10;
+
+    private final IRapportMensuelDAO rapportDAO;
+    private final Path dossier;
+
+    public RapportMensuelService() {
+        this.rapportDAO = new RapportMensuelDAOImpl();
+        this.dossier = Paths.get(PropertyManager.getInstance().getProperty("rapport.mensuel.dossier", "rapports"));
+    }
+
+    /**
+     * Données du rapport, recalculées depuis la base
+     */
+    public RapportMensuelDTO calculer(YearMonth mois) {
+        verifierMois(mois);
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return rapportDAO.calculer(mois, NOMBRE_DIAGNOSTICS);
+        }
+    }
+
+    /**
+     * Rapport déjà généré pour ce mois
+     * @return Le fichier PDF, ou null s'il n'existe pas ou ne correspond plus à son empreinte
+     */
+    public Path getRapport(YearMonth mois) {
+        Path pdf = cheminRapport(mois);
+        Path empreinte = cheminEmpreinte(pdf);
+        if (!Files.exists(pdf) || !Files.exists(empreinte)) {
+            return null;
+        }
+        try {
+            String attendue = Files.readString(empreinte, StandardCharsets.US_ASCII).split("\\s+")[0];
+            if (!attendue.equalsIgnoreCase(empreinte(pdf))) {
+                logger.warn("Rapport {} modifié depuis sa génération, ignoré", pdf);
+                return null;
+            }
+            return pdf;
+        } catch (IOException e) {
+            logger.warn("Lecture du rapport {} impossible : {}", pdf, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Rapport déjà généré et toujours à jour (aucune facture ni aucun paiement ajouté depuis)
+     * @return Le fichier PDF, ou null s'il faut le (re)générer
+     */
+    public Path getRapportAJour(YearMonth mois) {
+        Path pdf = getRapport(mois);
+        return pdf != null && estAJour(pdf, lireEtatFacturation(mois)) ? pdf : null;
+    }
+
+    /**
+     * Rapport du mois : le fichier existant s'il est valide et à jour, sinon généré maintenant
+     */
+    public Path getOuGenererRapport(YearMonth mois) {
+        Path pdf = getRapportAJour(mois);
+        return pdf != null ? pdf : genererRapport(mois);
+    }
+
+    /**
+     * Génère le rapport s'il manque ou est périmé ; un mois sans facture et sans rapport est ignoré
+     * @return true si le rapport a été généré
+     */
+    public boolean genererSiNecessaire(YearMonth mois) {
+        String etat = lireEtatFacturation(mois);
+        Path pdf = getRapport(mois);
+        if (pdf == null ? etat.startsWith("0/") : estAJour(pdf, etat)) {
+            return false;
+        }
+        genererRapport(mois);
+        return true;
+    }
+
+    /**
+     * Calcule, met en page et enregistre le rapport du mois (remplace la version précédente)
+     * @return Le fichier PDF créé
+     */
+    public synchronized Path genererRapport(YearMonth mois) {
+        long debut = System.currentTimeMillis();
+        RapportMensuelDTO donnees = calculer(mois);
+
+        Path pdf = cheminRapport(mois);
+        Path empreinte = cheminEmpreinte(pdf);
+        Path etat = cheminEtat(pdf);
+        try {
+            Files.createDirectories(dossier);
+            Path pdfTemp = Files.createTempFile(dossier, "rapport", ".tmp");
+            Path empreinteTemp = Files.createTempFile(dossier, "rapport", ".tmp");
+            Path etatTemp = Files.createTempFile(dossier, "rapport", ".tmp");
+            try {
+                // Empreinte calculée pendant l'écriture : le fichier n'est pas relu
+                MessageDigest digest = sha256();
+                try (OutputStream sortie = new DigestOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(pdfTemp)), digest)) {
+                    RapportJasperService.genererRapportMensuel(donnees, sortie);
+                }
+                String hash = HexFormat.of().formatHex(digest.digest());
+                Files.writeString(empreinteTemp, hash + "  " + pdf.getFileName() + System.lineSeparator(),
+                                  StandardCharsets.US_ASCII);
+
+                // Le PDF d'abord : un rapport sans empreinte valide est simplement régénéré
+                Files.move(pdfTemp, pdf, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(empreinteTemp, empreinte, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // L'état en dernier : sans lui le rapport est tenu pour périmé
+                Files.writeString(etatTemp, donnees.getEtatFacturation(), StandardCharsets.US_ASCII);
+                Files.move(etatTemp, etat, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("{} enregistré dans {} (sha256 {}) en {} ms",
+                            donnees, pdf, hash, System.currentTimeMillis() - debut);
+                return pdf;
+            } finally {
+                Files.deleteIfExists(pdfTemp);
+                Files.deleteIfExists(empreinteTemp);
+                Files.deleteIfExists(etatTemp);
+            }
+        } catch (IOException e) {
+            logger.error("Erreur lors de l'enregistrement du rapport {}", mois, e);
+            throw new RuntimeException("Impossible d'enregistrer le rapport mensuel : " + e.getMessage(), e);
+        }
+    }
+
+    // === MÉTHODES PRIVÉES ===
+
+    private static void verifierMois(YearMonth mois) {
+        if (mois == null || mois.isAfter(YearMonth.now())) {
+            throw new IllegalArgumentException("Mois invalide : " + mois);
+        }
+    }
+
+    private Path cheminRapport(YearMonth mois) {
+        verifierMois(mois);
+        return dossier.resolve("rapport_mensuel_" + mois + ".pdf");
+    }
+
+    // Lu sur la primaire : un paiement qui vient d'être enregistré est vu
+    private String lireEtatFacturation(YearMonth mois) {
+        verifierMois(mois);
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT)) {
+            return rapportDAO.lireEtatFacturation(mois);
+        }
+    }
+
+    private static boolean estAJour(Path pdf, String etatCourant) {
+        Path etat = cheminEtat(pdf);
+        try {
+            if (Files.exists(etat) && Files.readString(etat, StandardCharsets.US_ASCII).trim().equals(etatCourant)) {
+                return true;
+            }
+        } catch (IOException e) {
+            logger.warn("Lecture de l'état du rapport {} impossible : {}", pdf, e.getMessage());
+        }
+        logger.info("Rapport {} périmé (factures ou paiements ajoutés depuis sa génération)", pdf);
+        return false;
+    }
+
+    private static Path cheminEtat(Path pdf) {
+        return pdf.resolveSibling(pdf.getFileName() + ".etat");
+    }
+
+    private static Path cheminEmpreinte(Path pdf) {
+        return pdf.resolveSibling(pdf.getFileName() + ".sha256");
+    }
+
+    private static String empreinte(Path fichier) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream entree = new DigestInputStream(Files.newInputStream(fichier), digest)) {
+            entree.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
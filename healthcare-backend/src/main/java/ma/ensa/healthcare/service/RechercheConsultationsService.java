@@ -0,0 +1,247 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.ConsultationDAOImpl;
+import ma.ensa.healthcare.dao.impl.JournalModificationsDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IConsultationDAO;
+import ma.ensa.healthcare.dao.interfaces.IJournalModificationsDAO;
+import ma.ensa.healthcare.dto.ModificationsJournal;
+import ma.ensa.healthcare.model.Consultation;
+import ma.ensa.healthcare.search.IndexConsultations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche plein texte dans les notes de consultation (symptômes, diagnostic, observations,
+ * prescription, examens demandés), classée par pertinence (BM25).
+ *
+ * L'index est partagé par toute l'application et chargé une fois, en arrière-plan, page par page ;
+ * ConsultationService le tient à jour à chaque enregistrement, modification et suppression ;
+ * les consultations des autres postes sont relues périodiquement, comme pour la recherche de
+ * patients (JOURNAL_MODIFICATIONS depuis le SCN du dernier passage, lu sur la primaire).
+ * Tant qu'il n'est pas chargé, la recherche lève une IllegalStateException : sans index,
+ * elle devrait lire toutes les notes de la table (voir estPret).
+ */
+public class RechercheConsultationsService {
+    private static final Logger logger = LoggerFactory.getLogger(RechercheConsultationsService.class);
+
+    private static final int TAILLE_PAGE = 5000;
+    private static final int RAFRAICHISSEMENT_SECONDES =
+        PropertyManager.getInstance().getIntProperty("recherche.consultations.rafraichissementSecondes", 30);
+
+    private static final Object verrou = new Object();
+    // Index utilisé par les recherches (null tant que le premier chargement n'est pas fini)
+    private static volatile IndexConsultations index;
+    // Index en cours de chargement (premier chargement ou reconstruction)
+    private static volatile IndexConsultations enChargement;
+    // SCN des consultations déjà lues dans index
+    private static volatile long scnIndex;
+    private static ScheduledExecutorService rafraichissement;
+
+    private final IConsultationDAO consultationDAO;
+    private final IJournalModificationsDAO journalDAO;
+
+    public RechercheConsultationsService() {
+        this.consultationDAO = new ConsultationDAOImpl();
+        this.journalDAO = new JournalModificationsDAOImpl();
+    }
+
+    /**
+     * @param requete Termes exigés, "expressions exactes", -exclusions, alternatives séparées par OU
+     * @param debut Première date de consultation retenue (null : pas de limite)
+     * @param fin Dernière date de consultation retenue (null : pas de limite)
+     * @param idMedecin Médecin des consultations retenues (null : tous)
+     * @return Les consultations trouvées, les plus pertinentes d'abord
+     * @throws IllegalStateException Si l'index est encore en chargement (le chargement est alors lancé)
+     */
+    public List<Consultation> rechercher(String requete, LocalDate debut, LocalDate fin, Long idMedecin, int limite) {
+        if (requete == null || requete.isBlank()) {
+            return List.of();
+        }
+        IndexConsultations courant = index;
+        if (courant == null) {
+            charger();
+            throw new IllegalStateException("L'index des notes de consultation est en cours de chargement, réessayez dans un instant");
+        }
+        List<Long> ids = courant.rechercher(requete, debut, fin, idMedecin, limite);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Consultation> consultations = consultationDAO.findByIds(ids);
+        List<Consultation> resultat = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Consultation consultation = consultations.get(id);
+            if (consultation != null) {
+                resultat.add(consultation);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * L'index est-il chargé ? (sinon la recherche lève une IllegalStateException)
+     */
+    public boolean estPret() {
+        return index != null;
+    }
+
+    /**
+     * Lance le premier chargement de l'index s'il n'est pas déjà fait ou en cours
+     */
+    public void charger() {
+        synchronized (verrou) {
+            if (index == null && enChargement == null) {
+                demarrerChargement();
+            }
+        }
+    }
+
+    /**
+     * Recharge l'index depuis la base ; l'index actuel reste utilisé jusqu'à la fin du chargement
+     */
+    public void reconstruire() {
+        synchronized (verrou) {
+            if (enChargement == null) {
+                demarrerChargement();
+            }
+        }
+    }
+
+    /**
+     * @param idMedecin Médecin du rendez-vous de la consultation (null si inconnu)
+     */
+    public void consultationEnregistree(Consultation consultation, Long idMedecin) {
+        // enChargement d'abord : il passe à null après l'affectation de index
+        IndexConsultations nouveau = enChargement;
+        IndexConsultations courant = index;
+        if (courant != null) {
+            courant.indexer(consultation, idMedecin);
+        }
+        if (nouveau != null && nouveau != courant) {
+            nouveau.indexer(consultation, idMedecin);
+        }
+    }
+
+    public void consultationSupprimee(Long id) {
+        // enChargement d'abord : il passe à null après l'affectation de index
+        IndexConsultations nouveau = enChargement;
+        IndexConsultations courant = index;
+        if (courant != null) {
+            courant.retirer(id);
+        }
+        if (nouveau != null && nouveau != courant) {
+            nouveau.retirer(id);
+        }
+    }
+
+    /**
+     * Relit les consultations créées, modifiées ou supprimées depuis le dernier passage (par ce poste ou un autre)
+     */
+    private void rafraichir() {
+        IndexConsultations courant = index;
+        if (courant == null || enChargement != null) {
+            // Un chargement en cours relit toute la table
+            return;
+        }
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+            ModificationsJournal modifications = journalDAO.findModifications("CONSULTATION", scnIndex);
+            if (modifications == null) {
+                logger.warn("Notes du journal purgées depuis le dernier passage : index des notes de consultation reconstruit");
+                reconstruire();
+                return;
+            }
+            Set<Long> ids = modifications.getIdsLignes();
+            Map<Long, Long> medecins = new HashMap<>();
+            Map<Long, Consultation> consultations = consultationDAO.findByIdsAvecMedecins(ids, medecins);
+            for (Long id : ids) {
+                Consultation consultation = consultations.get(id);
+                if (consultation != null) {
+                    consultationEnregistree(consultation, medecins.get(id));
+                } else {
+                    consultationSupprimee(id);
+                }
+            }
+            synchronized (verrou) {
+                if (index == courant) {
+                    scnIndex = modifications.getScn();
+                }
+            }
+            if (!ids.isEmpty()) {
+                logger.debug("Index des notes de consultation rafraîchi : {} consultations relues (SCN {})",
+                        ids.size(), modifications.getScn());
+            }
+        } catch (RuntimeException e) {
+            // Une exception arrêterait la planification : nouvel essai au passage suivant
+            logger.warn("Erreur lors du rafraîchissement de l'index des notes de consultation", e);
+        }
+    }
+
+    private void planifierRafraichissement() {
+        if (rafraichissement != null) {
+            return;
+        }
+        rafraichissement = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "healthcare-index-consultations-maj");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rafraichissement.scheduleWithFixedDelay(this::rafraichir,
+                RAFRAICHISSEMENT_SECONDES, RAFRAICHISSEMENT_SECONDES, TimeUnit.SECONDS);
+    }
+
+    private void demarrerChargement() {
+        IndexConsultations nouveau = new IndexConsultations(true);
+        enChargement = nouveau;
+        Thread thread = new Thread(() -> remplir(nouveau), "healthcare-index-consultations");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void remplir(IndexConsultations nouveau) {
+        long debut = System.currentTimeMillis();
+        // Sur la primaire : une réplique en retard donnerait un état antérieur au SCN retenu
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+            // Lu avant la table : les consultations validées pendant le chargement seront relues au rafraîchissement
+            long scn = journalDAO.lireScnCourant();
+            Map<Long, Long> medecins = new HashMap<>();
+            long apresId = 0;
+            while (true) {
+                List<Consultation> page = consultationDAO.findPageAvecMedecins(apresId, TAILLE_PAGE, medecins);
+                for (Consultation consultation : page) {
+                    nouveau.indexerSiAbsent(consultation, medecins.get(consultation.getId()));
+                }
+                medecins.clear();
+                if (page.size() < TAILLE_PAGE) {
+                    break;
+                }
+                apresId = page.get(page.size() - 1).getId();
+            }
+            nouveau.terminerChargement();
+            synchronized (verrou) {
+                index = nouveau;
+                enChargement = null;
+                scnIndex = scn;
+                planifierRafraichissement();
+            }
+            logger.info("Index des notes de consultation chargé : {} consultations ({} Ko de listes) en {} ms",
+                    nouveau.taille(), nouveau.volume() / 1024, System.currentTimeMillis() - debut);
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors du chargement de l'index des notes de consultation", e);
+            synchronized (verrou) {
+                enChargement = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.FactureDAOImpl;
+import ma.ensa.healthcare.dao.impl.PatientDAOImpl;
+import ma.ensa.healthcare.dao.impl.RendezVousDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IFactureDAO;
+import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
+import ma.ensa.healthcare.dao.interfaces.IRendezVousDAO;
+import ma.ensa.healthcare.dto.RechercheGlobale;
+import ma.ensa.healthcare.dto.ResultatRecherche;
+import ma.ensa.healthcare.model.Facture;
+import ma.ensa.healthcare.model.Medecin;
+import ma.ensa.healthcare.model.Medicament;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.RendezVous;
+import ma.ensa.healthcare.model.enums.TypeEntite;
+import ma.ensa.healthcare.search.Normalisation;
+import ma.ensa.healthcare.util.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Recherche dans toute l'application depuis un seul champ : patients (nom, prénom, CIN, téléphone,
+ * email), médecins (nom, numéro d'ordre), factures (numéro), rendez-vous (d'une date, ou à venir
+ * des patients trouvés) et médicaments (nom commercial).
+ *
+ * Chaque type est cherché dans son propre thread virtuel, sur un index en mémoire
+ * ou par une requête sur un index de la base (jamais en lisant toute la table).
+ * Un type qui ne répond pas dans le délai est abandonné et signalé comme incomplet ; ses requêtes
+ * reçoivent le temps restant comme délai d'exécution et sont interrompues par Oracle.
+ * Le chargement des index est lancé à l'ouverture de la fenêtre principale (voir charger) ;
+ * d'ici là, les patients sont cherchés par préfixe du nom, sur un index de la base.
+ * Les résultats sont notés sur la même échelle (texte égal, début de texte, début d'un mot...)
+ * puis fusionnés en une seule liste, avec le nombre de résultats par type.
+ */
+public class RechercheGlobaleService {
+    private static final Logger logger = LoggerFactory.getLogger(RechercheGlobaleService.class);
+
+    // Patients dont on cherche les prochains rendez-vous
+    private static final int PATIENTS_RENDEZ_VOUS = 10;
+    // Écart de score entre deux résultats successifs d'un même type : garde l'ordre de l'index
+    private static final double ECART_RANG = 0.001;
+
+    // Un thread virtuel par type et par recherche
+    private static final ExecutorService EXECUTEUR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("healthcare-recherche-", 0).factory());
+
+    /**
+     * Recherche d'un type d'entité
+     */
+    private interface Source {
+        List<ResultatRecherche> chercher(String texte, int limite);
+    }
+
+    private final Map<TypeEntite, Source> sources = new EnumMap<>(TypeEntite.class);
+    private final RecherchePatientsService recherchePatients;
+    private final AutocompletionService autocompletion;
+    private final IPatientDAO patientDAO;
+    private final IFactureDAO factureDAO;
+    private final IRendezVousDAO rendezVousDAO;
+
+    public RechercheGlobaleService() {
+        this.recherchePatients = new RecherchePatientsService();
+        this.autocompletion = new AutocompletionService();
+        this.patientDAO = new PatientDAOImpl();
+        this.factureDAO = new FactureDAOImpl();
+        this.rendezVousDAO = new RendezVousDAOImpl();
+        sources.put(TypeEntite.PATIENT, this::chercherPatients);
+        sources.put(TypeEntite.MEDECIN, this::chercherMedecins);
+        sources.put(TypeEntite.FACTURE, this::chercherFactures);
+        sources.put(TypeEntite.RENDEZ_VOUS, this::chercherRendezVous);
+        sources.put(TypeEntite.MEDICAMENT, this::chercherMedicaments);
+    }
+
+    /**
+     * Recherche dans tous les types
+     */
+    public RechercheGlobale rechercher(String texte, int limite) {
+        return rechercher(texte, EnumSet.allOf(TypeEntite.class), limite);
+    }
+
+    /**
+     * @param types Types cherchés (une facette choisie restreint la recherche à son type)
+     * @return Au plus limite résultats, du plus pertinent au moins pertinent
+     */
+    public RechercheGlobale rechercher(String texte, Set<TypeEntite> types, int limite) {
+        long debut = System.currentTimeMillis();
+        if (texte == null || texte.isBlank() || types.isEmpty() || limite <= 0) {
+            return new RechercheGlobale(List.of(), Map.of(), Set.of(), 0);
+        }
+        String saisie = texte.trim();
+        long delaiMs = PropertyManager.getInstance().getIntProperty("recherche.globale.delaiMs", 800);
+
+        // Les types sont cherchés en même temps : chacun a le délai entier depuis le lancement
+        long echeance = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delaiMs);
+        Map<TypeEntite, Future<List<ResultatRecherche>>> taches = new EnumMap<>(TypeEntite.class);
+        for (TypeEntite type : types) {
+            Source source = sources.get(type);
+            taches.put(type, EXECUTEUR.submit(() -> executer(source, saisie, limite, echeance)));
+        }
+
+        List<ResultatRecherche> tous = new ArrayList<>();
+        Map<TypeEntite, Integer> facettes = new EnumMap<>(TypeEntite.class);
+        Set<TypeEntite> incompletes = EnumSet.noneOf(TypeEntite.class);
+        for (Map.Entry<TypeEntite, Future<List<ResultatRecherche>>> tache : taches.entrySet()) {
+            TypeEntite type = tache.getKey();
+            try {
+                List<ResultatRecherche> trouves = tache.getValue().get(
+                        Math.max(0, echeance - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!trouves.isEmpty()) {
+                    facettes.put(type, trouves.size());
+                    tous.addAll(trouves);
+                }
+            } catch (TimeoutException e) {
+                // L'interruption libère le thread ; la requête en cours s'arrête à son propre délai
+                tache.getValue().cancel(true);
+                incompletes.add(type);
+                logger.warn("Recherche globale : {} sans réponse après {} ms, ignoré", type, delaiMs);
+            } catch (ExecutionException e) {
+                incompletes.add(type);
+                logger.error("Recherche globale : erreur lors de la recherche des {}", type, e.getCause());
+            } catch (InterruptedException e) {
+                // Les types suivants non terminés lèveront aussi l'interruption
+                Thread.currentThread().interrupt();
+                tache.getValue().cancel(true);
+                incompletes.add(type);
+            }
+        }
+
+        // Tri stable : à score égal, l'ordre de TypeEntite
+        tous.sort(Comparator.comparingDouble(ResultatRecherche::getScore).reversed());
+        List<ResultatRecherche> resultats = tous.size() > limite ? new ArrayList<>(tous.subList(0, limite)) : tous;
+        return new RechercheGlobale(resultats, facettes, incompletes, System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Lance le chargement des index utilisés (à l'ouverture de la fenêtre principale)
+     */
+    public void charger() {
+        recherchePatients.charger();
+        autocompletion.charger();
+    }
+
+    private static List<ResultatRecherche> executer(Source source, String texte, int limite, long echeance) {
+        // Recherche : éligible à la réplique, requêtes bornées par l'échéance
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule();
+             DatabaseConfig.PorteeEcheance delai = DatabaseConfig.avecEcheance(echeance)) {
+            return source.chercher(texte, limite);
+        }
+    }
+
+    // Sources
+
+    private List<ResultatRecherche> chercherPatients(String texte, int limite) {
+        List<ResultatRecherche> resultats = new ArrayList<>();
+        for (Patient p : recherchePatients.rechercher(texte, limite)) {
+            resultats.add(new ResultatRecherche(TypeEntite.PATIENT, p.getId(), nomComplet(p.getNom(), p.getPrenom()),
+                    "CIN " + Objects.toString(p.getCin(), ""),
+                    score(texte, resultats.size(), nomComplet(p.getNom(), p.getPrenom()),
+                            nomComplet(p.getPrenom(), p.getNom()), p.getCin(), p.getTelephone(), p.getEmail())));
+        }
+        return resultats;
+    }
+
+    private List<ResultatRecherche> chercherMedecins(String texte, int limite) {
+        List<ResultatRecherche> resultats = new ArrayList<>();
+        for (Medecin m : autocompletion.completerMedecins(texte, limite)) {
+            resultats.add(new ResultatRecherche(TypeEntite.MEDECIN, m.getId(), "Dr. " + nomComplet(m.getNom(), m.getPrenom()),
+                    Objects.toString(m.getSpecialite(), ""),
+                    score(texte, resultats.size(), nomComplet(m.getNom(), m.getPrenom()),
+                            nomComplet(m.getPrenom(), m.getNom()), m.getNumeroOrdre())));
+        }
+        return resultats;
+    }
+
+    private List<ResultatRecherche> chercherMedicaments(String texte, int limite) {
+        List<ResultatRecherche> resultats = new ArrayList<>();
+        for (Medicament m : autocompletion.completerMedicaments(texte, limite)) {
+            resultats.add(new ResultatRecherche(TypeEntite.MEDICAMENT, m.getId(), m.getNomCommercial(),
+                    (Objects.toString(m.getPrincipeActif(), "") + " " + Objects.toString(m.getDosage(), "")).trim(),
+                    score(texte, resultats.size(), m.getNomCommercial())));
+        }
+        return resultats;
+    }
+
+    /**
+     * Numéros au format FAC-AAAA-NNNN : cherchés seulement si la saisie contient un chiffre ;
+     * "2024-0012" est complété en "FAC-2024-0012"
+     */
+    private List<ResultatRecherche> chercherFactures(String texte, int limite) {
+        String prefixe = texte.replace(" ", "").toUpperCase();
+        if (!prefixe.matches(".*[0-9].*")) {
+            return List.of();
+        }
+        if (Character.isDigit(prefixe.charAt(0))) {
+            prefixe = "FAC-" + prefixe;
+        }
+        List<ResultatRecherche> resultats = new ArrayList<>();
+        for (Facture f : factureDAO.findByNumeroPrefixe(prefixe, limite)) {
+            resultats.add(new ResultatRecherche(TypeEntite.FACTURE, f.getId(), f.getNumeroFacture(),
+                    DateUtils.format(f.getDateFacture()) + " - " + f.getMontantTotal() + " DH - " + f.getStatutPaiement(),
+                    score(prefixe, resultats.size(), f.getNumeroFacture())));
+        }
+        return resultats;
+    }
+
+    /**
+     * Une date (jj/mm/aaaa ou aaaa-mm-jj) donne les rendez-vous du jour ;
+     * sinon, les prochains rendez-vous des patients trouvés par l'index des patients
+     */
+    private List<ResultatRecherche> chercherRendezVous(String texte, int limite) {
+        LocalDate date = date(texte);
+        List<RendezVous> rdvs;
+        Map<Long, Patient> patients;
+        if (date != null) {
+            List<RendezVous> duJour = rendezVousDAO.findByDate(date);
+            rdvs = duJour.size() > limite ? duJour.subList(0, limite) : duJour;
+            patients = patientDAO.findByIds(rdvs.stream().map(RendezVous::getIdPatient).collect(Collectors.toSet()));
+        } else {
+            patients = new LinkedHashMap<>();
+            for (Patient p : recherchePatients.rechercher(texte, PATIENTS_RENDEZ_VOUS)) {
+                patients.put(p.getId(), p);
+            }
+            rdvs = rendezVousDAO.findAVenirByPatientIds(patients.keySet(), limite);
+        }
+
+        List<ResultatRecherche> resultats = new ArrayList<>();
+        for (RendezVous r : rdvs) {
+            Patient p = patients.get(r.getIdPatient());
+            String nomPatient = p == null ? "" : nomComplet(p.getNom(), p.getPrenom());
+            String medecin = r.getMedecin() == null ? ""
+                    : " avec Dr. " + nomComplet(r.getMedecin().getNom(), r.getMedecin().getPrenom());
+            resultats.add(new ResultatRecherche(TypeEntite.RENDEZ_VOUS, r.getId(),
+                    DateUtils.format(r.getHeureDebut()) + " - " + nomPatient,
+                    (Objects.toString(r.getMotif(), "") + medecin).trim(),
+                    date != null ? 1.0 - resultats.size() * ECART_RANG
+                            : score(texte, resultats.size(), nomPatient,
+                                    p == null ? "" : nomComplet(p.getPrenom(), p.getNom()), p == null ? "" : p.getCin())));
+        }
+        return resultats;
+    }
+
+    // Notation
+
+    /**
+     * Pertinence de la meilleure clé : égale à la saisie 1, commence par elle 0,8,
+     * un de ses mots commence par elle 0,6, sinon 0,4 (trouvée par un autre champ ou par approximation) ;
+     * moins un petit écart par rang pour garder l'ordre de la source
+     */
+    private static double score(String texte, int rang, String... cles) {
+        String saisie = Normalisation.replier(texte);
+        double meilleur = 0.4;
+        for (String cle : cles) {
+            String repliee = Normalisation.replier(cle);
+            if (repliee.isEmpty() || saisie.isEmpty()) {
+                continue;
+            }
+            if (repliee.equals(saisie)) {
+                meilleur = 1.0;
+            } else if (repliee.startsWith(saisie)) {
+                meilleur = Math.max(meilleur, 0.8);
+            } else if (repliee.contains(" " + saisie)) {
+                meilleur = Math.max(meilleur, 0.6);
+            }
+        }
+        return meilleur - rang * ECART_RANG;
+    }
+
+    private static String nomComplet(String nom, String prenom) {
+        return (Objects.toString(nom, "") + " " + Objects.toString(prenom, "")).trim();
+    }
+
+    private static LocalDate date(String texte) {
+        try {
+            if (texte.matches("\\d{2}/\\d{2}/\\d{4}")) {
+                return DateUtils.parseDate(texte);
+            }
+            if (texte.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                return DateUtils.parseIsoDate(texte);
+            }
+        } catch (IllegalArgumentException e) {
+            // 31/02/2024... : pas une date
+        }
+        return null;
+    }
+}
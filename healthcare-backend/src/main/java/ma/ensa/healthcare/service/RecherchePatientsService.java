@@ -0,0 +1,343 @@
+package ma.ensa.healthcare.service;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.JournalModificationsDAOImpl;
+import ma.ensa.healthcare.dao.impl.PatientDAOImpl;
+import ma.ensa.healthcare.dao.interfaces.IJournalModificationsDAO;
+import ma.ensa.healthcare.dao.interfaces.IPatientDAO;
+import ma.ensa.healthcare.dto.ModificationsJournal;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.search.IndexNomsApproches;
+import ma.ensa.healthcare.search.IndexPatients;
+import ma.ensa.healthcare.search.Normalisation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche de patients (nom, prénom, CIN, téléphone, email) sur les index en mémoire.
+ *
+ * Les index sont partagés par toute l'application et chargés une fois, en arrière-plan,
+ * page par page ; en attendant, la recherche passe par la base (préfixe du nom, puis du prénom).
+ * PatientService les tient à jour à chaque création, modification et suppression ; les
+ * changements faits par les autres postes sont relus périodiquement : patients notés dans
+ * JOURNAL_MODIFICATIONS depuis le SCN du dernier passage, relus (ou retirés s'ils ont été
+ * supprimés). Chargement, journal et relectures passent par la primaire : une réplique en
+ * retard donnerait un état antérieur au SCN retenu. Si le dernier passage est plus ancien
+ * que la conservation des notes (sauvegarde entre-temps), les index sont reconstruits.
+ */
+public class RecherchePatientsService {
+    private static final Logger logger = LoggerFactory.getLogger(RecherchePatientsService.class);
+
+    private static final int TAILLE_PAGE = 5000;
+    // Similarité minimale des noms pour compléter une recherche ou signaler un doublon
+    private static final double SCORE_APPROCHE = 0.75;
+    private static final double SCORE_DOUBLON = 0.8;
+    private static final int CANDIDATS_DOUBLON = 50;
+    private static final int RAFRAICHISSEMENT_SECONDES =
+        PropertyManager.getInstance().getIntProperty("recherche.patients.rafraichissementSecondes", 30);
+
+    /**
+     * Index chargés ensemble depuis la même lecture de la table
+     */
+    private static final class Index {
+        final IndexPatients texte = new IndexPatients(true);
+        final IndexNomsApproches noms = new IndexNomsApproches(true);
+    }
+
+    private static final Object verrou = new Object();
+    // Index utilisés par les recherches (null tant que le premier chargement n'est pas fini)
+    private static volatile Index index;
+    // Index en cours de chargement (premier chargement ou reconstruction après un import)
+    private static volatile Index enChargement;
+    // SCN des patients déjà lus dans index
+    private static volatile long scnIndex;
+    private static ScheduledExecutorService rafraichissement;
+
+    private final IPatientDAO patientDAO;
+    private final IJournalModificationsDAO journalDAO;
+
+    public RecherchePatientsService() {
+        this.patientDAO = new PatientDAOImpl();
+        this.journalDAO = new JournalModificationsDAOImpl();
+    }
+
+    /**
+     * Recherche exacte (sans accents ni casse) complétée, s'il reste de la place,
+     * par les noms approchants (autres graphies, fautes de frappe)
+     * @return Les patients trouvés, les plus pertinents d'abord
+     */
+    public List<Patient> rechercher(String texte, int limite) {
+        if (texte == null || texte.isBlank()) {
+            return List.of();
+        }
+        Index courant = index;
+        if (courant == null) {
+            return rechercherEnBase(texte, limite);
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(courant.texte.rechercher(texte, limite));
+        if (ids.size() < limite) {
+            for (IndexNomsApproches.Correspondance c : courant.noms.rechercher(texte, limite, SCORE_APPROCHE)) {
+                if (ids.size() >= limite) {
+                    break;
+                }
+                ids.add(c.getIdPatient());
+            }
+        }
+        return charger(ids);
+    }
+
+    /**
+     * Recherche par nom approchant seulement
+     * @return Les patients dont le nom et le prénom ressemblent au texte, les plus proches d'abord
+     */
+    public List<Patient> rechercherApproche(String texte, int limite) {
+        if (texte == null || texte.isBlank()) {
+            return List.of();
+        }
+        Index courant = index;
+        if (courant == null) {
+            return rechercherEnBase(texte, limite);
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (IndexNomsApproches.Correspondance c : courant.noms.rechercher(texte, limite, SCORE_APPROCHE)) {
+            ids.add(c.getIdPatient());
+        }
+        return charger(ids);
+    }
+
+    /**
+     * Patients déjà enregistrés qui sont probablement la même personne :
+     * nom et prénom approchants, et même date de naissance, même téléphone ou même email
+     */
+    public List<Patient> doublonsPossibles(Patient patient) {
+        String nomComplet = Objects.toString(patient.getNom(), "") + " " + Objects.toString(patient.getPrenom(), "");
+        Index courant = index;
+        List<Patient> candidats;
+        if (courant == null) {
+            candidats = rechercherEnBase(Objects.toString(patient.getNom(), ""), CANDIDATS_DOUBLON);
+        } else {
+            Set<Long> ids = new LinkedHashSet<>();
+            for (IndexNomsApproches.Correspondance c : courant.noms.rechercher(nomComplet, CANDIDATS_DOUBLON, SCORE_DOUBLON)) {
+                ids.add(c.getIdPatient());
+            }
+            candidats = charger(ids);
+        }
+
+        List<Patient> doublons = new ArrayList<>();
+        for (Patient candidat : candidats) {
+            if (!candidat.getId().equals(patient.getId()) && memePersonne(patient, candidat)) {
+                doublons.add(candidat);
+            }
+        }
+        return doublons;
+    }
+
+    /**
+     * Lance le premier chargement des index s'il n'est pas déjà fait ou en cours
+     */
+    public void charger() {
+        synchronized (verrou) {
+            if (index == null && enChargement == null) {
+                demarrerChargement();
+            }
+        }
+    }
+
+    /**
+     * Recharge les index depuis la base (après un import en masse) ;
+     * les index actuels restent utilisés jusqu'à la fin du chargement
+     */
+    public void reconstruire() {
+        synchronized (verrou) {
+            if (enChargement == null) {
+                demarrerChargement();
+            }
+        }
+    }
+
+    public void patientEnregistre(Patient patient) {
+        // enChargement d'abord : il passe à null après l'affectation de index
+        Index nouveau = enChargement;
+        Index courant = index;
+        if (courant != null) {
+            courant.texte.indexer(patient);
+            courant.noms.indexer(patient);
+        }
+        if (nouveau != null && nouveau != courant) {
+            nouveau.texte.indexer(patient);
+            nouveau.noms.indexer(patient);
+        }
+    }
+
+    public void patientSupprime(Long id) {
+        // enChargement d'abord : il passe à null après l'affectation de index
+        Index nouveau = enChargement;
+        Index courant = index;
+        if (courant != null) {
+            courant.texte.retirer(id);
+            courant.noms.retirer(id);
+        }
+        if (nouveau != null && nouveau != courant) {
+            nouveau.texte.retirer(id);
+            nouveau.noms.retirer(id);
+        }
+    }
+
+    /**
+     * Index pas encore prêts : recherche SQL par préfixe du nom (et du prénom), bornée à limite lignes
+     */
+    private List<Patient> rechercherEnBase(String texte, int limite) {
+        charger();
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return patientDAO.findParPrefixeNom(texte, limite);
+        }
+    }
+
+    /**
+     * Patients dans l'ordre des IDs (ceux supprimés entre-temps sont ignorés)
+     */
+    private List<Patient> charger(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Patient> patients = patientDAO.findByIds(ids);
+        List<Patient> resultat = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Patient patient = patients.get(id);
+            if (patient != null) {
+                resultat.add(patient);
+            }
+        }
+        return resultat;
+    }
+
+    private static boolean memePersonne(Patient a, Patient b) {
+        if (a.getDateNaissance() != null && a.getDateNaissance().equals(b.getDateNaissance())) {
+            return true;
+        }
+        String telephone = suffixe(a.getTelephone());
+        if (telephone != null && telephone.equals(suffixe(b.getTelephone()))) {
+            return true;
+        }
+        String email = Normalisation.replier(a.getEmail());
+        return !email.isEmpty() && email.equals(Normalisation.replier(b.getEmail()));
+    }
+
+    /**
+     * Neuf derniers chiffres (null si moins) : 0612345678 et +212 6 12 34 56 78 sont le même numéro
+     */
+    private static String suffixe(String telephone) {
+        String chiffres = telephone == null ? "" : telephone.replaceAll("[^0-9]", "");
+        return chiffres.length() >= 9 ? chiffres.substring(chiffres.length() - 9) : null;
+    }
+
+    /**
+     * Relit les patients créés, modifiés ou supprimés depuis le dernier passage (par ce poste ou un autre)
+     */
+    private void rafraichir() {
+        Index courant = index;
+        if (courant == null || enChargement != null) {
+            // Un chargement en cours relit toute la table
+            return;
+        }
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+            ModificationsJournal modifications = journalDAO.findModifications("PATIENT", scnIndex);
+            if (modifications == null) {
+                logger.warn("Notes du journal purgées depuis le dernier passage : index des patients reconstruits");
+                reconstruire();
+                return;
+            }
+            Set<Long> ids = modifications.getIdsLignes();
+            Map<Long, Patient> patients = patientDAO.findByIds(ids);
+            for (Long id : ids) {
+                Patient patient = patients.get(id);
+                if (patient != null) {
+                    patientEnregistre(patient);
+                } else {
+                    patientSupprime(id);
+                }
+            }
+            synchronized (verrou) {
+                if (index == courant) {
+                    scnIndex = modifications.getScn();
+                }
+            }
+            if (!ids.isEmpty()) {
+                logger.debug("Index de recherche des patients rafraîchis : {} patients relus (SCN {})",
+                        ids.size(), modifications.getScn());
+            }
+        } catch (RuntimeException e) {
+            // Une exception arrêterait la planification : nouvel essai au passage suivant
+            logger.warn("Erreur lors du rafraîchissement des index de recherche des patients", e);
+        }
+    }
+
+    private void planifierRafraichissement() {
+        if (rafraichissement != null) {
+            return;
+        }
+        rafraichissement = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "healthcare-index-patients-maj");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rafraichissement.scheduleWithFixedDelay(this::rafraichir,
+                RAFRAICHISSEMENT_SECONDES, RAFRAICHISSEMENT_SECONDES, TimeUnit.SECONDS);
+    }
+
+    private void demarrerChargement() {
+        Index nouveau = new Index();
+        enChargement = nouveau;
+        Thread thread = new Thread(() -> remplir(nouveau), "healthcare-index-patients");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void remplir(Index nouveau) {
+        long debut = System.currentTimeMillis();
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.ARRIERE_PLAN)) {
+            // Lu avant la table : les patients validés pendant le chargement seront relus au rafraîchissement
+            long scn = journalDAO.lireScnCourant();
+            long apresId = 0;
+            while (true) {
+                List<Patient> page = patientDAO.findPage(apresId, TAILLE_PAGE);
+                for (Patient patient : page) {
+                    nouveau.texte.indexerSiAbsent(patient);
+                    nouveau.noms.indexerSiAbsent(patient);
+                }
+                if (page.size() < TAILLE_PAGE) {
+                    break;
+                }
+                apresId = page.get(page.size() - 1).getId();
+            }
+            nouveau.texte.terminerChargement();
+            nouveau.noms.terminerChargement();
+            synchronized (verrou) {
+                index = nouveau;
+                enChargement = null;
+                scnIndex = scn;
+                planifierRafraichissement();
+            }
+            logger.info("Index de recherche des patients chargés : {} patients en {} ms",
+                    nouveau.texte.taille(), System.currentTimeMillis() - debut);
+        } catch (RuntimeException e) {
+            logger.error("Erreur lors du chargement des index de recherche des patients", e);
+            synchronized (verrou) {
+                enChargement = null;
+            }
+        }
+    }
+}
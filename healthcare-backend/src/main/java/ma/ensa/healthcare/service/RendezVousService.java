@@ -1,5 +1,6 @@
 package ma.ensa.healthcare.service;
 
+import ma.ensa.healthcare.config.DatabaseConfig;
 import ma.ensa.healthcare.dao.impl.RendezVousDAOImpl;
 import ma.ensa.healthcare.dao.interfaces.IRendezVousDAO;
 import ma.ensa.healthcare.exception.RendezVousException;
@@ -58,11 +59,17 @@ public class RendezVousService {
      * Récupère tous les rendez-vous
      */
     public List<RendezVous> obtenirTousLesRendezVous() {
-        return rdvDAO.findAll();
+        // Écran de liste : éligible à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return rdvDAO.findAll();
+        }
     }
 
     public List<RendezVous> getAllRendezVous() {
-        return rdvDAO.findAll();
+        // Écran de liste : éligible à la réplique
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return rdvDAO.findAll();
+        }
     }
 
     /**
@@ -88,9 +95,7 @@ public class RendezVousService {
             throw new RendezVousException("La date ne peut pas être null");
         }
         
-        return rdvDAO.findAll().stream()
-            .filter(rdv -> rdv.getDateRdv().equals(date))
-            .collect(Collectors.toList());
+        return rdvDAO.findByDate(date);
     }
 
     /**
@@ -132,7 +137,7 @@ public class RendezVousService {
         validateRendezVous(rdv);
         
         try {
-            rdvDAO.update(rdv);
+            rdvDAO.update(versionSuivie(rdv));
             logger.info("Rendez-vous mis à jour : ID {}", rdv.getId());
         } catch (Exception e) {
             logger.error("Erreur lors de la mise à jour du rendez-vous", e);
@@ -140,6 +145,22 @@ public class RendezVousService {
         }
     }
 
+    /**
+     * Objet construit hors DAO (formulaire) : reporte ses valeurs sur la version en base
+     * afin que seul le différentiel soit écrit (UPDATE partiel)
+     */
+    private RendezVous versionSuivie(RendezVous rdv) {
+        if (rdv.getSuivi().isActif()) {
+            return rdv;
+        }
+        RendezVous actuel = rdvDAO.findById(rdv.getId());
+        if (actuel == null) {
+            return rdv;
+        }
+        actuel.copierDepuis(rdv);
+        return actuel;
+    }
+
     /**
      * Confirme un rendez-vous
      */
@@ -154,8 +175,7 @@ public class RendezVousService {
             throw new RendezVousException("Impossible de confirmer un rendez-vous terminé");
         }
         
-        rdv.setStatut(StatutRendezVous.CONFIRME);
-        rdvDAO.update(rdv);
+        rdvDAO.updateStatut(id, StatutRendezVous.CONFIRME);
         logger.info("Rendez-vous confirmé : ID {}", id);
     }
 
@@ -169,9 +189,8 @@ public class RendezVousService {
             throw new RendezVousException("Impossible d'annuler un rendez-vous déjà terminé");
         }
         
-        rdv.setStatut(StatutRendezVous.ANNULE);
         // Le motif pourrait être stocké dans un champ notes si vous l'ajoutez au modèle
-        rdvDAO.update(rdv);
+        rdvDAO.updateStatut(id, StatutRendezVous.ANNULE);
         logger.info("Rendez-vous annulé : ID {} - Motif: {}", id, motifAnnulation);
     }
 
@@ -185,8 +204,7 @@ public class RendezVousService {
             throw new RendezVousException("Impossible de terminer un rendez-vous annulé");
         }
         
-        rdv.setStatut(StatutRendezVous.TERMINE);
-        rdvDAO.update(rdv);
+        rdvDAO.updateStatut(id, StatutRendezVous.TERMINE);
         logger.info("Rendez-vous terminé : ID {}", id);
     }
 
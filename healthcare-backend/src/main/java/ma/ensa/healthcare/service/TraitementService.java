@@ -49,6 +49,16 @@ public class TraitementService {
         return traitementDAO.findAll();
     }
 
+    /**
+     * Récupère les traitements prescrits lors d'une consultation
+     */
+    public List<Traitement> getByConsultation(Long consultationId) {
+        if (consultationId == null) {
+            throw new IllegalArgumentException("L'ID de consultation ne peut pas être null");
+        }
+        return traitementDAO.findByConsultationId(consultationId);
+    }
+
     /**
      * Met à jour un traitement
      */
@@ -0,0 +1,251 @@
+package ma.ensa.healthcare.util;
+
+import ma.ensa.healthcare.util.DatabaseExportService.TypeValeur;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Encodage d'un bloc de lignes rangé par colonnes (format de ExportBinaireService).
+ *
+ * Pour chaque colonne : bitmap des NULL ((lignes + 7) / 8 octets), longueur des
+ * données (varint), puis les valeurs non nulles à la suite :
+ * ENTIER et DATE en zigzag varint (secondes pour DATE), TIMESTAMP en secondes
+ * puis nanosecondes, NOMBRE en échelle puis mantisse signée, TEXTE en UTF-8
+ * précédé de sa longueur.
+ */
+final class BlocColonnes {
+
+    private BlocColonnes() {
+    }
+
+    /**
+     * Accumule les lignes d'un ResultSet jusqu'à la capacité du bloc
+     */
+    static final class Encodeur {
+        private final TypeValeur[] types;
+        private final int capacite;
+        private final Tampon[] donnees;
+        private final byte[][] nuls;
+        private int lignes;
+
+        Encodeur(TypeValeur[] types, int capacite) {
+            this.types = types;
+            this.capacite = capacite;
+            this.donnees = new Tampon[types.length];
+            this.nuls = new byte[types.length][(capacite + 7) / 8];
+            for (int c = 0; c < types.length; c++) {
+                donnees[c] = new Tampon(capacite * 8);
+            }
+        }
+
+        /** Ajoute la ligne courante du ResultSet (colonnes 1 à n) */
+        void ajouter(ResultSet rs) throws SQLException {
+            for (int c = 0; c < types.length; c++) {
+                Tampon tampon = donnees[c];
+                switch (types[c]) {
+                    case ENTIER -> {
+                        long valeur = rs.getLong(c + 1);
+                        if (rs.wasNull()) {
+                            marquerNul(c);
+                        } else {
+                            tampon.zigzag(valeur);
+                        }
+                    }
+                    case NOMBRE -> {
+                        BigDecimal valeur = rs.getBigDecimal(c + 1);
+                        if (valeur == null) {
+                            marquerNul(c);
+                        } else {
+                            byte[] mantisse = valeur.unscaledValue().toByteArray();
+                            tampon.zigzag(valeur.scale());
+                            tampon.varint(mantisse.length);
+                            tampon.octets(mantisse, 0, mantisse.length);
+                        }
+                    }
+                    case DATE, TIMESTAMP -> {
+                        Timestamp valeur = rs.getTimestamp(c + 1);
+                        if (valeur == null) {
+                            marquerNul(c);
+                        } else {
+                            tampon.zigzag(valeur.toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+                            if (types[c] == TypeValeur.TIMESTAMP) {
+                                tampon.varint(valeur.getNanos());
+                            }
+                        }
+                    }
+                    case TEXTE -> {
+                        String valeur = rs.getString(c + 1);
+                        if (valeur == null) {
+                            marquerNul(c);
+                        } else {
+                            byte[] octets = valeur.getBytes(StandardCharsets.UTF_8);
+                            tampon.varint(octets.length);
+                            tampon.octets(octets, 0, octets.length);
+                        }
+                    }
+                }
+            }
+            lignes++;
+        }
+
+        private void marquerNul(int colonne) {
+            nuls[colonne][lignes >> 3] |= (byte) (1 << (lignes & 7));
+        }
+
+        boolean estPlein() {
+            return lignes == capacite;
+        }
+
+        int getLignes() {
+            return lignes;
+        }
+
+        /**
+         * Écrit le bloc dans la sortie et vide l'encodeur
+         */
+        void terminer(Tampon sortie) {
+            sortie.vider();
+            int tailleNuls = (lignes + 7) / 8;
+            for (int c = 0; c < types.length; c++) {
+                sortie.octets(nuls[c], 0, tailleNuls);
+                sortie.varint(donnees[c].taille);
+                sortie.octets(donnees[c].octets, 0, donnees[c].taille);
+                Arrays.fill(nuls[c], 0, tailleNuls, (byte) 0);
+                donnees[c].vider();
+            }
+            lignes = 0;
+        }
+    }
+
+    /**
+     * Lie chaque ligne d'un bloc aux paramètres de l'INSERT (1 à n) et l'ajoute au lot
+     */
+    static void lier(ByteBuffer bloc, int lignes, TypeValeur[] types, PreparedStatement pstmt) throws SQLException {
+        int tailleNuls = (lignes + 7) / 8;
+        int[] debutNuls = new int[types.length];
+        ByteBuffer[] curseurs = new ByteBuffer[types.length];
+        for (int c = 0; c < types.length; c++) {
+            debutNuls[c] = bloc.position();
+            bloc.position(bloc.position() + tailleNuls);
+            int taille = (int) lireVarint(bloc);
+            curseurs[c] = bloc.slice(bloc.position(), taille);
+            bloc.position(bloc.position() + taille);
+        }
+
+        for (int ligne = 0; ligne < lignes; ligne++) {
+            for (int c = 0; c < types.length; c++) {
+                boolean nul = (bloc.get(debutNuls[c] + (ligne >> 3)) & (1 << (ligne & 7))) != 0;
+                ByteBuffer curseur = curseurs[c];
+                switch (types[c]) {
+                    case ENTIER -> {
+                        if (nul) {
+                            pstmt.setNull(c + 1, Types.NUMERIC);
+                        } else {
+                            pstmt.setLong(c + 1, lireZigzag(curseur));
+                        }
+                    }
+                    case NOMBRE -> {
+                        if (nul) {
+                            pstmt.setNull(c + 1, Types.NUMERIC);
+                        } else {
+                            int echelle = (int) lireZigzag(curseur);
+                            byte[] mantisse = new byte[(int) lireVarint(curseur)];
+                            curseur.get(mantisse);
+                            pstmt.setBigDecimal(c + 1, new BigDecimal(new BigInteger(mantisse), echelle));
+                        }
+                    }
+                    case DATE, TIMESTAMP -> {
+                        if (nul) {
+                            pstmt.setNull(c + 1, Types.TIMESTAMP);
+                        } else {
+                            long secondes = lireZigzag(curseur);
+                            int nanos = types[c] == TypeValeur.TIMESTAMP ? (int) lireVarint(curseur) : 0;
+                            pstmt.setTimestamp(c + 1, Timestamp.valueOf(
+                                    LocalDateTime.ofEpochSecond(secondes, nanos, ZoneOffset.UTC)));
+                        }
+                    }
+                    case TEXTE -> {
+                        if (nul) {
+                            pstmt.setNull(c + 1, Types.VARCHAR);
+                        } else {
+                            byte[] octets = new byte[(int) lireVarint(curseur)];
+                            curseur.get(octets);
+                            pstmt.setString(c + 1, new String(octets, StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+            }
+            pstmt.addBatch();
+        }
+    }
+
+    static long lireVarint(ByteBuffer tampon) {
+        long valeur = 0;
+        for (int decalage = 0; ; decalage += 7) {
+            byte b = tampon.get();
+            valeur |= (long) (b & 0x7F) << decalage;
+            if (b >= 0) {
+                return valeur;
+            }
+        }
+    }
+
+    static long lireZigzag(ByteBuffer tampon) {
+        long v = lireVarint(tampon);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Tableau d'octets extensible, réutilisé d'un bloc à l'autre
+     */
+    static final class Tampon {
+        byte[] octets;
+        int taille;
+
+        Tampon(int capacite) {
+            this.octets = new byte[Math.max(16, capacite)];
+        }
+
+        void vider() {
+            taille = 0;
+        }
+
+        void octets(byte[] source, int debut, int longueur) {
+            reserver(longueur);
+            System.arraycopy(source, debut, octets, taille, longueur);
+            taille += longueur;
+        }
+
+        /** Entier non signé, 7 bits par octet */
+        void varint(long valeur) {
+            reserver(10);
+            while ((valeur & ~0x7FL) != 0) {
+                octets[taille++] = (byte) ((valeur & 0x7F) | 0x80);
+                valeur >>>= 7;
+            }
+            octets[taille++] = (byte) valeur;
+        }
+
+        /** Entier signé : les petites valeurs négatives restent courtes */
+        void zigzag(long valeur) {
+            varint((valeur << 1) ^ (valeur >> 63));
+        }
+
+        void reserver(int longueur) {
+            if (taille + longueur > octets.length) {
+                octets = Arrays.copyOf(octets, Math.max(octets.length * 2, taille + longueur));
+            }
+        }
+    }
+}
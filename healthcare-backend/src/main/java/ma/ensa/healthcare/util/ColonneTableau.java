@@ -0,0 +1,89 @@
+package ma.ensa.healthcare.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Function;
+
+/**
+ * Colonne d'un tableau : titre et valeur d'une ligne.
+ * Une même définition alimente la TableView de l'écran et les exports CSV/XLSX,
+ * pour que le fichier exporté ait les mêmes colonnes et les mêmes textes que l'écran.
+ */
+public final class ColonneTableau<T> {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATE_HEURE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    // Même rendu que String.format("%.2f") sans son coût (appelé pour chaque cellule d'un export)
+    private static final char SEPARATEUR_DECIMAL = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    /**
+     * Valeur brute d'une ligne : String, nombre, date, date-heure ou enum
+     */
+    @FunctionalInterface
+    public interface Valeur<T> {
+        Object de(T ligne, ReferencesTableau references);
+    }
+
+    private final String titre;
+    private final Valeur<T> valeur;
+    private final Function<Object, String> format;
+    private final String texteVide;
+
+    public ColonneTableau(String titre, Valeur<T> valeur) {
+        this(titre, valeur, ColonneTableau::formatParDefaut, "");
+    }
+
+    private ColonneTableau(String titre, Valeur<T> valeur, Function<Object, String> format, String texteVide) {
+        this.titre = titre;
+        this.valeur = valeur;
+        this.format = format;
+        this.texteVide = texteVide;
+    }
+
+    /** Même colonne avec un format d'affichage propre (valeur non null) */
+    public ColonneTableau<T> avecFormat(Function<Object, String> format) {
+        return new ColonneTableau<>(titre, valeur, format, texteVide);
+    }
+
+    /** Même colonne affichant ce texte quand la valeur est absente */
+    public ColonneTableau<T> siVide(String texte) {
+        return new ColonneTableau<>(titre, valeur, format, texte);
+    }
+
+    public String getTitre() { return titre; }
+
+    /**
+     * Valeur brute (les nombres restent numériques dans l'export XLSX)
+     */
+    public Object valeur(T ligne, ReferencesTableau references) {
+        return valeur.de(ligne, references);
+    }
+
+    /**
+     * Texte affiché à l'écran et écrit dans le CSV
+     */
+    public String texte(T ligne, ReferencesTableau references) {
+        Object v = valeur(ligne, references);
+        return v != null ? format.apply(v) : texteVide;
+    }
+
+    private static String formatParDefaut(Object valeur) {
+        if (valeur instanceof LocalDateTime dateHeure) {
+            return dateHeure.format(DATE_HEURE);
+        }
+        if (valeur instanceof LocalDate date) {
+            return date.format(DATE);
+        }
+        if (valeur instanceof BigDecimal montant) {
+            return montant.setScale(2, RoundingMode.HALF_UP).toPlainString().replace('.', SEPARATEUR_DECIMAL);
+        }
+        if (valeur instanceof Enum<?> constante) {
+            return constante.name();
+        }
+        return valeur.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package ma.ensa.healthcare.util;
+
+import ma.ensa.healthcare.model.Consultation;
+import ma.ensa.healthcare.model.Facture;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.RendezVous;
+
+import java.util.List;
+
+/**
+ * Colonnes des écrans Patients, Rendez-vous, Consultations et Factures,
+ * dans l'ordre d'affichage (partagées par les TableView et les exports CSV/XLSX)
+ */
+public class ColonnesTableaux {
+
+    // === PATIENTS ===
+    public static final ColonneTableau<Patient> PATIENT_ID = new ColonneTableau<>("ID", (p, r) -> p.getId());
+    public static final ColonneTableau<Patient> PATIENT_CIN = new ColonneTableau<>("CIN", (p, r) -> p.getCin());
+    public static final ColonneTableau<Patient> PATIENT_NOM = new ColonneTableau<>("Nom", (p, r) -> p.getNom());
+    public static final ColonneTableau<Patient> PATIENT_PRENOM = new ColonneTableau<>("Prénom", (p, r) -> p.getPrenom());
+    public static final ColonneTableau<Patient> PATIENT_SEXE = new ColonneTableau<>("Sexe", (p, r) -> p.getSexe());
+    public static final ColonneTableau<Patient> PATIENT_DATE_NAISSANCE =
+            new ColonneTableau<>("Date Naissance", (p, r) -> p.getDateNaissance());
+    public static final ColonneTableau<Patient> PATIENT_TELEPHONE =
+            new ColonneTableau<>("Téléphone", (p, r) -> p.getTelephone());
+    public static final ColonneTableau<Patient> PATIENT_EMAIL = new ColonneTableau<>("Email", (p, r) -> p.getEmail());
+
+    public static final List<ColonneTableau<Patient>> PATIENTS = List.of(
+            PATIENT_ID, PATIENT_CIN, PATIENT_NOM, PATIENT_PRENOM, PATIENT_SEXE,
+            PATIENT_DATE_NAISSANCE, PATIENT_TELEPHONE, PATIENT_EMAIL);
+
+    // === RENDEZ-VOUS ===
+    public static final ColonneTableau<RendezVous> RDV_ID = new ColonneTableau<>("ID", (rdv, r) -> rdv.getId());
+    public static final ColonneTableau<RendezVous> RDV_DATE_HEURE =
+            new ColonneTableau<RendezVous>("Date/Heure", (rdv, r) -> rdv.getHeureDebut()).siVide("N/A");
+    public static final ColonneTableau<RendezVous> RDV_PATIENT =
+            new ColonneTableau<RendezVous>("Patient", (rdv, r) -> nomComplet(r.patient(rdv.getIdPatient()))).siVide("N/A");
+    public static final ColonneTableau<RendezVous> RDV_CIN =
+            new ColonneTableau<RendezVous>("CIN", (rdv, r) -> cin(r.patient(rdv.getIdPatient()))).siVide("N/A");
+    public static final ColonneTableau<RendezVous> RDV_MEDECIN =
+            new ColonneTableau<RendezVous>("Médecin", (rdv, r) -> medecin(rdv)).siVide("N/A");
+    public static final ColonneTableau<RendezVous> RDV_SPECIALITE =
+            new ColonneTableau<RendezVous>("Spécialité", (rdv, r) -> specialite(rdv)).siVide("N/A");
+    public static final ColonneTableau<RendezVous> RDV_MOTIF = new ColonneTableau<>("Motif", (rdv, r) -> rdv.getMotif());
+    public static final ColonneTableau<RendezVous> RDV_STATUT =
+            new ColonneTableau<RendezVous>("Statut", (rdv, r) -> rdv.getStatut()).siVide("N/A");
+
+    public static final List<ColonneTableau<RendezVous>> RENDEZ_VOUS = List.of(
+            RDV_ID, RDV_DATE_HEURE, RDV_PATIENT, RDV_CIN, RDV_MEDECIN, RDV_SPECIALITE, RDV_MOTIF, RDV_STATUT);
+
+    // === CONSULTATIONS (patient et médecin via le rendez-vous) ===
+    public static final ColonneTableau<Consultation> CONSULTATION_ID =
+            new ColonneTableau<>("ID", (c, r) -> c.getId());
+    public static final ColonneTableau<Consultation> CONSULTATION_DATE =
+            new ColonneTableau<Consultation>("Date", (c, r) -> c.getDateConsultation()).siVide("N/A");
+    public static final ColonneTableau<Consultation> CONSULTATION_PATIENT =
+            new ColonneTableau<Consultation>("Patient", (c, r) -> nomComplet(patient(c, r))).siVide("N/A");
+    public static final ColonneTableau<Consultation> CONSULTATION_CIN =
+            new ColonneTableau<Consultation>("CIN", (c, r) -> cin(patient(c, r))).siVide("N/A");
+    public static final ColonneTableau<Consultation> CONSULTATION_MEDECIN =
+            new ColonneTableau<Consultation>("Médecin", (c, r) -> medecin(r.rendezVous(c.getIdRendezVous()))).siVide("N/A");
+    public static final ColonneTableau<Consultation> CONSULTATION_SPECIALITE =
+            new ColonneTableau<Consultation>("Spécialité", (c, r) -> specialite(r.rendezVous(c.getIdRendezVous()))).siVide("N/A");
+    public static final ColonneTableau<Consultation> CONSULTATION_DIAGNOSTIC =
+            new ColonneTableau<>("Diagnostic", (c, r) -> c.getDiagnostic());
+    public static final ColonneTableau<Consultation> CONSULTATION_TARIF =
+            new ColonneTableau<Consultation>("Tarif", (c, r) -> c.getTarifConsultation())
+                    .avecFormat(tarif -> tarif + " MAD").siVide("N/A");
+
+    public static final List<ColonneTableau<Consultation>> CONSULTATIONS = List.of(
+            CONSULTATION_ID, CONSULTATION_DATE, CONSULTATION_PATIENT, CONSULTATION_CIN,
+            CONSULTATION_MEDECIN, CONSULTATION_SPECIALITE, CONSULTATION_DIAGNOSTIC, CONSULTATION_TARIF);
+
+    // === FACTURES ===
+    public static final ColonneTableau<Facture> FACTURE_ID = new ColonneTableau<>("ID", (f, r) -> f.getId());
+    public static final ColonneTableau<Facture> FACTURE_NUMERO =
+            new ColonneTableau<>("N° Facture", (f, r) -> f.getNumeroFacture());
+    public static final ColonneTableau<Facture> FACTURE_DATE =
+            new ColonneTableau<Facture>("Date", (f, r) -> f.getDateFacture()).siVide("N/A");
+    public static final ColonneTableau<Facture> FACTURE_PATIENT =
+            new ColonneTableau<Facture>("Patient", (f, r) -> nomComplet(r.patient(f.getIdPatient()))).siVide("N/A");
+    public static final ColonneTableau<Facture> FACTURE_CIN =
+            new ColonneTableau<Facture>("CIN", (f, r) -> cin(r.patient(f.getIdPatient()))).siVide("N/A");
+    public static final ColonneTableau<Facture> FACTURE_MONTANT_CONSULTATION =
+            new ColonneTableau<Facture>("Consultation", (f, r) -> f.getMontantConsultation()).siVide("0.00");
+    public static final ColonneTableau<Facture> FACTURE_MONTANT_MEDICAMENTS =
+            new ColonneTableau<Facture>("Médicaments", (f, r) -> f.getMontantMedicaments()).siVide("0.00");
+    public static final ColonneTableau<Facture> FACTURE_MONTANT_TOTAL =
+            new ColonneTableau<Facture>("Total", (f, r) -> f.getMontantTotal()).siVide("0.00");
+    public static final ColonneTableau<Facture> FACTURE_MONTANT_PAYE =
+            new ColonneTableau<Facture>("Payé", (f, r) -> f.getMontantPaye()).siVide("0.00");
+    public static final ColonneTableau<Facture> FACTURE_MONTANT_RESTANT =
+            new ColonneTableau<Facture>("Reste", (f, r) -> f.getMontantRestant()).siVide("0.00");
+    public static final ColonneTableau<Facture> FACTURE_STATUT =
+            new ColonneTableau<Facture>("Statut", (f, r) -> f.getStatutPaiement()).siVide("N/A");
+
+    public static final List<ColonneTableau<Facture>> FACTURES = List.of(
+            FACTURE_ID, FACTURE_NUMERO, FACTURE_DATE, FACTURE_PATIENT, FACTURE_CIN,
+            FACTURE_MONTANT_CONSULTATION, FACTURE_MONTANT_MEDICAMENTS, FACTURE_MONTANT_TOTAL,
+            FACTURE_MONTANT_PAYE, FACTURE_MONTANT_RESTANT, FACTURE_STATUT);
+
+    private static String nomComplet(Patient patient) {
+        return patient != null ? patient.getNom() + " " + patient.getPrenom() : null;
+    }
+
+    private static String cin(Patient patient) {
+        return patient != null ? patient.getCin() : null;
+    }
+
+    private static Patient patient(Consultation c, ReferencesTableau references) {
+        RendezVous rdv = references.rendezVous(c.getIdRendezVous());
+        return rdv != null ? references.patient(rdv.getIdPatient()) : null;
+    }
+
+    private static String medecin(RendezVous rdv) {
+        return rdv != null && rdv.getMedecin() != null ? "Dr. " + rdv.getMedecin().getNom() : null;
+    }
+
+    private static String specialite(RendezVous rdv) {
+        return rdv != null && rdv.getMedecin() != null ? rdv.getMedecin().getSpecialite() : null;
+    }
+}
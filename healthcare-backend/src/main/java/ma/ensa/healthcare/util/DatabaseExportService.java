@@ -1,34 +1,60 @@
 package ma.ensa.healthcare.util;
 
 import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Service d'export de la base de données Oracle vers fichier SQL
  * Exporte la structure (DDL) et les données (INSERT)
+ *
+ * Les tables sont exportées en parallèle, chacune sur sa connexion du pool des rapports,
+ * toutes lues au même SCN (requêtes AS OF SCN) : le fichier est une image cohérente de
+ * la base même si elle est modifiée pendant l'export. Chaque table est écrite dans un
+ * fichier partiel, puis les parties sont assemblées dans l'ordre des dépendances.
+ * Un export plus long que la rétention d'UNDO de la base échoue (ORA-01555).
  */
 public class DatabaseExportService {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseExportService.class);
     private static final DateTimeFormatter FILENAME_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final int TAILLE_TAMPON = 64 * 1024;
+    private static final AtomicInteger numeroThread = new AtomicInteger();
     
     // Liste des tables dans l'ordre de dépendance (pour respecter les FK)
-    private static final String[] TABLES_ORDER = {
+    static final String[] TABLES_ORDER = {
         "DEPARTEMENT",
         "MEDECIN", 
         "PATIENT",
@@ -37,7 +63,10 @@ public class DatabaseExportService {
         "MEDICAMENT",
         "CONSULTATION",
         "TRAITEMENT",
-        "FACTURE"
+        "FACTURE",
+        "PAIEMENT",
+        "COMPTEUR_FACTURE",
+        "REPRISE_FACTURATION"
     };
     
     /**
@@ -47,8 +76,62 @@ public class DatabaseExportService {
      * @return Chemin complet du fichier créé
      */
     public static String exportDatabase(String outputDirectory) throws SQLException, IOException {
+        return exportDatabase(outputDirectory, compressionParDefaut());
+    }
+
+    /**
+     * Exporte la base de données complète (structure + données)
+     * 
+     * @param outputDirectory Répertoire de sortie (ex: "./exports")
+     * @param compresse Fichier compressé en gzip (.sql.gz)
+     * @return Chemin complet du fichier créé
+     */
+    public static String exportDatabase(String outputDirectory, boolean compresse) throws SQLException, IOException {
         logger.info("Début de l'export de la base de données...");
-        
+        return exporter(outputDirectory, "healthcare_export", true, compresse);
+    }
+    
+    /**
+     * Exporte uniquement les données (INSERT statements)
+     */
+    public static String exportDataOnly(String outputDirectory) throws SQLException, IOException {
+        return exportDataOnly(outputDirectory, compressionParDefaut());
+    }
+
+    /**
+     * Exporte uniquement les données (INSERT statements)
+     * @param compresse Fichier compressé en gzip (.sql.gz)
+     */
+    public static String exportDataOnly(String outputDirectory, boolean compresse) throws SQLException, IOException {
+        logger.info("Début de l'export des données uniquement...");
+        return exporter(outputDirectory, "healthcare_data", false, compresse);
+    }
+
+    /**
+     * Exporte uniquement les données, lues sur la primaire à un SCN donné (sauvegarde de base des incrémentales)
+     */
+    static String exportDataOnly(String outputDirectory, boolean compresse, long scn) throws SQLException, IOException {
+        logger.info("Début de l'export des données au SCN {}...", scn);
+        return exporter(outputDirectory, "healthcare_data", false, compresse,
+                        DatabaseConfig.noeudPrimaire(PoolConnexion.RAPPORT), scn);
+    }
+
+    /**
+     * Nœud choisi une fois pour tout l'export : SCN et tables lus sur la même base
+     */
+    private static String exporter(String outputDirectory, String prefixe, boolean avecStructure, boolean compresse)
+            throws SQLException, IOException {
+        DatabaseConfig.NoeudLecture noeud = DatabaseConfig.choisirNoeudLecture(PoolConnexion.RAPPORT);
+        return exporter(outputDirectory, prefixe, avecStructure, compresse, noeud, lireScn(noeud));
+    }
+
+    /**
+     * @param noeud Base de toutes les lectures de l'export, celle où le SCN a été lu
+     */
+    private static String exporter(String outputDirectory, String prefixe, boolean avecStructure, boolean compresse,
+                                   DatabaseConfig.NoeudLecture noeud, long scn) throws SQLException, IOException {
+        long debut = System.currentTimeMillis();
+
         // Créer le répertoire si nécessaire
         Path dirPath = Paths.get(outputDirectory);
         if (!Files.exists(dirPath)) {
@@ -58,92 +141,204 @@ public class DatabaseExportService {
         
         // Générer le nom du fichier avec timestamp
         String timestamp = LocalDateTime.now().format(FILENAME_FORMATTER);
-        String filename = String.format("healthcare_export_%s.sql", timestamp);
-        String filepath = Paths.get(outputDirectory, filename).toString();
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
-            // En-tête du fichier
-            writeHeader(writer);
-            
-            // Export structure + données pour chaque table
+        String filename = prefixe + "_" + timestamp + (compresse ? ".sql.gz" : ".sql");
+        Path fichier = dirPath.resolve(filename);
+
+        // Plus grosses tables lancées en premier, toutes lues au même SCN
+        List<String> tablesParTaille;
+        try (Connection conn = noeud.getConnection()) {
+            tablesParTaille = trierParTaille(conn);
+        }
+
+        PropertyManager props = PropertyManager.getInstance();
+        int fetchSize = props.getIntProperty("export.fetchSize", 5000);
+        int maxPool = props.getIntProperty("db.hikari." + PoolConnexion.RAPPORT.getCle() + ".maximumPoolSize",
+                                           PoolConnexion.RAPPORT.getMaximumPoolSizeParDefaut());
+        int nbThreads = Math.max(1, Math.min(Math.min(
+                props.getIntProperty("export.threads", Runtime.getRuntime().availableProcessors()),
+                maxPool), TABLES_ORDER.length));
+
+        ExecutorService executeur = Executors.newFixedThreadPool(nbThreads, tache -> {
+            Thread thread = new Thread(tache, "healthcare-export-" + numeroThread.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, Future<Path>> parties = new HashMap<>();
+        // Faux tant que le fichier n'est pas complet : tout échec (SQL, E/S, interruption...) le supprime
+        boolean termine = false;
+        try {
+            for (String tableName : tablesParTaille) {
+                parties.put(tableName, executeur.submit(() -> exporterPartie(
+                        tableName, partie(fichier, tableName), scn, fetchSize, avecStructure, compresse, noeud)));
+            }
+
+            Path entete = partie(fichier, "entete");
+            try (EcrivainSql ecrivain = EcrivainSql.ouvrir(entete, compresse)) {
+                writeHeader(ecrivain, scn);
+            }
+            Path pied = partie(fichier, "pied");
+            try (EcrivainSql ecrivain = EcrivainSql.ouvrir(pied, compresse)) {
+                writeFooter(ecrivain);
+            }
+
+            // Assemblage dans l'ordre des dépendances, au fur et à mesure que les tables sont prêtes
+            // (des membres gzip concaténés forment un fichier gzip valide)
+            try (FileChannel sortie = FileChannel.open(fichier, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                copier(entete, sortie);
+                for (String tableName : TABLES_ORDER) {
+                    copier(parties.get(tableName).get(), sortie);
+                }
+                copier(pied, sortie);
+            }
+            termine = true;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new RuntimeException("Erreur lors de l'export : " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrompu", e);
+        } finally {
+            executeur.shutdownNow();
+            try {
+                // Tables encore en cours après un échec : attendre qu'elles lâchent leur fichier partiel
+                executeur.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!termine) {
+                supprimer(fichier);
+            }
             for (String tableName : TABLES_ORDER) {
-                logger.info("Export de la table: {}", tableName);
-                exportTable(tableName, writer);
+                supprimer(partie(fichier, tableName));
             }
-            
-            // Pied de page
-            writeFooter(writer);
-            
-            writer.flush();
+            supprimer(partie(fichier, "entete"));
+            supprimer(partie(fichier, "pied"));
         }
         
         // Calculer la taille du fichier
-        File exportFile = new File(filepath);
-        long fileSizeKB = exportFile.length() / 1024;
-        
-        logger.info("Export terminé avec succès: {} ({} KB)", filepath, fileSizeKB);
-        return filepath;
+        long fileSizeKB = Files.size(fichier) / 1024;
+        logger.info("Export terminé avec succès: {} ({} KB, SCN {} sur la {}, {} threads, {} ms)",
+                    fichier, fileSizeKB, scn, noeud, nbThreads, System.currentTimeMillis() - debut);
+        return fichier.toString();
     }
-    
+
     /**
-     * Exporte uniquement les données (INSERT statements)
+     * Exporte une table dans son fichier partiel (thread de l'exécuteur)
      */
-    public static String exportDataOnly(String outputDirectory) throws SQLException, IOException {
-        logger.info("Début de l'export des données uniquement...");
-        
-        Path dirPath = Paths.get(outputDirectory);
-        if (!Files.exists(dirPath)) {
-            Files.createDirectories(dirPath);
+    private static Path exporterPartie(String tableName, Path partie, long scn, int fetchSize, boolean avecStructure,
+                                       boolean compresse, DatabaseConfig.NoeudLecture noeud)
+            throws SQLException, IOException {
+        long debut = System.currentTimeMillis();
+        try (Connection conn = noeud.getConnection();
+             EcrivainSql ecrivain = EcrivainSql.ouvrir(partie, compresse)) {
+            if (avecStructure) {
+                exportTable(conn, tableName, scn, fetchSize, ecrivain);
+            } else {
+                exportTableData(conn, tableName, scn, fetchSize, ecrivain);
+            }
         }
-        
-        String timestamp = LocalDateTime.now().format(FILENAME_FORMATTER);
-        String filename = String.format("healthcare_data_%s.sql", timestamp);
-        String filepath = Paths.get(outputDirectory, filename).toString();
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
-            writeHeader(writer);
-            
-            for (String tableName : TABLES_ORDER) {
-                logger.info("Export données: {}", tableName);
-                exportTableData(tableName, writer);
+        logger.info("Table {} exportée en {} ms", tableName, System.currentTimeMillis() - debut);
+        return partie;
+    }
+
+    private static Path partie(Path fichier, String nom) {
+        return fichier.resolveSibling(fichier.getFileName() + "." + nom + ".part");
+    }
+
+    /**
+     * Supprime un fichier de l'export sans masquer l'erreur en cours
+     */
+    static void supprimer(Path fichier) {
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            logger.warn("Impossible de supprimer {}", fichier, e);
+        }
+    }
+
+    static void copier(Path partie, FileChannel sortie) throws IOException {
+        try (FileChannel entree = FileChannel.open(partie, StandardOpenOption.READ)) {
+            long taille = entree.size();
+            long position = 0;
+            while (position < taille) {
+                position += entree.transferTo(position, taille - position, sortie);
             }
-            
-            writeFooter(writer);
-            writer.flush();
         }
-        
-        logger.info("Export données terminé: {}", filepath);
-        return filepath;
+    }
+
+    /**
+     * SCN courant du nœud : les lectures AS OF SCN doivent se faire sur ce même nœud
+     */
+    static long lireScn(DatabaseConfig.NoeudLecture noeud) throws SQLException {
+        try (Connection conn = noeud.getConnection()) {
+            return lireScn(conn);
+        }
+    }
+
+    /**
+     * SCN courant : toutes les lectures de l'export se font à ce point (AS OF SCN)
+     */
+    static long lireScn(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT TIMESTAMP_TO_SCN(SYSTIMESTAMP) FROM DUAL")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Tables de l'export triées par nombre de blocs décroissant (statistiques Oracle)
+     */
+    static List<String> trierParTaille(Connection conn) throws SQLException {
+        Map<String, Long> blocs = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT table_name, NVL(blocks, 0) FROM USER_TABLES")) {
+            while (rs.next()) {
+                blocs.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        List<String> tables = new ArrayList<>(Arrays.asList(TABLES_ORDER));
+        tables.sort(Comparator.comparingLong((String t) -> blocs.getOrDefault(t, 0L)).reversed());
+        return tables;
+    }
+
+    static boolean compressionParDefaut() {
+        return PropertyManager.getInstance().getBooleanProperty("export.gzip", false);
     }
     
     /**
      * Exporte une table complète (structure + données)
      */
-    private static void exportTable(String tableName, BufferedWriter writer) throws SQLException, IOException {
+    private static void exportTable(Connection conn, String tableName, long scn, int fetchSize, EcrivainSql writer)
+            throws SQLException, IOException {
         writer.write("\n-- ========================================\n");
-        writer.write(String.format("-- Table: %s\n", tableName));
+        writer.write("-- Table: ").write(tableName).write("\n");
         writer.write("-- ========================================\n\n");
         
         // Structure de la table
-        exportTableStructure(tableName, writer);
+        exportTableStructure(conn, tableName, writer);
         
         // Données
-        exportTableData(tableName, writer);
+        exportTableData(conn, tableName, scn, fetchSize, writer);
     }
     
     /**
      * Exporte la structure d'une table (CREATE TABLE)
      */
-    private static void exportTableStructure(String tableName, BufferedWriter writer) 
+    private static void exportTableStructure(Connection conn, String tableName, EcrivainSql writer) 
             throws SQLException, IOException {
         
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            
-            // Récupérer les colonnes
-            ResultSet columns = metaData.getColumns(null, null, tableName, null);
-            
-            writer.write(String.format("CREATE TABLE %s (\n", tableName));
+        DatabaseMetaData metaData = conn.getMetaData();
+        
+        // Récupérer les colonnes
+        try (ResultSet columns = metaData.getColumns(null, null, tableName, null)) {
+            writer.write("CREATE TABLE ").write(tableName).write(" (\n");
             
             List<String> columnDefinitions = new ArrayList<>();
             while (columns.next()) {
@@ -165,8 +360,6 @@ public class DatabaseExportService {
                     }
                 } else if (dataType.equals("VARCHAR2")) {
                     colDef.append(String.format("VARCHAR2(%d)", columnSize));
-                } else if (dataType.equals("DATE") || dataType.equals("TIMESTAMP")) {
-                    colDef.append(dataType);
                 } else {
                     colDef.append(dataType);
                 }
@@ -186,74 +379,141 @@ public class DatabaseExportService {
     }
     
     /**
-     * Exporte les données d'une table (INSERT statements)
+     * Exporte les données d'une table (INSERT statements), lues au SCN de l'export.
+     * Le début de l'INSERT est construit une fois par table et chaque valeur est
+     * écrite directement dans le tampon selon le type de sa colonne.
      */
-    private static void exportTableData(String tableName, BufferedWriter writer) 
-            throws SQLException, IOException {
+    static void exportTableData(Connection conn, String tableName, long scn, int fetchSize,
+                                EcrivainSql writer) throws SQLException, IOException {
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement()) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM " + tableName + " AS OF SCN ?")) {
+            stmt.setLong(1, scn);
+            stmt.setFetchSize(fetchSize);
             
-            String query = String.format("SELECT * FROM %s", tableName);
-            ResultSet rs = stmt.executeQuery(query);
-            ResultSetMetaData metaData = rs.getMetaData();
-            
-            int columnCount = metaData.getColumnCount();
-            int rowCount = 0;
-            
-            while (rs.next()) {
-                StringBuilder insert = new StringBuilder();
-                insert.append(String.format("INSERT INTO %s (", tableName));
-                
-                // Noms des colonnes
-                List<String> columnNames = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+
+                // Noms des colonnes et encodage de chaque colonne, une fois pour toute la table
+                StringBuilder debutInsert = new StringBuilder("INSERT INTO ").append(tableName).append(" (");
+                TypeValeur[] types = new TypeValeur[columnCount + 1];
                 for (int i = 1; i <= columnCount; i++) {
-                    columnNames.add(metaData.getColumnName(i));
+                    if (i > 1) {
+                        debutInsert.append(", ");
+                    }
+                    debutInsert.append(metaData.getColumnName(i));
+                    types[i] = TypeValeur.de(metaData, i);
                 }
-                insert.append(String.join(", ", columnNames));
-                insert.append(") VALUES (");
-                
-                // Valeurs
-                List<String> values = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    Object value = rs.getObject(i);
-                    
-                    if (value == null) {
-                        values.add("NULL");
-                    } else if (value instanceof String) {
-                        // Échapper les apostrophes
-                        String strValue = value.toString().replace("'", "''");
-                        values.add(String.format("'%s'", strValue));
-                    } else if (value instanceof Date || value instanceof Timestamp) {
-                        values.add(String.format("TO_DATE('%s', 'YYYY-MM-DD HH24:MI:SS')", 
-                            value.toString()));
-                    } else if (value instanceof Number) {
-                        values.add(value.toString());
-                    } else {
-                        values.add(String.format("'%s'", value.toString()));
+                String prefixe = debutInsert.append(") VALUES (").toString();
+
+                long rowCount = 0;
+                while (rs.next()) {
+                    writer.write(prefixe);
+                    for (int i = 1; i <= columnCount; i++) {
+                        if (i > 1) {
+                            writer.write(", ");
+                        }
+                        ecrireValeur(rs, i, types[i], writer);
                     }
+                    writer.write(");\n");
+                    rowCount++;
                 }
                 
-                insert.append(String.join(", ", values));
-                insert.append(");\n");
-                
-                writer.write(insert.toString());
-                rowCount++;
+                writer.write("-- ").write(rowCount).write(" ligne(s) exportée(s)\n\n");
+                logger.debug("{}: {} ligne(s) exportée(s)", tableName, rowCount);
+            }
+        }
+    }
+
+    /**
+     * Encodage SQL d'une colonne, choisi d'après les métadonnées
+     */
+    enum TypeValeur {
+        // L'ordre des constantes fait partie du format binaire (ExportBinaireService)
+        ENTIER, NOMBRE, DATE, TIMESTAMP, TEXTE;
+
+        static TypeValeur de(ResultSetMetaData metaData, int colonne) throws SQLException {
+            switch (metaData.getColumnType(colonne)) {
+                case Types.NUMERIC, Types.DECIMAL, Types.INTEGER, Types.BIGINT, Types.SMALLINT, Types.TINYINT -> {
+                    int precision = metaData.getPrecision(colonne);
+                    // NUMBER(p) avec p <= 18 tient dans un long : lu sans objet intermédiaire
+                    return metaData.getScale(colonne) == 0 && precision > 0 && precision <= 18 ? ENTIER : NOMBRE;
+                }
+                case Types.FLOAT, Types.DOUBLE, Types.REAL -> {
+                    return NOMBRE;
+                }
+                case Types.DATE, Types.TIMESTAMP -> {
+                    // Une colonne Oracle DATE est décrite comme TIMESTAMP par le pilote
+                    return "DATE".equalsIgnoreCase(metaData.getColumnTypeName(colonne)) ? DATE : TIMESTAMP;
+                }
+                default -> {
+                    return TEXTE;
+                }
+            }
+        }
+    }
+
+    static void ecrireValeur(ResultSet rs, int colonne, TypeValeur type, EcrivainSql writer)
+            throws SQLException, IOException {
+        switch (type) {
+            case ENTIER -> {
+                long valeur = rs.getLong(colonne);
+                if (rs.wasNull()) {
+                    writer.write("NULL");
+                } else {
+                    writer.write(valeur);
+                }
+            }
+            case NOMBRE -> {
+                BigDecimal valeur = rs.getBigDecimal(colonne);
+                writer.write(valeur == null ? "NULL" : valeur.toPlainString());
+            }
+            case DATE, TIMESTAMP -> {
+                Timestamp valeur = rs.getTimestamp(colonne);
+                if (valeur == null) {
+                    writer.write("NULL");
+                } else {
+                    writer.writeDate(valeur.toLocalDateTime(), type == TypeValeur.TIMESTAMP);
+                }
+            }
+            case TEXTE -> {
+                String valeur = rs.getString(colonne);
+                if (valeur == null) {
+                    writer.write("NULL");
+                } else {
+                    writer.writeTexte(valeur);
+                }
             }
-            
-            writer.write(String.format("-- %d ligne(s) exportée(s)\n\n", rowCount));
-            logger.debug("{}: {} ligne(s) exportée(s)", tableName, rowCount);
         }
     }
     
+    /**
+     * Connexion du pool des rapports, éligible à la réplique (l'export ne fait que lire)
+     */
+    static Connection ouvrirConnexionLecture() throws SQLException {
+        try (DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            return DatabaseConfig.getConnection(PoolConnexion.RAPPORT);
+        }
+    }
+
+    /**
+     * Connexion du pool des rapports sur la primaire (appel hors portée lectureSeule) :
+     * sauvegardes dont le journal est purgé sur la primaire, qu'une réplique en retard
+     * ne montrerait qu'en partie
+     */
+    static Connection ouvrirConnexionPrimaire() throws SQLException {
+        return DatabaseConfig.getConnection(PoolConnexion.RAPPORT);
+    }
+
     /**
      * Écrit l'en-tête du fichier SQL
      */
-    private static void writeHeader(BufferedWriter writer) throws IOException {
+    private static void writeHeader(EcrivainSql writer, long scn) throws IOException {
         writer.write("-- ================================================================\n");
         writer.write("-- HEALTHCARE SYSTEM - EXPORT BASE DE DONNÉES\n");
-        writer.write(String.format("-- Date: %s\n", LocalDateTime.now().format(
-            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"))));
+        writer.write("-- Date: ").write(LocalDateTime.now().format(
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"))).write("\n");
+        writer.write("-- Image cohérente de la base au SCN ").write(scn).write("\n");
         writer.write("-- ================================================================\n");
         writer.write("-- ATTENTION: Cet export contient la structure et les données\n");
         writer.write("-- Assurez-vous de sauvegarder votre base avant d'importer\n");
@@ -266,7 +526,7 @@ public class DatabaseExportService {
     /**
      * Écrit le pied de page du fichier SQL
      */
-    private static void writeFooter(BufferedWriter writer) throws IOException {
+    private static void writeFooter(EcrivainSql writer) throws IOException {
         writer.write("\n-- ================================================================\n");
         writer.write("-- FIN DE L'EXPORT\n");
         writer.write("-- ================================================================\n");
@@ -279,7 +539,7 @@ public class DatabaseExportService {
     public static int getTotalRecordCount() throws SQLException {
         int total = 0;
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = ouvrirConnexionLecture();
              Statement stmt = conn.createStatement()) {
             
             for (String tableName : TABLES_ORDER) {
@@ -301,7 +561,7 @@ public class DatabaseExportService {
         StringBuilder stats = new StringBuilder();
         stats.append("Statistiques de la base de données:\n\n");
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = ouvrirConnexionLecture();
              Statement stmt = conn.createStatement()) {
             
             for (String tableName : TABLES_ORDER) {
@@ -316,4 +576,103 @@ public class DatabaseExportService {
         
         return stats.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Écriture texte tamponnée vers un canal NIO, compressé en gzip ou non.
+     * Les lignes sont accumulées dans un tampon réutilisé puis encodées en UTF-8 par blocs.
+     */
+    static final class EcrivainSql implements Closeable {
+        private final Writer sortie;
+        private final StringBuilder tampon = new StringBuilder(TAILLE_TAMPON + 1024);
+        private final char[] copie = new char[TAILLE_TAMPON + 1024];
+
+        private EcrivainSql(WritableByteChannel canal) {
+            this.sortie = Channels.newWriter(canal, StandardCharsets.UTF_8.newEncoder(), TAILLE_TAMPON);
+        }
+
+        static EcrivainSql ouvrir(Path fichier, boolean compresse) throws IOException {
+            WritableByteChannel canal = compresse
+                    ? Channels.newChannel(new GZIPOutputStream(Files.newOutputStream(fichier), TAILLE_TAMPON))
+                    : FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                       StandardOpenOption.WRITE);
+            return new EcrivainSql(canal);
+        }
+
+        EcrivainSql write(String texte) throws IOException {
+            tampon.append(texte);
+            return viderSiPlein();
+        }
+
+        EcrivainSql write(long valeur) throws IOException {
+            tampon.append(valeur);
+            return viderSiPlein();
+        }
+
+        /** Chaîne SQL entre apostrophes, apostrophes doublées */
+        EcrivainSql writeTexte(String texte) throws IOException {
+            tampon.append('\'');
+            for (int i = 0; i < texte.length(); i++) {
+                char c = texte.charAt(i);
+                if (c == '\'') {
+                    tampon.append('\'');
+                }
+                tampon.append(c);
+            }
+            tampon.append('\'');
+            return viderSiPlein();
+        }
+
+        /** TO_DATE('AAAA-MM-JJ HH24:MI:SS') ou TO_TIMESTAMP(... .FF9) */
+        EcrivainSql writeDate(LocalDateTime date, boolean avecFraction) throws IOException {
+            tampon.append(avecFraction ? "TO_TIMESTAMP('" : "TO_DATE('");
+            chiffres(date.getYear(), 4).append('-');
+            chiffres(date.getMonthValue(), 2).append('-');
+            chiffres(date.getDayOfMonth(), 2).append(' ');
+            chiffres(date.getHour(), 2).append(':');
+            chiffres(date.getMinute(), 2).append(':');
+            chiffres(date.getSecond(), 2);
+            if (avecFraction) {
+                tampon.append('.');
+                chiffres(date.getNano(), 9).append("', 'YYYY-MM-DD HH24:MI:SS.FF9')");
+            } else {
+                tampon.append("', 'YYYY-MM-DD HH24:MI:SS')");
+            }
+            return viderSiPlein();
+        }
+
+        private StringBuilder chiffres(int valeur, int largeur) {
+            int n = 1;
+            for (int reste = valeur; reste >= 10; reste /= 10) {
+                n++;
+            }
+            for (; n < largeur; n++) {
+                tampon.append('0');
+            }
+            return tampon.append(valeur);
+        }
+
+        private EcrivainSql viderSiPlein() throws IOException {
+            if (tampon.length() >= TAILLE_TAMPON) {
+                vider();
+            }
+            return this;
+        }
+
+        private void vider() throws IOException {
+            int longueur = tampon.length();
+            char[] source = longueur <= copie.length ? copie : new char[longueur];
+            tampon.getChars(0, longueur, source, 0);
+            sortie.write(source, 0, longueur);
+            tampon.setLength(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vider();
+            } finally {
+                sortie.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package ma.ensa.healthcare.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Écriture d'un tableau ligne par ligne, en CSV ou en XLSX.
+ * Chaque ligne est écrite dans le fichier dès réception : aucune ligne n'est retenue en mémoire.
+ *
+ * Le XLSX est produit directement (feuille SpreadsheetML en chaînes en ligne, sans table
+ * de chaînes partagées) : l'écriture ne dépend d'aucune bibliothèque et reste en flux.
+ * Au-delà de 1 048 575 lignes, les données continuent sur une nouvelle feuille.
+ */
+public abstract class EcrivainTableau implements Closeable {
+
+    public enum Format {
+        CSV("csv"),
+        XLSX("xlsx");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() { return extension; }
+
+        /**
+         * Format déduit de l'extension du fichier (CSV par défaut)
+         */
+        public static Format depuisFichier(Path fichier) {
+            String nom = fichier.getFileName().toString().toLowerCase(Locale.ROOT);
+            return nom.endsWith(".xlsx") ? XLSX : CSV;
+        }
+    }
+
+    public static EcrivainTableau ouvrir(Path fichier, Format format) throws IOException {
+        return format == Format.XLSX ? new Xlsx(fichier) : new Csv(fichier);
+    }
+
+    /**
+     * Écrit la ligne d'en-tête (titres des colonnes)
+     */
+    public abstract <T> void entete(List<ColonneTableau<T>> colonnes) throws IOException;
+
+    /**
+     * Écrit une ligne de données
+     */
+    public abstract <T> void ligne(T ligne, List<ColonneTableau<T>> colonnes, ReferencesTableau references)
+            throws IOException;
+
+    // === CSV ===
+
+    /**
+     * CSV pour Excel en français : BOM UTF-8, séparateur ';', fins de ligne CRLF,
+     * valeurs identiques aux textes affichés à l'écran
+     */
+    private static final class Csv extends EcrivainTableau {
+        private final Writer writer;
+
+        private Csv(Path fichier) throws IOException {
+            this.writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8);
+            writer.write('\uFEFF');
+        }
+
+        @Override
+        public <T> void entete(List<ColonneTableau<T>> colonnes) throws IOException {
+            for (int i = 0; i < colonnes.size(); i++) {
+                if (i > 0) {
+                    writer.write(';');
+                }
+                champ(colonnes.get(i).getTitre());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public <T> void ligne(T ligne, List<ColonneTableau<T>> colonnes, ReferencesTableau references)
+                throws IOException {
+            for (int i = 0; i < colonnes.size(); i++) {
+                if (i > 0) {
+                    writer.write(';');
+                }
+                champ(colonnes.get(i).texte(ligne, references));
+            }
+            writer.write("\r\n");
+        }
+
+        private void champ(String texte) throws IOException {
+            boolean guillemets = false;
+            for (int i = 0; i < texte.length() && !guillemets; i++) {
+                char c = texte.charAt(i);
+                guillemets = c == ';' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!guillemets) {
+                writer.write(texte);
+                return;
+            }
+            writer.write('"');
+            writer.write(texte.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    // === XLSX ===
+
+    private static final class Xlsx extends EcrivainTableau {
+        // Lignes par feuille (limite Excel), en-tête compris
+        private static final int MAX_LIGNES_FEUILLE = 1_048_576;
+
+        // Styles de cellule (index dans cellXfs de styles.xml)
+        private static final int STYLE_ENTETE = 1;
+        private static final int STYLE_MONTANT = 2;
+
+        private final ZipOutputStream zip;
+        private final Writer writer;
+        private String[] titres;
+        private int feuilles;
+        private int lignesFeuille;
+
+        private Xlsx(Path fichier) throws IOException {
+            this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(fichier), 64 * 1024));
+            // Compression rapide : le fichier reste compact, l'écriture n'est pas ralentie
+            zip.setLevel(Deflater.BEST_SPEED);
+            this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public <T> void entete(List<ColonneTableau<T>> colonnes) throws IOException {
+            titres = new String[colonnes.size()];
+            for (int i = 0; i < titres.length; i++) {
+                titres[i] = colonnes.get(i).getTitre();
+            }
+            nouvelleFeuille();
+        }
+
+        @Override
+        public <T> void ligne(T ligne, List<ColonneTableau<T>> colonnes, ReferencesTableau references)
+                throws IOException {
+            if (lignesFeuille == MAX_LIGNES_FEUILLE) {
+                terminerFeuille();
+                nouvelleFeuille();
+            }
+            writer.write("<row>");
+            for (ColonneTableau<T> colonne : colonnes) {
+                Object valeur = colonne.valeur(ligne, references);
+                if (valeur instanceof BigDecimal montant) {
+                    writer.write("<c s=\"" + STYLE_MONTANT + "\"><v>");
+                    writer.write(montant.toPlainString());
+                    writer.write("</v></c>");
+                } else if (valeur instanceof Number nombre) {
+                    writer.write("<c><v>");
+                    writer.write(nombre.toString());
+                    writer.write("</v></c>");
+                } else {
+                    texte(colonne.texte(ligne, references), 0);
+                }
+            }
+            writer.write("</row>");
+            lignesFeuille++;
+        }
+
+        private void nouvelleFeuille() throws IOException {
+            feuilles++;
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + feuilles + ".xml"));
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<sheetViews><sheetView workbookViewId=\"0\">"
+                    + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                    + "</sheetView></sheetViews><sheetData>");
+            writer.write("<row>");
+            for (String titre : titres) {
+                texte(titre, STYLE_ENTETE);
+            }
+            writer.write("</row>");
+            lignesFeuille = 1;
+        }
+
+        private void terminerFeuille() throws IOException {
+            writer.write("</sheetData></worksheet>");
+            writer.flush();
+            zip.closeEntry();
+        }
+
+        private void texte(String texte, int style) throws IOException {
+            if (texte.isEmpty()) {
+                writer.write(style != 0 ? "<c s=\"" + style + "\"/>" : "<c/>");
+                return;
+            }
+            writer.write(style != 0 ? "<c s=\"" + style + "\" t=\"inlineStr\"><is>" : "<c t=\"inlineStr\"><is>");
+            boolean espaces = Character.isWhitespace(texte.charAt(0))
+                    || Character.isWhitespace(texte.charAt(texte.length() - 1));
+            writer.write(espaces ? "<t xml:space=\"preserve\">" : "<t>");
+            for (int i = 0; i < texte.length(); i++) {
+                char c = texte.charAt(i);
+                switch (c) {
+                    case '&' -> writer.write("&amp;");
+                    case '<' -> writer.write("&lt;");
+                    case '>' -> writer.write("&gt;");
+                    case '\t', '\n', '\r' -> writer.write(c);
+                    default -> {
+                        // Caractères de contrôle interdits en XML 1.0 : ignorés
+                        if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+                            writer.write(c);
+                        }
+                    }
+                }
+            }
+            writer.write("</t></is></c>");
+        }
+
+        private void entree(String nom, String contenu) throws IOException {
+            zip.putNextEntry(new ZipEntry(nom));
+            writer.write(contenu);
+            writer.flush();
+            zip.closeEntry();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (feuilles == 0) {
+                    titres = new String[0];
+                    nouvelleFeuille();
+                }
+                terminerFeuille();
+
+                StringBuilder types = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                        + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                        + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+                StringBuilder classeur = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                        + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+                StringBuilder relations = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+                for (int i = 1; i <= feuilles; i++) {
+                    types.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ")
+                         .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+                    classeur.append("<sheet name=\"Feuille ").append(i).append("\" sheetId=\"").append(i)
+                            .append("\" r:id=\"rId").append(i).append("\"/>");
+                    relations.append("<Relationship Id=\"rId").append(i).append("\" ")
+                             .append("Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" ")
+                             .append("Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+                }
+                relations.append("<Relationship Id=\"rId").append(feuilles + 1).append("\" ")
+                         .append("Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" ")
+                         .append("Target=\"styles.xml\"/></Relationships>");
+                types.append("</Types>");
+                classeur.append("</sheets></workbook>");
+
+                entree("[Content_Types].xml", types.toString());
+                entree("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + "<Relationship Id=\"rId1\" "
+                        + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" "
+                        + "Target=\"xl/workbook.xml\"/></Relationships>");
+                entree("xl/workbook.xml", classeur.toString());
+                entree("xl/_rels/workbook.xml.rels", relations.toString());
+                // Styles : 0 normal, 1 en-tête en gras, 2 montant à deux décimales (format intégré 4)
+                entree("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                        + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                        + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                        + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                        + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                        + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                        + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                        + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                        + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                        + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+                        + "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+                        + "</styleSheet>");
+            } finally {
+                zip.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,712 @@
+package ma.ensa.healthcare.util;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.HikariCPConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.transaction.TransactionManager;
+import ma.ensa.healthcare.util.DatabaseExportService.TypeValeur;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Export binaire de la base, rangé par colonnes, et import rapide.
+ *
+ * Format du fichier (.hdump, entiers en big-endian) :
+ * <pre>
+ * en-tête   : "HPRSDUMP" | version (int) | SCN (long)
+ * par table : nom | nb colonnes (short) | (nom, type) par colonne | blocs | fin (octet 0)
+ * bloc      : type (1 brut, 2 deflate) | lignes | taille brute | taille stockée | CRC32C | données
+ * index     : nb tables | (nom, position, longueur, lignes) par table
+ * fin       : position de l'index (long) | "HPRSDUMP"
+ * </pre>
+ * Les tables sont exportées en parallèle au même SCN, comme l'export SQL.
+ * L'import projette le fichier en mémoire (mmap, par fenêtres de 2 Go au plus), vérifie toutes les sommes de
+ * contrôle avant d'écrire, puis charge les tables dans l'ordre des dépendances,
+ * les blocs d'une même table étant insérés en parallèle par lots JDBC.
+ * Chaque bloc est validé dans sa propre transaction : un import qui échoue en cours
+ * de route vide les tables qu'il chargeait, pour rendre la base vide de départ.
+ */
+public class ExportBinaireService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportBinaireService.class);
+    private static final DateTimeFormatter FILENAME_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final AtomicInteger numeroThread = new AtomicInteger();
+
+    private static final byte[] MAGIQUE = "HPRSDUMP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private static final byte BLOC_FIN = 0;
+    private static final byte BLOC_BRUT = 1;
+    private static final byte BLOC_DEFLATE = 2;
+
+    /**
+     * Exporte toutes les tables au format binaire
+     *
+     * @param outputDirectory Répertoire de sortie
+     * @return Chemin complet du fichier créé
+     */
+    public static String exporter(String outputDirectory) throws SQLException, IOException {
+        long debut = System.currentTimeMillis();
+        Path dirPath = Paths.get(outputDirectory);
+        Files.createDirectories(dirPath);
+        Path fichier = dirPath.resolve("healthcare_" + LocalDateTime.now().format(FILENAME_FORMATTER) + ".hdump");
+
+        // Un seul nœud pour le SCN et toutes les tables : le SCN d'un nœud n'a pas de sens sur l'autre
+        DatabaseConfig.NoeudLecture noeud = DatabaseConfig.choisirNoeudLecture(PoolConnexion.RAPPORT);
+        long scn;
+        List<String> tablesParTaille;
+        try (Connection conn = noeud.getConnection()) {
+            scn = DatabaseExportService.lireScn(conn);
+            tablesParTaille = DatabaseExportService.trierParTaille(conn);
+        }
+
+        PropertyManager props = PropertyManager.getInstance();
+        int fetchSize = props.getIntProperty("export.fetchSize", 5000);
+        int lignesParBloc = Math.max(1, props.getIntProperty("export.binaire.lignesParBloc", 4096));
+        boolean compresse = props.getBooleanProperty("export.binaire.compression", true);
+        int nbThreads = nombreThreads("export.threads", PoolConnexion.RAPPORT);
+
+        ExecutorService executeur = creerExecuteur(nbThreads, "healthcare-export-binaire-");
+        Map<String, Future<Long>> parties = new HashMap<>();
+        long lignesTotal = 0;
+        // Faux tant que le fichier n'est pas complet : tout échec le supprime
+        boolean termine = false;
+        try {
+            for (String table : tablesParTaille) {
+                parties.put(table, executeur.submit(() -> exporterTable(
+                        table, partie(fichier, table), noeud, scn, fetchSize, lignesParBloc, compresse)));
+            }
+
+            try (FileChannel sortie = FileChannel.open(fichier, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteArrayOutputStream octets = new ByteArrayOutputStream();
+                DataOutputStream entete = new DataOutputStream(octets);
+                entete.write(MAGIQUE);
+                entete.writeInt(VERSION);
+                entete.writeLong(scn);
+                ecrireTout(sortie, octets.toByteArray());
+
+                // Sections dans l'ordre des dépendances, puis index des positions
+                octets.reset();
+                DataOutputStream index = new DataOutputStream(octets);
+                index.writeInt(DatabaseExportService.TABLES_ORDER.length);
+                for (String table : DatabaseExportService.TABLES_ORDER) {
+                    long lignes = parties.get(table).get();
+                    long position = sortie.position();
+                    DatabaseExportService.copier(partie(fichier, table), sortie);
+                    ecrireTexte(index, table);
+                    index.writeLong(position);
+                    index.writeLong(sortie.position() - position);
+                    index.writeLong(lignes);
+                    lignesTotal += lignes;
+                }
+                long positionIndex = sortie.position();
+                index.writeLong(positionIndex);
+                index.write(MAGIQUE);
+                ecrireTout(sortie, octets.toByteArray());
+            }
+            termine = true;
+        } catch (ExecutionException e) {
+            throw relancer(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrompu", e);
+        } finally {
+            arreter(executeur);
+            if (!termine) {
+                DatabaseExportService.supprimer(fichier);
+            }
+            for (String table : DatabaseExportService.TABLES_ORDER) {
+                DatabaseExportService.supprimer(partie(fichier, table));
+            }
+        }
+
+        logger.info("Export binaire terminé : {} ({} lignes, {} KB, SCN {}, {} threads, {} ms)",
+                    fichier, lignesTotal, Files.size(fichier) / 1024, scn, nbThreads,
+                    System.currentTimeMillis() - debut);
+        return fichier.toString();
+    }
+
+    /**
+     * Vérifie la structure du fichier et la somme de contrôle de chaque bloc
+     * @return Nombre total de lignes
+     */
+    public static long verifier(String fichier) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichier), StandardOpenOption.READ)) {
+            long lignes = 0;
+            for (Section section : lireSections(canal).values()) {
+                lignes += section.lignes;
+            }
+            return lignes;
+        }
+    }
+
+    /**
+     * Charge un export binaire dans une base vide, créée par les scripts du dossier Database.
+     * Aucune ligne n'est écrite si un bloc est corrompu ou si une table à charger n'est pas vide.
+     * Les blocs sont validés un par un, en parallèle : si l'import échoue ensuite (erreur SQL,
+     * interruption...), les tables du fichier sont vidées avant que l'erreur ne soit levée.
+     * Les triggers des tables sont désactivés pendant le chargement et les séquences recalées ensuite.
+     */
+    public static void importer(String fichier) throws SQLException, IOException {
+        long debut = System.currentTimeMillis();
+        int nbThreads = nombreThreads("import.threads", PoolConnexion.ARRIERE_PLAN);
+
+        try (FileChannel canal = FileChannel.open(Paths.get(fichier), StandardOpenOption.READ)) {
+            Map<String, Section> sections = lireSections(canal);
+            verifierTablesVides(sections.keySet());
+
+            basculerTriggers(false);
+            ExecutorService executeur = creerExecuteur(nbThreads, "healthcare-import-binaire-");
+            boolean termine = false;
+            try {
+                for (String table : DatabaseExportService.TABLES_ORDER) {
+                    Section section = sections.get(table);
+                    if (section != null) {
+                        chargerTable(section, executeur);
+                    }
+                }
+                termine = true;
+            } catch (ExecutionException e) {
+                throw relancer(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrompu", e);
+            } finally {
+                // Blocs encore en cours d'insertion arrêtés avant de vider les tables
+                arreter(executeur);
+                try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN)) {
+                    try {
+                        if (termine) {
+                            SauvegardeIncrementaleService.recalerSequences(conn);
+                        } else {
+                            viderTables(conn, sections.keySet());
+                        }
+                    } finally {
+                        SauvegardeIncrementaleService.activerTriggers(conn, true);
+                    }
+                }
+            }
+        }
+        logger.info("Import binaire terminé : {} ({} threads, {} ms)",
+                    fichier, nbThreads, System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Outil en ligne de commande : exporter [dossier] | importer &lt;fichier&gt; | verifier &lt;fichier&gt;
+     */
+    public static void main(String[] args) throws Exception {
+        String commande = args.length > 0 ? args[0] : "";
+        try {
+            switch (commande) {
+                case "exporter" -> System.out.println(exporter(args.length > 1 ? args[1] : "exports"));
+                case "importer" -> importer(argumentFichier(args));
+                case "verifier" -> System.out.println(verifier(argumentFichier(args)) + " ligne(s), fichier intègre");
+                default -> {
+                    System.err.println("Usage : ExportBinaireService exporter [dossier] | importer <fichier> | verifier <fichier>");
+                    System.exit(2);
+                }
+            }
+        } finally {
+            HikariCPConfig.shutdown();
+        }
+    }
+
+    private static String argumentFichier(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Fichier .hdump attendu");
+        }
+        return args[1];
+    }
+
+    /**
+     * Écrit une table dans son fichier partiel : en-tête de section puis blocs (thread de l'exécuteur)
+     * @return Nombre de lignes exportées
+     */
+    private static long exporterTable(String table, Path partie, DatabaseConfig.NoeudLecture noeud, long scn,
+                                      int fetchSize, int lignesParBloc, boolean compresse)
+            throws SQLException, IOException {
+        long debut = System.currentTimeMillis();
+        long lignes = 0;
+        try (Connection conn = noeud.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM " + table + " AS OF SCN ?")) {
+            stmt.setLong(1, scn);
+            stmt.setFetchSize(fetchSize);
+
+            try (ResultSet rs = stmt.executeQuery();
+                 EcrivainBlocs ecrivain = new EcrivainBlocs(partie, compresse)) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                TypeValeur[] types = new TypeValeur[columnCount];
+                ecrireTexte(ecrivain.sortie, table);
+                ecrivain.sortie.writeShort(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    types[i - 1] = TypeValeur.de(metaData, i);
+                    ecrireTexte(ecrivain.sortie, metaData.getColumnName(i));
+                    ecrivain.sortie.writeByte(types[i - 1].ordinal());
+                }
+
+                BlocColonnes.Encodeur encodeur = new BlocColonnes.Encodeur(types, lignesParBloc);
+                while (rs.next()) {
+                    encodeur.ajouter(rs);
+                    lignes++;
+                    if (encodeur.estPlein()) {
+                        ecrivain.ecrire(encodeur);
+                    }
+                }
+                if (encodeur.getLignes() > 0) {
+                    ecrivain.ecrire(encodeur);
+                }
+                ecrivain.sortie.writeByte(BLOC_FIN);
+            }
+        }
+        logger.info("Table {} exportée en binaire : {} lignes en {} ms", table, lignes, System.currentTimeMillis() - debut);
+        return lignes;
+    }
+
+    /**
+     * Insère les blocs d'une table en parallèle et attend qu'ils soient tous validés
+     */
+    private static void chargerTable(Section section, ExecutorService executeur)
+            throws InterruptedException, ExecutionException {
+        long debut = System.currentTimeMillis();
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(section.table).append(" (");
+        sql.append(String.join(", ", section.colonnes)).append(") VALUES (");
+        sql.append("?, ".repeat(section.colonnes.length - 1)).append("?)");
+        String insertion = sql.toString();
+
+        List<Future<Integer>> resultats = new ArrayList<>(section.blocs.size());
+        for (Bloc bloc : section.blocs) {
+            resultats.add(executeur.submit(() -> insererBloc(insertion, section.types, bloc)));
+        }
+        try {
+            for (Future<Integer> resultat : resultats) {
+                resultat.get();
+            }
+        } finally {
+            for (Future<Integer> resultat : resultats) {
+                resultat.cancel(true);
+            }
+        }
+        logger.info("Table {} chargée : {} lignes en {} blocs, {} ms",
+                    section.table, section.lignes, section.blocs.size(), System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Insère un bloc en un lot JDBC, validé dans sa propre transaction (thread de l'exécuteur)
+     */
+    private static int insererBloc(String insertion, TypeValeur[] types, Bloc bloc) throws SQLException, IOException {
+        ByteBuffer donnees = decompresser(bloc);
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN);
+            TransactionManager.beginTransaction(conn);
+            try (PreparedStatement pstmt = conn.prepareStatement(insertion)) {
+                BlocColonnes.lier(donnees, bloc.lignes, types, pstmt);
+                pstmt.executeBatch();
+            }
+            TransactionManager.commit(conn);
+            return bloc.lignes;
+        } catch (SQLException e) {
+            TransactionManager.rollback(conn);
+            throw e;
+        } finally {
+            DatabaseConfig.closeConnection(conn);
+        }
+    }
+
+    private static ByteBuffer decompresser(Bloc bloc) throws IOException {
+        if (bloc.type == BLOC_BRUT) {
+            return bloc.donnees.duplicate();
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bloc.donnees.duplicate());
+            byte[] brut = new byte[bloc.tailleBrute];
+            int lus = 0;
+            while (lus < brut.length && !inflater.finished()) {
+                int n = inflater.inflate(brut, lus, brut.length - lus);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                lus += n;
+            }
+            if (lus != brut.length) {
+                throw new IOException("Bloc compressé tronqué");
+            }
+            return ByteBuffer.wrap(brut);
+        } catch (DataFormatException e) {
+            throw new IOException("Bloc compressé invalide", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Lit l'index et chaque section projetée en mémoire, en vérifiant les sommes de contrôle
+     */
+    private static Map<String, Section> lireSections(FileChannel canal) throws IOException {
+        long taille = canal.size();
+        int tailleFin = Long.BYTES + MAGIQUE.length;
+        if (taille < MAGIQUE.length + Integer.BYTES + Long.BYTES + tailleFin) {
+            throw new IOException("Fichier trop court pour un export binaire");
+        }
+        ByteBuffer entete = canal.map(FileChannel.MapMode.READ_ONLY, 0, MAGIQUE.length + Integer.BYTES);
+        verifierMagique(entete);
+        int version = entete.getInt();
+        if (version != VERSION) {
+            throw new IOException("Version de format non supportée : " + version);
+        }
+        ByteBuffer fin = canal.map(FileChannel.MapMode.READ_ONLY, taille - tailleFin, tailleFin);
+        long positionIndex = fin.getLong();
+        verifierMagique(fin);
+
+        ByteBuffer index = canal.map(FileChannel.MapMode.READ_ONLY, positionIndex, taille - tailleFin - positionIndex);
+        int nbTables = index.getInt();
+        Map<String, Section> sections = new LinkedHashMap<>();
+        for (int t = 0; t < nbTables; t++) {
+            String table = lireTexte(index);
+            long position = index.getLong();
+            long longueur = index.getLong();
+            long lignes = index.getLong();
+            Section section = lireSection(new LecteurFenetres(canal, position, longueur));
+            if (!section.table.equals(table) || section.lignes != lignes) {
+                throw new IOException("Section " + table + " incohérente avec l'index");
+            }
+            sections.put(table, section);
+        }
+        return sections;
+    }
+
+    private static Section lireSection(LecteurFenetres lecteur) throws IOException {
+        // L'en-tête de section (nom et colonnes) tient largement dans un tampon
+        ByteBuffer tampon = lecteur.suivant((int) Math.min(TAILLE_TAMPON, lecteur.restant()));
+        String table = lireTexte(tampon);
+        int nbColonnes = tampon.getShort();
+        String[] colonnes = new String[nbColonnes];
+        TypeValeur[] types = new TypeValeur[nbColonnes];
+        for (int i = 0; i < nbColonnes; i++) {
+            colonnes[i] = lireTexte(tampon);
+            types[i] = TypeValeur.values()[tampon.get()];
+        }
+
+        List<Bloc> blocs = new ArrayList<>();
+        long lignes = 0;
+        CRC32C crc = new CRC32C();
+        byte type;
+        while ((type = lecteur.suivant(1).get()) != BLOC_FIN) {
+            if (type != BLOC_BRUT && type != BLOC_DEFLATE) {
+                throw new IOException("Type de bloc inconnu dans " + table + " : " + type);
+            }
+            tampon = lecteur.suivant(4 * Integer.BYTES);
+            int nbLignes = tampon.getInt();
+            int tailleBrute = tampon.getInt();
+            int tailleStockee = tampon.getInt();
+            int somme = tampon.getInt();
+            tampon = lecteur.suivant(tailleStockee);
+            ByteBuffer donnees = tampon.slice(tampon.position(), tailleStockee);
+            tampon.position(tampon.position() + tailleStockee);
+
+            crc.reset();
+            crc.update(donnees.duplicate());
+            if ((int) crc.getValue() != somme) {
+                throw new IOException("Somme de contrôle incorrecte dans " + table + ", bloc " + blocs.size());
+            }
+            blocs.add(new Bloc(type, nbLignes, tailleBrute, donnees));
+            lignes += nbLignes;
+        }
+        return new Section(table, colonnes, types, blocs, lignes);
+    }
+
+    /**
+     * Lecture séquentielle d'une section par fenêtres projetées d'au plus 2 Go : une section
+     * peut dépasser cette limite de MappedByteBuffer, un bloc jamais (sa taille est un int).
+     * Chaque fenêtre commence sur la lecture qui ne tenait plus dans la précédente, si bien
+     * qu'un bloc est toujours entier dans une seule fenêtre.
+     */
+    private static final class LecteurFenetres {
+        private final FileChannel canal;
+        private final long fin;
+        private long debutFenetre;
+        private ByteBuffer fenetre;
+
+        private LecteurFenetres(FileChannel canal, long position, long longueur) throws IOException {
+            this.canal = canal;
+            this.fin = position + longueur;
+            projeter(position);
+        }
+
+        /**
+         * @return La fenêtre courante, positionnée sur les {@code taille} octets suivants de la section
+         */
+        ByteBuffer suivant(int taille) throws IOException {
+            if (fenetre.remaining() < taille) {
+                long position = debutFenetre + fenetre.position();
+                if (fin - position < taille) {
+                    throw new IOException("Section tronquée à la position " + position);
+                }
+                projeter(position);
+            }
+            return fenetre;
+        }
+
+        long restant() {
+            return fin - debutFenetre - fenetre.position();
+        }
+
+        private void projeter(long position) throws IOException {
+            debutFenetre = position;
+            fenetre = canal.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, fin - position));
+        }
+    }
+
+    private static void verifierMagique(ByteBuffer tampon) throws IOException {
+        byte[] lu = new byte[MAGIQUE.length];
+        tampon.get(lu);
+        if (!Arrays.equals(lu, MAGIQUE)) {
+            throw new IOException("Ce fichier n'est pas un export binaire");
+        }
+    }
+
+    /**
+     * Refuse l'import si une table à charger contient déjà des lignes (elles seraient vidées en cas d'échec)
+     */
+    private static void verifierTablesVides(Set<String> tables) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN);
+             Statement stmt = conn.createStatement()) {
+            for (String table : DatabaseExportService.TABLES_ORDER) {
+                if (!tables.contains(table)) {
+                    continue;
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM " + table + " WHERE ROWNUM = 1")) {
+                    if (rs.next()) {
+                        throw new IllegalStateException("Import binaire impossible : la table " + table + " n'est pas vide");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Supprime les lignes déjà validées d'un import interrompu (enfants avant parents, triggers désactivés)
+     */
+    private static void viderTables(Connection conn, Set<String> tables) throws SQLException {
+        TransactionManager.beginTransaction(conn);
+        try (Statement stmt = conn.createStatement()) {
+            for (int i = DatabaseExportService.TABLES_ORDER.length - 1; i >= 0; i--) {
+                String table = DatabaseExportService.TABLES_ORDER[i];
+                if (tables.contains(table)) {
+                    stmt.executeUpdate("DELETE FROM " + table);
+                }
+            }
+            TransactionManager.commit(conn);
+            logger.warn("Import binaire interrompu : tables du fichier vidées");
+        } catch (SQLException | RuntimeException e) {
+            TransactionManager.rollback(conn);
+            logger.error("Import binaire interrompu et tables non vidées : base à recréer", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Interrompt les tâches et attend qu'elles se terminent (fichiers et connexions rendus)
+     */
+    private static void arreter(ExecutorService executeur) {
+        executeur.shutdownNow();
+        try {
+            if (!executeur.awaitTermination(60, TimeUnit.SECONDS)) {
+                logger.warn("Tâches de transfert binaire encore actives après 60 s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void basculerTriggers(boolean actifs) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN)) {
+            SauvegardeIncrementaleService.activerTriggers(conn, actifs);
+        }
+    }
+
+    /**
+     * Threads bornés par la propriété et par la taille du pool utilisé
+     */
+    private static int nombreThreads(String propriete, PoolConnexion pool) {
+        PropertyManager props = PropertyManager.getInstance();
+        int maxPool = props.getIntProperty("db.hikari." + pool.getCle() + ".maximumPoolSize",
+                                           pool.getMaximumPoolSizeParDefaut());
+        return Math.max(1, Math.min(props.getIntProperty(propriete, Runtime.getRuntime().availableProcessors()), maxPool));
+    }
+
+    private static ExecutorService creerExecuteur(int nbThreads, String prefixe) {
+        return Executors.newFixedThreadPool(nbThreads, tache -> {
+            Thread thread = new Thread(tache, prefixe + numeroThread.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Relance la cause d'un échec de tâche ; les autres erreurs sont renvoyées pour être levées
+     */
+    private static RuntimeException relancer(ExecutionException e) throws SQLException, IOException {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (cause instanceof IOException ioException) {
+            throw ioException;
+        }
+        return new RuntimeException("Erreur lors du transfert binaire : " + cause.getMessage(), cause);
+    }
+
+    private static Path partie(Path fichier, String nom) {
+        return fichier.resolveSibling(fichier.getFileName() + "." + nom + ".part");
+    }
+
+    private static void ecrireTout(FileChannel sortie, byte[] octets) throws IOException {
+        ByteBuffer tampon = ByteBuffer.wrap(octets);
+        while (tampon.hasRemaining()) {
+            sortie.write(tampon);
+        }
+    }
+
+    private static void ecrireTexte(DataOutputStream sortie, String texte) throws IOException {
+        byte[] octets = texte.getBytes(StandardCharsets.UTF_8);
+        sortie.writeShort(octets.length);
+        sortie.write(octets);
+    }
+
+    private static String lireTexte(ByteBuffer tampon) {
+        byte[] octets = new byte[tampon.getShort() & 0xFFFF];
+        tampon.get(octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Écriture des blocs d'une table : compression deflate si elle réduit le bloc, CRC32C
+     */
+    private static final class EcrivainBlocs implements Closeable {
+        private final DataOutputStream sortie;
+        private final Deflater deflater;
+        private final BlocColonnes.Tampon brut = new BlocColonnes.Tampon(TAILLE_TAMPON);
+        private final CRC32C crc = new CRC32C();
+        private byte[] compresse = new byte[TAILLE_TAMPON];
+
+        private EcrivainBlocs(Path fichier, boolean compression) throws IOException {
+            this.sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(fichier), TAILLE_TAMPON));
+            this.deflater = compression ? new Deflater(Deflater.BEST_SPEED) : null;
+        }
+
+        void ecrire(BlocColonnes.Encodeur encodeur) throws IOException {
+            int lignes = encodeur.getLignes();
+            encodeur.terminer(brut);
+
+            byte type = BLOC_BRUT;
+            byte[] donnees = brut.octets;
+            int taille = brut.taille;
+            if (deflater != null) {
+                deflater.reset();
+                deflater.setInput(brut.octets, 0, brut.taille);
+                deflater.finish();
+                int n = 0;
+                while (!deflater.finished() && n < brut.taille) {
+                    if (n == compresse.length) {
+                        compresse = Arrays.copyOf(compresse, compresse.length * 2);
+                    }
+                    n += deflater.deflate(compresse, n, compresse.length - n);
+                }
+                if (deflater.finished() && n < brut.taille) {
+                    type = BLOC_DEFLATE;
+                    donnees = compresse;
+                    taille = n;
+                }
+            }
+
+            crc.reset();
+            crc.update(donnees, 0, taille);
+            sortie.writeByte(type);
+            sortie.writeInt(lignes);
+            sortie.writeInt(brut.taille);
+            sortie.writeInt(taille);
+            sortie.writeInt((int) crc.getValue());
+            sortie.write(donnees, 0, taille);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                sortie.close();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+    }
+
+    private static final class Section {
+        private final String table;
+        private final String[] colonnes;
+        private final TypeValeur[] types;
+        private final List<Bloc> blocs;
+        private final long lignes;
+
+        private Section(String table, String[] colonnes, TypeValeur[] types, List<Bloc> blocs, long lignes) {
+            this.table = table;
+            this.colonnes = colonnes;
+            this.types = types;
+            this.blocs = blocs;
+            this.lignes = lignes;
+        }
+    }
+
+    private static final class Bloc {
+        private final byte type;
+        private final int lignes;
+        private final int tailleBrute;
+        private final ByteBuffer donnees;
+
+        private Bloc(byte type, int lignes, int tailleBrute, ByteBuffer donnees) {
+            this.type = type;
+            this.lignes = lignes;
+            this.tailleBrute = tailleBrute;
+            this.donnees = donnees;
+        }
+    }
+}
@@ -1,11 +0,0 @@
-package ma.ensa.healthcare.util;
-
-import ma.ensa.healthcare.model.Facture;
-import java.util.List;
-
-public class ExportUtils {
-    public static void exportToPDF(List<Facture> factures) {
-        // Logique d'exportation (iText ou JasperReports)
-        System.out.println("Exportation des factures en PDF...");
-    }
-}
\ No newline at end of file
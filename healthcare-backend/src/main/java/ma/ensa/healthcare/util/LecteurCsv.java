@@ -0,0 +1,314 @@
+package ma.ensa.healthcare.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture d'un fichier CSV projeté en mémoire, découpé en morceaux analysables en parallèle.
+ *
+ * La première ligne est l'en-tête (noms de colonnes, casse ignorée) ; le séparateur
+ * (';' ou ',') est déduit de l'en-tête. Les champs entre guillemets peuvent contenir
+ * le séparateur, des guillemets doublés et des retours à la ligne.
+ * Le découpage ne parcourt que les octets '"' et '\n', qui n'apparaissent jamais
+ * à l'intérieur d'un caractère UTF-8 multi-octets.
+ */
+public class LecteurCsv {
+
+    private final MappedByteBuffer contenu;
+    private final char separateur;
+    private final List<String> entete;
+    private final Map<String, Integer> index;
+    private final List<Morceau> morceaux;
+
+    private LecteurCsv(MappedByteBuffer contenu, int lignesParMorceau) {
+        this.contenu = contenu;
+
+        int debut = 0;
+        // Marque d'ordre des octets UTF-8 (fichiers enregistrés par Excel)
+        if (contenu.limit() >= 3 && (contenu.get(0) & 0xFF) == 0xEF
+                && (contenu.get(1) & 0xFF) == 0xBB && (contenu.get(2) & 0xFF) == 0xBF) {
+            debut = 3;
+        }
+        int finEntete = finDeLigne(debut);
+        String ligneEntete = decoder(debut, finEntete).strip();
+        this.separateur = ligneEntete.indexOf(';') >= 0 ? ';' : ',';
+        this.entete = Collections.unmodifiableList(decouper(ligneEntete, separateur));
+        this.index = new HashMap<>();
+        for (int i = 0; i < entete.size(); i++) {
+            index.put(entete.get(i).trim().toLowerCase(), i);
+        }
+        this.morceaux = decouperMorceaux(Math.min(finEntete + 1, contenu.limit()), lignesParMorceau);
+    }
+
+    /**
+     * Projette le fichier en mémoire et repère les limites des morceaux
+     */
+    public static LecteurCsv ouvrir(Path fichier, int lignesParMorceau) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fichier CSV trop volumineux (2 Go maximum) : " + fichier);
+            }
+            return new LecteurCsv(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()),
+                                  Math.max(1, lignesParMorceau));
+        }
+    }
+
+    public List<String> getEntete() { return entete; }
+    public char getSeparateur() { return separateur; }
+    public List<Morceau> getMorceaux() { return morceaux; }
+
+    /**
+     * Vérifie que l'en-tête contient les colonnes obligatoires
+     */
+    public void verifierColonnes(String... colonnes) {
+        List<String> manquantes = new ArrayList<>();
+        for (String colonne : colonnes) {
+            if (!index.containsKey(colonne)) {
+                manquantes.add(colonne);
+            }
+        }
+        if (!manquantes.isEmpty()) {
+            throw new IllegalArgumentException("Colonnes manquantes dans l'en-tête : " + String.join(", ", manquantes));
+        }
+    }
+
+    /**
+     * Analyse les lignes d'un morceau (appelable depuis plusieurs threads)
+     */
+    public List<Ligne> lire(Morceau morceau) {
+        String texte = decoder(morceau.debut, morceau.fin);
+        List<Ligne> lignes = new ArrayList<>();
+        long numero = morceau.premiereLigne;
+        int position = 0;
+        while (position < texte.length()) {
+            int fin = finDeLigne(texte, position);
+            String brut = texte.substring(position, fin);
+            if (brut.endsWith("\r")) {
+                brut = brut.substring(0, brut.length() - 1);
+            }
+            if (!brut.isBlank()) {
+                lignes.add(new Ligne(numero, brut, decouper(brut, separateur), index));
+            }
+            numero += compterSauts(brut) + 1;
+            position = fin + 1;
+        }
+        return lignes;
+    }
+
+    /**
+     * Limites de morceaux de lignesParMorceau lignes, hors retours à la ligne entre guillemets
+     */
+    private List<Morceau> decouperMorceaux(int debut, int lignesParMorceau) {
+        List<Morceau> resultat = new ArrayList<>();
+        int limite = contenu.limit();
+        boolean dansGuillemets = false;
+        int debutMorceau = debut;
+        long ligneMorceau = 2;
+        long ligne = 2;
+        int lignesDansMorceau = 0;
+        for (int i = debut; i < limite; i++) {
+            byte b = contenu.get(i);
+            if (b == '"') {
+                dansGuillemets = !dansGuillemets;
+            } else if (b == '\n') {
+                ligne++;
+                if (!dansGuillemets && ++lignesDansMorceau == lignesParMorceau) {
+                    resultat.add(new Morceau(debutMorceau, i + 1, ligneMorceau));
+                    debutMorceau = i + 1;
+                    ligneMorceau = ligne;
+                    lignesDansMorceau = 0;
+                }
+            }
+        }
+        if (debutMorceau < limite) {
+            resultat.add(new Morceau(debutMorceau, limite, ligneMorceau));
+        }
+        return resultat;
+    }
+
+    private int finDeLigne(int debut) {
+        boolean dansGuillemets = false;
+        for (int i = debut; i < contenu.limit(); i++) {
+            byte b = contenu.get(i);
+            if (b == '"') {
+                dansGuillemets = !dansGuillemets;
+            } else if (b == '\n' && !dansGuillemets) {
+                return i;
+            }
+        }
+        return contenu.limit();
+    }
+
+    private static int finDeLigne(String texte, int debut) {
+        boolean dansGuillemets = false;
+        for (int i = debut; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c == '"') {
+                dansGuillemets = !dansGuillemets;
+            } else if (c == '\n' && !dansGuillemets) {
+                return i;
+            }
+        }
+        return texte.length();
+    }
+
+    private String decoder(int debut, int fin) {
+        byte[] octets = new byte[fin - debut];
+        contenu.get(debut, octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    private static int compterSauts(String texte) {
+        int n = 0;
+        for (int i = 0; i < texte.length(); i++) {
+            if (texte.charAt(i) == '\n') {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Découpe une ligne en champs : guillemets retirés, guillemets doublés rétablis
+     */
+    private static List<String> decouper(String ligne, char separateur) {
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean dansGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (dansGuillemets) {
+                if (c == '"') {
+                    if (i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                        champ.append('"');
+                        i++;
+                    } else {
+                        dansGuillemets = false;
+                    }
+                } else {
+                    champ.append(c);
+                }
+            } else if (c == '"') {
+                dansGuillemets = true;
+            } else if (c == separateur) {
+                champs.add(champ.toString());
+                champ.setLength(0);
+            } else {
+                champ.append(c);
+            }
+        }
+        champs.add(champ.toString());
+        return champs;
+    }
+
+    /**
+     * Portion du fichier : octets [debut, fin) commençant à la ligne premiereLigne (1 = en-tête)
+     */
+    public static final class Morceau {
+        private final int debut;
+        private final int fin;
+        private final long premiereLigne;
+
+        private Morceau(int debut, int fin, long premiereLigne) {
+            this.debut = debut;
+            this.fin = fin;
+            this.premiereLigne = premiereLigne;
+        }
+
+        public long getPremiereLigne() { return premiereLigne; }
+    }
+
+    /**
+     * Ligne analysée : champs accessibles par nom de colonne
+     */
+    public static final class Ligne {
+        private final long numero;
+        private final String brut;
+        private final List<String> champs;
+        private final Map<String, Integer> index;
+
+        private Ligne(long numero, String brut, List<String> champs, Map<String, Integer> index) {
+            this.numero = numero;
+            this.brut = brut;
+            this.champs = champs;
+            this.index = index;
+        }
+
+        /** Numéro de ligne dans le fichier (1 = en-tête) */
+        public long getNumero() { return numero; }
+
+        /** Texte original de la ligne */
+        public String getBrut() { return brut; }
+
+        public int getNombreChamps() { return champs.size(); }
+
+        /**
+         * Valeur d'une colonne, sans espaces autour ; null si vide ou absente
+         */
+        public String get(String colonne) {
+            Integer i = index.get(colonne);
+            if (i == null || i >= champs.size()) {
+                return null;
+            }
+            String valeur = champs.get(i).trim();
+            return valeur.isEmpty() ? null : valeur;
+        }
+
+        /** Date au format jj/mm/aaaa ou aaaa-mm-jj */
+        public LocalDate getDate(String colonne) {
+            String valeur = get(colonne);
+            if (valeur == null) {
+                return null;
+            }
+            return valeur.indexOf('/') >= 0 ? DateUtils.parseDate(valeur) : DateUtils.parseIsoDate(valeur);
+        }
+
+        /** Nombre décimal, virgule ou point */
+        public BigDecimal getDecimal(String colonne) {
+            String valeur = get(colonne);
+            if (valeur == null) {
+                return null;
+            }
+            try {
+                return new BigDecimal(valeur.replace(',', '.'));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Nombre invalide pour " + colonne + " : " + valeur);
+            }
+        }
+
+        public Integer getEntier(String colonne) {
+            String valeur = get(colonne);
+            if (valeur == null) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(valeur);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Entier invalide pour " + colonne + " : " + valeur);
+            }
+        }
+
+        public Long getLong(String colonne) {
+            String valeur = get(colonne);
+            if (valeur == null) {
+                return null;
+            }
+            try {
+                return Long.valueOf(valeur);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Entier invalide pour " + colonne + " : " + valeur);
+            }
+        }
+    }
+}
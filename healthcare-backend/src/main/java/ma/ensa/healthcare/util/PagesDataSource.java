@@ -0,0 +1,74 @@
+package ma.ensa.healthcare.util;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source de données Jasper alimentée page par page (pagination par clé) :
+ * le remplissage d'un rapport ne garde qu'une page de lignes en mémoire
+ */
+final class PagesDataSource implements JRDataSource {
+
+    /**
+     * Charge les lignes suivant la clé donnée (0 pour la première page)
+     */
+    @FunctionalInterface
+    interface ChargeurPage {
+        List<Map<String, Object>> charger(long apresCle, int limite);
+    }
+
+    private final ChargeurPage chargeur;
+    private final String champCle;
+    private final int taillePage;
+
+    private List<Map<String, Object>> page = Collections.emptyList();
+    private int index = -1;
+    private boolean derniere;
+    private long lignes;
+
+    /**
+     * @param champCle Champ (numérique) des lignes servant de clé de pagination
+     */
+    PagesDataSource(ChargeurPage chargeur, String champCle, int taillePage) {
+        this.chargeur = chargeur;
+        this.champCle = champCle;
+        this.taillePage = taillePage;
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        if (index + 1 < page.size()) {
+            index++;
+            lignes++;
+            return true;
+        }
+        if (derniere) {
+            return false;
+        }
+
+        long apres = page.isEmpty() ? 0 : ((Number) page.get(page.size() - 1).get(champCle)).longValue();
+        try {
+            page = chargeur.charger(apres, taillePage);
+        } catch (RuntimeException e) {
+            throw new JRException("Erreur lors du chargement des données du rapport", e);
+        }
+        derniere = page.size() < taillePage;
+        index = -1;
+        return next();
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) {
+        return page.get(index).get(field.getName());
+    }
+
+    /** Nombre de lignes fournies jusqu'ici */
+    long getLignes() {
+        return lignes;
+    }
+}
@@ -1,7 +1,13 @@
 package ma.ensa.healthcare.util;
 
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
 import ma.ensa.healthcare.service.*;
 
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.font.PdfFont;
@@ -16,16 +22,40 @@ import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import ma.ensa.healthcare.dto.BilanExportPdf;
+import ma.ensa.healthcare.dto.FiltreFactures;
+import ma.ensa.healthcare.dto.TotauxFacturesDTO;
 import ma.ensa.healthcare.model.Facture;
+import ma.ensa.healthcare.model.Patient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Service d'export PDF pour les factures
@@ -37,6 +67,8 @@ public class PdfExportService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final PatientService patientService = new PatientService();
+    private static final FacturationService facturationService = new FacturationService();
+    private static final int TAILLE_PAGE_EXPORT = 1000;
     
     // Couleurs personnalisées
     private static final DeviceRgb PRIMARY_COLOR = new DeviceRgb(33, 150, 243); // Bleu
@@ -44,6 +76,11 @@ public class PdfExportService {
     private static final DeviceRgb DANGER_COLOR = new DeviceRgb(244, 67, 54);   // Rouge
     private static final DeviceRgb WARNING_COLOR = new DeviceRgb(255, 152, 0);  // Orange
 
+    // Police chargée une seule fois (lecture des métriques) ; un PdfFont est propre à un document
+    private static final FontProgram POLICE = chargerPolice(StandardFonts.HELVETICA);
+    private static final String ADRESSE = "Avenue Hassan II, Casablanca, Maroc\nTél: +212 5XX-XXXXXX";
+    private static final AtomicInteger numeroThreadPdf = new AtomicInteger();
+
     /**
      * Exporte une seule facture en PDF
      * 
@@ -52,32 +89,13 @@ public class PdfExportService {
      * @return Le chemin complet du fichier créé
      */
     public static String exportFactureToPdf(Facture facture, String outputPath) {
-        try {
-            // Créer le fichier PDF
-            PdfWriter writer = new PdfWriter(new FileOutputStream(outputPath));
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-            
-            // Marges du document
-            document.setMargins(50, 50, 50, 50);
+        // Lectures effectuées pendant la génération : pool des rapports, réplique si disponible
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            Patient patient = facture.getIdPatient() != 0 ? patientService.getPatientById(facture.getIdPatient()) : null;
 
-            // === EN-TÊTE ===
-            addHeader(document);
-            
-            // === INFORMATIONS FACTURE ===
-            addFactureInfo(document, facture);
-            
-            // === INFORMATIONS PATIENT ===
-            addPatientInfo(document, facture);
-            
-            // === DÉTAILS DE LA FACTURE ===
-            addFactureDetails(document, facture);
-            
-            // === PIED DE PAGE ===
-            addFooter(document);
-            
-            // Fermer le document
-            document.close();
+            // Créer le fichier PDF
+            ecrireFacture(facture, patient, new FileOutputStream(outputPath));
             
             logger.info("PDF généré avec succès : {}", outputPath);
             return outputPath;
@@ -88,6 +106,107 @@ public class PdfExportService {
         }
     }
 
+    /**
+     * Génère un PDF par facture, en parallèle, dans une seule archive ZIP.
+     * Les patients sont chargés en une fois avant le rendu ; au plus deux documents
+     * par thread sont gardés en mémoire en attendant leur écriture dans l'archive.
+     * Une facture en erreur n'interrompt pas le lot : elle est listée dans ERREURS.txt.
+     * 
+     * @param factures Factures à exporter
+     * @param zipPath Chemin de l'archive de sortie
+     * @param threads Nombre de threads de rendu (borné par le nombre de processeurs)
+     * @return Le bilan de l'export (documents générés, erreurs, débit)
+     */
+    public static BilanExportPdf exportFacturesZip(List<Facture> factures, String zipPath, int threads) {
+        long debut = System.currentTimeMillis();
+        Map<Long, Patient> patients;
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            Set<Long> idsPatients = new HashSet<>();
+            for (Facture f : factures) {
+                if (f.getIdPatient() != 0) {
+                    idsPatients.add(f.getIdPatient());
+                }
+            }
+            patients = patientService.getPatientsByIds(idsPatients);
+        }
+        return rendreFacturesZip(factures, patients, zipPath, threads, debut);
+    }
+
+    /**
+     * Rendu et écriture de l'archive, patients déjà chargés (sans accès à la base)
+     * @param debut Début de l'export, pour le débit du bilan
+     */
+    static BilanExportPdf rendreFacturesZip(List<Facture> factures, Map<Long, Patient> patients,
+                                            String zipPath, int threads, long debut) {
+        int nbThreads = Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executeur = Executors.newFixedThreadPool(nbThreads, r -> {
+            Thread t = new Thread(r, "healthcare-pdf-" + numeroThreadPdf.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<DocumentPdf> termines = new ExecutorCompletionService<>(executeur);
+        int fenetre = nbThreads * 2;
+        int generes = 0;
+        List<String> erreurs = new ArrayList<>();
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipPath)))) {
+            // Les flux des PDF sont déjà compressés : inutile de recompresser fort
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            int soumis = 0;
+            int recus = 0;
+            while (recus < factures.size()) {
+                while (soumis < factures.size() && soumis - recus < fenetre) {
+                    Facture facture = factures.get(soumis++);
+                    Patient patient = patients.get(facture.getIdPatient());
+                    termines.submit(() -> rendreFacture(facture, patient));
+                }
+
+                // Seul ce thread écrit dans l'archive
+                DocumentPdf doc = termines.take().get();
+                recus++;
+                if (doc.erreur != null) {
+                    erreurs.add(doc.nom + " : " + doc.erreur);
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(doc.nom));
+                zip.write(doc.contenu);
+                zip.closeEntry();
+                generes++;
+            }
+
+            if (!erreurs.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("ERREURS.txt"));
+                zip.write(String.join(System.lineSeparator(), erreurs).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Export PDF interrompu", e);
+        } catch (IOException | ExecutionException e) {
+            logger.error("Erreur lors de l'écriture de l'archive PDF", e);
+            throw new RuntimeException("Impossible de générer l'archive : " + e.getMessage(), e);
+        } finally {
+            executeur.shutdownNow();
+        }
+
+        BilanExportPdf bilan = new BilanExportPdf(zipPath, generes, erreurs, System.currentTimeMillis() - debut);
+        logger.info("{} ({} threads)", bilan, nbThreads);
+        return bilan;
+    }
+
+    /**
+     * Exporte les factures d'un mois, une par PDF, dans une archive ZIP
+     * (nombre de threads : propriété pdf.lot.threads, par défaut un par processeur)
+     */
+    public static BilanExportPdf exportFacturesMoisZip(YearMonth mois, String zipPath) {
+        List<Facture> factures = facturationService.getFacturesPeriode(mois.atDay(1), mois.atEndOfMonth());
+        int threads = PropertyManager.getInstance().getIntProperty("pdf.lot.threads",
+                Runtime.getRuntime().availableProcessors());
+        return exportFacturesZip(factures, zipPath, threads);
+    }
+
     /**
      * Exporte une liste de factures en PDF (rapport)
      * 
@@ -96,71 +215,20 @@ public class PdfExportService {
      * @return Le chemin complet du fichier créé
      */
     public static String exportFacturesListToPdf(List<Facture> factures, String outputPath) {
-        try {
-            PdfWriter writer = new PdfWriter(new FileOutputStream(outputPath));
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-            document.setMargins(50, 50, 50, 50);
-
-            // === EN-TÊTE ===
-            Paragraph title = new Paragraph("RAPPORT DES FACTURES")
-                .setFontSize(24)
-                .setBold()
-                .setFontColor(PRIMARY_COLOR)
-                .setTextAlignment(TextAlignment.CENTER)
-                .setMarginBottom(10);
-            document.add(title);
-            
-            Paragraph subtitle = new Paragraph("Généré le " + LocalDateTime.now().format(DATETIME_FORMATTER))
-                .setFontSize(10)
-                .setTextAlignment(TextAlignment.CENTER)
-                .setMarginBottom(30);
-            document.add(subtitle);
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            Document document = ouvrirRapport(outputPath);
 
             // === STATISTIQUES GLOBALES ===
-            addGlobalStats(document, factures);
+            addGlobalStats(document, totaux(factures));
 
             // === TABLE DES FACTURES ===
-            Table table = new Table(new float[]{1, 2, 2, 2, 2, 2, 1.5f});
-            table.setWidth(UnitValue.createPercentValue(100));
-            table.setMarginTop(20);
-
-            // En-têtes
-            String[] headers = {"N° Facture", "Date", "Patient", "Total", "Payé", "Reste", "Statut"};
-            for (String header : headers) {
-                Cell cell = new Cell()
-                    .add(new Paragraph(header).setBold().setFontSize(10))
-                    .setBackgroundColor(PRIMARY_COLOR)
-                    .setFontColor(ColorConstants.WHITE)
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setPadding(8);
-                table.addHeaderCell(cell);
-            }
-
-            // Données
-            for (Facture f : factures) {
-                table.addCell(createCell(f.getNumeroFacture()));
-                table.addCell(createCell(f.getDateFacture().format(DATE_FORMATTER)));
-
-                
-                String patientNom = f.getIdPatient() != 0 ? 
-                    patientService.getPatientById(f.getIdPatient()).getNom() + " " + patientService.getPatientById(f.getIdPatient()).getPrenom() : "N/A";
-                table.addCell(createCell(patientNom));
-                
-                table.addCell(createCell(formatMontant(f.getMontantTotal())));
-                table.addCell(createCell(formatMontant(f.getMontantPaye())));
-                table.addCell(createCell(formatMontant(f.getMontantRestant())));
-                
-                Cell statutCell = createCell(f.getStatutPaiement().name());
-                switch (f.getStatutPaiement().name()) {
-                    case "PAYE" -> statutCell.setFontColor(SUCCESS_COLOR).setBold();
-                    case "PARTIEL" -> statutCell.setFontColor(WARNING_COLOR).setBold();
-                    case "EN_ATTENTE" -> statutCell.setFontColor(DANGER_COLOR).setBold();
-                }
-                table.addCell(statutCell);
+            Table table = addFacturesTable(document);
+            for (int debut = 0; debut < factures.size(); debut += TAILLE_PAGE_EXPORT) {
+                addFacturesRows(table, factures.subList(debut, Math.min(debut + TAILLE_PAGE_EXPORT, factures.size())));
+                table.flush();
             }
-
-            document.add(table);
+            table.complete();
             
             // Pied de page
             addFooter(document);
@@ -175,8 +243,221 @@ public class PdfExportService {
         }
     }
 
+    /**
+     * Exporte les factures retenues par un filtre en lisant la base page par page.
+     * Les lignes sont écrites dans le PDF au fil de l'eau : la mémoire utilisée
+     * ne dépend pas du nombre de factures.
+     * 
+     * @param filtre Critères de l'écran Factures (FiltreFactures.TOUTES : toutes)
+     * @param outputPath Chemin du fichier de sortie
+     * @param progression Appelé après chaque page avec (factures écrites, total) ; peut être null
+     * @return Le nombre de factures exportées
+     */
+    public static long exportFacturesStreaming(FiltreFactures filtre, String outputPath,
+                                               BiConsumer<Long, Long> progression) {
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            TotauxFacturesDTO totaux = facturationService.getTotauxFactures(filtre);
+            Document document = ouvrirRapport(outputPath);
+            addGlobalStats(document, totaux);
+
+            Table table = addFacturesTable(document);
+            long ecrites = 0;
+            long apresId = 0;
+            while (true) {
+                List<Facture> page = facturationService.getPageFactures(filtre, apresId, TAILLE_PAGE_EXPORT);
+                if (page.isEmpty()) {
+                    break;
+                }
+                addFacturesRows(table, page);
+                // Lignes mises en page et écrites : plus retenues en mémoire
+                table.flush();
+
+                ecrites += page.size();
+                apresId = page.get(page.size() - 1).getId();
+                if (progression != null) {
+                    progression.accept(ecrites, totaux.getNombreFactures());
+                }
+                if (page.size() < TAILLE_PAGE_EXPORT) {
+                    break;
+                }
+            }
+            table.complete();
+
+            addFooter(document);
+            document.close();
+            logger.info("Rapport PDF généré en flux : {} factures", ecrites);
+            return ecrites;
+
+        } catch (Exception e) {
+            logger.error("Erreur génération rapport PDF", e);
+            throw new RuntimeException("Impossible de générer le rapport : " + e.getMessage(), e);
+        }
+    }
+
     // === MÉTHODES PRIVÉES ===
 
+    private static FontProgram chargerPolice(String nom) {
+        try {
+            return FontProgramFactory.createFont(nom);
+        } catch (IOException e) {
+            throw new IllegalStateException("Police introuvable : " + nom, e);
+        }
+    }
+
+    /**
+     * Écrit le PDF d'une facture dans le flux, puis le ferme
+     */
+    private static void ecrireFacture(Facture facture, Patient patient, OutputStream sortie) {
+        PdfDocument pdf = new PdfDocument(new PdfWriter(sortie));
+        Document document = new Document(pdf);
+        document.setFont(PdfFontFactory.createFont(POLICE));
+        
+        // Marges du document
+        document.setMargins(50, 50, 50, 50);
+
+        // === EN-TÊTE ===
+        addHeader(document);
+        
+        // === INFORMATIONS FACTURE ===
+        addFactureInfo(document, facture);
+        
+        // === INFORMATIONS PATIENT ===
+        addPatientInfo(document, patient);
+        
+        // === DÉTAILS DE LA FACTURE ===
+        addFactureDetails(document, facture);
+        
+        // === PIED DE PAGE ===
+        addFooter(document);
+        
+        // Fermer le document
+        document.close();
+    }
+
+    /**
+     * Rendu d'une facture en mémoire (thread de l'exécuteur) ; l'erreur est
+     * capturée pour ne pas interrompre le lot
+     */
+    private static DocumentPdf rendreFacture(Facture facture, Patient patient) {
+        String nom = "facture_" + (facture.getNumeroFacture() != null ? facture.getNumeroFacture() : facture.getId()) + ".pdf";
+        try {
+            ByteArrayOutputStream sortie = new ByteArrayOutputStream(32 * 1024);
+            ecrireFacture(facture, patient, sortie);
+            return new DocumentPdf(nom, sortie.toByteArray(), null);
+        } catch (Exception e) {
+            logger.warn("Échec du rendu PDF de la facture {}", facture.getId(), e);
+            return new DocumentPdf(nom, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private static final class DocumentPdf {
+        private final String nom;
+        private final byte[] contenu;
+        private final String erreur;
+
+        private DocumentPdf(String nom, byte[] contenu, String erreur) {
+            this.nom = nom;
+            this.contenu = contenu;
+            this.erreur = erreur;
+        }
+    }
+
+    private static Document ouvrirRapport(String outputPath) throws IOException {
+        PdfWriter writer = new PdfWriter(new FileOutputStream(outputPath));
+        PdfDocument pdf = new PdfDocument(writer);
+        Document document = new Document(pdf);
+        document.setMargins(50, 50, 50, 50);
+
+        // === EN-TÊTE ===
+        Paragraph title = new Paragraph("RAPPORT DES FACTURES")
+            .setFontSize(24)
+            .setBold()
+            .setFontColor(PRIMARY_COLOR)
+            .setTextAlignment(TextAlignment.CENTER)
+            .setMarginBottom(10);
+        document.add(title);
+        
+        Paragraph subtitle = new Paragraph("Généré le " + LocalDateTime.now().format(DATETIME_FORMATTER))
+            .setFontSize(10)
+            .setTextAlignment(TextAlignment.CENTER)
+            .setMarginBottom(30);
+        document.add(subtitle);
+        return document;
+    }
+
+    /**
+     * Ajoute au document une table « large » vide : ses lignes sont ensuite
+     * ajoutées et écrites par blocs (flush), puis la table est terminée (complete)
+     */
+    private static Table addFacturesTable(Document document) {
+        Table table = new Table(new float[]{1, 2, 2, 2, 2, 2, 1.5f}, true);
+        table.setWidth(UnitValue.createPercentValue(100));
+        table.setMarginTop(20);
+
+        // En-têtes (répétés sur chaque page)
+        String[] headers = {"N° Facture", "Date", "Patient", "Total", "Payé", "Reste", "Statut"};
+        for (String header : headers) {
+            Cell cell = new Cell()
+                .add(new Paragraph(header).setBold().setFontSize(10))
+                .setBackgroundColor(PRIMARY_COLOR)
+                .setFontColor(ColorConstants.WHITE)
+                .setTextAlignment(TextAlignment.CENTER)
+                .setPadding(8);
+            table.addHeaderCell(cell);
+        }
+        document.add(table);
+        return table;
+    }
+
+    private static void addFacturesRows(Table table, List<Facture> factures) {
+        // Patients du bloc chargés en une fois
+        Set<Long> idsPatients = new HashSet<>();
+        for (Facture f : factures) {
+            if (f.getIdPatient() != 0) {
+                idsPatients.add(f.getIdPatient());
+            }
+        }
+        Map<Long, Patient> patients = patientService.getPatientsByIds(idsPatients);
+
+        for (Facture f : factures) {
+            table.addCell(createCell(f.getNumeroFacture()));
+            table.addCell(createCell(f.getDateFacture().format(DATE_FORMATTER)));
+
+            Patient patient = patients.get(f.getIdPatient());
+            String patientNom = patient != null ? patient.getNom() + " " + patient.getPrenom() : "N/A";
+            table.addCell(createCell(patientNom));
+            
+            table.addCell(createCell(formatMontant(f.getMontantTotal())));
+            table.addCell(createCell(formatMontant(f.getMontantPaye())));
+            table.addCell(createCell(formatMontant(f.getMontantRestant())));
+            
+            Cell statutCell = createCell(f.getStatutPaiement().name());
+            switch (f.getStatutPaiement().name()) {
+                case "PAYE" -> statutCell.setFontColor(SUCCESS_COLOR).setBold();
+                case "PARTIEL" -> statutCell.setFontColor(WARNING_COLOR).setBold();
+                case "EN_ATTENTE" -> statutCell.setFontColor(DANGER_COLOR).setBold();
+            }
+            table.addCell(statutCell);
+        }
+    }
+
+    private static TotauxFacturesDTO totaux(List<Facture> factures) {
+        BigDecimal totalFacture = factures.stream()
+            .map(Facture::getMontantTotal)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        
+        BigDecimal totalPaye = factures.stream()
+            .map(Facture::getMontantPaye)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        
+        BigDecimal totalImpaye = factures.stream()
+            .map(Facture::getMontantRestant)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        return new TotauxFacturesDTO(factures.size(), totalFacture, totalPaye, totalImpaye);
+    }
+
     private static void addHeader(Document document) {
         try {
             // Logo + Nom de l'établissement
@@ -187,7 +468,7 @@ public class PdfExportService {
                 .setTextAlignment(TextAlignment.CENTER);
             document.add(hospitalName);
             
-            Paragraph address = new Paragraph("Avenue Hassan II, Casablanca, Maroc\nTél: +212 5XX-XXXXXX")
+            Paragraph address = new Paragraph(ADRESSE)
                 .setFontSize(10)
                 .setTextAlignment(TextAlignment.CENTER)
                 .setMarginBottom(30);
@@ -239,8 +520,8 @@ public class PdfExportService {
         document.add(infoTable);
     }
 
-    private static void addPatientInfo(Document document, Facture facture) {
-        if (facture.getIdPatient() == 0) {
+    private static void addPatientInfo(Document document, Patient patient) {
+        if (patient == null) {
             return;
         }
 
@@ -253,11 +534,10 @@ public class PdfExportService {
             .setPadding(15)
             .setBorder(new SolidBorder(PRIMARY_COLOR, 1))
             .add(new Paragraph("INFORMATIONS PATIENT").setBold().setFontColor(PRIMARY_COLOR))
-            .add(new Paragraph("Nom: " + patientService.getPatientById(facture.getIdPatient()).getNom() + " " + 
-                              patientService.getPatientById(facture.getIdPatient()).getPrenom()).setMarginTop(5))
-            .add(new Paragraph("CIN: " + patientService.getPatientById(facture.getIdPatient()).getCin()))
+            .add(new Paragraph("Nom: " + patient.getNom() + " " + patient.getPrenom()).setMarginTop(5))
+            .add(new Paragraph("CIN: " + patient.getCin()))
             .add(new Paragraph("Téléphone: " + 
-                (patientService.getPatientById(facture.getIdPatient()).getTelephone() != null ? patientService.getPatientById(facture.getIdPatient()).getTelephone() : "N/A")));
+                (patient.getTelephone() != null ? patient.getTelephone() : "N/A")));
 
         patientTable.addCell(cell);
         document.add(patientTable);
@@ -323,27 +603,15 @@ public class PdfExportService {
         }
     }
 
-    private static void addGlobalStats(Document document, List<Facture> factures) {
-        BigDecimal totalFacture = factures.stream()
-            .map(Facture::getMontantTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalPaye = factures.stream()
-            .map(Facture::getMontantPaye)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalImpaye = factures.stream()
-            .map(Facture::getMontantRestant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+    private static void addGlobalStats(Document document, TotauxFacturesDTO totaux) {
         Table statsTable = new Table(4);
         statsTable.setWidth(UnitValue.createPercentValue(100));
         statsTable.setMarginBottom(20);
 
-        statsTable.addCell(createStatCell("Nombre de factures", String.valueOf(factures.size()), PRIMARY_COLOR));
-        statsTable.addCell(createStatCell("Total facturé", formatMontant(totalFacture), PRIMARY_COLOR));
-        statsTable.addCell(createStatCell("Total encaissé", formatMontant(totalPaye), SUCCESS_COLOR));
-        statsTable.addCell(createStatCell("Total impayé", formatMontant(totalImpaye), DANGER_COLOR));
+        statsTable.addCell(createStatCell("Nombre de factures", String.valueOf(totaux.getNombreFactures()), PRIMARY_COLOR));
+        statsTable.addCell(createStatCell("Total facturé", formatMontant(totaux.getTotalFacture()), PRIMARY_COLOR));
+        statsTable.addCell(createStatCell("Total encaissé", formatMontant(totaux.getTotalPaye()), SUCCESS_COLOR));
+        statsTable.addCell(createStatCell("Total impayé", formatMontant(totaux.getTotalImpaye()), DANGER_COLOR));
 
         document.add(statsTable);
     }
@@ -0,0 +1,360 @@
+package ma.ensa.healthcare.util;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dto.RapportMensuelDTO;
+import ma.ensa.healthcare.model.Consultation;
+import ma.ensa.healthcare.model.Facture;
+import ma.ensa.healthcare.model.Medecin;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.RendezVous;
+import ma.ensa.healthcare.model.Traitement;
+import ma.ensa.healthcare.service.*;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Génération des documents à partir des modèles JasperReports de /reports
+ * (facture, ordonnance, rapport mensuel).
+ *
+ * Chaque modèle JRXML est compilé une seule fois puis gardé en mémoire : un
+ * JasperReport compilé est immuable et peut être rempli par plusieurs threads
+ * en même temps. Les rapports sont remplis depuis les services ; le rapport
+ * mensuel lit ses factures page par page.
+ */
+public class RapportJasperService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RapportJasperService.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter MOIS_FORMATTER = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.FRENCH);
+    private static final int TAILLE_PAGE_RAPPORT = 500;
+    private static final int PAGES_EN_MEMOIRE =
+            PropertyManager.getInstance().getIntProperty("rapport.pages.memoire", 50);
+
+    private static final PatientService patientService = new PatientService();
+    private static final FacturationService facturationService = new FacturationService();
+    private static final ConsultationService consultationService = new ConsultationService();
+    private static final RendezVousService rendezVousService = new RendezVousService();
+    private static final TraitementService traitementService = new TraitementService();
+
+    // Une compilation par modèle, partagée par tous les appelants (y compris pendant la compilation)
+    private static final Map<Modele, CompletableFuture<JasperReport>> compiles = new ConcurrentHashMap<>();
+    private static CompletableFuture<Void> precompilation;
+
+    /**
+     * Modèles livrés dans src/main/resources/reports
+     */
+    public enum Modele {
+        FACTURE("/reports/facture.jrxml"),
+        ORDONNANCE("/reports/ordonnance.jrxml"),
+        RAPPORT_MENSUEL("/reports/rapport_mensuel.jrxml");
+
+        private final String ressource;
+
+        Modele(String ressource) {
+            this.ressource = ressource;
+        }
+
+        public String getRessource() {
+            return ressource;
+        }
+    }
+
+    /**
+     * Compile tous les modèles dans un thread d'arrière-plan (à appeler au démarrage).
+     * Un rapport demandé avant la fin attend la compilation en cours au lieu d'en lancer une autre.
+     */
+    public static synchronized CompletableFuture<Void> precompilerAsync() {
+        if (precompilation == null) {
+            precompilation = CompletableFuture.runAsync(() -> {
+                long debut = System.currentTimeMillis();
+                for (Modele modele : Modele.values()) {
+                    try {
+                        getModele(modele);
+                    } catch (RuntimeException e) {
+                        logger.error("Modèle {} non compilé", modele, e);
+                    }
+                }
+                logger.info("Modèles de rapports compilés en {} ms", System.currentTimeMillis() - debut);
+            }, tache -> {
+                Thread thread = new Thread(tache, "healthcare-rapports-compilation");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return precompilation;
+    }
+
+    /**
+     * Modèle compilé (compilé au premier appel seulement)
+     */
+    public static JasperReport getModele(Modele modele) {
+        CompletableFuture<JasperReport> nouveau = new CompletableFuture<>();
+        CompletableFuture<JasperReport> existant = compiles.putIfAbsent(modele, nouveau);
+        if (existant == null) {
+            existant = nouveau;
+            try {
+                nouveau.complete(compiler(modele));
+            } catch (RuntimeException e) {
+                // Échec non mémorisé : l'appel suivant retente la compilation
+                compiles.remove(modele, nouveau);
+                nouveau.completeExceptionally(e);
+            }
+        }
+        try {
+            return existant.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Facture au format PDF (lignes : médicaments prescrits lors de la consultation)
+     */
+    public static void genererFacture(Long idFacture, OutputStream sortie) {
+        long debut = System.currentTimeMillis();
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            Facture facture = facturationService.getFactureById(idFacture);
+            if (facture == null) {
+                throw new IllegalArgumentException("Facture introuvable : " + idFacture);
+            }
+            Patient patient = patientService.getPatientById(facture.getIdPatient());
+
+            Map<String, Object> parametres = new HashMap<>();
+            parametres.put("NUMERO_FACTURE", facture.getNumeroFacture());
+            parametres.put("DATE_FACTURE", format(facture.getDateFacture()));
+            parametres.put("PATIENT_NOM", patient != null ? patient.getNom() + " " + patient.getPrenom() : "N/A");
+            parametres.put("PATIENT_CIN", patient != null ? patient.getCin() : null);
+            parametres.put("MONTANT_CONSULTATION", facture.getMontantConsultation());
+            parametres.put("MONTANT_MEDICAMENTS", facture.getMontantMedicaments());
+            parametres.put("MONTANT_TOTAL", facture.getMontantTotal());
+            parametres.put("MONTANT_PAYE", facture.getMontantPaye());
+            parametres.put("MONTANT_RESTANT", facture.getMontantRestant());
+            parametres.put("STATUT", facture.getStatutPaiement() != null ? facture.getStatutPaiement().name() : null);
+
+            exporter(Modele.FACTURE, parametres, lignesTraitements(facture.getIdConsultation()), sortie);
+            logger.debug("Facture {} générée en {} ms", facture.getNumeroFacture(), System.currentTimeMillis() - debut);
+        }
+    }
+
+    /**
+     * Ordonnance d'une consultation au format PDF
+     */
+    public static void genererOrdonnance(Long idConsultation, OutputStream sortie) {
+        long debut = System.currentTimeMillis();
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            Consultation consultation = consultationService.getConsultationById(idConsultation);
+            if (consultation == null) {
+                throw new IllegalArgumentException("Consultation introuvable : " + idConsultation);
+            }
+            RendezVous rdv = rendezVousService.getRendezVousById(consultation.getIdRendezVous());
+            Patient patient = patientService.getPatientById(rdv.getIdPatient());
+            Medecin medecin = rdv.getMedecin();
+
+            Map<String, Object> parametres = new HashMap<>();
+            parametres.put("DATE_CONSULTATION", format(consultation.getDateConsultation()));
+            parametres.put("PATIENT_NOM", patient != null ? patient.getNom() + " " + patient.getPrenom() : "N/A");
+            parametres.put("PATIENT_CIN", patient != null ? patient.getCin() : null);
+            parametres.put("MEDECIN_NOM", medecin != null ? "Dr " + medecin.getNom() + " " + medecin.getPrenom() : "N/A");
+            parametres.put("MEDECIN_SPECIALITE", medecin != null ? medecin.getSpecialite() : null);
+            parametres.put("DIAGNOSTIC", consultation.getDiagnostic());
+
+            exporter(Modele.ORDONNANCE, parametres, lignesTraitements(idConsultation), sortie);
+            logger.debug("Ordonnance de la consultation {} générée en {} ms", idConsultation,
+                         System.currentTimeMillis() - debut);
+        }
+    }
+
+    /**
+     * Rapport mensuel au format PDF : synthèse de l'activité puis liste des factures
+     * du mois, lues et mises en page par blocs quel que soit leur nombre
+     */
+    public static void genererRapportMensuel(RapportMensuelDTO donnees, OutputStream sortie) {
+        long debut = System.currentTimeMillis();
+        YearMonth mois = donnees.getMois();
+        LocalDate premierJour = mois.atDay(1);
+        LocalDate dernierJour = mois.atEndOfMonth();
+        try (DatabaseConfig.PorteePool portee = DatabaseConfig.utiliserPool(PoolConnexion.RAPPORT);
+             DatabaseConfig.PorteeLectureSeule lecture = DatabaseConfig.lectureSeule()) {
+            Map<String, Object> parametres = new HashMap<>();
+            parametres.put("MOIS", mois.format(MOIS_FORMATTER));
+            parametres.put("DATE_GENERATION", format(LocalDate.now()));
+            parametres.put("NB_RENDEZ_VOUS", donnees.getNombreRendezVous());
+            parametres.put("NB_CONSULTATIONS", donnees.getNombreConsultations());
+            parametres.put("NB_FACTURES", donnees.getNombreFactures());
+            parametres.put("CHIFFRE_AFFAIRES", donnees.getChiffreAffaires());
+            parametres.put("MONTANT_ENCAISSE", donnees.getMontantEncaisse());
+            parametres.put("TOTAL_IMPAYE", donnees.getTotalImpaye());
+            parametres.put("SPECIALITES", lignes(donnees.getRendezVousParSpecialite()));
+            parametres.put("DIAGNOSTICS", lignes(donnees.getDiagnosticsFrequents()));
+
+            PagesDataSource factures = new PagesDataSource(
+                    (apresId, limite) -> lignesFactures(
+                            facturationService.getPageFacturesPeriode(premierJour, dernierJour, apresId, limite)),
+                    "ID", TAILLE_PAGE_RAPPORT);
+
+            exporter(Modele.RAPPORT_MENSUEL, parametres, factures, sortie);
+            logger.info("Rapport mensuel {} : {} factures en {} ms", mois, factures.getLignes(),
+                        System.currentTimeMillis() - debut);
+        }
+    }
+
+    /**
+     * Raccourcis : document écrit dans un fichier
+     */
+    public static String genererFacture(Long idFacture, String outputPath) {
+        try (OutputStream sortie = new FileOutputStream(outputPath)) {
+            genererFacture(idFacture, sortie);
+            return outputPath;
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'écrire la facture : " + e.getMessage(), e);
+        }
+    }
+
+    public static String genererOrdonnance(Long idConsultation, String outputPath) {
+        try (OutputStream sortie = new FileOutputStream(outputPath)) {
+            genererOrdonnance(idConsultation, sortie);
+            return outputPath;
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'écrire l'ordonnance : " + e.getMessage(), e);
+        }
+    }
+
+    public static String genererRapportMensuel(RapportMensuelDTO donnees, String outputPath) {
+        try (OutputStream sortie = new FileOutputStream(outputPath)) {
+            genererRapportMensuel(donnees, sortie);
+            return outputPath;
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'écrire le rapport : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Document en mémoire (aperçu, pièce jointe)
+     */
+    public static byte[] genererFacture(Long idFacture) {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(32 * 1024);
+        genererFacture(idFacture, sortie);
+        return sortie.toByteArray();
+    }
+
+    // === MÉTHODES PRIVÉES ===
+
+    private static JasperReport compiler(Modele modele) {
+        long debut = System.currentTimeMillis();
+        try (InputStream jrxml = RapportJasperService.class.getResourceAsStream(modele.getRessource())) {
+            if (jrxml == null) {
+                throw new IllegalStateException("Modèle introuvable : " + modele.getRessource());
+            }
+            JasperReport rapport = JasperCompileManager.compileReport(jrxml);
+            logger.info("Modèle {} compilé en {} ms", modele, System.currentTimeMillis() - debut);
+            return rapport;
+        } catch (IOException | JRException e) {
+            throw new RuntimeException("Erreur lors de la compilation du modèle " + modele + " : " + e.getMessage(), e);
+        }
+    }
+
+    private static void exporter(Modele modele, Map<String, Object> parametres, JRDataSource donnees,
+                                 OutputStream sortie) {
+        // Au-delà de PAGES_EN_MEMOIRE pages remplies, les suivantes sont écrites dans un fichier
+        // d'échange temporaire : la mémoire reste bornée quelle que soit la taille du rapport
+        JRSwapFileVirtualizer virtualiseur = new JRSwapFileVirtualizer(PAGES_EN_MEMOIRE,
+                new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 100), true);
+        try {
+            parametres.put(JRParameter.REPORT_VIRTUALIZER, virtualiseur);
+            JasperPrint impression = JasperFillManager.fillReport(getModele(modele), parametres, donnees);
+            virtualiseur.setReadOnly(true);
+            JasperExportManager.exportReportToPdfStream(impression, sortie);
+        } catch (JRException e) {
+            logger.error("Erreur lors de la génération du rapport {}", modele, e);
+            throw new RuntimeException("Impossible de générer le rapport : " + e.getMessage(), e);
+        } finally {
+            virtualiseur.cleanup();
+        }
+    }
+
+    private static JRDataSource lignesTraitements(long idConsultation) {
+        List<Map<String, ?>> lignes = new ArrayList<>();
+        for (Traitement t : traitementService.getByConsultation(idConsultation)) {
+            Map<String, Object> ligne = new HashMap<>();
+            ligne.put("MEDICAMENT", t.getMedicament() != null ? t.getMedicament().getNomCommercial() : null);
+            ligne.put("DOSAGE", t.getMedicament() != null ? t.getMedicament().getDosage() : null);
+            ligne.put("POSOLOGIE", t.getPosologie());
+            ligne.put("DUREE", t.getDureeTraitement());
+            ligne.put("QUANTITE", t.getQuantite());
+            ligne.put("INSTRUCTIONS", t.getInstructions());
+            lignes.add(ligne);
+        }
+        return new JRMapCollectionDataSource(lignes);
+    }
+
+    private static List<Map<String, Object>> lignesFactures(List<Facture> factures) {
+        // Patients de la page chargés en une fois
+        Set<Long> idsPatients = new HashSet<>();
+        for (Facture f : factures) {
+            if (f.getIdPatient() != 0) {
+                idsPatients.add(f.getIdPatient());
+            }
+        }
+        Map<Long, Patient> patients = patientService.getPatientsByIds(idsPatients);
+
+        List<Map<String, Object>> lignes = new ArrayList<>(factures.size());
+        for (Facture f : factures) {
+            Patient patient = patients.get(f.getIdPatient());
+            Map<String, Object> ligne = new HashMap<>();
+            ligne.put("ID", f.getId());
+            ligne.put("NUMERO_FACTURE", f.getNumeroFacture());
+            ligne.put("DATE_FACTURE", format(f.getDateFacture()));
+            ligne.put("PATIENT", patient != null ? patient.getNom() + " " + patient.getPrenom() : "N/A");
+            ligne.put("MONTANT_TOTAL", f.getMontantTotal());
+            ligne.put("MONTANT_PAYE", f.getMontantPaye());
+            ligne.put("MONTANT_RESTANT", f.getMontantRestant());
+            ligne.put("STATUT", f.getStatutPaiement() != null ? f.getStatutPaiement().name() : null);
+            lignes.add(ligne);
+        }
+        return lignes;
+    }
+
+    private static String lignes(Map<String, Long> compteurs) {
+        StringBuilder texte = new StringBuilder();
+        compteurs.forEach((libelle, nombre) -> texte.append(libelle).append(" : ").append(nombre).append('\n'));
+        return texte.length() > 0 ? texte.toString().trim() : "Aucun";
+    }
+
+    private static String format(LocalDate date) {
+        return date != null ? date.format(DATE_FORMATTER) : "";
+    }
+}
@@ -0,0 +1,55 @@
+package ma.ensa.healthcare.util;
+
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.RendezVous;
+
+import java.util.Map;
+
+/**
+ * Objets liés affichés dans les tableaux (nom et CIN du patient, médecin du rendez-vous).
+ * Chargés en bloc pour une page ou une liste, puis consultés ligne par ligne.
+ */
+public interface ReferencesTableau {
+
+    /** @return Le patient, ou null s'il n'a pas été chargé */
+    Patient patient(Long idPatient);
+
+    /** @return Le rendez-vous, ou null s'il n'a pas été chargé */
+    RendezVous rendezVous(Long idRendezVous);
+
+    /**
+     * Références de cette liste complétées par celles d'une page ajoutée ensuite
+     */
+    default ReferencesTableau avec(ReferencesTableau suivantes) {
+        ReferencesTableau precedentes = this;
+        return new ReferencesTableau() {
+            @Override
+            public Patient patient(Long idPatient) {
+                Patient patient = suivantes.patient(idPatient);
+                return patient != null ? patient : precedentes.patient(idPatient);
+            }
+
+            @Override
+            public RendezVous rendezVous(Long idRendezVous) {
+                RendezVous rdv = suivantes.rendezVous(idRendezVous);
+                return rdv != null ? rdv : precedentes.rendezVous(idRendezVous);
+            }
+        };
+    }
+
+    ReferencesTableau AUCUNE = de(Map.of(), Map.of());
+
+    static ReferencesTableau de(Map<Long, Patient> patients, Map<Long, RendezVous> rendezVous) {
+        return new ReferencesTableau() {
+            @Override
+            public Patient patient(Long idPatient) {
+                return idPatient != null ? patients.get(idPatient) : null;
+            }
+
+            @Override
+            public RendezVous rendezVous(Long idRendezVous) {
+                return idRendezVous != null ? rendezVous.get(idRendezVous) : null;
+            }
+        };
+    }
+}
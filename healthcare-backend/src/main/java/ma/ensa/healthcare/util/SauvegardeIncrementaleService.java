@@ -0,0 +1,667 @@
+package ma.ensa.healthcare.util;
+
+import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.HikariCPConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
+import ma.ensa.healthcare.config.PropertyManager;
+import ma.ensa.healthcare.dao.impl.JournalModificationsDAOImpl;
+import ma.ensa.healthcare.transaction.TransactionManager;
+import ma.ensa.healthcare.util.DatabaseExportService.EcrivainSql;
+import ma.ensa.healthcare.util.DatabaseExportService.TypeValeur;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sauvegardes incrémentales de la base : une sauvegarde de base (export des données
+ * à un SCN), puis des incrémentales ne contenant que les lignes insérées, modifiées
+ * ou supprimées depuis la sauvegarde précédente.
+ *
+ * Les triggers TRG_JOURNAL_* notent chaque ligne modifiée dans JOURNAL_MODIFICATIONS,
+ * dans la transaction de la modification. Le point de reprise est le SCN de validation
+ * de ces notes (ORA_ROWSCN) : une incrémentale relit, au SCN courant (AS OF SCN), les
+ * lignes des notes validées jusqu'à ce SCN. Une ligne encore présente est écrite en
+ * MERGE, une ligne disparue en DELETE. Seules les notes lues sont ensuite purgées : une
+ * note restante est reprise par l'incrémentale suivante. Les notes validées depuis moins de
+ * JournalModificationsDAOImpl.RETENTION_SECONDES sont conservées (et donc reprises aussi) :
+ * les index en mémoire des postes les relisent pour suivre les modifications. SCN, journal et lignes sont lus
+ * sur la primaire, où le journal est purgé (une réplique en retard en montrerait moins).
+ *
+ * REPRISE_FACTURATION (clé texte, quelques lignes) n'est pas journalisée : elle est
+ * recopiée en entier dans chaque incrémentale.
+ *
+ * Le manifeste du dossier chaîne les fichiers : chaque incrémentale commence au SCN
+ * où finit la précédente et porte l'empreinte SHA-256 de son fichier.
+ */
+public class SauvegardeIncrementaleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SauvegardeIncrementaleService.class);
+    private static final DateTimeFormatter FILENAME_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    static final String MANIFESTE = "sauvegardes.manifest";
+    static final String TYPE_BASE = "BASE";
+    static final String TYPE_INCREMENTALE = "INCREMENTALE";
+
+    // Identifiants par requête IN (Oracle en accepte au plus 1000)
+    private static final int TAILLE_LOT_IDS = 500;
+    // Instructions par executeBatch lors de la restauration
+    private static final int TAILLE_LOT_EXECUTION = 500;
+
+    // Clé primaire numérique de chaque table journalisée (COMPTEUR_FACTURE : l'année)
+    private static final Map<String, String> CLES = Map.ofEntries(
+        Map.entry("DEPARTEMENT", "id_departement"),
+        Map.entry("MEDECIN", "id_medecin"),
+        Map.entry("PATIENT", "id_patient"),
+        Map.entry("UTILISATEUR", "id_utilisateur"),
+        Map.entry("RENDEZ_VOUS", "id_rdv"),
+        Map.entry("MEDICAMENT", "id_medicament"),
+        Map.entry("CONSULTATION", "id_consultation"),
+        Map.entry("TRAITEMENT", "id_traitement"),
+        Map.entry("FACTURE", "id_facture"),
+        Map.entry("PAIEMENT", "id_paiement"),
+        Map.entry("COMPTEUR_FACTURE", "annee")
+    );
+
+    // Séquence qui alimente chaque clé, recalée après une restauration (tables sans séquence absentes)
+    private static final Map<String, String> SEQUENCES = Map.of(
+        "DEPARTEMENT", "seq_departement",
+        "MEDECIN", "seq_medecin",
+        "PATIENT", "seq_patient",
+        "UTILISATEUR", "seq_utilisateur",
+        "RENDEZ_VOUS", "seq_rdv",
+        "MEDICAMENT", "seq_medicament",
+        "CONSULTATION", "seq_consultation",
+        "TRAITEMENT", "seq_traitement",
+        "FACTURE", "seq_facture",
+        "PAIEMENT", "seq_paiement"
+    );
+
+    // Tables sans journal, recopiées en entier dans chaque incrémentale
+    private static final Set<String> TABLES_COPIEES = Set.of("REPRISE_FACTURATION");
+
+    private static final String SQL_JOURNAL =
+            "SELECT id_modif, nom_table, id_ligne FROM JOURNAL_MODIFICATIONS WHERE ORA_ROWSCN <= ?";
+
+    private static final String SQL_PURGE =
+            "DELETE FROM JOURNAL_MODIFICATIONS WHERE ORA_ROWSCN <= ? " +
+            "AND ORA_ROWSCN <= TIMESTAMP_TO_SCN(SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND'))";
+
+    private static final String SQL_PURGE_NOTE =
+            "DELETE FROM JOURNAL_MODIFICATIONS WHERE id_modif = ? " +
+            "AND ORA_ROWSCN <= TIMESTAMP_TO_SCN(SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND'))";
+
+    /**
+     * Démarre une nouvelle chaîne : export des données à un SCN et nouveau manifeste.
+     * L'ancien manifeste est conservé sous le nom sauvegardes.manifest.&lt;SCN de sa base&gt;.
+     *
+     * @param dossier Répertoire des sauvegardes
+     * @return Chemin complet du fichier de base
+     */
+    public static String sauvegardeBase(String dossier) throws SQLException, IOException {
+        Path dir = Paths.get(dossier);
+        long scn;
+        try (Connection conn = DatabaseExportService.ouvrirConnexionPrimaire()) {
+            scn = DatabaseExportService.lireScn(conn);
+        }
+        Path fichier = Paths.get(DatabaseExportService.exportDataOnly(
+                dossier, DatabaseExportService.compressionParDefaut(), scn));
+
+        Path manifeste = dir.resolve(MANIFESTE);
+        if (Files.exists(manifeste)) {
+            long ancienneBase = lireManifeste(dir).get(0).scnFin;
+            Files.move(manifeste, dir.resolve(MANIFESTE + "." + ancienneBase), StandardCopyOption.REPLACE_EXISTING);
+        }
+        List<EntreeManifeste> chaine = new ArrayList<>();
+        chaine.add(new EntreeManifeste(0, TYPE_BASE, fichier.getFileName().toString(), 0, scn, empreinte(fichier)));
+        ecrireManifeste(dir, chaine);
+
+        purgerJournal(scn);
+        logger.info("Sauvegarde de base terminée : {} (SCN {})", fichier, scn);
+        return fichier.toString();
+    }
+
+    /**
+     * Sauvegarde les lignes modifiées depuis le dernier fichier du manifeste
+     * et ajoute le nouveau fichier à la chaîne.
+     *
+     * @param dossier Répertoire des sauvegardes (contenant une sauvegarde de base)
+     * @return Chemin complet du fichier créé, ou null si le SCN n'a pas avancé
+     */
+    public static String sauvegardeIncrementale(String dossier) throws SQLException, IOException {
+        long debut = System.currentTimeMillis();
+        Path dir = Paths.get(dossier);
+        List<EntreeManifeste> chaine = lireManifeste(dir);
+        long scnDebut = chaine.get(chaine.size() - 1).scnFin;
+
+        boolean compresse = DatabaseExportService.compressionParDefaut();
+        String timestamp = LocalDateTime.now().format(FILENAME_FORMATTER);
+        Path fichier = dir.resolve("healthcare_incr_" + timestamp + (compresse ? ".sql.gz" : ".sql"));
+
+        long scn;
+        int lignes = 0;
+        List<Long> notes = new ArrayList<>();
+        try (Connection conn = DatabaseExportService.ouvrirConnexionPrimaire()) {
+            scn = DatabaseExportService.lireScn(conn);
+            if (scn <= scnDebut) {
+                logger.info("Aucune sauvegarde incrémentale : SCN {} déjà couvert", scn);
+                return null;
+            }
+            Map<String, TreeSet<Long>> modifiees = lireJournal(conn, scn, notes);
+
+            try (EcrivainSql ecrivain = EcrivainSql.ouvrir(fichier, compresse)) {
+                ecrireEntete(ecrivain, scnDebut, scn);
+                // Lignes présentes au SCN : parents avant enfants
+                Map<String, TreeSet<Long>> supprimees = new HashMap<>();
+                for (String table : DatabaseExportService.TABLES_ORDER) {
+                    if (TABLES_COPIEES.contains(table)) {
+                        ecrivain.write("DELETE FROM ").write(table).write(";\n");
+                        DatabaseExportService.exportTableData(conn, table, scn, 5000, ecrivain);
+                        continue;
+                    }
+                    TreeSet<Long> ids = modifiees.get(table);
+                    if (ids != null) {
+                        supprimees.put(table, ecrireFusions(conn, table, ids, scn, ecrivain));
+                        lignes += ids.size();
+                    }
+                }
+                // Lignes disparues : enfants avant parents
+                for (int i = DatabaseExportService.TABLES_ORDER.length - 1; i >= 0; i--) {
+                    String table = DatabaseExportService.TABLES_ORDER[i];
+                    TreeSet<Long> ids = supprimees.get(table);
+                    if (ids != null && !ids.isEmpty()) {
+                        ecrireSuppressions(table, ids, ecrivain);
+                    }
+                }
+                ecrivain.write("\nCOMMIT;\n");
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(fichier);
+            throw e;
+        }
+
+        chaine.add(new EntreeManifeste(chaine.size(), TYPE_INCREMENTALE, fichier.getFileName().toString(),
+                                       scnDebut, scn, empreinte(fichier)));
+        ecrireManifeste(dir, chaine);
+
+        purgerNotes(notes);
+        logger.info("Sauvegarde incrémentale terminée : {} ({} ligne(s), SCN {} à {}, {} ms)",
+                    fichier, lignes, scnDebut, scn, System.currentTimeMillis() - debut);
+        return fichier.toString();
+    }
+
+    /**
+     * Rejoue la chaîne du manifeste (base puis incrémentales) dans une base vide,
+     * créée par les scripts du dossier Database. Les empreintes et la continuité
+     * des SCN sont vérifiées avant toute écriture. Les triggers des tables sont
+     * désactivés pendant le rejeu (ils facturent ou journalisent à nouveau sinon)
+     * et les séquences sont recalées sur les clés restaurées.
+     *
+     * @param dossier Répertoire des sauvegardes
+     */
+    public static void restaurer(String dossier) throws SQLException, IOException {
+        Path dir = Paths.get(dossier);
+        List<EntreeManifeste> chaine = lireManifeste(dir);
+        verifierChaine(dir, chaine);
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN);
+            activerTriggers(conn, false);
+            for (EntreeManifeste entree : chaine) {
+                long debut = System.currentTimeMillis();
+                TransactionManager.beginTransaction(conn);
+                int instructions = rejouer(conn, dir.resolve(entree.fichier));
+                TransactionManager.commit(conn);
+                logger.info("{} {} rejoué : {} instruction(s) en {} ms",
+                            entree.type, entree.fichier, instructions, System.currentTimeMillis() - debut);
+            }
+            recalerSequences(conn);
+            logger.info("Restauration terminée jusqu'au SCN {}", chaine.get(chaine.size() - 1).scnFin);
+        } catch (SQLException | IOException | RuntimeException e) {
+            TransactionManager.rollback(conn);
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    activerTriggers(conn, true);
+                } catch (SQLException e) {
+                    logger.error("Erreur lors de la réactivation des triggers", e);
+                }
+            }
+            DatabaseConfig.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Répertoire des sauvegardes configuré (sauvegarde.dossier)
+     */
+    public static String getDossierParDefaut() {
+        return PropertyManager.getInstance().getProperty("sauvegarde.dossier", "sauvegardes");
+    }
+
+    /**
+     * Outil en ligne de commande : base | incrementale | restaurer [dossier]
+     */
+    public static void main(String[] args) throws Exception {
+        String commande = args.length > 0 ? args[0] : "";
+        String dossier = args.length > 1 ? args[1] : getDossierParDefaut();
+        try {
+            switch (commande) {
+                case "base" -> System.out.println(sauvegardeBase(dossier));
+                case "incrementale" -> System.out.println(sauvegardeIncrementale(dossier));
+                case "restaurer" -> restaurer(dossier);
+                default -> {
+                    System.err.println("Usage : SauvegardeIncrementaleService base|incrementale|restaurer [dossier]");
+                    System.exit(2);
+                }
+            }
+        } finally {
+            HikariCPConfig.shutdown();
+        }
+    }
+
+    /**
+     * Lignes des notes du journal validées jusqu'à un SCN, par table
+     * @param notes Reçoit les identifiants des notes lues (à purger une fois la sauvegarde écrite)
+     */
+    private static Map<String, TreeSet<Long>> lireJournal(Connection conn, long scnFin, List<Long> notes)
+            throws SQLException {
+        Map<String, TreeSet<Long>> modifiees = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_JOURNAL)) {
+            pstmt.setLong(1, scnFin);
+            pstmt.setFetchSize(5000);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    notes.add(rs.getLong(1));
+                    modifiees.computeIfAbsent(rs.getString(2), t -> new TreeSet<>()).add(rs.getLong(3));
+                }
+            }
+        }
+        return modifiees;
+    }
+
+    /**
+     * Écrit un MERGE par ligne encore présente au SCN
+     * @return Identifiants absents au SCN (lignes supprimées)
+     */
+    private static TreeSet<Long> ecrireFusions(Connection conn, String table, TreeSet<Long> ids, long scn,
+                                               EcrivainSql writer) throws SQLException, IOException {
+        String cle = CLES.get(table);
+        TreeSet<Long> absents = new TreeSet<>(ids);
+        List<Long> liste = new ArrayList<>(ids);
+
+        for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_IDS) {
+            List<Long> lot = liste.subList(debut, Math.min(debut + TAILLE_LOT_IDS, liste.size()));
+            String sql = "SELECT * FROM " + table + " AS OF SCN ? WHERE " + cle + " IN ("
+                    + "?, ".repeat(lot.size() - 1) + "?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, scn);
+                for (int i = 0; i < lot.size(); i++) {
+                    pstmt.setLong(i + 2, lot.get(i));
+                }
+                pstmt.setFetchSize(lot.size());
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    int columnCount = metaData.getColumnCount();
+                    TypeValeur[] types = new TypeValeur[columnCount + 1];
+                    String[] colonnes = new String[columnCount + 1];
+                    for (int i = 1; i <= columnCount; i++) {
+                        types[i] = TypeValeur.de(metaData, i);
+                        colonnes[i] = metaData.getColumnName(i);
+                    }
+                    String suite = finFusion(cle, colonnes);
+                    String prefixe = "MERGE INTO " + table + " c USING (SELECT ";
+
+                    while (rs.next()) {
+                        writer.write(prefixe);
+                        for (int i = 1; i <= columnCount; i++) {
+                            if (i > 1) {
+                                writer.write(", ");
+                            }
+                            DatabaseExportService.ecrireValeur(rs, i, types[i], writer);
+                            writer.write(" AS ").write(colonnes[i]);
+                        }
+                        writer.write(suite);
+                        absents.remove(rs.getLong(cle));
+                    }
+                }
+            }
+        }
+        writer.write("-- ").write(table).write(" : ")
+              .write(ids.size() - absents.size()).write(" ligne(s) ajoutée(s) ou modifiée(s)\n\n");
+        return absents;
+    }
+
+    /**
+     * Fin d'un MERGE : jointure sur la clé, mise à jour des autres colonnes, sinon insertion
+     */
+    private static String finFusion(String cle, String[] colonnes) {
+        StringBuilder miseAJour = new StringBuilder();
+        StringBuilder noms = new StringBuilder();
+        StringBuilder valeurs = new StringBuilder();
+        for (int i = 1; i < colonnes.length; i++) {
+            if (i > 1) {
+                noms.append(", ");
+                valeurs.append(", ");
+            }
+            noms.append(colonnes[i]);
+            valeurs.append("s.").append(colonnes[i]);
+            if (!colonnes[i].equalsIgnoreCase(cle)) {
+                miseAJour.append(miseAJour.length() == 0 ? "" : ", ")
+                         .append("c.").append(colonnes[i]).append(" = s.").append(colonnes[i]);
+            }
+        }
+        StringBuilder fin = new StringBuilder(" FROM DUAL) s ON (c.").append(cle).append(" = s.").append(cle).append(")");
+        if (miseAJour.length() > 0) {
+            fin.append(" WHEN MATCHED THEN UPDATE SET ").append(miseAJour);
+        }
+        return fin.append(" WHEN NOT MATCHED THEN INSERT (").append(noms)
+                  .append(") VALUES (").append(valeurs).append(");\n").toString();
+    }
+
+    private static void ecrireSuppressions(String table, TreeSet<Long> ids, EcrivainSql writer) throws IOException {
+        String cle = CLES.get(table);
+        int n = 0;
+        for (Long id : ids) {
+            writer.write(n % TAILLE_LOT_IDS == 0 ? "DELETE FROM " + table + " WHERE " + cle + " IN (" : ", ");
+            writer.write(id);
+            n++;
+            if (n % TAILLE_LOT_IDS == 0 || n == ids.size()) {
+                writer.write(");\n");
+            }
+        }
+        writer.write("-- ").write(table).write(" : ").write(ids.size()).write(" ligne(s) supprimée(s)\n\n");
+    }
+
+    private static void ecrireEntete(EcrivainSql writer, long scnDebut, long scnFin) throws IOException {
+        writer.write("-- ================================================================\n");
+        writer.write("-- HEALTHCARE SYSTEM - SAUVEGARDE INCRÉMENTALE\n");
+        writer.write("-- Date: ").write(LocalDateTime.now().format(
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"))).write("\n");
+        writer.write("-- Modifications validées non encore sauvegardées : suite de la chaîne au SCN ")
+              .write(scnDebut).write(", lignes lues au SCN ").write(scnFin).write("\n");
+        writer.write("-- À rejouer après la sauvegarde précédente du manifeste\n");
+        writer.write("-- ================================================================\n\n");
+        writer.write("SET DEFINE OFF;\n\n");
+    }
+
+    /**
+     * Supprime du journal les notes couvertes par une sauvegarde de base (base principale)
+     */
+    private static void purgerJournal(long scn) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN);
+             PreparedStatement pstmt = conn.prepareStatement(SQL_PURGE)) {
+            pstmt.setLong(1, scn);
+            pstmt.setInt(2, JournalModificationsDAOImpl.RETENTION_SECONDES);
+            int purgees = pstmt.executeUpdate();
+            logger.debug("{} note(s) purgée(s) du journal des modifications", purgees);
+        }
+    }
+
+    /**
+     * Supprime du journal les notes lues par une incrémentale écrite (base principale)
+     */
+    private static void purgerNotes(List<Long> notes) throws SQLException {
+        if (notes.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN);
+            TransactionManager.beginTransaction(conn);
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_PURGE_NOTE)) {
+                int lot = 0;
+                for (Long id : notes) {
+                    pstmt.setLong(1, id);
+                    pstmt.setInt(2, JournalModificationsDAOImpl.RETENTION_SECONDES);
+                    pstmt.addBatch();
+                    if (++lot == TAILLE_LOT_EXECUTION) {
+                        pstmt.executeBatch();
+                        lot = 0;
+                    }
+                }
+                if (lot > 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            TransactionManager.commit(conn);
+            logger.debug("{} note(s) lue(s) purgée(s) du journal des modifications, sauf les plus récentes", notes.size());
+        } catch (SQLException | RuntimeException e) {
+            TransactionManager.rollback(conn);
+            throw e;
+        } finally {
+            DatabaseConfig.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Exécute les instructions d'un fichier de sauvegarde par lots.
+     * Les instructions sont séparées par ';' hors des chaînes ; les commentaires
+     * et les commandes SQL*Plus (SET, COMMIT) sont ignorés.
+     */
+    private static int rejouer(Connection conn, Path fichier) throws SQLException, IOException {
+        int executees = 0;
+        int lot = 0;
+        try (BufferedReader lecteur = ouvrirLecture(fichier);
+             Statement stmt = conn.createStatement()) {
+            StringBuilder instruction = new StringBuilder();
+            boolean dansTexte = false;
+            int c;
+            while ((c = lecteur.read()) != -1) {
+                if (dansTexte) {
+                    // Une apostrophe doublée ferme puis rouvre la chaîne
+                    instruction.append((char) c);
+                    dansTexte = c != '\'';
+                } else if (c == '\'') {
+                    instruction.append('\'');
+                    dansTexte = true;
+                } else if (c == '-' && estCommentaire(lecteur)) {
+                    lecteur.readLine();
+                    instruction.append('\n');
+                } else if (c == ';') {
+                    String sql = instruction.toString().trim();
+                    instruction.setLength(0);
+                    if (aExecuter(sql)) {
+                        stmt.addBatch(sql);
+                        executees++;
+                        if (++lot == TAILLE_LOT_EXECUTION) {
+                            stmt.executeBatch();
+                            lot = 0;
+                        }
+                    }
+                } else {
+                    instruction.append((char) c);
+                }
+            }
+            if (dansTexte || !instruction.toString().isBlank()) {
+                throw new IOException("Fichier de sauvegarde tronqué : " + fichier);
+            }
+            if (lot > 0) {
+                stmt.executeBatch();
+            }
+        }
+        return executees;
+    }
+
+    /** Le '-' lu est suivi d'un second '-' (le caractère suivant est consommé si oui) */
+    private static boolean estCommentaire(BufferedReader lecteur) throws IOException {
+        lecteur.mark(1);
+        if (lecteur.read() == '-') {
+            return true;
+        }
+        lecteur.reset();
+        return false;
+    }
+
+    private static boolean aExecuter(String sql) {
+        if (sql.isEmpty()) {
+            return false;
+        }
+        String debut = sql.length() > 8 ? sql.substring(0, 8).toUpperCase() : sql.toUpperCase();
+        return !debut.startsWith("SET ") && !debut.startsWith("COMMIT") && !debut.startsWith("PROMPT");
+    }
+
+    private static BufferedReader ouvrirLecture(Path fichier) throws IOException {
+        InputStream entree = Files.newInputStream(fichier);
+        if (fichier.getFileName().toString().endsWith(".gz")) {
+            entree = new GZIPInputStream(entree, 64 * 1024);
+        }
+        return new BufferedReader(new InputStreamReader(entree, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    static void activerTriggers(Connection conn, boolean actifs) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : DatabaseExportService.TABLES_ORDER) {
+                stmt.execute("ALTER TABLE " + table + (actifs ? " ENABLE" : " DISABLE") + " ALL TRIGGERS");
+            }
+        }
+    }
+
+    /**
+     * Redémarre chaque séquence après la plus grande clé restaurée
+     */
+    static void recalerSequences(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : DatabaseExportService.TABLES_ORDER) {
+                if (!SEQUENCES.containsKey(table)) {
+                    continue;
+                }
+                long suivant;
+                try (ResultSet rs = stmt.executeQuery("SELECT NVL(MAX(" + CLES.get(table) + "), 0) + 1 FROM " + table)) {
+                    rs.next();
+                    suivant = rs.getLong(1);
+                }
+                stmt.execute("ALTER SEQUENCE " + SEQUENCES.get(table) + " RESTART START WITH " + suivant);
+            }
+        }
+    }
+
+    /**
+     * Vérifie l'ordre de la chaîne, la continuité des SCN et l'empreinte de chaque fichier
+     */
+    private static void verifierChaine(Path dir, List<EntreeManifeste> chaine) throws IOException {
+        for (int i = 0; i < chaine.size(); i++) {
+            EntreeManifeste entree = chaine.get(i);
+            String typeAttendu = i == 0 ? TYPE_BASE : TYPE_INCREMENTALE;
+            if (entree.numero != i || !typeAttendu.equals(entree.type)) {
+                throw new IllegalStateException("Manifeste invalide : entrée " + i + " attendue de type " + typeAttendu);
+            }
+            if (i > 0 && entree.scnDebut != chaine.get(i - 1).scnFin) {
+                throw new IllegalStateException("Chaîne rompue : " + entree.fichier + " commence au SCN "
+                        + entree.scnDebut + " au lieu de " + chaine.get(i - 1).scnFin);
+            }
+            Path fichier = dir.resolve(entree.fichier);
+            if (!Files.exists(fichier)) {
+                throw new IllegalStateException("Fichier de sauvegarde manquant : " + fichier);
+            }
+            if (!entree.sha256.equals(empreinte(fichier))) {
+                throw new IllegalStateException("Empreinte SHA-256 incorrecte : " + fichier);
+            }
+        }
+    }
+
+    private static List<EntreeManifeste> lireManifeste(Path dir) throws IOException {
+        Path manifeste = dir.resolve(MANIFESTE);
+        if (!Files.exists(manifeste)) {
+            throw new IllegalStateException("Aucune sauvegarde de base dans " + dir);
+        }
+        List<EntreeManifeste> chaine = new ArrayList<>();
+        for (String ligne : Files.readAllLines(manifeste, StandardCharsets.UTF_8)) {
+            if (!ligne.isBlank() && !ligne.startsWith("#")) {
+                chaine.add(EntreeManifeste.lire(ligne));
+            }
+        }
+        if (chaine.isEmpty()) {
+            throw new IllegalStateException("Manifeste vide : " + manifeste);
+        }
+        return chaine;
+    }
+
+    /**
+     * Réécrit le manifeste complet (fichier temporaire puis remplacement atomique)
+     */
+    private static void ecrireManifeste(Path dir, List<EntreeManifeste> chaine) throws IOException {
+        StringBuilder contenu = new StringBuilder();
+        contenu.append("# Chaîne de sauvegardes HEALTHCARE : une base puis des incrémentales\n");
+        contenu.append("# numero\ttype\tfichier\tscn_debut\tscn_fin\tsha256\n");
+        for (EntreeManifeste entree : chaine) {
+            contenu.append(entree.enLigne()).append('\n');
+        }
+        Path temporaire = dir.resolve(MANIFESTE + ".tmp");
+        Files.writeString(temporaire, contenu, StandardCharsets.UTF_8);
+        Files.move(temporaire, dir.resolve(MANIFESTE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String empreinte(Path fichier) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+        try (InputStream entree = new DigestInputStream(Files.newInputStream(fichier), digest)) {
+            entree.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Ligne du manifeste : un fichier de la chaîne et les SCN qu'il couvre
+     */
+    private static final class EntreeManifeste {
+        private final int numero;
+        private final String type;
+        private final String fichier;
+        private final long scnDebut;
+        private final long scnFin;
+        private final String sha256;
+
+        private EntreeManifeste(int numero, String type, String fichier, long scnDebut, long scnFin, String sha256) {
+            this.numero = numero;
+            this.type = type;
+            this.fichier = fichier;
+            this.scnDebut = scnDebut;
+            this.scnFin = scnFin;
+            this.sha256 = sha256;
+        }
+
+        static EntreeManifeste lire(String ligne) {
+            String[] champs = ligne.split("\t");
+            if (champs.length != 6) {
+                throw new IllegalStateException("Ligne de manifeste invalide : " + ligne);
+            }
+            return new EntreeManifeste(Integer.parseInt(champs[0]), champs[1], champs[2],
+                    Long.parseLong(champs[3]), Long.parseLong(champs[4]), champs[5]);
+        }
+
+        String enLigne() {
+            return String.format("%d\t%s\t%s\t%d\t%d\t%s", numero, type, fichier, scnDebut, scnFin, sha256);
+        }
+    }
+}
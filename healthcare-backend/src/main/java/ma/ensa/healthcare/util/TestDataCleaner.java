@@ -1,6 +1,7 @@
 package ma.ensa.healthcare.util;
 
 import ma.ensa.healthcare.config.DatabaseConfig;
+import ma.ensa.healthcare.config.PoolConnexion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,7 +22,7 @@ public class TestDataCleaner {
     public static void cleanupTodayTestData() {
         logger.info("Nettoyage des données de test...");
         
-        try (Connection conn = DatabaseConfig.getConnection()) {
+        try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN)) {
             conn.setAutoCommit(false);
             
             try {
@@ -88,7 +89,7 @@ public class TestDataCleaner {
     public static void cleanupAllTestData() {
         logger.warn("⚠️ NETTOYAGE COMPLET - Toutes les données vont être supprimées !");
         
-        try (Connection conn = DatabaseConfig.getConnection()) {
+        try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN)) {
             conn.setAutoCommit(false);
             
             try {
@@ -146,7 +147,7 @@ public class TestDataCleaner {
             "seq_facture"
         };
         
-        try (Connection conn = DatabaseConfig.getConnection()) {
+        try (Connection conn = DatabaseConfig.getConnection(PoolConnexion.ARRIERE_PLAN)) {
             for (String seq : sequences) {
                 try (PreparedStatement pstmt = conn.prepareStatement(
                     "ALTER SEQUENCE " + seq + " RESTART START WITH 1")) {
@@ -0,0 +1,160 @@
+package ma.ensa.healthcare.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Banc d'essai local du routage lecture/écriture : deux bases factices en mémoire
+ * jouent la primaire et la réplique, sans Oracle ni réplication.
+ */
+class RoutageLectureEcritureTest {
+
+    /**
+     * Base factice : compte les connexions ouvertes et accepte tous les ordres SQL
+     */
+    private static final class BaseFactice {
+        final String nom;
+        final List<Connection> connexions = new ArrayList<>();
+
+        BaseFactice(String nom) {
+            this.nom = nom;
+        }
+
+        DataSource source() {
+            return (DataSource) Proxy.newProxyInstance(
+                    DataSource.class.getClassLoader(),
+                    new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("getConnection")) {
+                            Connection conn = connexion();
+                            connexions.add(conn);
+                            return conn;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private Connection connexion() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "toString" -> nom;
+                        case "isReadOnly", "isClosed" -> false;
+                        case "createStatement" -> statement();
+                        default -> null;
+                    });
+        }
+
+        private Statement statement() {
+            return (Statement) Proxy.newProxyInstance(
+                    Statement.class.getClassLoader(),
+                    new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> method.getName().equals("execute") ? false : null);
+        }
+    }
+
+    private final BaseFactice primaire = new BaseFactice("primaire");
+    private final BaseFactice replique = new BaseFactice("replique");
+
+    @Test
+    void lectureSeuleVaSurLaReplique() throws Exception {
+        RoutageLectureEcriture routage = new RoutageLectureEcriture(5000);
+
+        routage.getConnection(primaire.source(), replique::source, true).close();
+
+        assertEquals(0, primaire.connexions.size());
+        assertEquals(1, replique.connexions.size());
+    }
+
+    @Test
+    void ecritureVaSurLaPrimaireSansOuvrirLaReplique() throws Exception {
+        RoutageLectureEcriture routage = new RoutageLectureEcriture(5000);
+
+        routage.getConnection(primaire.source(), () -> {
+            throw new AssertionError("réplique demandée pour une écriture");
+        }, false).close();
+
+        assertEquals(1, primaire.connexions.size());
+    }
+
+    @Test
+    void lectureApresEcritureResteSurLaPrimaire() throws Exception {
+        RoutageLectureEcriture routage = new RoutageLectureEcriture(60_000);
+
+        try (Connection conn = routage.getConnection(primaire.source(), replique::source, false)) {
+            conn.prepareStatement("UPDATE PATIENT SET nom = ? WHERE id_patient = ?");
+        }
+        assertTrue(routage.ecritureRecente());
+
+        routage.getConnection(primaire.source(), replique::source, true).close();
+
+        assertEquals(2, primaire.connexions.size());
+        assertEquals(0, replique.connexions.size());
+    }
+
+    @Test
+    void lectureSurLaPrimaireNeMarquePasDEcriture() throws Exception {
+        RoutageLectureEcriture routage = new RoutageLectureEcriture(60_000);
+
+        try (Connection conn = routage.getConnection(primaire.source(), replique::source, false)) {
+            conn.prepareStatement("SELECT * FROM PATIENT");
+            conn.createStatement().executeQuery("WITH t AS (SELECT 1 FROM DUAL) SELECT * FROM t");
+        }
+
+        assertFalse(routage.ecritureRecente());
+    }
+
+    @Test
+    void ecritureParStatementEstDetectee() throws Exception {
+        RoutageLectureEcriture routage = new RoutageLectureEcriture(60_000);
+
+        try (Connection conn = routage.getConnection(primaire.source(), replique::source, false)) {
+            conn.createStatement().execute("DELETE FROM PATIENT WHERE id_patient = 1");
+        }
+
+        assertTrue(routage.ecritureRecente());
+    }
+
+    @Test
+    void delaiEcouleRetourSurLaReplique() throws Exception {
+        RoutageLectureEcriture routage = new RoutageLectureEcriture(1);
+
+        routage.marquerEcriture();
+        Thread.sleep(20);
+        routage.getConnection(primaire.source(), replique::source, true).close();
+
+        assertEquals(1, replique.connexions.size());
+    }
+
+    @Test
+    void classementDesOrdresSql() {
+        assertFalse(RoutageLectureEcriture.estEcriture("  select * from PATIENT"));
+        assertFalse(RoutageLectureEcriture.estEcriture("WITH t AS (SELECT 1 FROM DUAL) SELECT * FROM t"));
+        assertFalse(RoutageLectureEcriture.estEcriture(null));
+        assertTrue(RoutageLectureEcriture.estEcriture("INSERT INTO PATIENT VALUES (?)"));
+        assertTrue(RoutageLectureEcriture.estEcriture("MERGE INTO PATIENT p USING DUAL ON (1 = 1)"));
+        assertTrue(RoutageLectureEcriture.estEcriture("{call pkg.proc(?)}"));
+    }
+
+    @Test
+    void choixDuNoeudSuitLesEcrituresRecentes() {
+        RoutageLectureEcriture routage = new RoutageLectureEcriture(5000);
+
+        assertTrue(routage.lireSurReplique(true));
+        assertFalse(routage.lireSurReplique(false));
+
+        routage.marquerEcriture();
+        assertFalse(routage.lireSurReplique(true));
+    }
+}
@@ -0,0 +1,86 @@
+package ma.ensa.healthcare.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Distance d'édition bornée et arbre BK comparés au calcul complet sur tous les mots
+ */
+class ArbreBKTest {
+
+    @Test
+    void distancesConnues() {
+        assertEquals(3, Levenshtein.distance("kitten", "sitting"));
+        assertEquals(3, Levenshtein.distance("mohamed", "muhammad"));
+        assertEquals(0, Levenshtein.distance("", ""));
+        assertEquals(4, Levenshtein.distance("", "omar"));
+        assertEquals(2, Levenshtein.distance("mohamed", "muhammad", 1));
+    }
+
+    @Test
+    void distanceBorneeIdentiqueADistanceComplete() {
+        Random aleatoire = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            String a = mot(aleatoire, 0, 9);
+            String b = mot(aleatoire, 0, 9);
+            int complete = Levenshtein.distance(a, b);
+            for (int max = 0; max <= 4; max++) {
+                assertEquals(Math.min(complete, max + 1), Levenshtein.distance(a, b, max), a + " / " + b + " max " + max);
+            }
+        }
+    }
+
+    @Test
+    void rechercheIdentiqueAuParcoursDeTousLesMots() {
+        Random aleatoire = new Random(2);
+        Set<String> mots = new LinkedHashSet<>();
+        while (mots.size() < 3000) {
+            mots.add(mot(aleatoire, 3, 8));
+        }
+        List<String> dictionnaire = new ArrayList<>(mots);
+        ArbreBK arbre = new ArbreBK();
+        for (int id = 0; id < dictionnaire.size(); id++) {
+            arbre.ajouter(dictionnaire.get(id), id);
+        }
+        assertEquals(dictionnaire.size(), arbre.taille());
+
+        for (int i = 0; i < 200; i++) {
+            String cherche = i % 2 == 0 ? dictionnaire.get(aleatoire.nextInt(dictionnaire.size())) : mot(aleatoire, 3, 8);
+            for (int max = 0; max <= 3; max++) {
+                Map<Integer, Integer> attendus = new HashMap<>();
+                for (int id = 0; id < dictionnaire.size(); id++) {
+                    int distance = Levenshtein.distance(cherche, dictionnaire.get(id));
+                    if (distance <= max) {
+                        attendus.put(id, distance);
+                    }
+                }
+                Map<Integer, Integer> trouves = new HashMap<>();
+                arbre.rechercher(cherche, max, (id, distance) ->
+                        assertTrue(trouves.put(id, distance) == null, "mot visité deux fois"));
+                assertEquals(attendus, trouves, cherche + " max " + max);
+            }
+        }
+    }
+
+    /**
+     * Mot sur un petit alphabet : beaucoup de mots proches les uns des autres
+     */
+    private static String mot(Random aleatoire, int min, int max) {
+        int longueur = min + aleatoire.nextInt(max - min + 1);
+        StringBuilder mot = new StringBuilder(longueur);
+        for (int i = 0; i < longueur; i++) {
+            mot.append("abdeilmnors".charAt(aleatoire.nextInt(11)));
+        }
+        return mot.toString();
+    }
+}
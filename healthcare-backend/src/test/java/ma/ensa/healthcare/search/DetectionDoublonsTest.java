@@ -0,0 +1,126 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.DoublonPatient;
+import ma.ensa.healthcare.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Détection en masse comparée à la comparaison de chaque paire seule : mêmes liens,
+ * mêmes groupes, même meilleur score par patient.
+ */
+class DetectionDoublonsTest {
+
+    private static final double SEUIL = 0.80;
+
+    @Test
+    void detectionIdentiqueALaComparaisonDesPaires() {
+        List<Patient> patients = patients(new Random(7), 500);
+        // Blocs jamais parcourus par fenêtre : toutes les paires d'un même bloc sont comparées
+        DetectionDoublons detection = new DetectionDoublons(SEUIL, Integer.MAX_VALUE);
+        for (int i = 0; i < patients.size(); i += 100) {
+            detection.ajouter(patients.subList(i, Math.min(patients.size(), i + 100)));
+        }
+        DetectionDoublons.Resultat resultat = detection.detecter();
+
+        // Liens attendus : chaque paire détectée seule
+        int nbLiens = 0;
+        Map<Long, Double> meilleurs = new HashMap<>();
+        Map<Long, Long> parents = new HashMap<>();
+        for (int i = 0; i < patients.size(); i++) {
+            for (int j = i + 1; j < patients.size(); j++) {
+                DetectionDoublons paire = new DetectionDoublons(SEUIL, Integer.MAX_VALUE);
+                paire.ajouter(List.of(patients.get(i), patients.get(j)));
+                List<DoublonPatient> lignes = paire.detecter().getDoublons();
+                if (lignes.isEmpty()) {
+                    continue;
+                }
+                nbLiens++;
+                double score = lignes.get(0).getScore();
+                long a = patients.get(i).getId();
+                long b = patients.get(j).getId();
+                meilleurs.merge(a, score, Math::max);
+                meilleurs.merge(b, score, Math::max);
+                unir(parents, a, b);
+            }
+        }
+
+        assertTrue(nbLiens > 20, "jeu d'essai sans assez de doublons : " + nbLiens);
+        assertEquals(nbLiens, resultat.getLiens());
+        assertEquals(meilleurs.size(), resultat.getDoublons().size());
+        for (DoublonPatient ligne : resultat.getDoublons()) {
+            Double meilleur = meilleurs.get(ligne.getIdPatient());
+            assertNotNull(meilleur, "patient " + ligne.getIdPatient() + " en trop");
+            assertEquals(meilleur, ligne.getScore(), 1e-9);
+            // Groupe = plus petit ID de la composante
+            assertEquals(Long.valueOf(racine(parents, ligne.getIdPatient())), ligne.getIdGroupe());
+            assertEquals(racine(parents, ligne.getIdPatient()), racine(parents, ligne.getIdPatientProche()));
+        }
+    }
+
+    @Test
+    void casParticuliers() {
+        Patient reference = patient(1, "Alaoui", "Mohamed", LocalDate.of(1980, 3, 7), "AB123456", "0612345678");
+        Patient inverse = patient(2, "Mohamed", "Alaoui", LocalDate.of(1980, 3, 7), null, null);
+        Patient jourMoisInverses = patient(3, "Alaoui", "Mohammed", LocalDate.of(1980, 7, 3), null, "+212 612345678");
+        Patient jumelle = patient(4, "Alaoui", "Zineb", LocalDate.of(1980, 3, 7), null, "0612345678");
+
+        assertEquals(1, paires(reference, inverse));
+        assertEquals(1, paires(reference, jourMoisInverses));
+        assertEquals(0, paires(reference, jumelle));
+    }
+
+    private static int paires(Patient a, Patient b) {
+        DetectionDoublons detection = new DetectionDoublons(SEUIL, Integer.MAX_VALUE);
+        detection.ajouter(List.of(a, b));
+        return detection.detecter().getLiens();
+    }
+
+    private static List<Patient> patients(Random aleatoire, int nombre) {
+        List<Patient> patients = new ArrayList<>(nombre);
+        for (long id = 1; id <= nombre; id++) {
+            LocalDate naissance = LocalDate.of(1980 + aleatoire.nextInt(3), 1 + aleatoire.nextInt(3), 1 + aleatoire.nextInt(4));
+            String cin = aleatoire.nextInt(3) == 0 ? null
+                    : "AB12" + (10 + aleatoire.nextInt(6)) + aleatoire.nextInt(10);
+            String telephone = aleatoire.nextBoolean() ? "06" + (10_000_000 + aleatoire.nextInt(20)) : null;
+            Patient patient = patient(id, PatientsEssai.NOMS[aleatoire.nextInt(PatientsEssai.NOMS.length)],
+                    PatientsEssai.PRENOMS[aleatoire.nextInt(PatientsEssai.PRENOMS.length)], naissance, cin, telephone);
+            if (aleatoire.nextInt(4) == 0) {
+                patient.setEmail(patient.getPrenom().toLowerCase() + aleatoire.nextInt(3) + "@mail.ma");
+            }
+            patients.add(patient);
+        }
+        return patients;
+    }
+
+    private static Patient patient(long id, String nom, String prenom, LocalDate naissance, String cin, String telephone) {
+        Patient patient = PatientsEssai.patient(id, nom, prenom);
+        patient.setDateNaissance(naissance);
+        patient.setCin(cin);
+        patient.setTelephone(telephone);
+        return patient;
+    }
+
+    private static void unir(Map<Long, Long> parents, long a, long b) {
+        long ra = racine(parents, a);
+        long rb = racine(parents, b);
+        if (ra != rb) {
+            parents.put(Math.max(ra, rb), Math.min(ra, rb));
+        }
+    }
+
+    private static long racine(Map<Long, Long> parents, long id) {
+        Long parent = parents.get(id);
+        return parent == null ? id : racine(parents, parent);
+    }
+}
@@ -0,0 +1,129 @@
+package ma.ensa.healthcare.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Complétion comparée au parcours de toutes les clés repliées : une entrée apparaît
+ * à sa plus petite clé qui commence par le texte, et les entrées suivent l'ordre de ces clés.
+ */
+class IndexCompletionTest {
+
+    private static final String[] REQUETES = {"a", "ab", "abc", "zed", "cd1", "ab1000", "x", "qq", "é", "m", "Ben"};
+    private static final int NB_ENTREES = 20_000;
+
+    private final Map<Long, String[]> entrees = new HashMap<>();
+
+    @Test
+    void completionIdentiqueAuParcoursDesCles() {
+        Random aleatoire = new Random(1);
+        String[] mots = mots(aleatoire, 3000);
+        IndexCompletion index = new IndexCompletion(true);
+        for (long id = 1; id <= NB_ENTREES; id++) {
+            String[] valeurs = {mots[aleatoire.nextInt(mots.length)] + " " + mots[aleatoire.nextInt(100)],
+                mots[aleatoire.nextInt(100)] + " x", "AB" + (100_000 + id)};
+            index.indexerSiAbsent(id, valeurs);
+            entrees.put(id, valeurs);
+        }
+        index.terminerChargement();
+        for (String requete : REQUETES) {
+            verifier(index, requete, Integer.MAX_VALUE);
+            verifier(index, requete, 20);
+        }
+
+        // Assez d'écritures pour passer par plusieurs fusions
+        for (int k = 0; k < 8000; k++) {
+            long id = 1 + aleatoire.nextInt(NB_ENTREES + 500);
+            if (aleatoire.nextInt(3) == 0) {
+                index.retirer(id);
+                entrees.remove(id);
+            } else {
+                String[] valeurs = {mots[aleatoire.nextInt(mots.length)] + " y", null, "CD" + id, "Ben" + k % 7};
+                index.indexer(id, valeurs);
+                entrees.put(id, valeurs);
+            }
+            if (k % 1000 == 999) {
+                for (String requete : REQUETES) {
+                    verifier(index, requete, 20);
+                }
+            }
+        }
+        for (String requete : REQUETES) {
+            verifier(index, requete, Integer.MAX_VALUE);
+        }
+    }
+
+    @Test
+    void ecritureDuChargementPrioritaire() {
+        IndexCompletion index = new IndexCompletion(true);
+        index.indexer(1, "Zineb Tazi");
+        assertFalse(index.indexerSiAbsent(1, "Ancien Nom"));
+        index.retirer(2);
+        assertFalse(index.indexerSiAbsent(2, "Supprime"));
+        index.indexerSiAbsent(3, "Zineb Alaoui");
+        index.terminerChargement();
+        assertEquals(List.of(3L, 1L), index.completer("zineb", 10));
+        assertEquals(List.of(), index.completer("ancien", 10));
+        assertEquals(List.of(), index.completer("supprime", 10));
+    }
+
+    private void verifier(IndexCompletion index, String requete, int limite) {
+        Map<Long, String> premieresCles = premieresCles(Normalisation.replier(requete));
+        List<Long> trouves = index.completer(requete, limite);
+        assertEquals(Math.min(limite, premieresCles.size()), trouves.size(), requete);
+        String precedente = "";
+        for (Long id : trouves) {
+            String cle = premieresCles.get(id);
+            assertNotNull(cle, requete + " : entrée " + id + " en trop");
+            assertTrue(cle.compareTo(precedente) >= 0, requete + " : ordre");
+            precedente = cle;
+        }
+        // Les entrées écartées par la limite ne viennent pas avant la dernière proposée
+        for (Map.Entry<Long, String> entree : premieresCles.entrySet()) {
+            if (!trouves.contains(entree.getKey())) {
+                assertTrue(entree.getValue().compareTo(precedente) >= 0, requete + " : entrée " + entree.getKey() + " omise");
+            }
+        }
+    }
+
+    /**
+     * Plus petite clé repliée de chaque entrée qui commence par le préfixe
+     */
+    private Map<Long, String> premieresCles(String prefixe) {
+        Map<Long, String> premieres = new HashMap<>();
+        if (prefixe.isEmpty()) {
+            return premieres;
+        }
+        for (Map.Entry<Long, String[]> entree : entrees.entrySet()) {
+            for (String valeur : entree.getValue()) {
+                String cle = Normalisation.replier(valeur);
+                if (!cle.isEmpty() && cle.startsWith(prefixe)) {
+                    premieres.merge(entree.getKey(), cle, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+                }
+            }
+        }
+        return premieres;
+    }
+
+    private static String[] mots(Random aleatoire, int nombre) {
+        String[] mots = new String[nombre];
+        for (int k = 0; k < nombre; k++) {
+            StringBuilder mot = new StringBuilder();
+            int longueur = 3 + aleatoire.nextInt(5);
+            for (int m = 0; m < longueur; m++) {
+                mot.append((char) ('a' + aleatoire.nextInt(26)));
+            }
+            mots[k] = k % 10 == 0 ? Character.toUpperCase(mot.charAt(0)) + mot.substring(1) : mot.toString();
+        }
+        return mots;
+    }
+}
@@ -0,0 +1,260 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.Consultation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recherche plein texte comparée à la lecture de toutes les notes : mêmes consultations
+ * (termes exigés, expressions, exclusions, OU, filtres de date et de médecin) et,
+ * sans modification, même classement BM25.
+ */
+class IndexConsultationsTest {
+
+    private static final String[] VOCABULAIRE = ("hypertension artérielle diabète diabétique dyslipidémie insuffisance "
+        + "rénale rénal rénaux cardiaque toux fièvre céphalées douleur thoracique abdominale asthme bronchite angine "
+        + "otite gastrite ulcère paracétamol amoxicilline metformine 500mg ibuprofène bilan sanguin radiographie "
+        + "échographie ECG tabac obésité anémie migraine vertiges nausées fatigue chronique aiguë contrôle suivi").split(" ");
+    private static final String[] MOTS_VIDES = {"le", "la", "de", "des", "et", "avec", "une", "l'"};
+    private static final String[] REQUETES = {"hypertension", "diabète dyslipidémie", "\"insuffisance rénale\"",
+        "rénaux cardiaque -tabac", "toux OU fièvre asthme", "\"douleur thoracique\" -\"bilan sanguin\"", "diabétiques",
+        "metformine 500mg", "anti-inflammatoire", "le de", "\"bilan de suivi\" OR migraine -aiguë"};
+    private static final IndexConsultations.Champ[] CHAMPS = IndexConsultations.Champ.values();
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * Termes d'un champ d'une note, à leur position
+     */
+    private record Note(long id, LocalDate date, long medecin, List<List<AnalyseurFrancais.Terme>> champs) {
+    }
+
+    /**
+     * Termes d'une expression (un seul pour un mot) et leur écart au premier
+     */
+    private record Clause(List<String> termes, List<Integer> ecarts) {
+    }
+
+    private record Conjonction(List<Clause> exigees, List<Clause> exclues) {
+    }
+
+    private final Random aleatoire = new Random(42);
+    private final Map<Long, Note> notes = new HashMap<>();
+
+    @Test
+    void classementIdentiqueAuCalculExhaustif() {
+        IndexConsultations index = new IndexConsultations(true);
+        for (long id = 1; id <= 3000; id++) {
+            indexer(index, id, true);
+        }
+        index.terminerChargement();
+        for (String requete : REQUETES) {
+            for (int filtre = 0; filtre < 3; filtre++) {
+                verifier(index, requete, filtre, true);
+            }
+        }
+    }
+
+    @Test
+    void modificationsEtSuppressionsPrisesEnCompte() {
+        IndexConsultations index = new IndexConsultations(true);
+        for (long id = 1; id <= 3000; id++) {
+            indexer(index, id, true);
+        }
+        index.terminerChargement();
+        for (int k = 0; k < 3000; k++) {
+            long id = 1 + aleatoire.nextInt(3000);
+            if (aleatoire.nextBoolean()) {
+                index.retirer(id);
+                notes.remove(id);
+            } else {
+                indexer(index, id, false);
+            }
+        }
+        assertEquals(notes.size(), index.taille());
+        // Les listes gardent les documents supprimés jusqu'au compactage : IDF approché, ensembles exacts
+        for (String requete : REQUETES) {
+            for (int filtre = 0; filtre < 3; filtre++) {
+                verifier(index, requete, filtre, false);
+            }
+        }
+    }
+
+    private void indexer(IndexConsultations index, long id, boolean chargement) {
+        Consultation consultation = Consultation.builder()
+                .id(id)
+                .idRendezVous(id)
+                .dateConsultation(LocalDate.of(2020, 1, 1).plusDays(aleatoire.nextInt(2000)))
+                .symptomes(texte(1 + aleatoire.nextInt(6)))
+                .diagnostic(texte(1 + aleatoire.nextInt(4)))
+                .observations(texte(aleatoire.nextInt(8)))
+                .prescription(texte(aleatoire.nextInt(4)))
+                .examenesDemandes(texte(aleatoire.nextInt(3)))
+                .build();
+        long medecin = 1 + aleatoire.nextInt(20);
+        if (chargement) {
+            index.indexerSiAbsent(consultation, medecin);
+        } else {
+            index.indexer(consultation, medecin);
+        }
+        List<List<AnalyseurFrancais.Terme>> champs = new ArrayList<>();
+        for (String texte : new String[]{consultation.getSymptomes(), consultation.getDiagnostic(),
+                consultation.getObservations(), consultation.getPrescription(), consultation.getExamenesDemandes()}) {
+            champs.add(AnalyseurFrancais.termes(texte));
+        }
+        notes.put(id, new Note(id, consultation.getDateConsultation(), medecin, champs));
+    }
+
+    private String texte(int nbMots) {
+        StringBuilder texte = new StringBuilder();
+        for (int i = 0; i < nbMots; i++) {
+            if (aleatoire.nextInt(4) == 0) {
+                texte.append(MOTS_VIDES[aleatoire.nextInt(MOTS_VIDES.length)]).append(' ');
+            }
+            texte.append(VOCABULAIRE[aleatoire.nextInt(VOCABULAIRE.length)]).append(' ');
+        }
+        return texte.toString();
+    }
+
+    private void verifier(IndexConsultations index, String requete, int filtre, boolean classement) {
+        LocalDate debut = filtre == 1 ? LocalDate.of(2022, 1, 1) : null;
+        LocalDate fin = filtre == 1 ? LocalDate.of(2022, 12, 31) : null;
+        Long medecin = filtre == 2 ? 7L : null;
+        String cas = requete + " (filtre " + filtre + ")";
+
+        Map<Long, Double> attendus = scores(requete, debut, fin, medecin);
+        List<Long> trouves = index.rechercher(requete, debut, fin, medecin, Integer.MAX_VALUE);
+        assertEquals(attendus.keySet(), new HashSet<>(trouves), cas);
+        assertEquals(attendus.size(), trouves.size(), cas + " : doublons");
+        if (!classement) {
+            return;
+        }
+        for (int i = 1; i < trouves.size(); i++) {
+            assertTrue(attendus.get(trouves.get(i)) <= attendus.get(trouves.get(i - 1)) + 1e-9, cas + " : ordre");
+        }
+        List<Long> premiers = index.rechercher(requete, debut, fin, medecin, 10);
+        assertEquals(trouves.subList(0, Math.min(10, trouves.size())), premiers, cas + " : limite");
+    }
+
+    // Calcul exhaustif
+
+    private Map<Long, Double> scores(String requete, LocalDate debut, LocalDate fin, Long medecin) {
+        int vivants = notes.size();
+        double longueurMoyenne = 0;
+        Map<String, Integer> df = new HashMap<>();
+        for (Note note : notes.values()) {
+            longueurMoyenne += longueur(note);
+            Set<String> termes = new HashSet<>();
+            for (List<AnalyseurFrancais.Terme> champ : note.champs()) {
+                for (AnalyseurFrancais.Terme terme : champ) {
+                    termes.add(terme.getTexte());
+                }
+            }
+            termes.forEach(terme -> df.merge(terme, 1, Integer::sum));
+        }
+        longueurMoyenne = Math.max(1.0, longueurMoyenne / vivants);
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Conjonction conjonction : analyser(requete)) {
+            for (Note note : notes.values()) {
+                if ((debut != null && note.date().isBefore(debut)) || (fin != null && note.date().isAfter(fin))
+                        || (medecin != null && medecin != note.medecin())) {
+                    continue;
+                }
+                double normalisation = K1 * (1 - B + B * longueur(note) / longueurMoyenne);
+                double score = 0;
+                for (Clause clause : conjonction.exigees()) {
+                    int frequence = frequence(note, clause);
+                    if (frequence == 0) {
+                        score = 0;
+                        break;
+                    }
+                    double idf = 0;
+                    for (String terme : clause.termes()) {
+                        int d = df.get(terme);
+                        idf += Math.log(1 + (vivants - d + 0.5) / (d + 0.5));
+                    }
+                    score += idf * frequence * (K1 + 1) / (frequence + normalisation);
+                }
+                boolean exclue = false;
+                for (Clause clause : conjonction.exclues()) {
+                    exclue |= frequence(note, clause) > 0;
+                }
+                if (score > 0 && !exclue) {
+                    scores.merge(note.id(), score, Double::sum);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static int longueur(Note note) {
+        int longueur = 0;
+        for (int c = 0; c < CHAMPS.length; c++) {
+            longueur += note.champs().get(c).size() * CHAMPS[c].getPoids();
+        }
+        return longueur;
+    }
+
+    /**
+     * Occurrences de l'expression dans la note, chacune au poids de son champ
+     */
+    private static int frequence(Note note, Clause clause) {
+        int frequence = 0;
+        for (int c = 0; c < CHAMPS.length; c++) {
+            Map<Integer, String> parPosition = new HashMap<>();
+            for (AnalyseurFrancais.Terme terme : note.champs().get(c)) {
+                parPosition.put(terme.getPosition(), terme.getTexte());
+            }
+            for (AnalyseurFrancais.Terme terme : note.champs().get(c)) {
+                boolean trouvee = true;
+                for (int i = 0; i < clause.termes().size() && trouvee; i++) {
+                    trouvee = clause.termes().get(i).equals(parPosition.get(terme.getPosition() + clause.ecarts().get(i)));
+                }
+                frequence += trouvee ? CHAMPS[c].getPoids() : 0;
+            }
+        }
+        return frequence;
+    }
+
+    /**
+     * Alternatives séparées par OU (ou OR), clauses "entre guillemets" ou mots, exclues si précédées de '-'
+     */
+    private static List<Conjonction> analyser(String requete) {
+        List<Conjonction> alternatives = new ArrayList<>();
+        for (String alternative : requete.split(" (OU|OR) ")) {
+            Conjonction conjonction = new Conjonction(new ArrayList<>(), new ArrayList<>());
+            Matcher morceau = Pattern.compile("(-?)(\"[^\"]*\"|\\S+)").matcher(alternative);
+            while (morceau.find()) {
+                List<AnalyseurFrancais.Terme> termes = AnalyseurFrancais.termes(morceau.group(2).replace("\"", ""));
+                if (termes.isEmpty()) {
+                    continue;
+                }
+                List<String> textes = new ArrayList<>();
+                List<Integer> ecarts = new ArrayList<>();
+                for (AnalyseurFrancais.Terme terme : termes) {
+                    textes.add(terme.getTexte());
+                    ecarts.add(terme.getPosition() - termes.get(0).getPosition());
+                }
+                (morceau.group(1).isEmpty() ? conjonction.exigees() : conjonction.exclues()).add(new Clause(textes, ecarts));
+            }
+            if (!conjonction.exigees().isEmpty()) {
+                alternatives.add(conjonction);
+            }
+        }
+        return alternatives;
+    }
+}
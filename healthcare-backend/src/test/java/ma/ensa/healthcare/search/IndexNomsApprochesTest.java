@@ -0,0 +1,220 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recherche approchée comparée à un calcul exhaustif des similarités de tous les patients,
+ * et clés phonétiques des graphies courantes.
+ */
+class IndexNomsApprochesTest {
+
+    private static final String[] REQUETES = {"mohamed", "muhamad", "el amrani", "elamrani mohamed", "wazani walid",
+        "youssef tazi", "aisha", "zineb berada", "qwxyz", "benali fatima", "chraïbi"};
+    private static final double SCORE_MINIMUM = 0.75;
+
+    private final Map<Long, Patient> patients = new HashMap<>();
+
+    @Test
+    void graphiesVoisinesMemeCle() {
+        String[][] groupes = {
+            {"Mohamed", "Mohammed", "Muhammad", "Mhamed"},
+            {"Youssef", "Youcef", "Yusuf", "Yousef"},
+            {"Aicha", "Aïcha", "Aisha"},
+            {"Oualid", "Walid"},
+            {"Khadija", "Khadidja"},
+            {"Abdelkader", "Abdelkhader", "Abdelqader"},
+            {"Hicham", "Hisham"},
+            {"El Amrani", "Elamrani"},
+            {"Chraibi", "Chraïbi", "Shraibi"}
+        };
+        for (String[] groupe : groupes) {
+            String cle = cle(groupe[0]);
+            for (String graphie : groupe) {
+                assertEquals(cle, cle(graphie), graphie);
+            }
+        }
+    }
+
+    @Test
+    void graphiesCourantesTrouveesNomsDifferentsEcartes() {
+        IndexNomsApproches index = new IndexNomsApproches(false);
+        index.indexer(PatientsEssai.patient(1, "Tazi", "Muhammad"));
+        index.indexer(PatientsEssai.patient(2, "El Amrani", "Salma"));
+        index.indexer(PatientsEssai.patient(3, "Elamrani", "Omar"));
+        index.indexer(PatientsEssai.patient(4, "Alaoui", "Zineb"));
+
+        assertEquals(List.of(1L), ids(index.rechercher("Mohamed", 10, SCORE_MINIMUM)));
+        assertEquals(List.of(1L), ids(index.rechercher("Mohamed Tazi", 10, SCORE_MINIMUM)));
+        assertEquals(Set.of(2L, 3L), Set.copyOf(ids(index.rechercher("Elamrani", 10, SCORE_MINIMUM))));
+        assertEquals(Set.of(2L, 3L), Set.copyOf(ids(index.rechercher("El Amrani", 10, SCORE_MINIMUM))));
+        assertEquals(List.of(), ids(index.rechercher("Benali", 10, SCORE_MINIMUM)));
+        assertEquals(Long.valueOf(4), ids(index.rechercher("Alaoui", 10, SCORE_MINIMUM)).get(0));
+    }
+
+    @Test
+    void rechercheIdentiqueAuCalculExhaustif() {
+        IndexNomsApproches index = remplir(new Random(3), 4000);
+        for (String requete : REQUETES) {
+            verifier(index, requete);
+        }
+    }
+
+    @Test
+    void modificationsEtSuppressionsPrisesEnCompte() {
+        Random aleatoire = new Random(4);
+        IndexNomsApproches index = remplir(aleatoire, 4000);
+        for (long id = 1; id <= 4000; id += 3) {
+            index.retirer(id);
+            patients.remove(id);
+        }
+        for (long id = 2; id <= 4000; id += 5) {
+            if (patients.containsKey(id)) {
+                Patient patient = PatientsEssai.aleatoire(id, aleatoire);
+                index.indexer(patient);
+                patients.put(id, patient);
+            }
+        }
+        for (String requete : REQUETES) {
+            verifier(index, requete);
+        }
+    }
+
+    @Test
+    void limiteGardeLesMeilleursScores() {
+        IndexNomsApproches index = remplir(new Random(5), 4000);
+        for (String requete : REQUETES) {
+            Map<Long, Double> attendus = rechercheExhaustive(requete);
+            List<IndexNomsApproches.Correspondance> trouves = index.rechercher(requete, 10, SCORE_MINIMUM);
+            assertEquals(Math.min(10, attendus.size()), trouves.size(), requete);
+            if (!trouves.isEmpty()) {
+                double pire = trouves.get(trouves.size() - 1).getScore();
+                long meilleursOmis = attendus.values().stream().filter(score -> score > pire + 1e-9).count();
+                assertTrue(meilleursOmis < 10, requete);
+                for (IndexNomsApproches.Correspondance c : trouves) {
+                    assertTrue(c.getScore() + 1e-9 >= pire, requete);
+                }
+            }
+        }
+    }
+
+    private IndexNomsApproches remplir(Random aleatoire, int nombre) {
+        IndexNomsApproches index = new IndexNomsApproches(false);
+        for (long id = 1; id <= nombre; id++) {
+            Patient patient = PatientsEssai.aleatoire(id, aleatoire);
+            index.indexer(patient);
+            patients.put(id, patient);
+        }
+        return index;
+    }
+
+    private void verifier(IndexNomsApproches index, String requete) {
+        Map<Long, Double> attendus = rechercheExhaustive(requete);
+        List<IndexNomsApproches.Correspondance> trouves = index.rechercher(requete, Integer.MAX_VALUE, SCORE_MINIMUM);
+        assertEquals(attendus.size(), trouves.size(), requete);
+        for (int i = 0; i < trouves.size(); i++) {
+            IndexNomsApproches.Correspondance c = trouves.get(i);
+            Double attendu = attendus.get(c.getIdPatient());
+            assertNotNull(attendu, requete + " : patient " + c.getIdPatient() + " en trop");
+            assertEquals(attendu, c.getScore(), 1e-9, requete);
+            if (i > 0) {
+                assertTrue(c.getScore() <= trouves.get(i - 1).getScore(), requete + " : ordre");
+            }
+        }
+    }
+
+    /**
+     * Meilleur score de chaque patient, mots séparés ou accolés, en comparant chaque mot à tous ses termes
+     */
+    private Map<Long, Double> rechercheExhaustive(String requete) {
+        List<String> mots = new ArrayList<>();
+        for (String mot : Normalisation.mots(requete)) {
+            if (mot.length() >= 2) {
+                mots.add(mot);
+            }
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        if (mots.isEmpty()) {
+            return scores;
+        }
+        for (Patient patient : patients.values()) {
+            Set<String> termes = termes(patient);
+            double score = score(mots, termes);
+            if (mots.size() > 1) {
+                score = Math.max(score, score(List.of(String.join("", mots)), termes));
+            }
+            if (score >= SCORE_MINIMUM) {
+                scores.put(patient.getId(), score);
+            }
+        }
+        return scores;
+    }
+
+    private static double score(List<String> mots, Set<String> termes) {
+        double somme = 0;
+        for (String mot : mots) {
+            double meilleure = 0;
+            for (String terme : termes) {
+                meilleure = Math.max(meilleure, similarite(mot, terme));
+            }
+            if (meilleure == 0) {
+                return 0;
+            }
+            somme += meilleure;
+        }
+        return somme / mots.size();
+    }
+
+    private static double similarite(String mot, String terme) {
+        int distance = Levenshtein.distance(mot, terme);
+        if (distance == 0) {
+            return 1.0;
+        }
+        double similarite = 0;
+        if (CodePhonetique.cle(mot).equals(CodePhonetique.cle(terme))) {
+            similarite = Math.max(0.75, 0.9 - 0.02 * distance);
+        }
+        int distanceMax = mot.length() >= 8 ? 2 : mot.length() >= 4 ? 1 : 0;
+        if (distance <= distanceMax) {
+            similarite = Math.max(similarite, 1.0 - (double) distance / (mot.length() + 1));
+        }
+        return similarite;
+    }
+
+    private static Set<String> termes(Patient patient) {
+        Set<String> termes = new LinkedHashSet<>();
+        for (String champ : new String[]{patient.getNom(), patient.getPrenom()}) {
+            String[] mots = Normalisation.mots(champ);
+            termes.addAll(Arrays.asList(mots));
+            if (mots.length > 1) {
+                termes.add(String.join("", mots));
+            }
+        }
+        return termes;
+    }
+
+    private static List<Long> ids(List<IndexNomsApproches.Correspondance> correspondances) {
+        List<Long> ids = new ArrayList<>();
+        for (IndexNomsApproches.Correspondance c : correspondances) {
+            ids.add(c.getIdPatient());
+        }
+        return ids;
+    }
+
+    private static String cle(String nom) {
+        return CodePhonetique.cle(Normalisation.replier(nom).replace(" ", ""));
+    }
+}
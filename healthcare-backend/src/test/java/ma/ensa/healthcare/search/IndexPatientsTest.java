@@ -0,0 +1,154 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comparaison de l'index trigrammes avec une recherche exhaustive sur les mêmes patients :
+ * mêmes patients trouvés, et classés par score décroissant.
+ */
+class IndexPatientsTest {
+
+    private static final String[] REQUETES = {"el", "elo", "ben", "benali el", "ma", "mo fa", "ali",
+        "ouazz moh", "0612", "a12", "el ma ben", "ÉLODIE", "zineb tazi", "xyzq"};
+    private static final int NB_PATIENTS = 5000;
+
+    private final Map<Long, Patient> patients = new HashMap<>();
+
+    @Test
+    void rechercheIdentiqueALaRechercheExhaustive() {
+        IndexPatients index = remplir(new IndexPatients(false), new Random(2));
+        for (String requete : REQUETES) {
+            verifier(index, requete);
+        }
+    }
+
+    @Test
+    void modificationsEtSuppressionsPrisesEnCompte() {
+        Random aleatoire = new Random(3);
+        IndexPatients index = remplir(new IndexPatients(false), aleatoire);
+        for (long id = 1; id <= NB_PATIENTS; id += 7) {
+            index.retirer(id);
+            patients.remove(id);
+        }
+        for (long id = 2; id <= NB_PATIENTS; id += 5) {
+            if (patients.containsKey(id)) {
+                Patient patient = PatientsEssai.aleatoire(id, aleatoire);
+                index.indexer(patient);
+                patients.put(id, patient);
+            }
+        }
+        assertEquals(patients.size(), index.taille());
+        for (String requete : REQUETES) {
+            verifier(index, requete);
+        }
+    }
+
+    @Test
+    void limiteGardeLesMeilleursScores() {
+        IndexPatients index = remplir(new IndexPatients(false), new Random(4));
+        for (String requete : REQUETES) {
+            Map<Long, Integer> attendus = rechercheExhaustive(requete);
+            List<Long> trouves = index.rechercher(requete, 20);
+            assertEquals(Math.min(20, attendus.size()), trouves.size(), requete);
+            int pire = trouves.isEmpty() ? 0 : attendus.get(trouves.get(trouves.size() - 1));
+            for (Map.Entry<Long, Integer> attendu : attendus.entrySet()) {
+                if (!trouves.contains(attendu.getKey())) {
+                    assertTrue(attendu.getValue() <= pire, requete + " : patient " + attendu.getKey() + " omis");
+                }
+            }
+        }
+    }
+
+    @Test
+    void chargementNeReindexePasUnPatientSupprime() {
+        IndexPatients index = new IndexPatients(true);
+        Patient patient = PatientsEssai.aleatoire(1, new Random(5));
+        index.retirer(1L);
+        index.indexerSiAbsent(patient);
+        index.terminerChargement();
+        assertEquals(0, index.taille());
+        assertFalse(index.rechercher(patient.getCin(), 10).contains(1L));
+    }
+
+    private IndexPatients remplir(IndexPatients index, Random aleatoire) {
+        for (long id = 1; id <= NB_PATIENTS; id++) {
+            Patient patient = PatientsEssai.aleatoire(id, aleatoire);
+            index.indexer(patient);
+            patients.put(id, patient);
+        }
+        return index;
+    }
+
+    private void verifier(IndexPatients index, String requete) {
+        Map<Long, Integer> attendus = rechercheExhaustive(requete);
+        List<Long> trouves = index.rechercher(requete, Integer.MAX_VALUE);
+        assertEquals(attendus.keySet(), new HashSet<>(trouves), requete);
+        assertEquals(attendus.size(), trouves.size(), requete + " : doublons");
+        for (int i = 1; i < trouves.size(); i++) {
+            assertTrue(attendus.get(trouves.get(i)) <= attendus.get(trouves.get(i - 1)), requete + " : ordre");
+        }
+    }
+
+    /**
+     * Score de chaque patient trouvé, calculé champ par champ sur le texte replié
+     */
+    private Map<Long, Integer> rechercheExhaustive(String requete) {
+        List<String> mots = new ArrayList<>();
+        for (String mot : Normalisation.mots(requete)) {
+            if (mot.length() >= 2) {
+                mots.add(mot);
+            }
+        }
+        Map<Long, Integer> scores = new HashMap<>();
+        if (mots.isEmpty()) {
+            return scores;
+        }
+        for (Patient patient : patients.values()) {
+            String[] champs = new String(IndexPatients.texte(patient), StandardCharsets.US_ASCII)
+                    .split("\\|", -1);
+            int score = 0;
+            for (String mot : mots) {
+                int meilleur = meilleurChamp(champs, mot);
+                if (meilleur < 0) {
+                    score = -1;
+                    break;
+                }
+                score += meilleur;
+            }
+            if (score >= 0) {
+                scores.put(patient.getId(), score);
+            }
+        }
+        return scores;
+    }
+
+    private static int meilleurChamp(String[] champs, String mot) {
+        int meilleur = -1;
+        for (IndexPatients.Champ champ : IndexPatients.Champ.values()) {
+            String texte = " " + champs[champ.ordinal()];
+            if (!texte.contains(mot)) {
+                continue;
+            }
+            boolean debutMot = texte.contains(" " + mot);
+            // Un mot de deux lettres ne cherche que les débuts de mot
+            if (mot.length() == 2 && !debutMot) {
+                continue;
+            }
+            meilleur = Math.max(meilleur, champ.getPoids() + (debutMot ? 4 : 0));
+        }
+        return meilleur;
+    }
+}
@@ -0,0 +1,40 @@
+package ma.ensa.healthcare.search;
+
+import ma.ensa.healthcare.model.Patient;
+
+import java.util.Random;
+
+/**
+ * Patients d'essai des tests de recherche : noms courants, leurs autres graphies et
+ * quelques fautes de frappe, pour que les index aient des voisins à trouver.
+ */
+final class PatientsEssai {
+
+    static final String[] NOMS = {"Alaoui", "Alaoiu", "Benali", "Bennali", "El Amrani", "Elamrani", "Idrissi",
+        "Tazi", "Tazzi", "Fassi", "Berrada", "Chraibi", "Shraibi", "Bennani", "Ouazzani", "Wazzani", "Lahlou",
+        "Sefrioui", "Elmo"};
+    static final String[] PRENOMS = {"Mohamed", "Mohammed", "Muhammad", "Fatima", "Fatema", "Youssef", "Youcef",
+        "Khadija", "Élodie", "Hamza", "Salma", "Omar", "Imane", "Mehdi", "Zineb", "Rachid", "Aicha", "Aisha",
+        "Walid", "Oualid", "Benali"};
+
+    private PatientsEssai() {}
+
+    static Patient patient(long id, String nom, String prenom) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setNom(nom);
+        patient.setPrenom(prenom);
+        return patient;
+    }
+
+    /**
+     * Patient au nom et prénom tirés des listes, avec CIN, téléphone et email
+     */
+    static Patient aleatoire(long id, Random aleatoire) {
+        Patient patient = patient(id, NOMS[aleatoire.nextInt(NOMS.length)], PRENOMS[aleatoire.nextInt(PRENOMS.length)]);
+        patient.setCin(String.format("%c%06d", (char) ('A' + aleatoire.nextInt(26)), aleatoire.nextInt(1_000_000)));
+        patient.setTelephone("+2126" + (10_000_000 + aleatoire.nextInt(89_999_999)));
+        patient.setEmail(patient.getPrenom() + id + "@el.ma");
+        return patient;
+    }
+}
@@ -0,0 +1,97 @@
+package ma.ensa.healthcare.util;
+
+import ma.ensa.healthcare.dto.BilanExportPdf;
+import ma.ensa.healthcare.model.Facture;
+import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.model.enums.StatutPaiement;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Débit du rendu des factures en lot (PDF/s) : le même lot rendu sur un thread puis
+ * sur tous les processeurs, après un lot de chauffe. Les deux débits sont affichés ;
+ * chaque archive contient une entrée par facture.
+ */
+class PdfExportServiceDebitTest {
+
+    private static final int NB_FACTURES = 400;
+    private static final int NB_PATIENTS = 50;
+
+    @Test
+    void debitSurUnThreadEtSurTousLesProcesseurs() throws IOException {
+        List<Facture> factures = factures();
+        Map<Long, Patient> patients = patients();
+        Path dossier = Files.createTempDirectory("pdf-debit");
+        int processeurs = Runtime.getRuntime().availableProcessors();
+
+        exporter(factures, patients, dossier.resolve("chauffe.zip"), processeurs);
+        BilanExportPdf unThread = exporter(factures, patients, dossier.resolve("un-thread.zip"), 1);
+        BilanExportPdf tousThreads = exporter(factures, patients, dossier.resolve("tous-threads.zip"), processeurs);
+
+        System.out.printf("Rendu PDF en lot (%d factures) : %.1f PDF/s sur 1 thread, %.1f PDF/s sur %d threads%n",
+                NB_FACTURES, unThread.getDocumentsParSeconde(), tousThreads.getDocumentsParSeconde(), processeurs);
+        assertTrue(tousThreads.getDocumentsParSeconde() > 0);
+    }
+
+    private static BilanExportPdf exporter(List<Facture> factures, Map<Long, Patient> patients,
+                                           Path zip, int threads) throws IOException {
+        BilanExportPdf bilan = PdfExportService.rendreFacturesZip(
+                factures, patients, zip.toString(), threads, System.currentTimeMillis());
+        assertEquals(List.of(), bilan.getErreurs());
+        assertEquals(NB_FACTURES, bilan.getDocumentsGeneres());
+        try (ZipFile archive = new ZipFile(zip.toFile())) {
+            assertEquals(NB_FACTURES, archive.size());
+        }
+        return bilan;
+    }
+
+    private static List<Facture> factures() {
+        List<Facture> factures = new ArrayList<>(NB_FACTURES);
+        for (long id = 1; id <= NB_FACTURES; id++) {
+            BigDecimal consultation = BigDecimal.valueOf(150 + id % 5 * 50);
+            BigDecimal medicaments = BigDecimal.valueOf(id % 7 * 35);
+            BigDecimal total = consultation.add(medicaments);
+            factures.add(Facture.builder()
+                    .id(id)
+                    .numeroFacture(String.format("FAC-2025-%04d", id))
+                    .idPatient(1 + id % NB_PATIENTS)
+                    .idConsultation(id)
+                    .dateFacture(LocalDate.of(2025, 1, 1).plusDays(id % 31))
+                    .montantConsultation(consultation)
+                    .montantMedicaments(medicaments)
+                    .montantTotal(total)
+                    .montantPaye(id % 3 == 0 ? total : BigDecimal.ZERO)
+                    .statutPaiement(id % 3 == 0 ? StatutPaiement.PAYE : StatutPaiement.EN_ATTENTE)
+                    .build());
+        }
+        return factures;
+    }
+
+    private static Map<Long, Patient> patients() {
+        Map<Long, Patient> patients = new HashMap<>();
+        for (long id = 1; id <= NB_PATIENTS; id++) {
+            patients.put(id, Patient.builder()
+                    .id(id)
+                    .cin("AB" + (100_000 + id))
+                    .nom("Nom" + id)
+                    .prenom("Prenom" + id)
+                    .telephone("06000000" + (10 + id))
+                    .ville("Rabat")
+                    .build());
+        }
+        return patients;
+    }
+}
@@ -7,6 +7,10 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import ma.ensa.healthcare.config.HikariCPConfig;
+import ma.ensa.healthcare.dao.impl.RequetesFrequentes;
+import ma.ensa.healthcare.service.JournalPaiements;
+import ma.ensa.healthcare.service.PlanificateurRapports;
+import ma.ensa.healthcare.util.RapportJasperService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,6 +27,12 @@ public class MainApp extends Application {
         try {
             primaryStage = stage;
 
+            // Démarrage du pool en arrière-plan pendant l'affichage de l'écran de connexion
+            RequetesFrequentes.enregistrer();
+            HikariCPConfig.demarrerAsync();
+            RapportJasperService.precompilerAsync();
+            PlanificateurRapports.demarrer();
+
             // Charger l'icône (PNG, ICO, JPG…)
             Image icon = new Image(getClass().getResourceAsStream("/images/icon.png"));
 
@@ -103,8 +113,10 @@ public class MainApp extends Application {
     public void stop() {
         // Fermeture propre du pool de connexions
         logger.info("Fermeture de l'application...");
-        HikariCPConfig.getDataSource().close();
-        logger.info("Pool de connexions fermé");
+        PlanificateurRapports.arreter();
+        JournalPaiements.arreter();
+        HikariCPConfig.shutdown();
+        logger.info("Pools de connexions fermés");
     }
 
     public static void main(String[] args) {
@@ -8,16 +8,15 @@ import ma.ensa.healthcare.model.Medecin;
 import ma.ensa.healthcare.model.Patient;
 import ma.ensa.healthcare.model.Utilisateur;
 import ma.ensa.healthcare.model.enums.Role;
-import ma.ensa.healthcare.service.MedecinService;
-import ma.ensa.healthcare.service.PatientService;
+import ma.ensa.healthcare.service.AutocompletionService;
 import ma.ensa.healthcare.service.UtilisateurService;
 import ma.ensa.healthcare.ui.MainApp;
+import ma.ensa.healthcare.ui.utils.AutocompletionUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
-import java.util.List;
 
 /**
  * Controller pour le dialog d'ajout d'utilisateur
@@ -39,8 +38,7 @@ public class AddUserDialogController {
     @FXML private RadioButton rbInactif;
 
     private final UtilisateurService utilisateurService = new UtilisateurService();
-    private final PatientService patientService = new PatientService();
-    private final MedecinService medecinService = new MedecinService();
+    private final AutocompletionService autocompletion = new AutocompletionService();
 
     private boolean created = false;
 
@@ -56,37 +54,12 @@ public class AddUserDialogController {
             handleRoleChange(newVal);
         });
         
-        // Charger les patients et médecins
-        loadPatients();
-        loadMedecins();
-        
-        // Formatter pour afficher les patients
-        cmbPatient.setConverter(new javafx.util.StringConverter<Patient>() {
-            @Override
-            public String toString(Patient patient) {
-                if (patient == null) return "";
-                return patient.getNom() + " " + patient.getPrenom() + " (CIN: " + patient.getCin() + ")";
-            }
-
-            @Override
-            public Patient fromString(String string) {
-                return null;
-            }
-        });
-        
-        // Formatter pour afficher les médecins
-        cmbMedecin.setConverter(new javafx.util.StringConverter<Medecin>() {
-            @Override
-            public String toString(Medecin medecin) {
-                if (medecin == null) return "";
-                return "Dr. " + medecin.getNom() + " " + medecin.getPrenom() + " (" + medecin.getSpecialite() + ")";
-            }
-
-            @Override
-            public Medecin fromString(String string) {
-                return null;
-            }
-        });
+        // Patients et médecins proposés à la saisie (nom, prénom, CIN ou numéro d'ordre)
+        autocompletion.charger();
+        AutocompletionUtils.activer(cmbPatient, autocompletion::completerPatients,
+                patient -> patient.getNom() + " " + patient.getPrenom() + " (CIN: " + patient.getCin() + ")");
+        AutocompletionUtils.activer(cmbMedecin, autocompletion::completerMedecins,
+                medecin -> "Dr. " + medecin.getNom() + " " + medecin.getPrenom() + " (" + medecin.getSpecialite() + ")");
     }
 
     private void handleRoleChange(String role) {
@@ -131,28 +104,6 @@ public class AddUserDialogController {
         }
     }
 
-    private void loadPatients() {
-        try {
-            List<Patient> patients = patientService.getAllPatients();
-            cmbPatient.getItems().setAll(patients);
-            logger.debug("{} patients chargés", patients.size());
-        } catch (Exception e) {
-            logger.error("Erreur lors du chargement des patients", e);
-            showError("Erreur", "Impossible de charger la liste des patients");
-        }
-    }
-
-    private void loadMedecins() {
-        try {
-            List<Medecin> medecins = medecinService.getAllMedecins();
-            cmbMedecin.getItems().setAll(medecins);
-            logger.debug("{} médecins chargés", medecins.size());
-        } catch (Exception e) {
-            logger.error("Erreur lors du chargement des médecins", e);
-            showError("Erreur", "Impossible de charger la liste des médecins");
-        }
-    }
-
     @FXML
     private void handleCreate() {
         try {
@@ -2,6 +2,7 @@ package ma.ensa.healthcare.ui.controllers;
 
 import javafx.animation.Interpolator;
 import javafx.animation.ScaleTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -11,6 +12,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.util.Duration;
+import ma.ensa.healthcare.dto.FiltreConsultations;
 import ma.ensa.healthcare.model.Consultation;
 import ma.ensa.healthcare.model.Medecin;
 import ma.ensa.healthcare.model.Patient;
@@ -19,19 +21,26 @@ import ma.ensa.healthcare.service.*;
 import ma.ensa.healthcare.ui.dialogs.ConsultationDetailsDialog;
 import ma.ensa.healthcare.ui.dialogs.ConsultationDialog;
 import ma.ensa.healthcare.ui.dialogs.PatientDialog;
+import ma.ensa.healthcare.ui.utils.TableauUtils;
+import ma.ensa.healthcare.util.ColonnesTableaux;
+import ma.ensa.healthcare.util.RapportJasperService;
+import ma.ensa.healthcare.util.ReferencesTableau;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Desktop;
+import java.io.File;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import ma.ensa.healthcare.ui.utils.PermissionManager;
 import java.util.stream.Collectors;
 
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 public class ConsultationsController {
@@ -60,14 +69,17 @@ public class ConsultationsController {
     @FXML private Label lblTotal;
     @FXML private HBox hboxStats;
     @FXML private Button btnAddConsultation;
+    @FXML private Button btnExportTableau;
 
     private final ConsultationService consultationService = new ConsultationService();
     private final MedecinService medecinService = new MedecinService();
     private final PatientService patientService = new PatientService();
     private final RendezVousService rendezVousService = new RendezVousService();
+    private final ExportTableauService exportTableauService = new ExportTableauService();
+    private ReferencesTableau references = ReferencesTableau.AUCUNE;
+    // Critères de la liste affichée, repris par l'export
+    private FiltreConsultations filtreAffiche = FiltreConsultations.TOUTES;
     private ObservableList<Consultation> consultationsList = FXCollections.observableArrayList();
-    
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     @FXML
     public void initialize() {
@@ -76,6 +88,8 @@ public class ConsultationsController {
         setupTableColumns();
         loadConsultations();
         updateStatistics();
+        // Index de la recherche dans les notes, chargé en arrière-plan
+        consultationService.preparerRechercheNotes();
 
         // Parcourir tous les enfants du VBox
         for (Node node : hboxStats.getChildren()) {
@@ -129,56 +143,14 @@ public class ConsultationsController {
     private void setupTableColumns() {
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         
-        colDate.setCellValueFactory(cellData -> {
-            LocalDate date = cellData.getValue().getDateConsultation();
-            String formatted = date != null ? date.format(DATE_FORMATTER) : "N/A";
-            return new javafx.beans.property.SimpleStringProperty(formatted);
-        });
-        
-        colPatient.setCellValueFactory(cellData -> {
-            Consultation c = cellData.getValue();
-            if (rendezVousService.getRendezVousById(c.getIdRendezVous()) != null && rendezVousService.getRendezVousById(c.getIdRendezVous()).getIdPatient() != null) {
-                return new javafx.beans.property.SimpleStringProperty(
-                    patientService.getPatientById(rendezVousService.getRendezVousById(c.getIdRendezVous()).getIdPatient()).getNom() + " " + 
-                    patientService.getPatientById(rendezVousService.getRendezVousById(c.getIdRendezVous()).getIdPatient()).getPrenom());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colCin.setCellValueFactory(cellData -> {
-            Consultation c = cellData.getValue();
-            if (rendezVousService.getRendezVousById(c.getIdRendezVous()) != null && rendezVousService.getRendezVousById(c.getIdRendezVous()).getIdPatient() != null) {
-                return new javafx.beans.property.SimpleStringProperty(
-                    patientService.getPatientById(rendezVousService.getRendezVousById(c.getIdRendezVous()).getIdPatient()).getCin());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colMedecin.setCellValueFactory(cellData -> {
-            Consultation c = cellData.getValue();
-            if (rendezVousService.getRendezVousById(c.getIdRendezVous()) != null && rendezVousService.getRendezVousById(c.getIdRendezVous()).getMedecin() != null) {
-                return new javafx.beans.property.SimpleStringProperty(
-                    "Dr. " + rendezVousService.getRendezVousById(c.getIdRendezVous()).getMedecin().getNom());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colSpecialite.setCellValueFactory(cellData -> {
-            Consultation c = cellData.getValue();
-            if (rendezVousService.getRendezVousById(c.getIdRendezVous()) != null && rendezVousService.getRendezVousById(c.getIdRendezVous()).getMedecin() != null) {
-                return new javafx.beans.property.SimpleStringProperty(
-                    rendezVousService.getRendezVousById(c.getIdRendezVous()).getMedecin().getSpecialite());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colDiagnostic.setCellValueFactory(new PropertyValueFactory<>("diagnostic"));
-        
-        colTarif.setCellValueFactory(cellData -> {
-            BigDecimal tarif = cellData.getValue().getTarifConsultation();
-            String formatted = tarif != null ? tarif + " MAD" : "N/A";
-            return new javafx.beans.property.SimpleStringProperty(formatted);
-        });
+        // Mêmes colonnes que l'export CSV/XLSX ; rendez-vous et patients chargés en bloc avec la liste
+        TableauUtils.lier(colDate, ColonnesTableaux.CONSULTATION_DATE, () -> references);
+        TableauUtils.lier(colPatient, ColonnesTableaux.CONSULTATION_PATIENT, () -> references);
+        TableauUtils.lier(colCin, ColonnesTableaux.CONSULTATION_CIN, () -> references);
+        TableauUtils.lier(colMedecin, ColonnesTableaux.CONSULTATION_MEDECIN, () -> references);
+        TableauUtils.lier(colSpecialite, ColonnesTableaux.CONSULTATION_SPECIALITE, () -> references);
+        TableauUtils.lier(colDiagnostic, ColonnesTableaux.CONSULTATION_DIAGNOSTIC, () -> references);
+        TableauUtils.lier(colTarif, ColonnesTableaux.CONSULTATION_TARIF, () -> references);
 
         setupActionsColumn();
     }
@@ -242,9 +214,11 @@ public class ConsultationsController {
                 }
             }
             
+            references = exportTableauService.referencesConsultations(consultations);
             consultationsList.setAll(consultations);
             tableConsultations.setItems(consultationsList);
             lblTotal.setText(String.valueOf(consultations.size()));
+            filtreAffiche = FiltreConsultations.TOUTES;
             
             logger.info("Chargement de {} consultations", consultations.size());
             
@@ -296,6 +270,7 @@ public class ConsultationsController {
 
         try {
             List<Consultation> all = consultationService.listerToutesConsultations();
+            references = exportTableauService.referencesConsultations(all);
             
             List<Consultation> filtered = all.stream()
                 .filter(c -> {
@@ -321,6 +296,7 @@ public class ConsultationsController {
 
             consultationsList.setAll(filtered);
             lblTotal.setText(String.valueOf(filtered.size()));
+            filtreAffiche = new FiltreConsultations(searchText, null, null);
 
         } catch (Exception e) {
             logger.error("Erreur recherche", e);
@@ -331,6 +307,7 @@ public class ConsultationsController {
     private void handleFilter() {
         try {
             List<Consultation> all = consultationService.listerToutesConsultations();
+            references = exportTableauService.referencesConsultations(all);
             LocalDate filterDate = dpFilterDate.getValue();
             Medecin filterMedecin = cmbFilterMedecin.getValue();
 
@@ -350,6 +327,8 @@ public class ConsultationsController {
 
             consultationsList.setAll(filtered);
             lblTotal.setText(String.valueOf(filtered.size()));
+            filtreAffiche = new FiltreConsultations(null, filterDate,
+                filterMedecin != null ? filterMedecin.getId() : null);
 
         } catch (Exception e) {
             logger.error("Erreur filtrage", e);
@@ -403,7 +382,34 @@ public class ConsultationsController {
 
 
     private void handleGenerateOrdonnance(Consultation c) {
-        showInfo("Ordonnance", "Génération d'ordonnance en cours de développement");
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Enregistrer l'ordonnance");
+        fileChooser.setInitialFileName("ordonnance_" + c.getId() + ".pdf");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+        File file = fileChooser.showSaveDialog(tableConsultations.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Modèle JasperReports de l'ordonnance, rempli hors du thread JavaFX
+        String outputPath = file.getAbsolutePath();
+        CompletableFuture.supplyAsync(() -> RapportJasperService.genererOrdonnance(c.getId(), outputPath))
+            .whenComplete((chemin, erreur) -> Platform.runLater(() -> {
+                if (erreur != null) {
+                    logger.error("Erreur génération ordonnance", erreur);
+                    Throwable cause = erreur.getCause() != null ? erreur.getCause() : erreur;
+                    showError("Erreur", "Impossible de générer l'ordonnance : " + cause.getMessage());
+                    return;
+                }
+                try {
+                    if (Desktop.isDesktopSupported()) {
+                        Desktop.getDesktop().open(file);
+                    }
+                } catch (Exception e) {
+                    logger.error("Impossible d'ouvrir le fichier", e);
+                    showInfo("Ordonnance", "Ordonnance enregistrée : " + file.getAbsolutePath());
+                }
+            }));
     }
 
     private void showError(String title, String message) {
@@ -425,5 +431,20 @@ public class ConsultationsController {
     private void configurePermissions() {
         btnAddConsultation.setVisible(PermissionManager.canCreateConsultation());
         btnAddConsultation.setManaged(PermissionManager.canCreateConsultation());
+        btnExportTableau.setVisible(PermissionManager.canExportData());
+        btnExportTableau.setManaged(PermissionManager.canExportData());
+    }
+
+    /**
+     * Exporte les consultations affichées (recherche ou filtres en cours) en CSV ou XLSX
+     * (lecture en flux, page par page) ; un médecin n'exporte que ses propres consultations
+     */
+    @FXML
+    private void handleExportTableau() {
+        Long medecinConnecte = PermissionManager.shouldFilterByMedecin() ? PermissionManager.getConnectedMedecinId() : null;
+        FiltreConsultations filtre = medecinConnecte == null ? filtreAffiche
+            : new FiltreConsultations(filtreAffiche.getTexte(), filtreAffiche.getDate(), medecinConnecte);
+        TableauUtils.exporter(btnExportTableau, "consultations",
+            (fichier, format) -> exportTableauService.exporterConsultations(filtre, fichier, format));
     }
 }
\ No newline at end of file
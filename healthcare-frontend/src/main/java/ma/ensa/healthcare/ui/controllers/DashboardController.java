@@ -5,6 +5,7 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.layout.StackPane;
+import ma.ensa.healthcare.service.RechercheGlobaleService;
 import ma.ensa.healthcare.ui.MainApp;
 import ma.ensa.healthcare.ui.utils.SessionManager;
 import org.slf4j.Logger;
@@ -40,12 +41,17 @@ public class DashboardController {
     @FXML private Button btnSettings;
     @FXML private FontAwesomeIconView logoIcon;
 
+    private final RechercheGlobaleService rechercheGlobale = new RechercheGlobaleService();
+
     @FXML
     public void initialize() {
         // Afficher les informations de l'utilisateur connecté
         loadUserInfo();
 
         configurePermissions();
+
+        // Index de recherche (patients, listes de choix) chargés en arrière-plan dès la connexion
+        rechercheGlobale.charger();
         
         // Charger la page d'accueil par défaut
         showHome();
@@ -1,5 +1,6 @@
 package ma.ensa.healthcare.ui.controllers;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,6 +11,8 @@ import javafx.scene.image.Image;
 import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import ma.ensa.healthcare.dto.FiltreFactures;
+import ma.ensa.healthcare.dto.TotauxFacturesDTO;
 import ma.ensa.healthcare.model.Facture;
 import ma.ensa.healthcare.model.RendezVous;
 import ma.ensa.healthcare.model.enums.ModePaiement;
@@ -18,7 +21,11 @@ import ma.ensa.healthcare.service.*;
 import ma.ensa.healthcare.ui.dialogs.PaiementDialog;
 import ma.ensa.healthcare.ui.dialogs.RendezVousDialog;
 import ma.ensa.healthcare.ui.utils.PermissionManager;
+import ma.ensa.healthcare.ui.utils.TableauUtils;
+import ma.ensa.healthcare.util.ColonnesTableaux;
 import ma.ensa.healthcare.util.PdfExportService;
+import ma.ensa.healthcare.util.RapportJasperService;
+import ma.ensa.healthcare.util.ReferencesTableau;
 import ma.ensa.healthcare.ui.dialogs.FactureDialog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,10 +33,12 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import javafx.stage.FileChooser;
 import ma.ensa.healthcare.util.PdfExportService;
@@ -75,12 +84,21 @@ public class FacturesController {
     @FXML private TableColumn<Facture, String> colStatut;
     @FXML private TableColumn<Facture, Void> colActions;
     @FXML private Label lblTotal;
+    @FXML private Button btnChargerPlus;
     @FXML private HBox hboxStats;
     @FXML private Button btnAddFacture;
     @FXML private Button btnExportPdf;
+    @FXML private Button btnExportZip;
+    @FXML private Button btnExportTableau;
+    @FXML private Button btnRapportMensuel;
 
     private final FacturationService facturationService = new FacturationService();
-    private final PatientService patientService = new PatientService();
+    private final RapportMensuelService rapportMensuelService = new RapportMensuelService();
+    private final ExportTableauService exportTableauService = new ExportTableauService();
+    private ReferencesTableau references = ReferencesTableau.AUCUNE;
+    // Recherche affichée : critères figés et dernière facture chargée (pagination par ID)
+    private FiltreFactures filtreAffiche = FiltreFactures.TOUTES;
+    private long dernierIdAffiche;
     private ObservableList<Facture> facturesList = FXCollections.observableArrayList();
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
@@ -129,56 +147,18 @@ public class FacturesController {
 
     private void setupTableColumns() {
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colNumero.setCellValueFactory(new PropertyValueFactory<>("numeroFacture"));
         
-        colDate.setCellValueFactory(cellData -> {
-            LocalDate date = cellData.getValue().getDateFacture();
-            String formatted = date != null ? date.format(DATE_FORMATTER) : "N/A";
-            return new javafx.beans.property.SimpleStringProperty(formatted);
-        });
-        
-        colPatient.setCellValueFactory(cellData -> {
-            Facture f = cellData.getValue();
-            if (f.getIdPatient() != 0) {
-                return new javafx.beans.property.SimpleStringProperty(
-                    patientService.getPatientById(f.getIdPatient()).getNom() + " " + patientService.getPatientById(f.getIdPatient()).getPrenom());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colCin.setCellValueFactory(cellData -> {
-            Facture f = cellData.getValue();
-            if (f.getIdPatient() != 0) {
-                return new javafx.beans.property.SimpleStringProperty(patientService.getPatientById(f.getIdPatient()).getCin());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colMontantConsultation.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                formatMontant(cellData.getValue().getMontantConsultation())));
-        
-        colMontantMedicaments.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                formatMontant(cellData.getValue().getMontantMedicaments())));
-        
-        colMontantTotal.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                formatMontant(cellData.getValue().getMontantTotal())));
-        
-        colMontantPaye.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                formatMontant(cellData.getValue().getMontantPaye())));
-        
-        colMontantRestant.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                formatMontant(cellData.getValue().getMontantRestant())));
-        
-        colStatut.setCellValueFactory(cellData -> {
-            String statut = cellData.getValue().getStatutPaiement() != null ? 
-                           cellData.getValue().getStatutPaiement().name() : "N/A";
-            return new javafx.beans.property.SimpleStringProperty(statut);
-        });
+        // Mêmes colonnes que l'export CSV/XLSX ; patients chargés en bloc avec la liste
+        TableauUtils.lier(colNumero, ColonnesTableaux.FACTURE_NUMERO, () -> references);
+        TableauUtils.lier(colDate, ColonnesTableaux.FACTURE_DATE, () -> references);
+        TableauUtils.lier(colPatient, ColonnesTableaux.FACTURE_PATIENT, () -> references);
+        TableauUtils.lier(colCin, ColonnesTableaux.FACTURE_CIN, () -> references);
+        TableauUtils.lier(colMontantConsultation, ColonnesTableaux.FACTURE_MONTANT_CONSULTATION, () -> references);
+        TableauUtils.lier(colMontantMedicaments, ColonnesTableaux.FACTURE_MONTANT_MEDICAMENTS, () -> references);
+        TableauUtils.lier(colMontantTotal, ColonnesTableaux.FACTURE_MONTANT_TOTAL, () -> references);
+        TableauUtils.lier(colMontantPaye, ColonnesTableaux.FACTURE_MONTANT_PAYE, () -> references);
+        TableauUtils.lier(colMontantRestant, ColonnesTableaux.FACTURE_MONTANT_RESTANT, () -> references);
+        TableauUtils.lier(colStatut, ColonnesTableaux.FACTURE_STATUT, () -> references);
 
         // Style pour la colonne Statut
         colStatut.setCellFactory(column -> new TableCell<Facture, String>() {
@@ -251,19 +231,42 @@ public class FacturesController {
     }
     private void loadFactures() {
         try {
-            List<Facture> factures = facturationService.getToutesLesFactures();
-            facturesList.setAll(factures);
+            // Nouvelle recherche : première page, total compté par la base
+            filtreAffiche = filtreCourant();
+            dernierIdAffiche = 0;
+            references = ReferencesTableau.AUCUNE;
+            facturesList.clear();
             tableFactures.setItems(facturesList);
-            lblTotal.setText(String.valueOf(factures.size()));
-            
-            logger.info("Chargement de {} factures", factures.size());
-            
+            lblTotal.setText(String.valueOf(facturationService.getTotauxFactures(filtreAffiche).getNombreFactures()));
+            chargerPageSuivante();
+        } catch (Exception e) {
+            logger.error("Erreur chargement factures", e);
+            showError("Erreur", "Impossible de charger les factures");
+        }
+    }
+
+    @FXML
+    private void handleChargerPlus() {
+        try {
+            chargerPageSuivante();
         } catch (Exception e) {
             logger.error("Erreur chargement factures", e);
             showError("Erreur", "Impossible de charger les factures");
         }
     }
 
+    private void chargerPageSuivante() {
+        // Recherche et statut filtrés par la base, patients de la page chargés en bloc pour les colonnes
+        List<Facture> page = facturationService.rechercherFactures(filtreAffiche, dernierIdAffiche);
+        references = references.avec(exportTableauService.referencesFactures(page));
+        facturesList.addAll(page);
+        if (!page.isEmpty()) {
+            dernierIdAffiche = page.get(page.size() - 1).getId();
+        }
+        btnChargerPlus.setVisible(page.size() == FacturationService.TAILLE_PAGE_RECHERCHE);
+        logger.info("Chargement de {} factures ({} affichées)", page.size(), facturesList.size());
+    }
+
     private void updateStatistics() {
         try {
             LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
@@ -273,14 +276,10 @@ public class FacturesController {
             BigDecimal revenusMois = facturationService.getRevenusPeriode(startOfMonth, endOfMonth);
             BigDecimal totalImpaye = facturationService.getTotalImpaye();
             
-            List<Facture> all = facturationService.getToutesLesFactures();
-            BigDecimal totalFacture = all.stream()
-                .map(Facture::getMontantTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            BigDecimal totalPaye = all.stream()
-                .map(Facture::getMontantPaye)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Sommes calculées par la base
+            TotauxFacturesDTO totaux = facturationService.getTotauxFactures(FiltreFactures.TOUTES);
+            BigDecimal totalFacture = totaux.getTotalFacture();
+            BigDecimal totalPaye = totaux.getTotalPaye();
 
             double tauxRecouvrement = totalFacture.compareTo(BigDecimal.ZERO) > 0 ?
                 totalPaye.divide(totalFacture, 4, BigDecimal.ROUND_HALF_UP)
@@ -298,63 +297,27 @@ public class FacturesController {
 
     @FXML
     private void handleSearch() {
-        String searchText = searchField.getText().trim().toLowerCase();
-        
-        if (searchText.isEmpty()) {
-            loadFactures();
-            return;
-        }
-
-        try {
-            List<Facture> all = facturationService.getToutesLesFactures();
-            
-            List<Facture> filtered = all.stream()
-                .filter(f -> {
-                    String numero = f.getNumeroFacture() != null ? f.getNumeroFacture().toLowerCase() : "";
-                    String patientNom = "";
-                    String cin = "";
-                    
-                    if (f.getIdPatient() != 0) {
-                        patientNom = (patientService.getPatientById(f.getIdPatient()).getNom() + " " + 
-                                     patientService.getPatientById(f.getIdPatient()).getPrenom()).toLowerCase();
-                        cin = patientService.getPatientById(f.getIdPatient()).getCin() != null ? patientService.getPatientById(f.getIdPatient()).getCin().toLowerCase() : "";
-                    }
-                    
-                    return numero.contains(searchText) || 
-                           patientNom.contains(searchText) || 
-                           cin.contains(searchText);
-                })
-                .toList();
-
-            facturesList.setAll(filtered);
-            lblTotal.setText(String.valueOf(filtered.size()));
-
-        } catch (Exception e) {
-            logger.error("Erreur recherche", e);
-        }
+        loadFactures();
     }
 
     @FXML
     private void handleFilter() {
-        try {
-            List<Facture> all = facturationService.getToutesLesFactures();
-            String filterStatut = cmbFilterStatut.getValue();
-
-            List<Facture> filtered = all.stream()
-                .filter(f -> {
-                    boolean statutMatch = "Tous".equals(filterStatut) || 
-                        (f.getStatutPaiement() != null && f.getStatutPaiement().name().equals(filterStatut));
-                    
-                    return statutMatch;
-                })
-                .toList();
-
-            facturesList.setAll(filtered);
-            lblTotal.setText(String.valueOf(filtered.size()));
+        loadFactures();
+    }
 
-        } catch (Exception e) {
-            logger.error("Erreur filtrage", e);
-        }
+    /**
+     * Critères saisis à l'écran (recherche, statut, période), communs à la table et aux exports
+     */
+    private FiltreFactures filtreCourant() {
+        String filterStatut = cmbFilterStatut.getValue();
+        StatutPaiement statut = filterStatut == null || "Tous".equals(filterStatut)
+            ? null : StatutPaiement.valueOf(filterStatut);
+        return new FiltreFactures(
+            statut,
+            searchField.getText(),
+            dpDateDebut != null ? dpDateDebut.getValue() : null,
+            dpDateFin != null ? dpDateFin.getValue() : null
+        );
     }
 
     private void handleEncaisserPaiement(Facture f) {
@@ -363,15 +326,26 @@ public class FacturesController {
 
         result.ifPresent(data -> {
             try {
-                facturationService.encaisserPaiement(
+                // Écriture groupée en arrière-plan : l'écran reste disponible pendant l'enregistrement
+                facturationService.encaisserPaiementAsync(
+                    data.getCleIdempotence(),
                     f.getId(), 
                     data.getMontant(), 
                     data.getMode(), 
                     LocalDate.now()
-                );
-                showSuccess("Succès", "Paiement enregistré avec succès !");
-                loadFactures();
-                updateStatistics();
+                ).whenComplete((enregistre, erreur) -> Platform.runLater(() -> {
+                    if (erreur != null) {
+                        logger.error("Erreur enregistrement paiement", erreur);
+                        showError("Erreur", "Impossible d'enregistrer le paiement");
+                        return;
+                    }
+                    PaiementDialog.terminerTentative(f.getId(), data.getCleIdempotence());
+                    showSuccess("Succès", enregistre
+                        ? "Paiement enregistré avec succès !"
+                        : "Ce paiement avait déjà été enregistré.");
+                    loadFactures();
+                    updateStatistics();
+                }));
             } catch (Exception e) {
                 logger.error("Erreur enregistrement paiement", e);
                 showError("Erreur", "Impossible d'enregistrer le paiement");
@@ -457,42 +431,51 @@ public class FacturesController {
 
 
     /**
-     * Exporte toutes les factures visibles dans la table en PDF
+     * Exporte en PDF les factures retenues par les critères de la table, hors du thread JavaFX
      */
     @FXML
     private void handleExportPdf() {
-        try {
-            // Ouvrir un FileChooser pour choisir où sauvegarder
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Exporter les factures en PDF");
-            fileChooser.setInitialFileName("factures_" + 
-                LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".pdf");
-            fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("PDF Files", "*.pdf")
-            );
-            
-            File file = fileChooser.showSaveDialog(tableFactures.getScene().getWindow());
-            
-            if (file != null) {
-                // Récupérer les factures actuellement affichées dans la table
-                List<Facture> facturesToExport = new ArrayList<>(tableFactures.getItems());
-                
-                if (facturesToExport.isEmpty()) {
-                    showWarning("Aucune donnée", "Il n'y a aucune facture à exporter");
+        // Ouvrir un FileChooser pour choisir où sauvegarder
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Exporter les factures en PDF");
+        fileChooser.setInitialFileName("factures_" + 
+            LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".pdf");
+        fileChooser.getExtensionFilters().add(
+            new FileChooser.ExtensionFilter("PDF Files", "*.pdf")
+        );
+        
+        File file = fileChooser.showSaveDialog(tableFactures.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        if (tableFactures.getItems().isEmpty()) {
+            showWarning("Aucune donnée", "Il n'y a aucune facture à exporter");
+            return;
+        }
+        
+        // Mêmes critères que la table (recherche, statut, période), factures relues en base page par page
+        FiltreFactures filtre = filtreCourant();
+        String outputPath = file.getAbsolutePath();
+        btnExportPdf.setDisable(true);
+        CompletableFuture.supplyAsync(() -> PdfExportService.exportFacturesStreaming(
+                filtre,
+                outputPath,
+                (ecrites, total) -> logger.debug("Export PDF : {}/{} factures", ecrites, total)))
+            .whenComplete((nbExportees, erreur) -> Platform.runLater(() -> {
+                btnExportPdf.setDisable(false);
+                if (erreur != null) {
+                    logger.error("Erreur lors de l'export PDF", erreur);
+                    Throwable cause = erreur.getCause() != null ? erreur.getCause() : erreur;
+                    showError("Erreur d'export", 
+                        "Impossible de générer le PDF : " + cause.getMessage());
                     return;
                 }
                 
-                // Générer le PDF
-                String outputPath = PdfExportService.exportFacturesListToPdf(
-                    facturesToExport, 
-                    file.getAbsolutePath()
-                );
-                
                 // Demander si on veut ouvrir le fichier
                 Alert alert = new Alert(Alert.AlertType.INFORMATION);
                 alert.setTitle("Export réussi");
                 alert.setHeaderText("PDF généré avec succès !");
-                alert.setContentText(facturesToExport.size() + " facture(s) exportée(s).\n\n" +
+                alert.setContentText(nbExportees + " facture(s) exportée(s).\n\n" +
                                     "Fichier: " + file.getName());
                 
                 ButtonType btnOpen = new ButtonType("Ouvrir");
@@ -505,55 +488,113 @@ public class FacturesController {
                 }
                 
                 logger.info("Export PDF réussi : {}", outputPath);
-                
-            }
-            
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'export PDF", e);
-            showError("Erreur d'export", 
-                "Impossible de générer le PDF : " + e.getMessage());
+            }));
+    }
+
+    /**
+     * Ouvre le rapport du mois précédent : fichier généré la nuit, ou généré maintenant s'il manque
+     */
+    /**
+     * Un PDF par facture du mois (début de la période filtrée, sinon mois précédent)
+     * dans une archive ZIP, pour l'envoi aux assurances
+     */
+    @FXML
+    private void handleExportZip() {
+        YearMonth mois = dpDateDebut != null && dpDateDebut.getValue() != null
+            ? YearMonth.from(dpDateDebut.getValue())
+            : YearMonth.now().minusMonths(1);
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Factures de " + mois + " : un PDF par facture");
+        fileChooser.setInitialFileName("factures_" + mois + ".zip");
+        fileChooser.getExtensionFilters().add(
+            new FileChooser.ExtensionFilter("Archives ZIP", "*.zip")
+        );
+        File file = fileChooser.showSaveDialog(tableFactures.getScene().getWindow());
+        if (file == null) {
+            return;
         }
+
+        String zipPath = file.getAbsolutePath();
+        btnExportZip.setDisable(true);
+        CompletableFuture.supplyAsync(() -> PdfExportService.exportFacturesMoisZip(mois, zipPath))
+            .whenComplete((bilan, erreur) -> Platform.runLater(() -> {
+                btnExportZip.setDisable(false);
+                if (erreur != null) {
+                    logger.error("Erreur lors de l'export ZIP", erreur);
+                    Throwable cause = erreur.getCause() != null ? erreur.getCause() : erreur;
+                    showError("Erreur d'export", "Impossible de générer l'archive : " + cause.getMessage());
+                    return;
+                }
+                String message = bilan.getDocumentsGeneres() + " facture(s) exportée(s) en "
+                    + String.format("%.1f s (%.1f PDF/s)", bilan.getDureeMs() / 1000.0, bilan.getDocumentsParSeconde())
+                    + ".\n\nFichier: " + file.getName();
+                if (bilan.getErreurs().isEmpty()) {
+                    showSuccess("Export réussi", message);
+                } else {
+                    showWarning("Export partiel", message + "\n\n" + bilan.getErreurs().size()
+                        + " facture(s) en erreur, détail dans ERREURS.txt");
+                }
+            }));
+    }
+
+    @FXML
+    private void handleRapportMensuel() {
+        YearMonth mois = YearMonth.now().minusMonths(1);
+        btnRapportMensuel.setDisable(true);
+        CompletableFuture.supplyAsync(() -> rapportMensuelService.getOuGenererRapport(mois))
+            .whenComplete((pdf, erreur) -> Platform.runLater(() -> {
+                btnRapportMensuel.setDisable(false);
+                if (erreur != null) {
+                    logger.error("Erreur rapport mensuel", erreur);
+                    showError("Erreur", "Impossible d'ouvrir le rapport mensuel de " + mois);
+                    return;
+                }
+                openFile(pdf.toFile());
+            }));
     }
 
     /**
      * Exporte UNE facture spécifique en PDF
      */
     private void handleExportSingleFacture(Facture facture) {
-        try {
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Exporter la facture en PDF");
-            fileChooser.setInitialFileName(facture.getNumeroFacture() + ".pdf");
-            fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("PDF Files", "*.pdf")
-            );
-            
-            File file = fileChooser.showSaveDialog(tableFactures.getScene().getWindow());
-            
-            if (file != null) {
-                String outputPath = PdfExportService.exportFactureToPdf(
-                    facture, 
-                    file.getAbsolutePath()
-                );
-                
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Exporter la facture en PDF");
+        fileChooser.setInitialFileName(facture.getNumeroFacture() + ".pdf");
+        fileChooser.getExtensionFilters().add(
+            new FileChooser.ExtensionFilter("PDF Files", "*.pdf")
+        );
+
+        File file = fileChooser.showSaveDialog(tableFactures.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // Modèle JasperReports de la facture (lignes : médicaments prescrits), rempli hors du thread JavaFX
+        String outputPath = file.getAbsolutePath();
+        CompletableFuture.supplyAsync(() -> RapportJasperService.genererFacture(facture.getId(), outputPath))
+            .whenComplete((chemin, erreur) -> Platform.runLater(() -> {
+                if (erreur != null) {
+                    logger.error("Erreur export facture PDF", erreur);
+                    Throwable cause = erreur.getCause() != null ? erreur.getCause() : erreur;
+                    showError("Erreur", "Impossible d'exporter la facture : " + cause.getMessage());
+                    return;
+                }
+
                 Alert alert = new Alert(Alert.AlertType.INFORMATION);
                 alert.setTitle("Export réussi");
                 alert.setHeaderText("Facture exportée !");
                 alert.setContentText("Fichier: " + file.getName());
-                
+
                 ButtonType btnOpen = new ButtonType("Ouvrir");
                 ButtonType btnClose = new ButtonType("Fermer", ButtonBar.ButtonData.CANCEL_CLOSE);
                 alert.getButtonTypes().setAll(btnOpen, btnClose);
-                
+
                 Optional<ButtonType> result = alert.showAndWait();
                 if (result.isPresent() && result.get() == btnOpen) {
                     openFile(file);
                 }
-            }
-            
-        } catch (Exception e) {
-            logger.error("Erreur export facture PDF", e);
-            showError("Erreur", "Impossible d'exporter la facture : " + e.getMessage());
-        }
+            }));
     }
 
     /**
@@ -589,5 +630,19 @@ public class FacturesController {
         
         btnExportPdf.setVisible(PermissionManager.canExportData());
         btnExportPdf.setManaged(PermissionManager.canExportData());
+        btnExportZip.setVisible(PermissionManager.canExportData());
+        btnExportZip.setManaged(PermissionManager.canExportData());
+        btnExportTableau.setVisible(PermissionManager.canExportData());
+        btnExportTableau.setManaged(PermissionManager.canExportData());
+    }
+
+    /**
+     * Exporte les factures (critères de la table) en CSV ou XLSX, lues en base page par page
+     */
+    @FXML
+    private void handleExportTableau() {
+        FiltreFactures filtre = filtreCourant();
+        TableauUtils.exporter(btnExportTableau, "factures",
+            (fichier, format) -> exportTableauService.exporterFactures(filtre, fichier, format));
     }
 }
\ No newline at end of file
@@ -10,8 +10,10 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import ma.ensa.healthcare.dto.FactureDTO;
 import ma.ensa.healthcare.model.Patient;
 import ma.ensa.healthcare.model.RendezVous;
+import ma.ensa.healthcare.model.enums.AxeAnciennete;
 import ma.ensa.healthcare.model.enums.StatutRendezVous;
 import ma.ensa.healthcare.model.Consultation;
 import ma.ensa.healthcare.model.Facture;
@@ -82,9 +84,11 @@ public class HomeController {
     private final RendezVousService rdvService = new RendezVousService();
     private final ConsultationService consultationService = new ConsultationService();
     private final FacturationService facturationService = new FacturationService();
+    private final AncienneteCreancesService ancienneteService = new AncienneteCreancesService();
     private final MedicamentService medicamentService = new MedicamentService();
 
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int MAX_FACTURES_IMPAYEES = 20;
 
     @FXML
     public void initialize() {
@@ -305,36 +309,28 @@ public class HomeController {
     }
 
     /**
-     * Charge la liste des factures impayées (filtrées pour les patients)
+     * Charge les plus anciennes factures non soldées (filtrées pour les patients)
      */
     private void loadFacturesImpayees() {
         try {
             ObservableList<String> factures = FXCollections.observableArrayList();
-            List<Facture> facturesList = facturationService.getToutesLesFactures();
-            
-            // Filtrer par patient si nécessaire
+
+            // Filtrage patient et nom du patient faits par la requête
+            AxeAnciennete axe = null;
+            String cle = null;
             if (PermissionManager.shouldFilterByPatient()) {
                 Long patientId = PermissionManager.getConnectedPatientId();
                 if (patientId != 0) {
-                    facturesList = facturesList.stream()
-                        .filter(f -> f.getIdPatient() == patientId)
-                        .collect(Collectors.toList());
+                    axe = AxeAnciennete.PATIENT;
+                    cle = String.valueOf(patientId);
                 }
             }
-            
-            List<Facture> filtered = facturesList.stream()
-                .filter(f -> {
-                    boolean statutMatch = f.getStatutPaiement() != null && 
-                                        f.getStatutPaiement().name().equals("EN_ATTENTE");
-                    return statutMatch;
-                })
-                .toList();
-                
-            factures.setAll(filtered.stream()
+
+            List<FactureDTO> creances = ancienneteService.getCreances(null, axe, cle, 0, MAX_FACTURES_IMPAYEES);
+            factures.setAll(creances.stream()
                 .map(f -> "Facture " + f.getNumeroFacture() + 
-                        " - Patient: " + patientService.getPatientById(f.getIdPatient()).getNom() + 
-                        " " + patientService.getPatientById(f.getIdPatient()).getPrenom() + 
-                        " - Montant: " + f.getMontantTotal() + " MAD")
+                        " - Patient: " + f.getPatientNom() + 
+                        " - Reste: " + f.getMontantRestant() + " MAD")
                 .toList());
             listFacturesImpayees.setItems(factures);
             
@@ -8,13 +8,17 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
+import ma.ensa.healthcare.dto.FiltrePatients;
 import ma.ensa.healthcare.model.Patient;
+import ma.ensa.healthcare.service.ExportTableauService;
 import ma.ensa.healthcare.service.PatientService;
 import ma.ensa.healthcare.ui.dialogs.PatientDialog;
+import ma.ensa.healthcare.ui.utils.TableauUtils;
+import ma.ensa.healthcare.util.ColonnesTableaux;
+import ma.ensa.healthcare.util.ReferencesTableau;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +27,7 @@ import ma.ensa.healthcare.ui.utils.PermissionManager;
 public class PatientsController {
 
     private static final Logger logger = LoggerFactory.getLogger(PatientsController.class);
+    private static final int LIMITE_RECHERCHE = 200;
 
     @FXML private TextField searchField;
     @FXML private TableView<Patient> tablePatients;
@@ -37,17 +42,21 @@ public class PatientsController {
     @FXML private TableColumn<Patient, Void> colActions;
     @FXML private Label lblTotal;
     @FXML private Button btnAddPatient;
+    @FXML private Button btnExportTableau;
 
     private final PatientService patientService = new PatientService();
+    private final ExportTableauService exportTableauService = new ExportTableauService();
     private ObservableList<Patient> patientsList = FXCollections.observableArrayList();
-    
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     @FXML
     public void initialize() {
         configurePermissions();
         setupTableColumns();
         loadPatients();
+
+        // Recherche pendant la saisie (index en mémoire, chargé en arrière-plan dès l'ouverture de l'écran)
+        patientService.preparerRecherche();
+        searchField.textProperty().addListener((obs, ancien, nouveau) -> handleSearch());
     }
 
     /**
@@ -55,23 +64,14 @@ public class PatientsController {
      */
     private void setupTableColumns() {
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colCin.setCellValueFactory(new PropertyValueFactory<>("cin"));
-        colNom.setCellValueFactory(new PropertyValueFactory<>("nom"));
-        colPrenom.setCellValueFactory(new PropertyValueFactory<>("prenom"));
-        
-        colSexe.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(cellData.getValue().getSexe().name()));
-        
-        colDateNaissance.setCellValueFactory(cellData -> {
-            if (cellData.getValue().getDateNaissance() != null) {
-                return new javafx.beans.property.SimpleStringProperty(
-                    cellData.getValue().getDateNaissance().format(DATE_FORMATTER));
-            }
-            return new javafx.beans.property.SimpleStringProperty("");
-        });
-        
-        colTelephone.setCellValueFactory(new PropertyValueFactory<>("telephone"));
-        colEmail.setCellValueFactory(new PropertyValueFactory<>("email"));
+        // Mêmes colonnes que l'export CSV/XLSX
+        TableauUtils.lier(colCin, ColonnesTableaux.PATIENT_CIN, () -> ReferencesTableau.AUCUNE);
+        TableauUtils.lier(colNom, ColonnesTableaux.PATIENT_NOM, () -> ReferencesTableau.AUCUNE);
+        TableauUtils.lier(colPrenom, ColonnesTableaux.PATIENT_PRENOM, () -> ReferencesTableau.AUCUNE);
+        TableauUtils.lier(colSexe, ColonnesTableaux.PATIENT_SEXE, () -> ReferencesTableau.AUCUNE);
+        TableauUtils.lier(colDateNaissance, ColonnesTableaux.PATIENT_DATE_NAISSANCE, () -> ReferencesTableau.AUCUNE);
+        TableauUtils.lier(colTelephone, ColonnesTableaux.PATIENT_TELEPHONE, () -> ReferencesTableau.AUCUNE);
+        TableauUtils.lier(colEmail, ColonnesTableaux.PATIENT_EMAIL, () -> ReferencesTableau.AUCUNE);
 
         // Colonne Actions avec boutons
         setupActionsColumn();
@@ -131,11 +131,11 @@ public class PatientsController {
     }
 
     /**
-     * Recherche de patients
+     * Recherche de patients (nom, prénom, CIN, téléphone, email), les plus pertinents d'abord
      */
     @FXML
     private void handleSearch() {
-        String searchText = searchField.getText().trim().toLowerCase();
+        String searchText = searchField.getText().trim();
         
         if (searchText.isEmpty()) {
             loadPatients();
@@ -143,17 +143,7 @@ public class PatientsController {
         }
 
         try {
-            List<Patient> allPatients = patientService.getAllPatients();
-            
-            List<Patient> filteredPatients = allPatients.stream()
-                .filter(p -> 
-                    p.getNom().toLowerCase().contains(searchText) ||
-                    p.getPrenom().toLowerCase().contains(searchText) ||
-                    (p.getCin() != null && p.getCin().toLowerCase().contains(searchText)) ||
-                    (p.getTelephone() != null && p.getTelephone().contains(searchText)) ||
-                    (p.getEmail() != null && p.getEmail().toLowerCase().contains(searchText))
-                )
-                .toList();
+            List<Patient> filteredPatients = patientService.rechercherPatients(searchText, LIMITE_RECHERCHE);
 
             patientsList.setAll(filteredPatients);
             tablePatients.setItems(patientsList);
@@ -176,6 +166,9 @@ public class PatientsController {
 
         result.ifPresent(patient -> {
             try {
+                if (!confirmerMalgreDoublons(patient)) {
+                    return;
+                }
                 patientService.createPatient(patient);
                 showSuccess("Succès", "Patient ajouté avec succès !");
                 loadPatients();
@@ -186,6 +179,28 @@ public class PatientsController {
         });
     }
 
+    /**
+     * Signale les patients déjà enregistrés qui ressemblent au nouveau (autre graphie du nom,
+     * même date de naissance, téléphone ou email)
+     * @return true si la création doit continuer
+     */
+    private boolean confirmerMalgreDoublons(Patient patient) {
+        List<Patient> doublons = patientService.rechercherDoublonsPossibles(patient);
+        if (doublons.isEmpty()) {
+            return true;
+        }
+        StringBuilder liste = new StringBuilder();
+        for (Patient doublon : doublons) {
+            liste.append("\n- ").append(doublon.getPrenom()).append(" ").append(doublon.getNom())
+                 .append(" (CIN: ").append(doublon.getCin()).append(")");
+        }
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmation.setTitle("Doublon possible");
+        confirmation.setHeaderText("Ce patient semble déjà enregistré");
+        confirmation.setContentText("Patients similaires :" + liste + "\n\nCréer quand même ?");
+        return confirmation.showAndWait().filter(response -> response == ButtonType.OK).isPresent();
+    }
+
     /**
      * Modifier un patient existant
      */
@@ -255,5 +270,17 @@ public class PatientsController {
     private void configurePermissions() {
         btnAddPatient.setVisible(PermissionManager.canModifyPatient());
         btnAddPatient.setManaged(PermissionManager.canModifyPatient());
+        btnExportTableau.setVisible(PermissionManager.canExportData());
+        btnExportTableau.setManaged(PermissionManager.canExportData());
+    }
+
+    /**
+     * Exporte les patients de la recherche en cours en CSV ou XLSX (lecture en flux, page par page)
+     */
+    @FXML
+    private void handleExportTableau() {
+        FiltrePatients filtre = new FiltrePatients(searchField.getText());
+        TableauUtils.exporter(btnExportTableau, "patients",
+            (fichier, format) -> exportTableauService.exporterPatients(filtre, fichier, format));
     }
 }
\ No newline at end of file
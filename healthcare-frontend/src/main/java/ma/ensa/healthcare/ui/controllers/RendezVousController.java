@@ -9,16 +9,18 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
+import ma.ensa.healthcare.dto.FiltreRendezVous;
 import ma.ensa.healthcare.model.RendezVous;
 import ma.ensa.healthcare.model.enums.StatutRendezVous;
 import ma.ensa.healthcare.service.*;
 import ma.ensa.healthcare.ui.dialogs.RendezVousDialog;
+import ma.ensa.healthcare.ui.utils.TableauUtils;
+import ma.ensa.healthcare.util.ColonnesTableaux;
+import ma.ensa.healthcare.util.ReferencesTableau;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,12 +60,14 @@ public class RendezVousController {
     @FXML private Label lblTotal;
     @FXML private HBox hboxStats;
     @FXML private Button btnAddRendezVous;
+    @FXML private Button btnExportTableau;
 
     private final RendezVousService rdvService = new RendezVousService();
-    private final PatientService patientService = new PatientService();
+    private final ExportTableauService exportTableauService = new ExportTableauService();
+    private ReferencesTableau references = ReferencesTableau.AUCUNE;
+    // Critères de la liste affichée, repris par l'export
+    private FiltreRendezVous filtreAffiche = FiltreRendezVous.TOUS;
     private ObservableList<RendezVous> rdvList = FXCollections.observableArrayList();
-    
-    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
     @FXML
     public void initialize() {
@@ -117,53 +121,14 @@ public class RendezVousController {
     private void setupTableColumns() {
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         
-        // ✅ CORRECTION : Utiliser heureDebut au lieu de getDateHeure()
-        colDateTime.setCellValueFactory(cellData -> {
-            LocalDateTime heureDebut = cellData.getValue().getHeureDebut();
-            String formatted = heureDebut != null ? heureDebut.format(DATETIME_FORMATTER) : "N/A";
-            return new javafx.beans.property.SimpleStringProperty(formatted);
-        });
-        
-        colPatient.setCellValueFactory(cellData -> {
-            RendezVous rdv = cellData.getValue();
-            if (rdv.getIdPatient() != 0) {
-                return new javafx.beans.property.SimpleStringProperty(
-                    patientService.getPatientById(rdv.getIdPatient()).getNom() + " " + patientService.getPatientById(rdv.getIdPatient()).getPrenom());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colCin.setCellValueFactory(cellData -> {
-            RendezVous rdv = cellData.getValue();
-            if (rdv.getIdPatient() != 0) {
-                return new javafx.beans.property.SimpleStringProperty(patientService.getPatientById(rdv.getIdPatient()).getCin());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colMedecin.setCellValueFactory(cellData -> {
-            RendezVous rdv = cellData.getValue();
-            if (rdv.getMedecin() != null) {
-                return new javafx.beans.property.SimpleStringProperty("Dr. " + rdv.getMedecin().getNom());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colSpecialite.setCellValueFactory(cellData -> {
-            RendezVous rdv = cellData.getValue();
-            if (rdv.getMedecin() != null) {
-                return new javafx.beans.property.SimpleStringProperty(rdv.getMedecin().getSpecialite());
-            }
-            return new javafx.beans.property.SimpleStringProperty("N/A");
-        });
-        
-        colMotif.setCellValueFactory(new PropertyValueFactory<>("motif"));
-        
-        colStatut.setCellValueFactory(cellData -> {
-            String statut = cellData.getValue().getStatut() != null ? 
-                           cellData.getValue().getStatut().name() : "N/A";
-            return new javafx.beans.property.SimpleStringProperty(statut);
-        });
+        // Mêmes colonnes que l'export CSV/XLSX ; patients chargés en bloc avec la liste
+        TableauUtils.lier(colDateTime, ColonnesTableaux.RDV_DATE_HEURE, () -> references);
+        TableauUtils.lier(colPatient, ColonnesTableaux.RDV_PATIENT, () -> references);
+        TableauUtils.lier(colCin, ColonnesTableaux.RDV_CIN, () -> references);
+        TableauUtils.lier(colMedecin, ColonnesTableaux.RDV_MEDECIN, () -> references);
+        TableauUtils.lier(colSpecialite, ColonnesTableaux.RDV_SPECIALITE, () -> references);
+        TableauUtils.lier(colMotif, ColonnesTableaux.RDV_MOTIF, () -> references);
+        TableauUtils.lier(colStatut, ColonnesTableaux.RDV_STATUT, () -> references);
 
         // Style pour la colonne Statut
         colStatut.setCellFactory(column -> new TableCell<RendezVous, String>() {
@@ -250,9 +215,11 @@ public class RendezVousController {
         try {
             // ✅ CORRECTION : Utiliser obtenirTousLesRendezVous() ou getAllRendezVous()
             List<RendezVous> rdvs = rdvService.obtenirTousLesRendezVous();
+            references = exportTableauService.referencesRendezVous(rdvs);
             rdvList.setAll(rdvs);
             tableRendezVous.setItems(rdvList);
             lblTotal.setText(String.valueOf(rdvs.size()));
+            filtreAffiche = FiltreRendezVous.TOUS;
             
             logger.info("Chargement de {} rendez-vous", rdvs.size());
             
@@ -306,6 +273,7 @@ public class RendezVousController {
     private void handleFilter() {
         try {
             List<RendezVous> allRdv = rdvService.obtenirTousLesRendezVous();
+            references = exportTableauService.referencesRendezVous(allRdv);
             LocalDate filterDate = dpFilterDate.getValue();
             String filterStatut = cmbFilterStatut.getValue();
 
@@ -323,6 +291,8 @@ public class RendezVousController {
             rdvList.setAll(filtered);
             tableRendezVous.setItems(rdvList);
             lblTotal.setText(String.valueOf(filtered.size()));
+            filtreAffiche = new FiltreRendezVous(filterDate,
+                filterStatut == null || "Tous".equals(filterStatut) ? null : StatutRendezVous.valueOf(filterStatut));
 
         } catch (Exception e) {
             logger.error("Erreur lors du filtrage", e);
@@ -427,5 +397,17 @@ public class RendezVousController {
     private void configurePermissions() {
         btnAddRendezVous.setVisible(PermissionManager.canCreateRendezVous());
         btnAddRendezVous.setManaged(PermissionManager.canCreateRendezVous());
+        btnExportTableau.setVisible(PermissionManager.canExportData());
+        btnExportTableau.setManaged(PermissionManager.canExportData());
+    }
+
+    /**
+     * Exporte les rendez-vous affichés (date et statut filtrés) en CSV ou XLSX (lecture en flux, page par page)
+     */
+    @FXML
+    private void handleExportTableau() {
+        FiltreRendezVous filtre = filtreAffiche;
+        TableauUtils.exporter(btnExportTableau, "rendez_vous",
+            (fichier, format) -> exportTableauService.exporterRendezVous(filtre, fichier, format));
     }
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ import ma.ensa.healthcare.service.PatientService;
 
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Dialogue pour enregistrer un paiement
@@ -24,10 +27,16 @@ public class PaiementDialog extends Dialog<PaiementDialog.PaiementData> {
     private Label lblInfoFacture;
     private CheckBox chkPaiementComplet;
     
+    // Clé par facture conservée jusqu'au succès : un double clic, un nouveau dialogue
+    // après une erreur ou un délai dépassé rejouent le même paiement
+    private static final Map<Long, String> tentativesEnCours = new ConcurrentHashMap<>();
+
     private final Facture facture;
+    private final String cleIdempotence;
 
     public PaiementDialog(Facture facture) {
         this.facture = facture;
+        this.cleIdempotence = tentativesEnCours.computeIfAbsent(facture.getId(), id -> UUID.randomUUID().toString());
         
         setTitle("Enregistrer un Paiement");
         setHeaderText("Facture N°" + facture.getNumeroFacture());
@@ -52,6 +61,7 @@ public class PaiementDialog extends Dialog<PaiementDialog.PaiementData> {
         setResultConverter(dialogButton -> {
             if (dialogButton == enregistrerButton) {
                 return new PaiementData(
+                    cleIdempotence,
                     new BigDecimal(txtMontant.getText().trim()),
                     cmbMode.getValue()
                 );
@@ -62,6 +72,14 @@ public class PaiementDialog extends Dialog<PaiementDialog.PaiementData> {
         getDialogPane().setPrefWidth(500);
     }
 
+    /**
+     * Libère la clé de la facture une fois le paiement enregistré :
+     * le paiement suivant en recevra une nouvelle
+     */
+    public static void terminerTentative(Long idFacture, String cleIdempotence) {
+        tentativesEnCours.remove(idFacture, cleIdempotence);
+    }
+
     private VBox createForm() {
         VBox vbox = new VBox(20);
         vbox.setPadding(new Insets(20));
@@ -204,14 +222,20 @@ public class PaiementDialog extends Dialog<PaiementDialog.PaiementData> {
      * Classe pour transporter les données du paiement
      */
     public static class PaiementData {
+        private final String cleIdempotence;
         private final BigDecimal montant;
         private final ModePaiement mode;
 
-        public PaiementData(BigDecimal montant, ModePaiement mode) {
+        public PaiementData(String cleIdempotence, BigDecimal montant, ModePaiement mode) {
+            this.cleIdempotence = cleIdempotence;
             this.montant = montant;
             this.mode = mode;
         }
 
+        public String getCleIdempotence() {
+            return cleIdempotence;
+        }
+
         public BigDecimal getMontant() {
             return montant;
         }
@@ -8,9 +8,9 @@ import javafx.stage.Stage;
 import ma.ensa.healthcare.model.*;
 import ma.ensa.healthcare.model.enums.StatutRendezVous;
 import ma.ensa.healthcare.service.*;
+import ma.ensa.healthcare.ui.utils.AutocompletionUtils;
 
 import java.time.*;
-import java.util.List;
 
 public class RendezVousDialog extends Dialog<RendezVous> {
 
@@ -25,7 +25,7 @@ public class RendezVousDialog extends Dialog<RendezVous> {
     private ComboBox<StatutRendezVous> cmbStatut;
 
     private final PatientService patientService = new PatientService();
-    private final MedecinService medecinService = new MedecinService();
+    private final AutocompletionService autocompletion = new AutocompletionService();
     private RendezVous rdvToEdit;
 
     public RendezVousDialog(Stage owner) {
@@ -77,7 +77,7 @@ public class RendezVousDialog extends Dialog<RendezVous> {
         // Patient
         grid.add(new Label("Patient *:"), 0, row);
         cmbPatient = new ComboBox<>();
-        cmbPatient.setPromptText("Sélectionner un patient");
+        cmbPatient.setPromptText("Nom, prénom ou CIN du patient");
         cmbPatient.setPrefWidth(300);
         loadPatients();
         grid.add(cmbPatient, 1, row++);
@@ -85,7 +85,7 @@ public class RendezVousDialog extends Dialog<RendezVous> {
         // Médecin
         grid.add(new Label("Médecin *:"), 0, row);
         cmbMedecin = new ComboBox<>();
-        cmbMedecin.setPromptText("Sélectionner un médecin");
+        cmbMedecin.setPromptText("Nom ou numéro d'ordre du médecin");
         cmbMedecin.setPrefWidth(300);
         loadMedecins();
         grid.add(cmbMedecin, 1, row++);
@@ -147,51 +147,15 @@ public class RendezVousDialog extends Dialog<RendezVous> {
     }
 
     private void loadPatients() {
-        try {
-            List<Patient> patients = patientService.getAllPatients();
-            cmbPatient.getItems().setAll(patients);
-            
-            // Affichage personnalisé
-            cmbPatient.setCellFactory(param -> new ListCell<Patient>() {
-                @Override
-                protected void updateItem(Patient item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                    } else {
-                        setText(item.getNom() + " " + item.getPrenom() + 
-                               " - " + item.getCin());
-                    }
-                }
-            });
-            cmbPatient.setButtonCell(cmbPatient.getCellFactory().call(null));
-            
-        } catch (Exception e) {
-            showError("Erreur", "Impossible de charger les patients");
-        }
+        // Propositions demandées à chaque frappe au lieu de charger tous les patients
+        autocompletion.charger();
+        AutocompletionUtils.activer(cmbPatient, autocompletion::completerPatients,
+                item -> item.getNom() + " " + item.getPrenom() + " - " + item.getCin());
     }
 
     private void loadMedecins() {
-        try {
-            List<Medecin> medecins = medecinService.getAllMedecins();
-            cmbMedecin.getItems().setAll(medecins);
-            
-            cmbMedecin.setCellFactory(param -> new ListCell<Medecin>() {
-                @Override
-                protected void updateItem(Medecin item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                    } else {
-                        setText("Dr. " + item.getNom() + " - " + item.getSpecialite());
-                    }
-                }
-            });
-            cmbMedecin.setButtonCell(cmbMedecin.getCellFactory().call(null));
-            
-        } catch (Exception e) {
-            showError("Erreur", "Impossible de charger les médecins");
-        }
+        AutocompletionUtils.activer(cmbMedecin, autocompletion::completerMedecins,
+                item -> "Dr. " + item.getNom() + " - " + item.getSpecialite());
     }
 
     private void fillForm(RendezVous rdv) {
@@ -280,12 +244,4 @@ public class RendezVousDialog extends Dialog<RendezVous> {
 
         return builder.build();
     }
-
-    private void showError(String title, String message) {
-        Alert alert = new Alert(Alert.AlertType.ERROR);
-        alert.setTitle(title);
-        alert.setHeaderText(null);
-        alert.setContentText(message);
-        alert.showAndWait();
-    }
 }
\ No newline at end of file
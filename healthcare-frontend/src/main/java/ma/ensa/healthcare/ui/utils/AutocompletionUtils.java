@@ -0,0 +1,93 @@
+package ma.ensa.healthcare.ui.utils;
+
+import javafx.application.Platform;
+import javafx.scene.control.ComboBox;
+import javafx.util.StringConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Listes de choix à saisie semi-automatique : la liste n'est pas chargée d'avance,
+ * chaque frappe demande au service les premières propositions.
+ * Le service est appelé hors du thread JavaFX (il peut lire la base tant que son index
+ * n'est pas chargé) ; seule la réponse à la dernière frappe est affichée.
+ */
+public class AutocompletionUtils {
+    private static final Logger logger = LoggerFactory.getLogger(AutocompletionUtils.class);
+
+    // Propositions affichées sous le champ
+    private static final int LIMITE_PROPOSITIONS = 20;
+
+    /**
+     * Rend la liste éditable et la remplit à chaque frappe
+     * @param completer Propositions pour un texte (service d'autocomplétion)
+     * @param texte Texte affiché pour un élément (aussi dans le champ une fois choisi)
+     */
+    public static <T> void activer(ComboBox<T> combo, BiFunction<String, Integer, List<T>> completer,
+                                   Function<T, String> texte) {
+        combo.setEditable(true);
+        combo.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(T element) {
+                return element == null ? "" : texte.apply(element);
+            }
+
+            @Override
+            public T fromString(String saisie) {
+                // Texte validé : l'élément proposé qui porte ce texte, sinon aucun
+                T valeur = combo.getValue();
+                if (valeur != null && texte.apply(valeur).equals(saisie)) {
+                    return valeur;
+                }
+                return combo.getItems().stream()
+                        .filter(element -> texte.apply(element).equals(saisie))
+                        .findFirst()
+                        .orElse(null);
+            }
+        });
+
+        // Numéro de la dernière frappe : les réponses aux frappes précédentes sont ignorées
+        AtomicLong derniere = new AtomicLong();
+        combo.getEditor().textProperty().addListener((obs, ancien, saisie) -> {
+            // Texte recopié après un choix : rien à rechercher
+            T valeur = combo.getValue();
+            if (saisie == null || (valeur != null && Objects.equals(texte.apply(valeur), saisie))) {
+                derniere.incrementAndGet();
+                return;
+            }
+            long numero = derniere.incrementAndGet();
+            if (saisie.isBlank()) {
+                afficher(combo, List.of());
+                return;
+            }
+            CompletableFuture.supplyAsync(() -> completer.apply(saisie, LIMITE_PROPOSITIONS))
+                .whenComplete((propositions, erreur) -> Platform.runLater(() -> {
+                    if (numero != derniere.get()) {
+                        return;
+                    }
+                    if (erreur != null) {
+                        logger.error("Erreur de saisie semi-automatique pour \"{}\"", saisie, erreur);
+                        afficher(combo, List.of());
+                        return;
+                    }
+                    afficher(combo, propositions);
+                }));
+        });
+    }
+
+    private static <T> void afficher(ComboBox<T> combo, List<T> propositions) {
+        combo.getItems().setAll(propositions);
+        if (propositions.isEmpty()) {
+            combo.hide();
+        } else if (combo.getEditor().isFocused()) {
+            combo.show();
+        }
+    }
+}
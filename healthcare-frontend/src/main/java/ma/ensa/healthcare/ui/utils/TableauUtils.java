@@ -0,0 +1,109 @@
+package ma.ensa.healthcare.ui.utils;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.TableColumn;
+import javafx.stage.FileChooser;
+import ma.ensa.healthcare.util.ColonneTableau;
+import ma.ensa.healthcare.util.EcrivainTableau;
+import ma.ensa.healthcare.util.ReferencesTableau;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Desktop;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Colonnes des TableView et export CSV/XLSX des écrans de liste
+ */
+public class TableauUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableauUtils.class);
+
+    /**
+     * Export d'une liste vers un fichier
+     */
+    @FunctionalInterface
+    public interface ActionExport {
+        long exporter(Path fichier, EcrivainTableau.Format format);
+    }
+
+    /**
+     * Remplit une colonne avec le texte de sa définition partagée
+     * @param references Objets liés de la liste affichée (relus à chaque rendu de cellule)
+     */
+    public static <T> void lier(TableColumn<T, String> colonne, ColonneTableau<T> definition,
+                                Supplier<ReferencesTableau> references) {
+        colonne.setCellValueFactory(cellData ->
+            new SimpleStringProperty(definition.texte(cellData.getValue(), references.get())));
+    }
+
+    /**
+     * Demande un fichier (Excel ou CSV) puis lance l'export hors du thread JavaFX
+     * @param nomFichier Début du nom proposé (la date et l'extension sont ajoutées)
+     */
+    public static void exporter(Node source, String nomFichier, ActionExport action) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Exporter la liste");
+        FileChooser.ExtensionFilter filtreXlsx = new FileChooser.ExtensionFilter("Classeur Excel (*.xlsx)", "*.xlsx");
+        FileChooser.ExtensionFilter filtreCsv = new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv");
+        fileChooser.getExtensionFilters().addAll(filtreXlsx, filtreCsv);
+        fileChooser.setInitialFileName(nomFichier + "_" +
+            LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".xlsx");
+
+        File choisi = fileChooser.showSaveDialog(source.getScene().getWindow());
+        if (choisi == null) {
+            return;
+        }
+        EcrivainTableau.Format format = choisi.getName().contains(".")
+            ? EcrivainTableau.Format.depuisFichier(choisi.toPath())
+            : fileChooser.getSelectedExtensionFilter() == filtreCsv ? EcrivainTableau.Format.CSV : EcrivainTableau.Format.XLSX;
+        File file = choisi.getName().contains(".") ? choisi
+            : new File(choisi.getParentFile(), choisi.getName() + "." + format.getExtension());
+
+        source.setDisable(true);
+        CompletableFuture.supplyAsync(() -> action.exporter(file.toPath(), format))
+            .whenComplete((lignes, erreur) -> Platform.runLater(() -> {
+                source.setDisable(false);
+                if (erreur != null) {
+                    logger.error("Erreur lors de l'export vers {}", file, erreur);
+                    Throwable cause = erreur.getCause() != null ? erreur.getCause() : erreur;
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Erreur d'export");
+                    alert.setHeaderText(null);
+                    alert.setContentText(cause.getMessage());
+                    alert.showAndWait();
+                    return;
+                }
+
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Export réussi");
+                alert.setHeaderText("Fichier généré avec succès !");
+                alert.setContentText(lignes + " ligne(s) exportée(s).\n\nFichier: " + file.getName());
+                ButtonType btnOpen = new ButtonType("Ouvrir");
+                ButtonType btnClose = new ButtonType("Fermer", ButtonBar.ButtonData.CANCEL_CLOSE);
+                alert.getButtonTypes().setAll(btnOpen, btnClose);
+
+                Optional<ButtonType> result = alert.showAndWait();
+                if (result.isPresent() && result.get() == btnOpen) {
+                    try {
+                        if (Desktop.isDesktopSupported()) {
+                            Desktop.getDesktop().open(file);
+                        }
+                    } catch (Exception e) {
+                        logger.error("Impossible d'ouvrir le fichier", e);
+                    }
+                }
+            }));
+    }
+}